@@ -0,0 +1,36 @@
+package com.cache.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks at 1, 4 and 16 threads with the GC profiler, which adds the allocation rate
+ * (gc.alloc.rate.norm, bytes per operation) next to throughput and the SampleTime latency percentiles.
+ * Results go to jmh-result-{threads}.json for comparison against a baseline run.
+ *
+ * Usage: BenchmarkRunner [benchmark regex], e.g. BenchmarkRunner CacheServiceBenchmark.getHit
+ */
+public final class BenchmarkRunner {
+  private static final int[] THREAD_COUNTS = {1, 4, 16};
+
+  private BenchmarkRunner() {
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    String include = (args.length > 0) ? args[0] : BenchmarkRunner.class.getPackage().getName() + ".*";
+    for (int threads : THREAD_COUNTS) {
+      Options options = new OptionsBuilder()
+          .include(include)
+          .threads(threads)
+          .addProfiler(GCProfiler.class)
+          .resultFormat(ResultFormatType.JSON)
+          .result("jmh-result-" + threads + ".json")
+          .build();
+      new Runner(options).run();
+    }
+  }
+}
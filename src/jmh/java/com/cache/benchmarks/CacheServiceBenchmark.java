@@ -0,0 +1,111 @@
+package com.cache.benchmarks;
+
+import com.cache.exceptions.CacheException;
+import com.cache.expiration.AccessBasedExpiration;
+import com.cache.services.CacheService;
+import com.cache.store.InMemoryBackingStore;
+import com.cache.writepolicy.WriteThroughPolicy;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end cost of the cache's read and write paths, for each eviction policy.
+ * The cache holds CAPACITY keys out of a key space ten times larger.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheServiceBenchmark {
+  static final int CAPACITY = 1 << 14;
+  private static final int KEY_SPACE = 10 * CAPACITY;
+  private static final int SAMPLES = 1 << 20; // Keys drawn per distribution (power of two).
+  private static final int MASK = SAMPLES - 1;
+
+  @Param({"lru", "concurrent-lru", "tinylfu"})
+  String policy;
+
+  @Param({"UNIFORM", "ZIPFIAN"})
+  KeyDistribution distribution;
+
+  private CacheService<Integer, Integer> cache;
+  private int[] cachedKeys; // Drawn from keys the cache holds.
+  private int[] anyKeys; // Drawn from the whole key space.
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    InMemoryBackingStore<Integer, Integer> store = new InMemoryBackingStore<>();
+    for (int key = 0; key < KEY_SPACE; key++) {
+      store.store(key, key);
+    }
+    cache = new CacheService<>(CAPACITY, 0, Policies.create(policy, CAPACITY), store,
+        new WriteThroughPolicy<>(store), new AccessBasedExpiration<>(3_600));
+    for (int key = 0; key < CAPACITY; key++) {
+      cache.put(key, key);
+    }
+    cachedKeys = distribution.generate(SAMPLES, CAPACITY, 42);
+    anyKeys = distribution.generate(SAMPLES, KEY_SPACE, 43);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    cache.close();
+  }
+
+  /**
+   * Per-thread position in the key arrays, started at a random point so threads do not walk in step.
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+    int index = ThreadLocalRandom.current().nextInt();
+
+    int next() {
+      return index++ & MASK;
+    }
+  }
+
+  /** A hit on a key put before measurement; no loads, no evictions. */
+  @Benchmark
+  public Integer getHit(Cursor cursor) throws CacheException {
+    return cache.get(cachedKeys[cursor.next()]);
+  }
+
+  /**
+   * Reads over the whole key space: hits where the distribution concentrates, and misses that load
+   * from the store and evict elsewhere. The hit rate depends on the policy.
+   */
+  @Benchmark
+  public Integer getReadThrough(Cursor cursor) throws CacheException {
+    return cache.get(anyKeys[cursor.next()]);
+  }
+
+  /** A guaranteed miss: the key is removed first, so the read loads it and evicts another. */
+  @Benchmark
+  public Integer getMiss(Cursor cursor) throws CacheException {
+    int key = anyKeys[cursor.next()];
+    cache.remove(key);
+    return cache.get(key);
+  }
+
+  /** Puts over the whole key space into the full cache, so most puts evict. */
+  @Benchmark
+  public void putWithEviction(Cursor cursor) {
+    int key = anyKeys[cursor.next()];
+    cache.put(key, key);
+  }
+}
@@ -0,0 +1,212 @@
+package com.cache.benchmarks;
+
+import com.cache.cluster.ClusterCache;
+import com.cache.exceptions.CacheException;
+import com.cache.expiration.ExpirationStrategy;
+import com.cache.policies.ConcurrentLRUCacheEvictionPolicy;
+import com.cache.server.RemoteCache;
+import com.cache.server.RespServer;
+import com.cache.services.Cache;
+import com.cache.services.CacheService;
+import com.cache.store.InMemoryBackingStore;
+import com.cache.writepolicy.WriteThroughPolicy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A cluster of four nodes against a single node holding the same keys. With in-process nodes the gap is the
+ * cost of routing; with loopback nodes, each a {@link RespServer}, it adds a network round trip per call, or
+ * per node for a batch. {@link #rebalance} adds a fifth node and reads every key once, which moves its share
+ * of the keys, and reports how long that takes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClusterCacheBenchmark {
+  private static final int NODES = 4;
+  private static final int KEYS = 100_000;
+  private static final int BATCH = 64;
+  private static final int SAMPLES = 1 << 20; // Keys drawn (power of two).
+  private static final int MASK = SAMPLES - 1;
+
+  @Param({"in-process", "loopback"})
+  public String transport;
+
+  private final List<CacheService<String, byte[]>> nodeCaches = new ArrayList<>();
+  private final List<RespServer> servers = new ArrayList<>();
+  private CacheService<String, byte[]> single;
+  private ClusterCache<String, byte[]> cluster;
+  private String[] keys;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    single = node();
+    Map<String, Cache<String, byte[]>> nodes = new LinkedHashMap<>();
+    for (int i = 0; i < NODES; i++) {
+      nodes.put("node-" + i, connect(node()));
+    }
+    cluster = new ClusterCache<>(nodes);
+    int[] drawn = KeyDistribution.ZIPFIAN.generate(SAMPLES, KEYS, 42);
+    keys = new String[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      keys[i] = "key-" + drawn[i];
+    }
+    byte[] value = new byte[100];
+    for (int i = 0; i < KEYS; i++) {
+      single.put("key-" + i, value);
+      cluster.put("key-" + i, value);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    cluster.close();
+    single.close();
+    for (RespServer server : servers) {
+      server.close();
+    }
+    for (CacheService<String, byte[]> cache : nodeCaches) {
+      cache.close();
+    }
+  }
+
+  /**
+   * Per-thread position in the key array, started at a random point so threads do not walk in step.
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+    int index = ThreadLocalRandom.current().nextInt();
+
+    int next() {
+      return index++ & MASK;
+    }
+
+    List<String> nextBatch(String[] keys) {
+      List<String> batch = new ArrayList<>(BATCH);
+      for (int i = 0; i < BATCH; i++) {
+        batch.add(keys[next()]);
+      }
+      return batch;
+    }
+  }
+
+  /** A hit on one node, without routing. */
+  @Benchmark
+  public byte[] singleNodeGet(Cursor cursor) throws CacheException {
+    return single.get(keys[cursor.next()]);
+  }
+
+  /** A hit routed to the owning node. */
+  @Benchmark
+  public byte[] clusterGet(Cursor cursor) throws CacheException {
+    return cluster.get(keys[cursor.next()]);
+  }
+
+  /** A batch of hits on one node. */
+  @Benchmark
+  public Map<String, byte[]> singleNodeGetAll(Cursor cursor) throws CacheException {
+    return single.getAll(cursor.nextBatch(keys));
+  }
+
+  /** A batch of hits split into one batch per node, sent in parallel. */
+  @Benchmark
+  public Map<String, byte[]> clusterGetAll(Cursor cursor) throws CacheException {
+    return cluster.getAll(cursor.nextBatch(keys));
+  }
+
+  /**
+   * Adds a node to a fresh copy of the cluster and reads every key, which moves a fifth of them to it.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 2)
+  @Measurement(iterations = 5)
+  public long rebalance(RebalanceState state) throws CacheException {
+    state.cluster.addNode("node-" + NODES, state.added);
+    for (int i = 0; i < KEYS; i++) {
+      state.cluster.get("key-" + i);
+    }
+    state.cluster.finishRebalance();
+    return state.cluster.migratedCount();
+  }
+
+  /**
+   * A cluster of in-process nodes filled with every key, rebuilt for each rebalance.
+   */
+  @State(Scope.Thread)
+  public static class RebalanceState {
+    ClusterCache<String, byte[]> cluster;
+    CacheService<String, byte[]> added;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+      Map<String, Cache<String, byte[]>> nodes = new LinkedHashMap<>();
+      for (int i = 0; i < NODES; i++) {
+        nodes.put("node-" + i, storeless());
+      }
+      cluster = new ClusterCache<>(nodes);
+      byte[] value = new byte[100];
+      for (int i = 0; i < KEYS; i++) {
+        cluster.put("key-" + i, value);
+      }
+      added = storeless();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+      cluster.close();
+    }
+  }
+
+  private Cache<String, byte[]> connect(CacheService<String, byte[]> cache) throws IOException {
+    nodeCaches.add(cache);
+    if (!transport.equals("loopback")) {
+      return cache;
+    }
+    RespServer server = new RespServer(cache, new InetSocketAddress("127.0.0.1", 0), 2);
+    servers.add(server);
+    return new RemoteCache(server.getLocalAddress());
+  }
+
+  private static CacheService<String, byte[]> node() {
+    InMemoryBackingStore<String, byte[]> store = new InMemoryBackingStore<>();
+    return new CacheService<>(KEYS, 0, new ConcurrentLRUCacheEvictionPolicy<>(), store,
+        new WriteThroughPolicy<>(store), neverExpire());
+  }
+
+  /**
+   * A node without a backing store, so a key it does not hold is only found on its previous owner.
+   */
+  private static CacheService<String, byte[]> storeless() {
+    InMemoryBackingStore<String, byte[]> discarded = new InMemoryBackingStore<>();
+    return new CacheService<>(KEYS, 0, new ConcurrentLRUCacheEvictionPolicy<>(), new InMemoryBackingStore<>(),
+        new WriteThroughPolicy<>(discarded), neverExpire());
+  }
+
+  private static ExpirationStrategy<String, byte[]> neverExpire() {
+    return (entry, now) -> Long.MAX_VALUE;
+  }
+}
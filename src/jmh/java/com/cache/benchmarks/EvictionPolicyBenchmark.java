@@ -0,0 +1,80 @@
+package com.cache.benchmarks;
+
+import com.cache.policies.CacheEvictionPolicy;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of each eviction policy in isolation, without the cache map around it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EvictionPolicyBenchmark {
+  private static final int CAPACITY = 1 << 14;
+  private static final int SAMPLES = 1 << 20;
+  private static final int MASK = SAMPLES - 1;
+
+  @Param({"lru", "concurrent-lru", "tinylfu"})
+  String policy;
+
+  @Param({"UNIFORM", "ZIPFIAN"})
+  KeyDistribution distribution;
+
+  private CacheEvictionPolicy<Integer> evictionPolicy;
+  private Integer[] keys; // Boxed once so the benchmark measures the policy, not Integer.valueOf.
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    evictionPolicy = Policies.create(policy, CAPACITY);
+    for (int key = 0; key < CAPACITY; key++) {
+      evictionPolicy.recordAccess(key);
+    }
+    int[] drawn = distribution.generate(SAMPLES, CAPACITY, 42);
+    keys = new Integer[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      keys[i] = drawn[i];
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int index = ThreadLocalRandom.current().nextInt();
+
+    int next() {
+      return index++ & MASK;
+    }
+  }
+
+  /** Recording a hit on a tracked key. */
+  @Benchmark
+  public void recordAccess(Cursor cursor) {
+    evictionPolicy.recordAccess(keys[cursor.next()]);
+  }
+
+  /** Choosing and dropping a victim, then tracking its replacement, as a put into a full cache does. */
+  @Benchmark
+  public Integer evict(Cursor cursor) {
+    Integer victim = evictionPolicy.getEvictionCandidate();
+    if (victim != null) {
+      evictionPolicy.removeKey(victim);
+    }
+    evictionPolicy.recordAccess(keys[cursor.next()]);
+    return victim;
+  }
+}
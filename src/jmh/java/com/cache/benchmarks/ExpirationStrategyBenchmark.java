@@ -0,0 +1,91 @@
+package com.cache.benchmarks;
+
+import com.cache.expiration.AccessBasedExpiration;
+import com.cache.expiration.CreationBasedExpiration;
+import com.cache.expiration.ExpirationStrategy;
+import com.cache.expiration.TimeBasedExpiration;
+import com.cache.models.CacheEntry;
+import com.cache.time.Ticker;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-read cost of each expiration strategy: the expiry check plus the deadline update a hit makes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpirationStrategyBenchmark {
+  private static final int ENTRIES = 1 << 14;
+  private static final int MASK = ENTRIES - 1;
+
+  @Param({"access", "creation", "time"})
+  String strategy;
+
+  private ExpirationStrategy<Integer, Integer> expirationStrategy;
+  private Ticker ticker;
+  private CacheEntry<Integer, Integer>[] entries;
+
+  @Setup(Level.Trial)
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    ticker = Ticker.systemTicker();
+    switch (strategy) {
+      case "access":
+        expirationStrategy = new AccessBasedExpiration<>(3_600);
+        break;
+      case "creation":
+        expirationStrategy = new CreationBasedExpiration<>(3_600);
+        break;
+      case "time":
+        expirationStrategy = new TimeBasedExpiration<>(3_600, ticker);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown expiration strategy: " + strategy);
+    }
+    entries = new CacheEntry[ENTRIES];
+    long now = ticker.read();
+    for (int i = 0; i < ENTRIES; i++) {
+      entries[i] = new CacheEntry<>(i, i, now);
+      entries[i].setExpirationTime(expirationStrategy.expireAfterCreate(entries[i], now));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int index;
+
+    int next() {
+      return index++ & MASK;
+    }
+  }
+
+  /** What the cache does for each hit. */
+  @Benchmark
+  public boolean read(Cursor cursor) {
+    CacheEntry<Integer, Integer> entry = entries[cursor.next()];
+    long now = ticker.read();
+    if (expirationStrategy.isExpired(entry, now)) {
+      return true;
+    }
+    long deadline = expirationStrategy.expireAfterRead(entry, now);
+    if (deadline != entry.getExpirationTime()) {
+      entry.setExpirationTime(deadline);
+    }
+    return false;
+  }
+}
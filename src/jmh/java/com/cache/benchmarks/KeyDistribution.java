@@ -0,0 +1,68 @@
+package com.cache.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Key access patterns for benchmarks. Keys are generated up front so that drawing one costs an
+ * array read and nothing of the generator shows up in the measurement.
+ */
+public enum KeyDistribution {
+  /** Every key equally likely. */
+  UNIFORM {
+    @Override
+    int[] generate(int count, int keySpace, long seed) {
+      Random random = new Random(seed);
+      int[] keys = new int[count];
+      for (int i = 0; i < count; i++) {
+        keys[i] = random.nextInt(keySpace);
+      }
+      return keys;
+    }
+  },
+
+  /** Few hot keys and a long tail, as in most production caches (Zipf exponent 0.99). */
+  ZIPFIAN {
+    @Override
+    int[] generate(int count, int keySpace, long seed) {
+      // Gray et al., "Quickly Generating Billion-Record Synthetic Databases", as used by YCSB.
+      double theta = 0.99;
+      double zetaN = zeta(keySpace, theta);
+      double alpha = 1.0 / (1.0 - theta);
+      double eta = (1 - Math.pow(2.0 / keySpace, 1 - theta)) / (1 - zeta(2, theta) / zetaN);
+      Random random = new Random(seed);
+      int[] keys = new int[count];
+      for (int i = 0; i < count; i++) {
+        double u = random.nextDouble();
+        double uz = u * zetaN;
+        int rank;
+        if (uz < 1.0) {
+          rank = 0;
+        } else if (uz < 1.0 + Math.pow(0.5, theta)) {
+          rank = 1;
+        } else {
+          rank = (int) (keySpace * Math.pow(eta * u - eta + 1, alpha));
+        }
+        keys[i] = scramble(Math.min(rank, keySpace - 1), keySpace); // Spread hot keys over the key space.
+      }
+      return keys;
+    }
+  };
+
+  /**
+   * Returns count keys in [0, keySpace).
+   */
+  abstract int[] generate(int count, int keySpace, long seed);
+
+  private static double zeta(int n, double theta) {
+    double sum = 0;
+    for (int i = 1; i <= n; i++) {
+      sum += 1 / Math.pow(i, theta);
+    }
+    return sum;
+  }
+
+  private static int scramble(int rank, int keySpace) {
+    long hash = rank * 0x9E3779B97F4A7C15L;
+    return (int) Math.floorMod(hash ^ (hash >>> 32), (long) keySpace);
+  }
+}
@@ -0,0 +1,118 @@
+package com.cache.benchmarks;
+
+import com.cache.exceptions.CacheException;
+import com.cache.expiration.AccessBasedExpiration;
+import com.cache.expiration.LongExpiration;
+import com.cache.policies.ConcurrentLRUCacheEvictionPolicy;
+import com.cache.policies.LongClockEvictionPolicy;
+import com.cache.services.CacheService;
+import com.cache.services.LongKeyCache;
+import com.cache.store.InMemoryBackingStore;
+import com.cache.writepolicy.WriteThroughPolicy;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The long-key cache against the generic cache on Long keys, with the same capacity, access-based
+ * expiration and write-through store. Compare the latency percentiles of the hit benchmarks, and the
+ * allocation per operation the GC profiler reports for the write benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LongKeyCacheBenchmark {
+  private static final int CAPACITY = CacheServiceBenchmark.CAPACITY;
+  private static final int KEY_SPACE = 10 * CAPACITY;
+  private static final int SAMPLES = 1 << 20; // Keys drawn per distribution (power of two).
+  private static final int MASK = SAMPLES - 1;
+
+  private CacheService<Long, Long> genericCache;
+  private LongKeyCache<Long> longCache;
+  private long[] cachedKeys; // Zipfian over keys the caches hold.
+  private long[] anyKeys; // Zipfian over the whole key space.
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    InMemoryBackingStore<Long, Long> store = new InMemoryBackingStore<>();
+    for (long key = 0; key < KEY_SPACE; key++) {
+      store.store(key, key);
+    }
+    genericCache = new CacheService<>(CAPACITY, 0, new ConcurrentLRUCacheEvictionPolicy<>(), store,
+        new WriteThroughPolicy<>(store), new AccessBasedExpiration<>(3_600));
+    longCache = new LongKeyCache<>(CAPACITY, new LongClockEvictionPolicy(CAPACITY), store,
+        new WriteThroughPolicy<>(store), LongExpiration.afterAccess(3_600));
+    for (long key = 0; key < CAPACITY; key++) {
+      genericCache.put(key, key);
+      longCache.put(key, key);
+    }
+    cachedKeys = widen(KeyDistribution.ZIPFIAN.generate(SAMPLES, CAPACITY, 42));
+    anyKeys = widen(KeyDistribution.ZIPFIAN.generate(SAMPLES, KEY_SPACE, 43));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    genericCache.close();
+    longCache.close();
+  }
+
+  /**
+   * Per-thread position in the key arrays, started at a random point so threads do not walk in step.
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+    int index = ThreadLocalRandom.current().nextInt();
+
+    int next() {
+      return index++ & MASK;
+    }
+  }
+
+  /** A hit on the generic cache, which boxes the key. */
+  @Benchmark
+  public Long genericGetHit(Cursor cursor) throws CacheException {
+    return genericCache.get(cachedKeys[cursor.next()]);
+  }
+
+  /** A hit on the long-key cache. */
+  @Benchmark
+  public Long longGetHit(Cursor cursor) throws CacheException {
+    return longCache.get(cachedKeys[cursor.next()]);
+  }
+
+  /** Puts over the whole key space into the full generic cache, so most puts evict. */
+  @Benchmark
+  public void genericPutWithEviction(Cursor cursor) {
+    long key = anyKeys[cursor.next()];
+    genericCache.put(key, key);
+  }
+
+  /** Puts over the whole key space into the full long-key cache, so most puts evict. */
+  @Benchmark
+  public void longPutWithEviction(Cursor cursor) {
+    long key = anyKeys[cursor.next()];
+    longCache.put(key, key);
+  }
+
+  private static long[] widen(int[] keys) {
+    long[] widened = new long[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      widened[i] = keys[i];
+    }
+    return widened;
+  }
+}
@@ -0,0 +1,28 @@
+package com.cache.benchmarks;
+
+import com.cache.policies.CacheEvictionPolicy;
+import com.cache.policies.ConcurrentLRUCacheEvictionPolicy;
+import com.cache.policies.LRUCacheEvictionPolicy;
+import com.cache.policies.WTinyLFUCacheEvictionPolicy;
+
+/**
+ * Creates eviction policies by the names used in benchmark parameters.
+ */
+final class Policies {
+
+  private Policies() {
+  }
+
+  static <K> CacheEvictionPolicy<K> create(String name, int capacity) {
+    switch (name) {
+      case "lru":
+        return new LRUCacheEvictionPolicy<>(); // One lock around an access-ordered set.
+      case "concurrent-lru":
+        return new ConcurrentLRUCacheEvictionPolicy<>();
+      case "tinylfu":
+        return new WTinyLFUCacheEvictionPolicy<>(capacity);
+      default:
+        throw new IllegalArgumentException("Unknown eviction policy: " + name);
+    }
+  }
+}
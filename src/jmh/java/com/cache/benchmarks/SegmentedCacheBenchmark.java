@@ -0,0 +1,101 @@
+package com.cache.benchmarks;
+
+import com.cache.exceptions.CacheException;
+import com.cache.expiration.AccessBasedExpiration;
+import com.cache.services.SegmentedCacheService;
+import com.cache.store.InMemoryBackingStore;
+import com.cache.writepolicy.WriteThroughPolicy;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the segmented cache by segment count, for a read-heavy mix and for evicting writes.
+ * One segment is the single-policy baseline. Comparing a row across the 1, 4 and 16 thread runs of
+ * {@link BenchmarkRunner} shows how throughput scales with cores: with enough segments it should grow
+ * close to linearly, while the baseline flattens once threads queue on its policy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SegmentedCacheBenchmark {
+  private static final int CAPACITY = CacheServiceBenchmark.CAPACITY;
+  private static final int KEY_SPACE = 10 * CAPACITY;
+  private static final int SAMPLES = 1 << 20; // Keys drawn per distribution (power of two).
+  private static final int MASK = SAMPLES - 1;
+
+  @Param({"1", "4", "16", "64"})
+  int segments;
+
+  @Param({"lru", "tinylfu"})
+  String policy;
+
+  private SegmentedCacheService<Integer, Integer> cache;
+  private int[] keys; // Zipfian over the whole key space.
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    InMemoryBackingStore<Integer, Integer> store = new InMemoryBackingStore<>();
+    for (int key = 0; key < KEY_SPACE; key++) {
+      store.store(key, key);
+    }
+    cache = new SegmentedCacheService<>(segments, CAPACITY, 0,
+        segmentCapacity -> Policies.create(policy, segmentCapacity), store, new WriteThroughPolicy<>(store),
+        new AccessBasedExpiration<>(3_600));
+    for (int key = 0; key < CAPACITY; key++) {
+      cache.put(key, key);
+    }
+    keys = KeyDistribution.ZIPFIAN.generate(SAMPLES, KEY_SPACE, 42);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    cache.close();
+  }
+
+  /**
+   * Per-thread position in the key array, started at a random point so threads do not walk in step.
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+    int index = ThreadLocalRandom.current().nextInt();
+
+    int next() {
+      return index++ & MASK;
+    }
+  }
+
+  /** Reads with one write in eight, over the whole key space; misses load and evict. */
+  @Benchmark
+  public Integer readMostly(Cursor cursor) throws CacheException {
+    int position = cursor.next();
+    int key = keys[position];
+    if ((position & 7) == 0) {
+      cache.put(key, key);
+      return key;
+    }
+    return cache.get(key);
+  }
+
+  /** Puts over the whole key space into the full cache, so most puts evict. */
+  @Benchmark
+  public void putWithEviction(Cursor cursor) {
+    int key = keys[cursor.next()];
+    cache.put(key, key);
+  }
+}
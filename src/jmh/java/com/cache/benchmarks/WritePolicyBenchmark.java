@@ -0,0 +1,97 @@
+package com.cache.benchmarks;
+
+import com.cache.store.InMemoryBackingStore;
+import com.cache.writepolicy.WriteBackPolicy;
+import com.cache.writepolicy.WriteBehindPolicy;
+import com.cache.writepolicy.WritePolicy;
+import com.cache.writepolicy.WriteThroughPolicy;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost a write policy adds to each put and eviction, against an in-memory store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WritePolicyBenchmark {
+  private static final int SAMPLES = 1 << 20;
+  private static final int MASK = SAMPLES - 1;
+
+  @Param({"write-through", "write-back", "write-behind"})
+  String policy;
+
+  @Param({"UNIFORM", "ZIPFIAN"})
+  KeyDistribution distribution;
+
+  private WritePolicy<Integer, Integer> writePolicy;
+  private Integer[] keys;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    InMemoryBackingStore<Integer, Integer> store = new InMemoryBackingStore<>();
+    switch (policy) {
+      case "write-through":
+        writePolicy = new WriteThroughPolicy<>(store);
+        break;
+      case "write-back":
+        writePolicy = new WriteBackPolicy<>(store);
+        break;
+      case "write-behind":
+        writePolicy = new WriteBehindPolicy<>(store);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown write policy: " + policy);
+    }
+    int[] drawn = distribution.generate(SAMPLES, CacheServiceBenchmark.CAPACITY, 42);
+    keys = new Integer[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      keys[i] = drawn[i];
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    writePolicy.close();
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int index = ThreadLocalRandom.current().nextInt();
+
+    int next() {
+      return index++ & MASK;
+    }
+  }
+
+  @Benchmark
+  public void write(Cursor cursor) {
+    Integer key = keys[cursor.next()];
+    writePolicy.handleWrite(key, key);
+  }
+
+  /** A write followed by the eviction of a key written earlier, as a put into a full cache does. */
+  @Benchmark
+  public void writeAndEvict(Cursor cursor) {
+    Integer key = keys[cursor.next()];
+    writePolicy.handleWrite(key, key);
+    Integer evicted = keys[(cursor.index + SAMPLES / 2) & MASK];
+    writePolicy.handleEviction(evicted, evicted);
+  }
+}
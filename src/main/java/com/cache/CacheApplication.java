@@ -3,15 +3,19 @@ package com.cache;
 import com.cache.expiration.AccessBasedExpiration;
 import com.cache.expiration.CreationBasedExpiration;
 import com.cache.expiration.TimeBasedExpiration;
+import com.cache.services.CacheOptions;
 import com.cache.services.CacheService;
+import com.cache.stats.CacheMetrics;
 import com.cache.policies.LRUCacheEvictionPolicy;
 import com.cache.store.InMemoryBackingStore;
 import com.cache.writepolicy.WriteBackPolicy;
 import com.cache.exceptions.CacheException;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.logging.Logger;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 public class CacheApplication {
@@ -19,7 +23,7 @@ public class CacheApplication {
   private static final Logger logger = Logger.getLogger(CacheApplication.class.getName());
 
   public static void main(String[] args) {
-    SpringApplication.run(CacheApplication.class, args);
+    ConfigurableApplicationContext context = SpringApplication.run(CacheApplication.class, args);
     // Initialize components.
     LRUCacheEvictionPolicy<String> evictionPolicy = new LRUCacheEvictionPolicy<>();
     InMemoryBackingStore<String, String> backingStore = new InMemoryBackingStore<>();
@@ -31,7 +35,10 @@ public class CacheApplication {
     backingStore.store("key3", "value3");
 
     // Create cache service with capacity = 2.
-    CacheService<String, String> cache = new CacheService<>(2,3, evictionPolicy, backingStore, writeBackPolicy, new AccessBasedExpiration<>(5));
+    CacheService<String, String> cache = new CacheService<>(2,3, evictionPolicy, backingStore, writeBackPolicy, new AccessBasedExpiration<>(5),
+        new CacheOptions<String, String>().recordStats());
+    // Publish hit/miss/load/eviction metrics at /actuator/metrics when Actuator is on the classpath.
+    context.getBeanProvider(MeterRegistry.class).ifAvailable(registry -> CacheMetrics.monitor(registry, cache, "demo"));
 
     try {
       // -------------------------------
@@ -135,6 +142,7 @@ public class CacheApplication {
       // Wait for additional time to verify no refresh tasks are running
       Thread.sleep(7000);
       logger.info("Test completed. Refresh tasks should NOT execute after shutdown.");
+      logger.info("Cache stats: " + cache.stats());
       //logger.info("scheduler shutdown verified");
 
 
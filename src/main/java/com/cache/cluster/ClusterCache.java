@@ -0,0 +1,469 @@
+package com.cache.cluster;
+
+import com.cache.exceptions.CacheException;
+import com.cache.services.Cache;
+import com.cache.stats.CacheStats;
+import com.cache.stats.ConcurrentStatsCounter;
+import com.cache.stats.StatsCounter;
+import com.cache.store.ExecutorBackingStore;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A cache whose keyspace is partitioned over several node caches by a {@link HashRing}, so together they
+ * hold more than one heap can. Nodes are any {@link Cache}: {@link com.cache.services.CacheService}s in this
+ * process, or {@link com.cache.server.RemoteCache}s reaching caches in other processes over RESP. Every key
+ * is read and written on the node owning it; getAll and putAll send one batch per node, in parallel.
+ *
+ * Adding or removing a node swaps in a new ring at once, which moves only the keys in the affected ranges.
+ * Those keys are rebalanced lazily: until {@link #finishRebalance()}, a miss on a key's new owner falls back
+ * to its previous owner, and a value found there is moved over. Every write that lands on a moved key also
+ * invalidates the previous owner's copy, so a later fallback cannot bring back an older value. Finishing
+ * the rebalance removes the copies still left on nodes that gave a key up, so a later change handing the
+ * range back to them cannot serve those copies again.
+ */
+public class ClusterCache<K, V> implements Cache<K, V> {
+  private static final Logger logger = Logger.getLogger(ClusterCache.class.getName());
+  public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+  private volatile Topology<K, V> topology;
+  private final ExecutorService batchExecutor; // Sends the per-node batches of getAll and putAll.
+  private final StatsCounter statsCounter = new ConcurrentStatsCounter(); // Hits and misses seen by callers.
+  private final LongAdder migrated = new LongAdder(); // Keys moved from a previous owner.
+  private final LongAdder invalidations = new LongAdder(); // Copies removed from a previous owner.
+
+  /**
+   * Constructor for ClusterCache
+   */
+  public ClusterCache(Map<String, ? extends Cache<K, V>> nodes) {
+    this(nodes, DEFAULT_VIRTUAL_NODES);
+  }
+
+  /**
+   * Creates a cluster of the named nodes, each placed at virtualNodes points on the ring. Every process
+   * sharing the nodes must use the same names and virtual node count to route keys the same way.
+   */
+  public ClusterCache(Map<String, ? extends Cache<K, V>> nodes, int virtualNodes) {
+    if (nodes.isEmpty()) {
+      throw new IllegalArgumentException("A cluster needs at least one node.");
+    }
+    HashRing<Cache<K, V>> ring = new HashRing<>(virtualNodes);
+    for (Map.Entry<String, ? extends Cache<K, V>> node : nodes.entrySet()) {
+      ring = ring.withNode(node.getKey(), node.getValue());
+    }
+    this.topology = new Topology<>(ring, null);
+    this.batchExecutor = ExecutorBackingStore.newVirtualThreadExecutor();
+  }
+
+  @Override
+  public void put(K key, V value) {
+    Topology<K, V> t = topology;
+    Cache<K, V> owner = t.ring.ownerOf(key);
+    owner.put(key, value);
+    invalidatePrevious(t, key, owner);
+  }
+
+  @Override
+  public void put(K key, V value, Duration timeToLive) {
+    Topology<K, V> t = topology;
+    Cache<K, V> owner = t.ring.ownerOf(key);
+    owner.put(key, value, timeToLive);
+    invalidatePrevious(t, key, owner);
+  }
+
+  @Override
+  public V get(K key) throws CacheException {
+    Topology<K, V> t = topology;
+    Cache<K, V> owner = t.ring.ownerOf(key);
+    try {
+      V value = owner.get(key);
+      statsCounter.recordHits(1);
+      return value;
+    } catch (CacheException e) {
+      Cache<K, V> previous = previousOwner(t, key, owner);
+      if (previous != null) {
+        try {
+          V value = migrate(key, previous.get(key), owner, previous);
+          statsCounter.recordHits(1);
+          return value;
+        } catch (CacheException notMoved) {
+          // Not on the previous owner either.
+        }
+      }
+      statsCounter.recordMisses(1);
+      throw e;
+    }
+  }
+
+  @Override
+  public V getOrNull(K key) throws CacheException {
+    Topology<K, V> t = topology;
+    Cache<K, V> owner = t.ring.ownerOf(key);
+    V value = owner.getOrNull(key);
+    if (value == null) {
+      Cache<K, V> previous = previousOwner(t, key, owner);
+      V moved = (previous == null) ? null : previous.getOrNull(key);
+      if (moved != null) {
+        value = migrate(key, moved, owner, previous);
+      }
+    }
+    if (value == null) {
+      statsCounter.recordMisses(1);
+    } else {
+      statsCounter.recordHits(1);
+    }
+    return value;
+  }
+
+  /**
+   * Returns the value from the key's owner, else from its previous owner while rebalancing, else from the
+   * loader. Either way the value is installed on the owner.
+   */
+  @Override
+  public V getOrLoad(K key, Function<? super K, ? extends V> loader) throws CacheException {
+    Topology<K, V> t = topology;
+    Cache<K, V> owner = t.ring.ownerOf(key);
+    Cache<K, V> previous = previousOwner(t, key, owner);
+    if (previous == null) {
+      return owner.getOrLoad(key, loader);
+    }
+    V value = owner.getOrLoad(key, k -> {
+      try {
+        V moved = previous.get(k);
+        migrated.increment();
+        return moved;
+      } catch (CacheException e) {
+        return loader.apply(k);
+      }
+    });
+    previous.remove(key);
+    return value;
+  }
+
+  @Override
+  public boolean remove(K key) {
+    Topology<K, V> t = topology;
+    Cache<K, V> owner = t.ring.ownerOf(key);
+    boolean cached = owner.remove(key);
+    return invalidatePrevious(t, key, owner) || cached;
+  }
+
+  /**
+   * Reads the keys with one getAll per owning node, sent to all nodes at once. While rebalancing, the keys
+   * missing from their owners are then looked up on their previous owners, again one batch per node.
+   */
+  @Override
+  public Map<K, V> getAll(Collection<? extends K> keys) throws CacheException {
+    Topology<K, V> t = topology;
+    Map<Cache<K, V>, List<K>> byOwner = groupByOwner(t.ring, keys);
+    Map<K, V> found = fetchAll(byOwner);
+    if (t.previous != null && found.size() < keys.size()) {
+      Map<Cache<K, V>, List<K>> byPrevious = new IdentityHashMap<>();
+      for (K key : keys) {
+        Cache<K, V> previous = found.containsKey(key) ? null : previousOwner(t, key, t.ring.ownerOf(key));
+        if (previous != null) {
+          byPrevious.computeIfAbsent(previous, node -> new ArrayList<>()).add(key);
+        }
+      }
+      if (!byPrevious.isEmpty()) {
+        for (Map.Entry<K, V> entry : fetchAll(byPrevious).entrySet()) {
+          K key = entry.getKey();
+          found.put(key, migrate(key, entry.getValue(), t.ring.ownerOf(key), t.previous.ownerOf(key)));
+        }
+      }
+    }
+    statsCounter.recordHits(found.size());
+    statsCounter.recordMisses(keys.size() - found.size());
+    return found;
+  }
+
+  /**
+   * Writes the entries with one putAll per owning node, sent to all nodes at once.
+   */
+  @Override
+  public void putAll(Map<? extends K, ? extends V> entries) {
+    Topology<K, V> t = topology;
+    Map<Cache<K, V>, Map<K, V>> byOwner = new IdentityHashMap<>();
+    for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+      byOwner.computeIfAbsent(t.ring.ownerOf(entry.getKey()), node -> new HashMap<>())
+          .put(entry.getKey(), entry.getValue());
+    }
+    if (byOwner.size() == 1) {
+      Map.Entry<Cache<K, V>, Map<K, V>> only = byOwner.entrySet().iterator().next();
+      only.getKey().putAll(only.getValue());
+    } else {
+      List<CompletableFuture<Void>> batches = new ArrayList<>(byOwner.size());
+      for (Map.Entry<Cache<K, V>, Map<K, V>> batch : byOwner.entrySet()) {
+        batches.add(CompletableFuture.runAsync(() -> batch.getKey().putAll(batch.getValue()), batchExecutor));
+      }
+      try {
+        CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).join();
+      } catch (CompletionException e) {
+        throw (e.getCause() instanceof RuntimeException) ? (RuntimeException) e.getCause() : e;
+      }
+    }
+    if (t.previous != null) {
+      for (K key : entries.keySet()) {
+        invalidatePrevious(t, key, t.ring.ownerOf(key));
+      }
+    }
+  }
+
+  /**
+   * Returns the keys on the current nodes, including keys left behind by a rebalance in progress.
+   */
+  @Override
+  public Set<K> keys() {
+    Set<K> keys = new HashSet<>();
+    for (Cache<K, V> node : topology.ring.nodes().values()) {
+      keys.addAll(node.keys());
+    }
+    return keys;
+  }
+
+  /**
+   * Returns the number of entries on the current nodes, including keys left behind by a rebalance.
+   */
+  @Override
+  public int size() {
+    int size = 0;
+    for (Cache<K, V> node : topology.ring.nodes().values()) {
+      size += node.size();
+    }
+    return size;
+  }
+
+  @Override
+  public long weightedSize() {
+    long weightedSize = 0;
+    for (Cache<K, V> node : topology.ring.nodes().values()) {
+      weightedSize += node.weightedSize();
+    }
+    return weightedSize;
+  }
+
+  /**
+   * Returns the hits and misses seen by this cache's callers, where a key found on its previous owner is
+   * a hit. Loads, evictions and expirations are counted by each node.
+   */
+  @Override
+  public CacheStats stats() {
+    return statsCounter.snapshot();
+  }
+
+  @Override
+  public void cleanUp() {
+    for (Cache<K, V> node : topology.ring.nodes().values()) {
+      node.cleanUp();
+    }
+  }
+
+  /**
+   * Adds a node, which takes over its share of the keyspace at once, and starts rebalancing the keys it
+   * now owns. A rebalance still in progress is finished first.
+   */
+  public synchronized void addNode(String name, Cache<K, V> node) {
+    finishRebalance();
+    HashRing<Cache<K, V>> ring = topology.ring;
+    changeRing(ring.withNode(name, node));
+  }
+
+  /**
+   * Removes a node, whose keys move to the remaining nodes. It keeps answering fallback reads until
+   * {@link #finishRebalance()}, after which the caller may close it. A rebalance still in progress is
+   * finished first.
+   */
+  public synchronized void removeNode(String name) {
+    if (topology.ring.nodes().size() == 1) {
+      throw new IllegalStateException("Cannot remove the last node.");
+    }
+    finishRebalance();
+    HashRing<Cache<K, V>> ring = topology.ring;
+    changeRing(ring.withoutNode(name));
+  }
+
+  /**
+   * Stops falling back to previous owners, then removes from every node still in the ring the keys it gave
+   * up. Keys that were not moved by then are read again from the new owners' backing stores. Listing and
+   * removing the keys takes a pass over each such node, during which membership changes wait.
+   */
+  public synchronized void finishRebalance() {
+    Topology<K, V> t = topology;
+    if (t.previous == null) {
+      return;
+    }
+    topology = new Topology<>(t.ring, null);
+    for (Cache<K, V> node : t.previous.nodes().values()) {
+      if (t.ring.nodes().containsValue(node)) { // Removed nodes are left to the caller.
+        removeMovedKeys(t.ring, node);
+      }
+    }
+  }
+
+  public boolean isRebalancing() {
+    return topology.previous != null;
+  }
+
+  public HashRing<Cache<K, V>> ring() {
+    return topology.ring;
+  }
+
+  /**
+   * Returns the number of keys moved from a previous owner to a new one since this cache was created.
+   */
+  public long migratedCount() {
+    return migrated.sum();
+  }
+
+  /**
+   * Returns the number of copies removed from previous owners, by writes and by finishing rebalances,
+   * since this cache was created.
+   */
+  public long invalidationCount() {
+    return invalidations.sum();
+  }
+
+  /**
+   * Closes the current nodes. Nodes removed earlier are left to the caller.
+   */
+  @Override
+  public void close() {
+    batchExecutor.shutdown();
+    for (Cache<K, V> node : topology.ring.nodes().values()) {
+      node.close();
+    }
+  }
+
+  private void changeRing(HashRing<Cache<K, V>> ring) {
+    HashRing<Cache<K, V>> current = topology.ring;
+    topology = new Topology<>(ring, current);
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine(String.format("Ring changed to %s; %.1f%% of the keyspace moves.",
+          ring.nodes().keySet(), 100 * current.movedFraction(ring)));
+    }
+  }
+
+  /**
+   * Returns the node that owned the key before the last membership change, or null if it is the owner or
+   * the cluster is not rebalancing.
+   */
+  private Cache<K, V> previousOwner(Topology<K, V> t, K key, Cache<K, V> owner) {
+    if (t.previous == null) {
+      return null;
+    }
+    Cache<K, V> previous = t.previous.ownerOf(key);
+    return (previous == owner) ? null : previous;
+  }
+
+  private boolean invalidatePrevious(Topology<K, V> t, K key, Cache<K, V> owner) {
+    Cache<K, V> previous = previousOwner(t, key, owner);
+    if (previous == null) {
+      return false;
+    }
+    invalidations.increment();
+    return previous.remove(key);
+  }
+
+  /**
+   * Removes the copies a node holds of keys the ring now gives to other nodes. A node that fails is
+   * skipped, and keeps its copies until it evicts them.
+   */
+  private void removeMovedKeys(HashRing<Cache<K, V>> ring, Cache<K, V> node) {
+    int removed = 0;
+    try {
+      for (K key : node.keys()) {
+        if (ring.ownerOf(key) != node && node.remove(key)) {
+          removed++;
+        }
+      }
+    } catch (RuntimeException e) {
+      logger.warning("Failed to remove moved keys from a node: " + e.getMessage());
+    }
+    invalidations.add(removed);
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine("Removed " + removed + " keys a node no longer owns.");
+    }
+  }
+
+  /**
+   * Moves a value found on the key's previous owner to its owner. It is loaded rather than put, so the
+   * owner's write policy does not store it again and a value written to the owner meanwhile is kept.
+   */
+  private V migrate(K key, V value, Cache<K, V> owner, Cache<K, V> previous) throws CacheException {
+    V installed = owner.getOrLoad(key, k -> value);
+    previous.remove(key);
+    migrated.increment();
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine("Moved key '" + key + "' to its new owner.");
+    }
+    return installed;
+  }
+
+  private Map<Cache<K, V>, List<K>> groupByOwner(HashRing<Cache<K, V>> ring, Collection<? extends K> keys) {
+    Map<Cache<K, V>, List<K>> byOwner = new IdentityHashMap<>();
+    for (K key : keys) {
+      byOwner.computeIfAbsent(ring.ownerOf(key), node -> new ArrayList<>()).add(key);
+    }
+    return byOwner;
+  }
+
+  /**
+   * Runs one getAll per node, in parallel when there is more than one, and merges the results.
+   */
+  private Map<K, V> fetchAll(Map<Cache<K, V>, List<K>> byNode) throws CacheException {
+    Map<K, V> found = new HashMap<>();
+    if (byNode.size() == 1) {
+      Map.Entry<Cache<K, V>, List<K>> only = byNode.entrySet().iterator().next();
+      found.putAll(only.getKey().getAll(only.getValue()));
+      return found;
+    }
+    List<CompletableFuture<Map<K, V>>> batches = new ArrayList<>(byNode.size());
+    for (Map.Entry<Cache<K, V>, List<K>> batch : byNode.entrySet()) {
+      batches.add(CompletableFuture.supplyAsync(() -> {
+        try {
+          return batch.getKey().getAll(batch.getValue());
+        } catch (CacheException e) {
+          throw new CompletionException(e);
+        }
+      }, batchExecutor));
+    }
+    for (CompletableFuture<Map<K, V>> batch : batches) {
+      try {
+        found.putAll(batch.join());
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof CacheException) {
+          throw (CacheException) e.getCause();
+        }
+        throw (e.getCause() instanceof RuntimeException) ? (RuntimeException) e.getCause() : e;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * The current ring, and while rebalancing the ring it replaced.
+   */
+  private static final class Topology<K, V> {
+    final HashRing<Cache<K, V>> ring;
+    final HashRing<Cache<K, V>> previous; // Null once rebalanced.
+
+    Topology(HashRing<Cache<K, V>> ring, HashRing<Cache<K, V>> previous) {
+      this.ring = ring;
+      this.previous = previous;
+    }
+  }
+}
@@ -0,0 +1,193 @@
+package com.cache.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An immutable consistent-hash ring. Each node is placed at a number of virtual-node tokens on a 64-bit ring,
+ * and a key belongs to the node owning the first token at or after the key's position. Adding or removing a
+ * node therefore only moves the keys in the arcs next to that node's tokens, about 1/n of the key space, and
+ * the virtual nodes spread those arcs evenly over the other nodes.
+ *
+ * Positions come from the key's hashCode and tokens from node names, so every process that builds a ring
+ * from the same names routes keys with stable hash codes, such as strings and numbers, the same way.
+ */
+public final class HashRing<N> {
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final Map<String, N> nodes; // By name, in the order they joined.
+  private final int virtualNodes;
+  private final long[] tokens; // Sorted.
+  private final String[] tokenOwners; // Name of the node owning each token.
+  private final Object[] tokenNodes; // The node owning each token.
+  private final int[] bucketStarts; // Index of the first token in each range of positions sharing their top bits.
+  private final int bucketShift;
+
+  /**
+   * Creates an empty ring that places each node at the given number of tokens.
+   */
+  public HashRing(int virtualNodes) {
+    this(Collections.emptyMap(), virtualNodes);
+  }
+
+  private HashRing(Map<String, N> nodes, int virtualNodes) {
+    if (virtualNodes <= 0) {
+      throw new IllegalArgumentException("Virtual nodes must be > 0.");
+    }
+    this.nodes = Collections.unmodifiableMap(new LinkedHashMap<>(nodes));
+    this.virtualNodes = virtualNodes;
+    long[] placed = new long[nodes.size() * virtualNodes];
+    int i = 0;
+    for (String name : nodes.keySet()) {
+      for (int replica = 0; replica < virtualNodes; replica++) {
+        placed[i++] = token(name, replica);
+      }
+    }
+    Arrays.sort(placed);
+    this.tokens = placed;
+    this.tokenOwners = new String[placed.length];
+    for (String name : nodes.keySet()) {
+      for (int replica = 0; replica < virtualNodes; replica++) {
+        tokenOwners[Arrays.binarySearch(tokens, token(name, replica))] = name;
+      }
+    }
+    this.tokenNodes = new Object[placed.length];
+    for (int t = 0; t < placed.length; t++) {
+      tokenNodes[t] = nodes.get(tokenOwners[t]);
+    }
+    // About one token per bucket, so a lookup searches only the few tokens of its key's bucket.
+    int bucketBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(1, placed.length)));
+    this.bucketShift = 64 - bucketBits;
+    this.bucketStarts = new int[(1 << bucketBits) + 1];
+    int t = 0;
+    for (int bucket = 0; bucket < (1 << bucketBits); bucket++) {
+      while (t < placed.length && bucketOf(placed[t]) < bucket) {
+        t++;
+      }
+      bucketStarts[bucket] = t;
+    }
+    bucketStarts[1 << bucketBits] = placed.length;
+  }
+
+  /**
+   * Returns a ring with the node added.
+   */
+  public HashRing<N> withNode(String name, N node) {
+    if (nodes.containsKey(name)) {
+      throw new IllegalArgumentException("Node '" + name + "' is already in the ring.");
+    }
+    Map<String, N> added = new LinkedHashMap<>(nodes);
+    added.put(name, node);
+    return new HashRing<>(added, virtualNodes);
+  }
+
+  /**
+   * Returns a ring without the node.
+   */
+  public HashRing<N> withoutNode(String name) {
+    if (!nodes.containsKey(name)) {
+      throw new IllegalArgumentException("Node '" + name + "' is not in the ring.");
+    }
+    Map<String, N> removed = new LinkedHashMap<>(nodes);
+    removed.remove(name);
+    return new HashRing<>(removed, virtualNodes);
+  }
+
+  @SuppressWarnings("unchecked")
+  public N ownerOf(Object key) {
+    return (N) tokenNodes[indexOf(position(key))];
+  }
+
+  public String ownerNameOf(Object key) {
+    return tokenOwners[indexOf(position(key))];
+  }
+
+  public Map<String, N> nodes() {
+    return nodes;
+  }
+
+  public int virtualNodes() {
+    return virtualNodes;
+  }
+
+  /**
+   * Returns the share of the key space, between 0 and 1, that the other ring assigns to a different node,
+   * which is the share of keys a change from this ring to the other one moves.
+   */
+  public double movedFraction(HashRing<N> other) {
+    long[] boundaries = new long[tokens.length + other.tokens.length];
+    System.arraycopy(tokens, 0, boundaries, 0, tokens.length);
+    System.arraycopy(other.tokens, 0, boundaries, tokens.length, other.tokens.length);
+    Arrays.sort(boundaries);
+    if (boundaries.length == 0) {
+      return 0;
+    }
+    // Every position in the arc (previous, boundary] has the same owner in both rings as the boundary itself.
+    double moved = 0;
+    for (int i = 0; i < boundaries.length; i++) {
+      long previous = boundaries[(i == 0) ? boundaries.length - 1 : i - 1];
+      long arc = boundaries[i] - previous; // Unsigned; wraps around the ring for the first arc.
+      if (arc != 0 && !ownerNameAt(boundaries[i]).equals(other.ownerNameAt(boundaries[i]))) {
+        moved += unsigned(arc);
+      }
+    }
+    return moved / 0x1p64;
+  }
+
+  private String ownerNameAt(long position) {
+    return (tokens.length == 0) ? "" : tokenOwners[indexOf(position)];
+  }
+
+  /**
+   * Returns the index of the first token at or after the position, wrapping around to the first token.
+   */
+  private int indexOf(long position) {
+    if (tokens.length == 0) {
+      throw new IllegalStateException("The ring has no nodes.");
+    }
+    int bucket = bucketOf(position);
+    int index = Arrays.binarySearch(tokens, bucketStarts[bucket], bucketStarts[bucket + 1], position);
+    if (index < 0) {
+      index = -index - 1; // First token after the position, possibly in a later bucket.
+    }
+    return (index == tokens.length) ? 0 : index;
+  }
+
+  /**
+   * Returns the bucket of a position; buckets follow the signed order of the sorted tokens.
+   */
+  private int bucketOf(long position) {
+    return (int) ((position ^ Long.MIN_VALUE) >>> bucketShift);
+  }
+
+  /**
+   * Returns the key's position: its hash code spread over 64 bits (the MurmurHash3 finalizer).
+   */
+  static long position(Object key) {
+    long hash = key.hashCode();
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    return hash ^ (hash >>> 33);
+  }
+
+  /**
+   * Returns the position of a node's virtual node: an FNV-1a hash of its name and replica number.
+   */
+  private static long token(String name, int replica) {
+    long hash = FNV_OFFSET;
+    for (byte b : (name + "#" + replica).getBytes(StandardCharsets.UTF_8)) {
+      hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+    }
+    return position(Long.hashCode(hash)) ^ hash;
+  }
+
+  private static double unsigned(long value) {
+    return (value >= 0) ? value : (value >>> 1) * 2.0 + (value & 1);
+  }
+}
@@ -1,23 +1,30 @@
 package com.cache.expiration;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
 import com.cache.models.CacheEntry;
 
 /**
  * Expiration strategy based on the last accessed timestamp.
  */
 public class AccessBasedExpiration<K, V> implements ExpirationStrategy<K, V> {
-  private final int ttlSeconds; // Time-to-live in seconds
+  private final long ttlNanos; // Time-to-live since last access
 
   public AccessBasedExpiration(int ttlSeconds) {
-    this.ttlSeconds = ttlSeconds;
+    this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
   }
 
   @Override
-  public boolean isExpired(CacheEntry<K, V> entry) {
-    LocalDateTime now = LocalDateTime.now();
-    Duration durationSinceLastAccessed = Duration.between(entry.getLastAccessed(), now);
-    return durationSinceLastAccessed.getSeconds() > ttlSeconds;
+  public long expireAfterCreate(CacheEntry<K, V> entry, long currentTimeNanos) {
+    return ExpirationStrategy.deadline(currentTimeNanos, ttlNanos);
+  }
+
+  @Override
+  public long expireAfterUpdate(CacheEntry<K, V> entry, long currentTimeNanos) {
+    return ExpirationStrategy.deadline(currentTimeNanos, ttlNanos);
+  }
+
+  @Override
+  public long expireAfterRead(CacheEntry<K, V> entry, long currentTimeNanos) {
+    return ExpirationStrategy.deadline(currentTimeNanos, ttlNanos);
   }
 }
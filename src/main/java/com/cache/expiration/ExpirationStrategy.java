@@ -4,7 +4,40 @@ import com.cache.models.CacheEntry;
 
 /**
  * Interface for defining expiration strategies.
+ * Strategies assign each entry a deadline on the cache's {@link com.cache.time.Ticker}, which the cache uses both to
+ * reject expired reads and to schedule proactive cleanup on a {@link TimerWheel}. Deadlines may only
+ * move later on reads and updates.
  */
 public interface ExpirationStrategy<K, V> {
-  boolean isExpired(CacheEntry<K, V> entry);
+
+  /**
+   * Returns the deadline of a newly written entry, or Long.MAX_VALUE if it never expires.
+   */
+  long expireAfterCreate(CacheEntry<K, V> entry, long currentTimeNanos);
+
+  /**
+   * Returns the deadline after the entry's value is replaced in place. Unchanged by default.
+   */
+  default long expireAfterUpdate(CacheEntry<K, V> entry, long currentTimeNanos) {
+    return entry.getExpirationTime();
+  }
+
+  /**
+   * Returns the deadline after the entry is read. Unchanged by default.
+   */
+  default long expireAfterRead(CacheEntry<K, V> entry, long currentTimeNanos) {
+    return entry.getExpirationTime();
+  }
+
+  default boolean isExpired(CacheEntry<K, V> entry, long currentTimeNanos) {
+    return entry.getExpirationTime() - currentTimeNanos <= 0;
+  }
+
+  /**
+   * Adds a duration to a deadline, saturating instead of overflowing.
+   */
+  static long deadline(long currentTimeNanos, long durationNanos) {
+    long deadline = currentTimeNanos + durationNanos;
+    return (deadline - currentTimeNanos < 0) ? Long.MAX_VALUE : deadline;
+  }
 }
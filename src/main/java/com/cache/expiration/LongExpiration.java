@@ -0,0 +1,61 @@
+package com.cache.expiration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expiration of a {@link com.cache.services.LongKeyCache}. That cache keeps one deadline per table slot
+ * rather than a {@link com.cache.models.CacheEntry}, so instead of an {@link ExpirationStrategy} it takes
+ * one of these fixed rules, which mirror {@link CreationBasedExpiration} and {@link AccessBasedExpiration}.
+ */
+public final class LongExpiration {
+  private static final LongExpiration NEVER = new LongExpiration(0, false);
+
+  private final long ttlNanos; // Time-to-live; 0 if entries never expire.
+  private final boolean extendedOnRead; // Whether a read restarts the time-to-live.
+
+  private LongExpiration(long ttlNanos, boolean extendedOnRead) {
+    this.ttlNanos = ttlNanos;
+    this.extendedOnRead = extendedOnRead;
+  }
+
+  public static LongExpiration never() {
+    return NEVER;
+  }
+
+  /**
+   * Expires entries the given time after they were written.
+   */
+  public static LongExpiration afterCreation(int ttlSeconds) {
+    return new LongExpiration(checkedNanos(ttlSeconds), false);
+  }
+
+  /**
+   * Expires entries the given time after they were last read or written.
+   */
+  public static LongExpiration afterAccess(int ttlSeconds) {
+    return new LongExpiration(checkedNanos(ttlSeconds), true);
+  }
+
+  public long getTtlNanos() {
+    return ttlNanos;
+  }
+
+  public boolean isExtendedOnRead() {
+    return extendedOnRead;
+  }
+
+  /**
+   * Returns the deadline of an entry written or, if reads extend it, read now; Long.MAX_VALUE if it never
+   * expires.
+   */
+  public long deadline(long currentTimeNanos) {
+    return (ttlNanos == 0) ? Long.MAX_VALUE : ExpirationStrategy.deadline(currentTimeNanos, ttlNanos);
+  }
+
+  private static long checkedNanos(int ttlSeconds) {
+    if (ttlSeconds <= 0) {
+      throw new IllegalArgumentException("Time-to-live must be > 0.");
+    }
+    return TimeUnit.SECONDS.toNanos(ttlSeconds);
+  }
+}
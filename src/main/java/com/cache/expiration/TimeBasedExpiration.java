@@ -1,25 +1,30 @@
 package com.cache.expiration;
 
-import java.time.LocalDateTime;
-import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 import com.cache.models.CacheEntry;
+import com.cache.time.Ticker;
 
 /**
  * Expiration strategy based on a fixed expiration duration irrespective of usage.
+ * Every entry shares the same deadline, measured from when the strategy was created.
  */
 public class TimeBasedExpiration<K, V> implements ExpirationStrategy<K, V> {
-  private final LocalDateTime cacheInitializedTime;
-  private final int fixedDurationSeconds;
+  private final long expirationTime; // Deadline shared by all entries
 
   public TimeBasedExpiration(int fixedDurationSeconds) {
-    this.cacheInitializedTime = LocalDateTime.now(); // Timestamp when the cache was created
-    this.fixedDurationSeconds = fixedDurationSeconds;
+    this(fixedDurationSeconds, Ticker.systemTicker());
+  }
+
+  /**
+   * Creates the strategy against the ticker the cache uses, which must be the same one.
+   */
+  public TimeBasedExpiration(int fixedDurationSeconds, Ticker ticker) {
+    // Timestamp when the cache was created
+    this.expirationTime = ExpirationStrategy.deadline(ticker.read(), TimeUnit.SECONDS.toNanos(fixedDurationSeconds));
   }
 
   @Override
-  public boolean isExpired(CacheEntry<K, V> entry) {
-    LocalDateTime now = LocalDateTime.now();
-    Duration durationSinceCacheInitialization = Duration.between(cacheInitializedTime, now);
-    return durationSinceCacheInitialization.getSeconds() > fixedDurationSeconds;
+  public long expireAfterCreate(CacheEntry<K, V> entry, long currentTimeNanos) {
+    return expirationTime;
   }
 }
@@ -0,0 +1,162 @@
+/*
+ * Adapted from Caffeine (https://github.com/ben-manes/caffeine), Copyright 2017 Ben Manes.
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ *
+ * Modified for this project: adapted to its entry and ticker types.
+ */
+package com.cache.expiration;
+
+import com.cache.models.CacheEntry;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel that expires cache entries by deadline in O(1) amortized time.
+ * Five wheels with buckets of roughly 1.07s, 1.14m, 1.22h, 1.63d and 6.5d hold entries in
+ * intrusive doubly-linked lists. Advancing the clock only visits the buckets whose time span has
+ * passed; due entries are handed to the expirer and the rest cascade down to a finer wheel.
+ *
+ * Deadlines are read from the cache's {@link com.cache.time.Ticker}. An entry whose deadline moved later since it was
+ * scheduled (e.g. on a read) is simply rescheduled when its bucket is swept, so reads need not
+ * touch the wheel. Not thread-safe; callers hold their own lock.
+ */
+public final class TimerWheel<K, V> {
+  private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+  private static final long[] SPANS = {
+      Long.highestOneBit(1_000_000_000L) << 1, // 1.07s
+      Long.highestOneBit(60_000_000_000L) << 1, // 1.14m
+      Long.highestOneBit(3_600_000_000_000L) << 1, // 1.22h
+      Long.highestOneBit(86_400_000_000_000L) << 1, // 1.63d
+      BUCKETS[3] * (Long.highestOneBit(86_400_000_000_000L) << 1), // 6.5d
+      BUCKETS[3] * (Long.highestOneBit(86_400_000_000_000L) << 1), // 6.5d
+  };
+  private static final int[] SHIFT = {
+      Long.numberOfTrailingZeros(SPANS[0]),
+      Long.numberOfTrailingZeros(SPANS[1]),
+      Long.numberOfTrailingZeros(SPANS[2]),
+      Long.numberOfTrailingZeros(SPANS[3]),
+      Long.numberOfTrailingZeros(SPANS[4]),
+  };
+
+  private final CacheEntry<K, V>[][] wheel; // Bucket sentinels per level.
+  private long nanos; // Time of the last advance.
+
+  @SuppressWarnings("unchecked")
+  public TimerWheel(long currentTimeNanos) {
+    this.wheel = new CacheEntry[BUCKETS.length][];
+    for (int i = 0; i < BUCKETS.length; i++) {
+      wheel[i] = new CacheEntry[BUCKETS[i]];
+      for (int j = 0; j < BUCKETS[i]; j++) {
+        CacheEntry<K, V> sentinel = new CacheEntry<>(null, null, 0L);
+        sentinel.setPreviousInWheel(sentinel);
+        sentinel.setNextInWheel(sentinel);
+        wheel[i][j] = sentinel;
+      }
+    }
+    this.nanos = currentTimeNanos;
+  }
+
+  /**
+   * Adds the entry by its current deadline, moving it if it is already scheduled.
+   */
+  public void schedule(CacheEntry<K, V> entry) {
+    if (entry.getNextInWheel() != null) {
+      unlink(entry);
+    }
+    link(findBucket(entry.getExpirationTime()), entry);
+  }
+
+  /**
+   * Removes the entry if it is scheduled.
+   */
+  public void deschedule(CacheEntry<K, V> entry) {
+    if (entry.getNextInWheel() != null) {
+      unlink(entry);
+    }
+  }
+
+  /**
+   * Advances the clock, passing every entry whose deadline has been reached to the expirer.
+   */
+  public void advance(long currentTimeNanos, Consumer<CacheEntry<K, V>> expirer) {
+    long previousTimeNanos = nanos;
+    nanos = currentTimeNanos;
+    for (int i = 0; i < SHIFT.length; i++) {
+      long previousTicks = previousTimeNanos >>> SHIFT[i];
+      long currentTicks = currentTimeNanos >>> SHIFT[i];
+      long delta = currentTicks - previousTicks;
+      if (delta <= 0L) {
+        break; // Coarser wheels cannot have turned if this one did not.
+      }
+      expire(i, previousTicks, delta, expirer);
+    }
+  }
+
+  /**
+   * Sweeps the buckets of one wheel that the clock moved across.
+   */
+  private void expire(int index, long previousTicks, long delta, Consumer<CacheEntry<K, V>> expirer) {
+    CacheEntry<K, V>[] timerWheel = wheel[index];
+    int mask = timerWheel.length - 1;
+    int steps = (int) Math.min(1 + delta, timerWheel.length);
+    int start = (int) (previousTicks & mask);
+    int end = start + steps;
+
+    for (int i = start; i < end; i++) {
+      CacheEntry<K, V> sentinel = timerWheel[i & mask];
+      CacheEntry<K, V> entry = sentinel.getNextInWheel();
+      sentinel.setPreviousInWheel(sentinel);
+      sentinel.setNextInWheel(sentinel);
+
+      while (entry != sentinel) {
+        CacheEntry<K, V> next = entry.getNextInWheel();
+        entry.setPreviousInWheel(null);
+        entry.setNextInWheel(null);
+        if (entry.getExpirationTime() - nanos > 0) {
+          schedule(entry); // Not yet due: cascade to a finer wheel or follow a later deadline.
+        } else {
+          expirer.accept(entry);
+        }
+        entry = next;
+      }
+    }
+  }
+
+  private CacheEntry<K, V> findBucket(long time) {
+    if (time - nanos < 0) {
+      time = nanos; // Already due: use the current bucket, which the next advance sweeps.
+    }
+    long duration = time - nanos;
+    int length = wheel.length - 1;
+    for (int i = 0; i < length; i++) {
+      if (duration < SPANS[i + 1]) {
+        long ticks = time >>> SHIFT[i];
+        int index = (int) (ticks & (wheel[i].length - 1));
+        return wheel[i][index];
+      }
+    }
+    return wheel[length][0];
+  }
+
+  private void link(CacheEntry<K, V> sentinel, CacheEntry<K, V> entry) {
+    entry.setPreviousInWheel(sentinel.getPreviousInWheel());
+    entry.setNextInWheel(sentinel);
+    sentinel.getPreviousInWheel().setNextInWheel(entry);
+    sentinel.setPreviousInWheel(entry);
+  }
+
+  private void unlink(CacheEntry<K, V> entry) {
+    CacheEntry<K, V> next = entry.getNextInWheel();
+    CacheEntry<K, V> prev = entry.getPreviousInWheel();
+    next.setPreviousInWheel(prev);
+    prev.setNextInWheel(next);
+    entry.setNextInWheel(null);
+    entry.setPreviousInWheel(null);
+  }
+}
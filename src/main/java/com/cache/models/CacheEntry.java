@@ -1,18 +1,53 @@
 package com.cache.models;
 
-import java.time.LocalDateTime;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Set;
 
+/**
+ * A cached value with its bookkeeping. Timestamps are nanoseconds read from the cache's
+ * {@link com.cache.time.Ticker}; the ones rewritten on every hit use opaque access, which keeps them
+ * atomic and eventually visible without the fences of a volatile write.
+ */
 public class CacheEntry<K, V> {
+  private static final VarHandle LAST_ACCESSED;
+  private static final VarHandle EXPIRATION_TIME;
+  private static final VarHandle REFRESH_TIME;
+  private static final VarHandle REFRESHING;
+
+  static {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      LAST_ACCESSED = lookup.findVarHandle(CacheEntry.class, "lastAccessed", long.class);
+      EXPIRATION_TIME = lookup.findVarHandle(CacheEntry.class, "expirationTime", long.class);
+      REFRESH_TIME = lookup.findVarHandle(CacheEntry.class, "refreshTime", long.class);
+      REFRESHING = lookup.findVarHandle(CacheEntry.class, "refreshing", boolean.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
   private final K key;
-  private V value;
-  private final LocalDateTime createdTime;
-  private LocalDateTime lastAccessed;
+  private volatile V value;
+  private final long createdTime;
+  private long lastAccessed; // Accessed only through LAST_ACCESSED.
+  private long expirationTime; // Deadline; Long.MAX_VALUE if it never expires. Accessed through EXPIRATION_TIME.
+  private long refreshTime; // When a read should reload the value; Long.MAX_VALUE if never. Accessed through REFRESH_TIME.
+  private volatile boolean refreshing; // A reload is in flight. Claimed through REFRESHING.
+  private volatile int weight; // Share of the cache's maximum weight, as computed by its weigher.
+  private boolean fixedExpiration; // Deadline was set by a per-entry TTL and is not extended by reads.
+  private Set<String> tags; // Tags the entry is indexed under; null if untagged. Set before the entry is published.
+  private CacheEntry<K, V> previousInWheel; // Timer wheel links, maintained by TimerWheel.
+  private CacheEntry<K, V> nextInWheel;
 
-  public CacheEntry(K key, V value) {
+  public CacheEntry(K key, V value, long currentTimeNanos) {
     this.key = key;
     this.value = value;
-    this.createdTime = LocalDateTime.now();
-    this.lastAccessed = LocalDateTime.now();
+    this.createdTime = currentTimeNanos;
+    this.lastAccessed = currentTimeNanos;
+    this.expirationTime = Long.MAX_VALUE;
+    this.refreshTime = Long.MAX_VALUE;
+    this.weight = 1;
   }
 
   public K getKey() {
@@ -23,20 +58,98 @@ public class CacheEntry<K, V> {
     return value;
   }
 
-  public void setValue(V newValue) {
+  public void setValue(V newValue, long currentTimeNanos) {
     this.value = newValue;
-    this.lastAccessed = LocalDateTime.now(); // Update last accessed
+    refreshLastAccessed(currentTimeNanos); // Update last accessed
+  }
+
+  public int getWeight() {
+    return weight;
   }
 
-  public LocalDateTime getCreatedTime() {
+  public void setWeight(int weight) {
+    this.weight = weight;
+  }
+
+  /**
+   * Frees anything the entry holds outside the Java heap. Called once the cache has dropped the entry;
+   * afterwards getValue may return null to readers that still hold it. Entries on the heap hold nothing.
+   */
+  public void release() {
+  }
+
+  public long getCreatedTime() {
     return createdTime;
   }
 
-  public LocalDateTime getLastAccessed() {
-    return lastAccessed;
+  public long getLastAccessed() {
+    return (long) LAST_ACCESSED.getOpaque(this);
+  }
+
+  public void refreshLastAccessed(long currentTimeNanos) {
+    LAST_ACCESSED.setOpaque(this, currentTimeNanos);
+  }
+
+  public long getExpirationTime() {
+    return (long) EXPIRATION_TIME.getOpaque(this);
+  }
+
+  public void setExpirationTime(long expirationTime) {
+    EXPIRATION_TIME.setOpaque(this, expirationTime);
+  }
+
+  public boolean hasFixedExpiration() {
+    return fixedExpiration;
+  }
+
+  /**
+   * Pins the deadline so that the expiration strategy no longer moves it.
+   */
+  public void setFixedExpiration(long expirationTime) {
+    this.fixedExpiration = true;
+    setExpirationTime(expirationTime);
+  }
+
+  public Set<String> getTags() {
+    return tags;
+  }
+
+  public void setTags(Set<String> tags) {
+    this.tags = tags;
+  }
+
+  public long getRefreshTime() {
+    return (long) REFRESH_TIME.getOpaque(this);
+  }
+
+  public void setRefreshTime(long refreshTime) {
+    REFRESH_TIME.setOpaque(this, refreshTime);
+  }
+
+  /**
+   * Claims the entry for a reload. Returns false if another reload is already in flight.
+   */
+  public boolean tryStartRefresh() {
+    return !refreshing && REFRESHING.compareAndSet(this, false, true);
+  }
+
+  public void finishRefresh() {
+    refreshing = false;
+  }
+
+  public CacheEntry<K, V> getPreviousInWheel() {
+    return previousInWheel;
+  }
+
+  public void setPreviousInWheel(CacheEntry<K, V> previousInWheel) {
+    this.previousInWheel = previousInWheel;
+  }
+
+  public CacheEntry<K, V> getNextInWheel() {
+    return nextInWheel;
   }
 
-  public void refreshLastAccessed() {
-    this.lastAccessed = LocalDateTime.now();
+  public void setNextInWheel(CacheEntry<K, V> nextInWheel) {
+    this.nextInWheel = nextInWheel;
   }
 }
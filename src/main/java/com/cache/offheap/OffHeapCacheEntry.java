@@ -0,0 +1,68 @@
+package com.cache.offheap;
+
+import com.cache.models.CacheEntry;
+import com.cache.serialization.Serializer;
+
+/**
+ * A cache entry whose value is serialized into a {@link SlabAllocator}, leaving only the key and a small
+ * allocation record on the heap. Values too large for a slab, or arriving once the allocator is full, are
+ * kept on the heap instead.
+ */
+public class OffHeapCacheEntry<K, V> extends CacheEntry<K, V> {
+  private final Serializer<V> serializer;
+  private final SlabAllocator allocator;
+  private volatile SlabAllocator.Allocation allocation; // Null while the value is on the heap.
+  private boolean released; // Guarded by this.
+
+  public OffHeapCacheEntry(K key, V value, long currentTimeNanos, Serializer<V> serializer, SlabAllocator allocator) {
+    super(key, null, currentTimeNanos);
+    this.serializer = serializer;
+    this.allocator = allocator;
+    store(value, currentTimeNanos);
+  }
+
+  /**
+   * Returns a fresh copy of the value, or null if the entry has been released.
+   */
+  @Override
+  public V getValue() {
+    SlabAllocator.Allocation current = allocation;
+    if (current == null) {
+      return super.getValue();
+    }
+    byte[] bytes = allocator.read(current);
+    return (bytes == null) ? null : serializer.deserialize(bytes);
+  }
+
+  @Override
+  public synchronized void setValue(V newValue, long currentTimeNanos) {
+    if (released) {
+      return;
+    }
+    SlabAllocator.Allocation previous = allocation;
+    store(newValue, currentTimeNanos);
+    if (previous != null) {
+      allocator.free(previous); // Readers still holding the old record see it as released and retry.
+    }
+  }
+
+  @Override
+  public synchronized void release() {
+    released = true;
+    SlabAllocator.Allocation current = allocation;
+    if (current != null) {
+      allocator.free(current);
+    }
+  }
+
+  private void store(V value, long currentTimeNanos) {
+    SlabAllocator.Allocation stored = (value == null) ? null : allocator.allocate(serializer.serialize(value));
+    if (stored == null) {
+      super.setValue(value, currentTimeNanos); // Publish the heap copy before readers stop using the old record.
+      allocation = null;
+    } else {
+      allocation = stored;
+      super.setValue(null, currentTimeNanos);
+    }
+  }
+}
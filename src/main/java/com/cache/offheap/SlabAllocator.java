@@ -0,0 +1,290 @@
+package com.cache.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Stores byte blocks outside the Java heap, in fixed-size chunks carved out of large direct buffers (slabs).
+ * Each slab serves one size class: chunk sizes are powers of two from 64 bytes up to the slab size. A slab
+ * whose chunks have all been freed goes back to a shared pool and is re-carved for whichever size class
+ * needs memory next, so a shift in value sizes does not strand memory in a size class nobody uses. Pooled
+ * slabs beyond a small reserve are dropped, which returns their memory once the buffer is collected.
+ *
+ * Allocation and release take a lock; reads copy the block out optimistically and only lock if the slab
+ * changed while they were copying. Reading a freed block returns null rather than another block's bytes.
+ */
+public final class SlabAllocator {
+  public static final int DEFAULT_SLAB_SIZE = 1 << 20;
+  private static final int MIN_CHUNK_SHIFT = 6; // Smallest chunk is 64 bytes.
+  private static final int HEADER_SIZE = 12; // Allocation stamp (8 bytes) and block length (4 bytes).
+  private static final int SPARE_SLABS = 2; // Empty slabs kept for reuse before being dropped.
+
+  private final int slabSize;
+  private final long maxBytes; // Upper bound on memory held in slabs.
+  private final ReentrantLock lock; // Guards all bookkeeping below and every write to slab memory.
+  private final ArrayDeque<Slab>[] partialSlabs; // Per size class, slabs with at least one free chunk.
+  private final ArrayDeque<Slab> emptySlabs; // Slabs with no chunk in use, ready to be re-carved.
+  private final ArrayDeque<Integer> unusedIndexes; // Slots in slabs left by dropped slabs.
+  private volatile Slab[] slabs; // Indexed by Allocation.slab; replaced, never mutated, when it grows.
+  private long reservedBytes; // Memory held in slabs, used or not.
+  private long usedBytes; // Memory held in allocated chunks.
+  private long nextStamp;
+
+  public SlabAllocator() {
+    this(DEFAULT_SLAB_SIZE, Long.MAX_VALUE);
+  }
+
+  /**
+   * Creates an allocator of slabs of the given size (a power of two of at least 64 bytes) holding no more
+   * than maxBytes in total.
+   */
+  @SuppressWarnings("unchecked")
+  public SlabAllocator(int slabSize, long maxBytes) {
+    if (slabSize < (1 << MIN_CHUNK_SHIFT) || Integer.bitCount(slabSize) != 1) {
+      throw new IllegalArgumentException("Slab size must be a power of two >= 64.");
+    }
+    this.slabSize = slabSize;
+    this.maxBytes = maxBytes;
+    this.lock = new ReentrantLock();
+    this.partialSlabs = new ArrayDeque[sizeClass(slabSize) + 1];
+    for (int i = 0; i < partialSlabs.length; i++) {
+      partialSlabs[i] = new ArrayDeque<>();
+    }
+    this.emptySlabs = new ArrayDeque<>();
+    this.unusedIndexes = new ArrayDeque<>();
+    this.slabs = new Slab[0];
+  }
+
+  /**
+   * Copies the bytes into a free chunk. Returns null if they do not fit in a slab or the memory limit is reached.
+   */
+  public Allocation allocate(byte[] bytes) {
+    long needed = (long) bytes.length + HEADER_SIZE;
+    if (needed > slabSize) {
+      return null;
+    }
+    int sizeClass = sizeClass((int) needed);
+    lock.lock();
+    try {
+      Slab slab = partialSlabs[sizeClass].peekFirst();
+      if (slab == null) {
+        slab = takeEmptySlab();
+        if (slab == null) {
+          return null;
+        }
+        slab.carve(sizeClass);
+        partialSlabs[sizeClass].addLast(slab);
+      }
+      int chunk = slab.freeChunks[--slab.freeCount];
+      if (slab.freeCount == 0) {
+        partialSlabs[sizeClass].pollFirst(); // Full; it comes back when a chunk is freed.
+      }
+      int offset = chunk << sizeClass;
+      long stamp = ++nextStamp;
+      long writeStamp = slab.lock.writeLock();
+      try {
+        slab.buffer.put(offset + HEADER_SIZE, bytes);
+        slab.buffer.putInt(offset + Long.BYTES, bytes.length);
+        slab.buffer.putLong(offset, stamp);
+      } finally {
+        slab.lock.unlockWrite(writeStamp);
+      }
+      usedBytes += slab.chunkSize;
+      return new Allocation(slab.index, offset, sizeClass, stamp);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns a copy of the allocated bytes, or null if the allocation has been freed.
+   */
+  public byte[] read(Allocation allocation) {
+    Slab[] current = slabs;
+    Slab slab = (allocation.slab < current.length) ? current[allocation.slab] : null;
+    if (slab == null) {
+      return null;
+    }
+    long stamp = slab.lock.tryOptimisticRead();
+    byte[] bytes = copy(slab, allocation);
+    if (!slab.lock.validate(stamp)) {
+      stamp = slab.lock.readLock();
+      try {
+        bytes = copy(slab, allocation);
+      } finally {
+        slab.lock.unlockRead(stamp);
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Frees the allocation. Freeing it again, or after its slab was reused, does nothing.
+   */
+  public void free(Allocation allocation) {
+    lock.lock();
+    try {
+      Slab slab = (allocation.slab < slabs.length) ? slabs[allocation.slab] : null;
+      if (slab == null || slab.sizeClass != allocation.sizeClass
+          || slab.buffer.getLong(allocation.offset) != allocation.stamp) {
+        return;
+      }
+      long writeStamp = slab.lock.writeLock();
+      try {
+        slab.buffer.putLong(allocation.offset, 0L); // Readers holding the allocation now see it as freed.
+      } finally {
+        slab.lock.unlockWrite(writeStamp);
+      }
+      usedBytes -= slab.chunkSize;
+      slab.freeChunks[slab.freeCount++] = allocation.offset >>> slab.sizeClass;
+      if (slab.freeCount == slab.chunkCount) {
+        partialSlabs[slab.sizeClass].remove(slab);
+        releaseEmptySlab(slab);
+      } else if (slab.freeCount == 1) {
+        partialSlabs[slab.sizeClass].addLast(slab);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the memory held in slabs, including free chunks and pooled empty slabs.
+   */
+  public long reservedBytes() {
+    lock.lock();
+    try {
+      return reservedBytes;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the memory held in allocated chunks, including headers and rounding to the chunk size.
+   */
+  public long usedBytes() {
+    lock.lock();
+    try {
+      return usedBytes;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Slab takeEmptySlab() {
+    Slab slab = emptySlabs.pollFirst();
+    if (slab != null || reservedBytes + slabSize > maxBytes) {
+      return slab;
+    }
+    Integer unused = unusedIndexes.pollFirst();
+    int index = (unused != null) ? unused : slabs.length;
+    slab = new Slab(index, ByteBuffer.allocateDirect(slabSize));
+    Slab[] grown = Arrays.copyOf(slabs, Math.max(slabs.length, index + 1));
+    grown[index] = slab;
+    slabs = grown;
+    reservedBytes += slabSize;
+    return slab;
+  }
+
+  private void releaseEmptySlab(Slab slab) {
+    if (emptySlabs.size() < SPARE_SLABS) {
+      emptySlabs.addLast(slab);
+      return;
+    }
+    Slab[] shrunk = slabs.clone();
+    shrunk[slab.index] = null;
+    slabs = shrunk;
+    unusedIndexes.addLast(slab.index);
+    reservedBytes -= slabSize;
+  }
+
+  /**
+   * Copies the block out of the slab. Runs without the lock, so everything read is checked before it is
+   * trusted; the caller validates the slab's stamp before using the result.
+   */
+  private static byte[] copy(Slab slab, Allocation allocation) {
+    if (slab.sizeClass != allocation.sizeClass || slab.buffer.getLong(allocation.offset) != allocation.stamp) {
+      return null;
+    }
+    int length = slab.buffer.getInt(allocation.offset + Long.BYTES);
+    if (length < 0 || length > allocation.chunkSize() - HEADER_SIZE) {
+      return null; // Torn read; the stamp check will fail.
+    }
+    byte[] bytes = new byte[length];
+    slab.buffer.get(allocation.offset + HEADER_SIZE, bytes);
+    return bytes;
+  }
+
+  private static int sizeClass(int size) {
+    int shift = 32 - Integer.numberOfLeadingZeros(size - 1); // Ceiling log2.
+    return Math.max(shift, MIN_CHUNK_SHIFT);
+  }
+
+  /**
+   * A block handed out by the allocator. Small and immutable, so it can live on the heap as an index record.
+   */
+  public static final class Allocation {
+    private final int slab;
+    private final int offset;
+    private final int sizeClass;
+    private final long stamp; // Unique per allocation; written to the chunk header and cleared on free.
+
+    private Allocation(int slab, int offset, int sizeClass, long stamp) {
+      this.slab = slab;
+      this.offset = offset;
+      this.sizeClass = sizeClass;
+      this.stamp = stamp;
+    }
+
+    /**
+     * Returns the number of bytes the allocation occupies, including its header and rounding.
+     */
+    public int chunkSize() {
+      return 1 << sizeClass;
+    }
+  }
+
+  private final class Slab {
+    private final int index;
+    private final ByteBuffer buffer;
+    private final StampedLock lock; // Write-locked for every change to the buffer or its carving.
+    private volatile int sizeClass;
+    private int chunkSize;
+    private int chunkCount;
+    private int[] freeChunks; // Stack of free chunk numbers.
+    private int freeCount;
+
+    Slab(int index, ByteBuffer buffer) {
+      this.index = index;
+      this.buffer = buffer;
+      this.lock = new StampedLock();
+      this.sizeClass = -1;
+    }
+
+    /**
+     * Splits the empty slab into chunks of the given size class.
+     */
+    void carve(int sizeClass) {
+      long writeStamp = lock.writeLock();
+      try {
+        this.sizeClass = sizeClass;
+        this.chunkSize = 1 << sizeClass;
+        this.chunkCount = slabSize >>> sizeClass;
+        if (freeChunks == null || freeChunks.length < chunkCount) {
+          freeChunks = new int[chunkCount];
+        }
+        for (int i = 0; i < chunkCount; i++) {
+          freeChunks[i] = chunkCount - 1 - i; // Hand out low offsets first.
+          buffer.putLong(i << sizeClass, 0L);
+        }
+        freeCount = chunkCount;
+      } finally {
+        lock.unlockWrite(writeStamp);
+      }
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package com.cache.policies;
+
+/**
+ * Intrusive doubly-linked list of policy nodes, ordered from least to most recently used.
+ * Not thread-safe; callers hold the owning policy's maintenance lock.
+ */
+final class AccessOrderDeque<K> {
+  private final Node<K> head; // Sentinel; head.next is least recently used.
+  private int size;
+
+  AccessOrderDeque() {
+    this.head = new Node<>(null);
+    this.head.prev = head;
+    this.head.next = head;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  Node<K> peekFirst() {
+    return (head.next == head) ? null : head.next;
+  }
+
+  Node<K> peekLast() {
+    return (head.prev == head) ? null : head.prev;
+  }
+
+  void linkLast(Node<K> node) {
+    Node<K> last = head.prev;
+    node.prev = last;
+    node.next = head;
+    last.next = node;
+    head.prev = node;
+    size++;
+  }
+
+  void unlink(Node<K> node) {
+    node.prev.next = node.next;
+    node.next.prev = node.prev;
+    node.prev = null;
+    node.next = null;
+    size--;
+  }
+
+  void moveToTail(Node<K> node) {
+    if (head.prev != node) {
+      unlink(node);
+      linkLast(node);
+    }
+  }
+
+  /**
+   * Per-key bookkeeping shared by the buffered policies.
+   */
+  static final class Node<K> {
+    final K key;
+    Node<K> prev;
+    Node<K> next;
+    int queue; // Which deque of the owning policy holds this node.
+    boolean candidate; // Recently moved out of an admission window and not yet judged.
+    volatile boolean retired; // Removal is pending in the write buffer.
+
+    Node(K key) {
+      this.key = key;
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package com.cache.policies;
+
+import com.cache.policies.AccessOrderDeque.Node;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Base class for thread-safe policies that replay buffered events under a non-blocking maintenance lock.
+ * Hits on known keys are recorded into striped, lossy read buffers and new or removed keys into a
+ * write buffer; both are applied in batches by whichever thread wins the lock, so readers never
+ * contend on the policy's internal structures.
+ */
+abstract class BufferedCacheEvictionPolicy<K> implements CacheEvictionPolicy<K> {
+  final ConcurrentHashMap<K, Node<K>> nodes; // Key to policy node; mutated only under the lock.
+  final ReentrantLock maintenanceLock; // Guards all subclass state.
+  private final StripedReadBuffer<K> readBuffer; // Lossy buffer of hits on known keys.
+  private final ConcurrentLinkedQueue<WriteTask<K>> writeBuffer; // Lossless buffer of adds and removals.
+  private final Consumer<K> accessHandler; // Cached so draining does not allocate.
+
+  BufferedCacheEvictionPolicy() {
+    this.nodes = new ConcurrentHashMap<>();
+    this.maintenanceLock = new ReentrantLock();
+    this.readBuffer = new StripedReadBuffer<>();
+    this.writeBuffer = new ConcurrentLinkedQueue<>();
+    this.accessHandler = this::onBufferedAccess;
+  }
+
+  /** Links a newly tracked node into the policy's structures. */
+  abstract void onAdd(Node<K> node);
+
+  /** Records a hit (or re-insertion) of an already tracked node. */
+  abstract void onAccess(Node<K> node);
+
+  /** Unlinks a node that is no longer tracked. */
+  abstract void onRemove(Node<K> node);
+
+  /** Picks the key to evict next, or null if nothing is tracked. */
+  abstract K selectVictim();
+
+  @Override
+  public void recordAccess(K key) {
+    Node<K> node = nodes.get(key);
+    if (node != null && !node.retired) {
+      // Hit on a tracked key: losing it only costs a little precision.
+      if (readBuffer.offer(key) == StripedReadBuffer.FULL) {
+        tryDrain();
+        readBuffer.offer(key);
+      }
+    } else {
+      writeBuffer.add(new WriteTask<>(key, false));
+      tryDrain();
+    }
+  }
+
+  @Override
+  public K getEvictionCandidate() {
+    maintenanceLock.lock();
+    try {
+      drainBuffers();
+      return selectVictim();
+    } finally {
+      maintenanceLock.unlock();
+    }
+  }
+
+  @Override
+  public void removeKey(K key) {
+    Node<K> node = nodes.get(key);
+    if (node != null) {
+      node.retired = true; // Route later accesses through the write buffer so they re-add the key.
+    }
+    writeBuffer.add(new WriteTask<>(key, true));
+    tryDrain();
+  }
+
+  /**
+   * Drains pending buffers if no other thread is doing so, re-checking for writes that raced with the unlock.
+   */
+  private void tryDrain() {
+    while (maintenanceLock.tryLock()) {
+      try {
+        drainBuffers();
+      } finally {
+        maintenanceLock.unlock();
+      }
+      if (writeBuffer.isEmpty()) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Applies all buffered events. Must be called with the maintenance lock held.
+   */
+  final void drainBuffers() {
+    WriteTask<K> task;
+    while ((task = writeBuffer.poll()) != null) {
+      if (task.removal) {
+        Node<K> node = nodes.remove(task.key);
+        if (node != null) {
+          onRemove(node);
+        }
+      } else {
+        Node<K> node = nodes.get(task.key);
+        if (node == null) {
+          node = new Node<>(task.key);
+          nodes.put(task.key, node);
+          onAdd(node);
+        } else {
+          onAccess(node);
+        }
+      }
+    }
+    readBuffer.drainTo(accessHandler);
+  }
+
+  private void onBufferedAccess(K key) {
+    Node<K> node = nodes.get(key);
+    if (node != null) { // Ignore hits on keys removed since they were buffered.
+      onAccess(node);
+    }
+  }
+
+  private static final class WriteTask<K> {
+    final K key;
+    final boolean removal;
+
+    WriteTask(K key, boolean removal) {
+      this.key = key;
+      this.removal = removal;
+    }
+  }
+}
@@ -9,4 +9,20 @@ public interface CacheEvictionPolicy<K> {
   void recordAccess(K key);
   K getEvictionCandidate();
   void removeKey(K key);
+
+  /**
+   * Decides whether a key that is not yet cached may displace the eviction victim.
+   * Returning false rejects the candidate and keeps the victim. Policies admit everything by default.
+   */
+  default boolean admit(K candidate, K victim) {
+    return true;
+  }
+
+  /**
+   * Returns an estimate of how often the key has been accessed, so a snapshot can carry it across a
+   * restart. Policies that do not track frequency return 0.
+   */
+  default int frequency(K key) {
+    return 0;
+  }
 }
@@ -0,0 +1,37 @@
+package com.cache.policies;
+
+import com.cache.policies.AccessOrderDeque.Node;
+
+/**
+ * Thread-safe LRU eviction policy.
+ * Accesses are buffered and replayed against the LRU list in batches (see {@link BufferedCacheEvictionPolicy}),
+ * so readers never block on the list itself.
+ */
+public class ConcurrentLRUCacheEvictionPolicy<K> extends BufferedCacheEvictionPolicy<K> {
+  private final AccessOrderDeque<K> accessOrder; // Keeps keys in order of usage; guarded by the maintenance lock.
+
+  public ConcurrentLRUCacheEvictionPolicy() {
+    this.accessOrder = new AccessOrderDeque<>();
+  }
+
+  @Override
+  void onAdd(Node<K> node) {
+    accessOrder.linkLast(node);
+  }
+
+  @Override
+  void onAccess(Node<K> node) {
+    accessOrder.moveToTail(node);
+  }
+
+  @Override
+  void onRemove(Node<K> node) {
+    accessOrder.unlink(node);
+  }
+
+  @Override
+  K selectVictim() {
+    Node<K> first = accessOrder.peekFirst();
+    return (first == null) ? null : first.key; // Return least recently used, if any.
+  }
+}
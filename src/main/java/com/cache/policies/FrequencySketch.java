@@ -0,0 +1,114 @@
+/*
+ * Adapted from Caffeine (https://github.com/ben-manes/caffeine), Copyright 2015 Ben Manes.
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ *
+ * Modified for this project: the table is sized once, in the constructor, rather than through
+ * ensureCapacity.
+ */
+package com.cache.policies;
+
+/**
+ * Count-min sketch of 4-bit counters used to estimate how often a key has been accessed.
+ * Four counters per key are packed into 64-bit words (sixteen counters per word). Once the number
+ * of recorded increments reaches the sample size, every counter is halved so that the sketch
+ * favours recent popularity over all-time popularity.
+ *
+ * Not thread-safe; callers provide their own synchronization.
+ */
+public final class FrequencySketch<E> {
+  private static final long[] SEED = { // A mixture of seeds from FNV-1a, CityHash, and Murmur3.
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  private static final long RESET_MASK = 0x7777777777777777L; // Clears the high bit of each counter after a shift.
+  private static final long ONE_MASK = 0x1111111111111111L; // Low bit of each counter.
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize; // Increments between agings.
+  private int size; // Increments since the last aging.
+
+  /**
+   * Creates a sketch sized for a cache holding up to maximumSize keys.
+   */
+  public FrequencySketch(long maximumSize) {
+    int capacity = (int) Math.min(Math.max(maximumSize, 1), MAXIMUM_CAPACITY);
+    this.table = new long[ceilingPowerOfTwo(capacity)];
+    this.tableMask = table.length - 1;
+    this.sampleSize = (int) Math.min(10L * capacity, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the estimated number of occurrences of the element, up to 15.
+   */
+  public int frequency(E element) {
+    int hash = spread(element.hashCode());
+    int start = (hash & 3) << 2;
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < 4; i++) {
+      int index = indexOf(hash, i);
+      int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Increments the element's counters, aging the whole sketch once the sample size is reached.
+   */
+  public void increment(E element) {
+    int hash = spread(element.hashCode());
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && (++size == sampleSize)) {
+      reset();
+    }
+  }
+
+  private boolean incrementAt(int index, int counter) {
+    int offset = counter << 2;
+    long mask = 0xfL << offset;
+    if ((table[index] & mask) != mask) { // Saturate at 15.
+      table[index] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Halves every counter, correcting the size for the truncated odd counts.
+   */
+  private void reset() {
+    int truncated = 0;
+    for (int i = 0; i < table.length; i++) {
+      truncated += Long.bitCount(table[i] & ONE_MASK);
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size = (size >>> 1) - (truncated >>> 2);
+  }
+
+  private int indexOf(int item, int i) {
+    long hash = (item + SEED[i]) * SEED[i];
+    hash += (hash >>> 32);
+    return ((int) hash) & tableMask;
+  }
+
+  private static int spread(int x) {
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    return (x >>> 16) ^ x;
+  }
+
+  private static int ceilingPowerOfTwo(int x) {
+    return 1 << -Integer.numberOfLeadingZeros(x - 1);
+  }
+}
@@ -1,27 +1,37 @@
 package com.cache.policies;
 
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 
+/**
+ * Least-recently-used eviction over an access-ordered set, guarded by one lock. The cache's cleanup and
+ * reload threads remove keys concurrently with callers, so every method is synchronized; under heavy
+ * concurrency prefer {@link ConcurrentLRUCacheEvictionPolicy}.
+ */
 public class LRUCacheEvictionPolicy<K> implements CacheEvictionPolicy<K> {
-  private final LinkedHashSet<K> accessOrder; // Keeps keys in order of usage.
+  private final LinkedHashSet<K> accessOrder; // Keeps keys in order of usage. Guarded by this.
 
   public LRUCacheEvictionPolicy() {
     this.accessOrder = new LinkedHashSet<>();
   }
 
   @Override
-  public void recordAccess(K key) {
+  public synchronized void recordAccess(K key) {
     accessOrder.remove(key); // Remove if present (move to end)
     accessOrder.add(key);   // Add as most recently used.
   }
 
+  /**
+   * Returns the least recently used key, or null if no key is tracked.
+   */
   @Override
-  public K getEvictionCandidate() {
-    return accessOrder.iterator().next(); // Return least recently used (first in order).
+  public synchronized K getEvictionCandidate() {
+    Iterator<K> oldest = accessOrder.iterator();
+    return oldest.hasNext() ? oldest.next() : null;
   }
 
   @Override
-  public void removeKey(K key) {
+  public synchronized void removeKey(K key) {
     accessOrder.remove(key);
   }
 }
@@ -0,0 +1,21 @@
+package com.cache.policies;
+
+/**
+ * Eviction policy over primitive long keys, for {@link com.cache.services.LongKeyCache}. The counterpart of
+ * {@link CacheEvictionPolicy} without boxing a key on every access. Implementations must be thread-safe.
+ */
+public interface LongCacheEvictionPolicy {
+  /**
+   * Records a read or write of the key, starting to track it if it is new.
+   */
+  void recordAccess(long key);
+
+  /**
+   * Returns the key to evict next, without removing it.
+   *
+   * @throws java.util.NoSuchElementException if no key is tracked
+   */
+  long getEvictionCandidate();
+
+  void removeKey(long key);
+}
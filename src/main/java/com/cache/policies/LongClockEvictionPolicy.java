@@ -0,0 +1,189 @@
+package com.cache.policies;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread-safe CLOCK (second-chance) eviction policy over primitive long keys, an approximation of LRU.
+ * Keys live in an open-addressing table with one state byte per slot. An access to a tracked key only sets
+ * its slot's referenced bit, found with an optimistic read, so readers take no lock and allocate nothing.
+ * The clock hand sweeps the table for a victim, clearing referenced bits as it passes them: a key is evicted
+ * once the hand finds it unreferenced, that is, not read since the hand last went by.
+ */
+public class LongClockEvictionPolicy implements LongCacheEvictionPolicy {
+  private static final VarHandle STATES = MethodHandles.arrayElementVarHandle(byte[].class);
+  private static final byte FREE = 0; // Never used since the last rehash; ends a probe.
+  private static final byte DELETED = 1; // Held a key that was removed; probes continue past it.
+  private static final byte COLD = 2; // Holds a key not read since the hand last passed it.
+  private static final byte HOT = 3; // Holds a key read since the hand last passed it.
+  private static final int MIN_TABLE_SIZE = 16;
+
+  private final StampedLock lock; // Exclusive for changes to the table; readers validate optimistically.
+  private long[] keys;
+  private byte[] states;
+  private int size; // Slots holding a key.
+  private int used; // Slots not FREE, including DELETED ones.
+  private int hand; // Next slot the clock hand examines.
+
+  public LongClockEvictionPolicy() {
+    this(MIN_TABLE_SIZE);
+  }
+
+  /**
+   * Creates a policy sized for the expected number of keys, usually the cache's capacity.
+   */
+  public LongClockEvictionPolicy(int expectedSize) {
+    this.lock = new StampedLock();
+    int tableSize = tableSizeFor(expectedSize);
+    this.keys = new long[tableSize];
+    this.states = new byte[tableSize];
+  }
+
+  @Override
+  public void recordAccess(long key) {
+    long stamp = lock.tryOptimisticRead();
+    long[] currentKeys = keys;
+    byte[] currentStates = states;
+    int index = (currentKeys.length == currentStates.length) ? find(currentKeys, currentStates, key) : -1;
+    if (lock.validate(stamp) && index >= 0) {
+      // Fails if the slot was freed meanwhile; a reused slot may get a spurious second chance.
+      STATES.compareAndSet(currentStates, index, COLD, HOT);
+      return;
+    }
+
+    stamp = lock.writeLock();
+    try {
+      index = find(keys, states, key);
+      if (index >= 0) {
+        states[index] = HOT;
+      } else {
+        insert(key);
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public long getEvictionCandidate() {
+    long stamp = lock.writeLock();
+    try {
+      if (size == 0) {
+        throw new NoSuchElementException("No keys to evict.");
+      }
+      int mask = keys.length - 1;
+      for (;;) { // Ends within two sweeps: the first clears every referenced bit.
+        byte state = (byte) STATES.getVolatile(states, hand);
+        if (state == COLD) {
+          return keys[hand]; // The hand stays here until the key is removed.
+        }
+        if (state == HOT) {
+          STATES.setVolatile(states, hand, COLD);
+        }
+        hand = (hand + 1) & mask;
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public void removeKey(long key) {
+    long stamp = lock.writeLock();
+    try {
+      int index = find(keys, states, key);
+      if (index >= 0) {
+        STATES.setVolatile(states, index, DELETED);
+        size--;
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Returns the number of tracked keys.
+   */
+  public int size() {
+    long stamp = lock.readLock();
+    try {
+      return size;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Returns the slot of the key, or -1. Probes at most the whole table, so an optimistic read of a table
+   * changing underneath it still ends.
+   */
+  private static int find(long[] keys, byte[] states, long key) {
+    int mask = keys.length - 1;
+    int index = spread(key) & mask;
+    for (int probes = 0; probes < keys.length; probes++) {
+      byte state = states[index];
+      if (state == FREE) {
+        return -1;
+      }
+      if (state != DELETED && keys[index] == key) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * Inserts a key known to be absent, as referenced so that the hand does not evict it on its next pass.
+   */
+  private void insert(long key) {
+    if ((used + 1) * 4L > keys.length * 3L) {
+      rehash((size + 1) * 2L > keys.length ? keys.length * 2 : keys.length); // Grow, or just drop DELETED slots.
+    }
+    int mask = keys.length - 1;
+    int index = spread(key) & mask;
+    while (states[index] >= COLD) {
+      index = (index + 1) & mask;
+    }
+    if (states[index] == FREE) {
+      used++;
+    }
+    keys[index] = key;
+    STATES.setVolatile(states, index, HOT);
+    size++;
+  }
+
+  private void rehash(int tableSize) {
+    long[] oldKeys = keys;
+    byte[] oldStates = states;
+    long[] newKeys = new long[tableSize];
+    byte[] newStates = new byte[tableSize];
+    int mask = tableSize - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldStates[i] >= COLD) {
+        int index = spread(oldKeys[i]) & mask;
+        while (newStates[index] != FREE) {
+          index = (index + 1) & mask;
+        }
+        newKeys[index] = oldKeys[i];
+        newStates[index] = oldStates[i]; // Keeps referenced bits.
+      }
+    }
+    keys = newKeys;
+    states = newStates;
+    used = size;
+    hand = 0;
+  }
+
+  private static int spread(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  private static int tableSizeFor(int expectedSize) {
+    long target = Math.max(MIN_TABLE_SIZE, expectedSize * 2L); // At most half full when holding expectedSize keys.
+    return (int) Math.min(1 << 30, Long.highestOneBit(target - 1) << 1);
+  }
+}
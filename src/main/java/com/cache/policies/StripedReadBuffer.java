@@ -0,0 +1,108 @@
+/*
+ * Adapted from Caffeine (https://github.com/ben-manes/caffeine), Copyright 2015 Ben Manes.
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ *
+ * Modified for this project: StripedBuffer and BoundedBuffer are merged into one class, the stripe count
+ * is fixed at creation from the processor count instead of grown on contention, and a stripe is picked by
+ * hashing the thread's id instead of its random probe.
+ */
+package com.cache.policies;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Striped, lossy ring buffers for recording reads without contending on the policy's lock.
+ * Producers pick a stripe by thread and drop the element if the slot race is lost; a single
+ * consumer (the thread holding the policy's maintenance lock) drains all stripes in batches.
+ */
+final class StripedReadBuffer<E> {
+  static final int SUCCESS = 0;
+  static final int FAILED = 1;
+  static final int FULL = 2;
+
+  private static final int BUFFER_SIZE = 16; // Slots per stripe (power of two).
+  private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+  private final RingBuffer<E>[] stripes;
+  private final int stripeMask;
+
+  @SuppressWarnings("unchecked")
+  StripedReadBuffer() {
+    int count = 1;
+    while (count < Runtime.getRuntime().availableProcessors()) {
+      count <<= 1;
+    }
+    this.stripes = new RingBuffer[count];
+    for (int i = 0; i < count; i++) {
+      stripes[i] = new RingBuffer<>();
+    }
+    this.stripeMask = count - 1;
+  }
+
+  /**
+   * Records the element in the calling thread's stripe.
+   * Returns SUCCESS, FAILED if the element was dropped due to contention, or FULL if the stripe needs draining.
+   */
+  int offer(E element) {
+    return stripes[probe() & stripeMask].offer(element);
+  }
+
+  /**
+   * Drains every stripe into the consumer. Must only be called by one thread at a time.
+   */
+  void drainTo(Consumer<E> consumer) {
+    for (RingBuffer<E> stripe : stripes) {
+      stripe.drainTo(consumer);
+    }
+  }
+
+  private static int probe() {
+    long id = Thread.currentThread().getId();
+    int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9; // Spread sequential thread ids across stripes.
+    return hash ^ (hash >>> 16);
+  }
+
+  private static final class RingBuffer<E> {
+    private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+    private final AtomicLong writeCounter = new AtomicLong(); // Claimed by producers.
+    private volatile long readCounter; // Advanced only by the draining thread.
+
+    int offer(E element) {
+      long head = readCounter;
+      long tail = writeCounter.get();
+      if (tail - head >= BUFFER_SIZE) {
+        return FULL;
+      }
+      if (writeCounter.compareAndSet(tail, tail + 1)) {
+        buffer.lazySet((int) (tail & BUFFER_MASK), element);
+        return SUCCESS;
+      }
+      return FAILED;
+    }
+
+    void drainTo(Consumer<E> consumer) {
+      long head = readCounter;
+      long tail = writeCounter.get();
+      while (head < tail) {
+        int index = (int) (head & BUFFER_MASK);
+        E element = buffer.get(index);
+        if (element == null) {
+          break; // Slot claimed but not yet published; pick it up on the next drain.
+        }
+        buffer.lazySet(index, null);
+        consumer.accept(element);
+        head++;
+      }
+      readCounter = head;
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package com.cache.policies;
+
+import com.cache.policies.AccessOrderDeque.Node;
+
+/**
+ * Thread-safe W-TinyLFU eviction policy.
+ * New keys enter a small LRU admission window. When the cache is full, the oldest key leaving the
+ * window competes with the main region's victim and the one the frequency sketch has seen less often
+ * is evicted. The main region is a segmented LRU: keys start on probation and are promoted to the
+ * protected segment when they are hit again. This keeps one-off scans from flushing the hot set.
+ */
+public class WTinyLFUCacheEvictionPolicy<K> extends BufferedCacheEvictionPolicy<K> {
+  private static final int WINDOW = 0;
+  private static final int PROBATION = 1;
+  private static final int PROTECTED = 2;
+
+  private final AccessOrderDeque<K> window; // Recency-ordered admission window.
+  private final AccessOrderDeque<K> probation; // Main region keys seen once since admission.
+  private final AccessOrderDeque<K> protectedSegment; // Main region keys hit again while on probation.
+  private final FrequencySketch<K> sketch; // Popularity estimates for admission decisions.
+  private final int maxWindow;
+  private final int maxProtected;
+
+  /**
+   * Creates a policy for a cache of the given size with a 1% admission window.
+   */
+  public WTinyLFUCacheEvictionPolicy(int maximumSize) {
+    this(maximumSize, 1);
+  }
+
+  /**
+   * Creates a policy for a cache of the given size with the given window share.
+   * A window of 0% degrades to plain TinyLFU, where {@link #admit} may reject new keys.
+   */
+  public WTinyLFUCacheEvictionPolicy(int maximumSize, int windowPercent) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("Maximum size must be > 0.");
+    }
+    if (windowPercent < 0 || windowPercent > 100) {
+      throw new IllegalArgumentException("Window percent must be between 0 and 100.");
+    }
+    this.maxWindow = (windowPercent == 0) ? 0 : Math.max(1, (int) ((long) maximumSize * windowPercent / 100));
+    this.maxProtected = (int) ((long) (maximumSize - maxWindow) * 80 / 100);
+    this.window = new AccessOrderDeque<>();
+    this.probation = new AccessOrderDeque<>();
+    this.protectedSegment = new AccessOrderDeque<>();
+    this.sketch = new FrequencySketch<>(maximumSize);
+  }
+
+  /**
+   * New keys always enter the admission window, where the frequency duel happens later; this only
+   * rejects candidates in plain TinyLFU mode (no window) when the sketch favours the victim.
+   */
+  @Override
+  public boolean admit(K candidate, K victim) {
+    if (maxWindow > 0) {
+      return true;
+    }
+    maintenanceLock.lock();
+    try {
+      drainBuffers();
+      if (sketch.frequency(candidate) > sketch.frequency(victim)) {
+        return true;
+      }
+      sketch.increment(candidate); // Remember the rejected key so it can win next time.
+      return false;
+    } finally {
+      maintenanceLock.unlock();
+    }
+  }
+
+  @Override
+  public int frequency(K key) {
+    maintenanceLock.lock();
+    try {
+      return sketch.frequency(key);
+    } finally {
+      maintenanceLock.unlock();
+    }
+  }
+
+  @Override
+  void onAdd(Node<K> node) {
+    sketch.increment(node.key);
+    if (maxWindow == 0) {
+      node.queue = PROBATION;
+      probation.linkLast(node);
+      return;
+    }
+    node.queue = WINDOW;
+    window.linkLast(node);
+    while (window.size() > maxWindow) {
+      // Overflow moves to probation as a candidate that must beat the main victim to stay.
+      Node<K> first = window.peekFirst();
+      window.unlink(first);
+      first.queue = PROBATION;
+      first.candidate = true;
+      probation.linkLast(first);
+    }
+  }
+
+  @Override
+  void onAccess(Node<K> node) {
+    sketch.increment(node.key);
+    switch (node.queue) {
+      case WINDOW:
+        window.moveToTail(node);
+        break;
+      case PROBATION:
+        node.candidate = false;
+        if (maxProtected == 0) {
+          probation.moveToTail(node);
+          break;
+        }
+        probation.unlink(node);
+        node.queue = PROTECTED;
+        protectedSegment.linkLast(node);
+        if (protectedSegment.size() > maxProtected) {
+          Node<K> demoted = protectedSegment.peekFirst();
+          protectedSegment.unlink(demoted);
+          demoted.queue = PROBATION;
+          probation.linkLast(demoted);
+        }
+        break;
+      default:
+        protectedSegment.moveToTail(node);
+        break;
+    }
+  }
+
+  @Override
+  void onRemove(Node<K> node) {
+    switch (node.queue) {
+      case WINDOW:
+        window.unlink(node);
+        break;
+      case PROBATION:
+        probation.unlink(node);
+        break;
+      default:
+        protectedSegment.unlink(node);
+        break;
+    }
+  }
+
+  @Override
+  K selectVictim() {
+    Node<K> victim = firstOf(probation, protectedSegment, window);
+    if (victim == null) {
+      return null;
+    }
+    Node<K> candidate = probation.peekLast();
+    if (candidate == null || candidate == victim || !candidate.candidate) {
+      return victim.key;
+    }
+    // The newest arrival from the window duels the main region's victim; the loser is evicted.
+    if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+      candidate.candidate = false;
+      return victim.key;
+    }
+    return candidate.key;
+  }
+
+  private static <K> Node<K> firstOf(AccessOrderDeque<K> first, AccessOrderDeque<K> second, AccessOrderDeque<K> third) {
+    Node<K> node = first.peekFirst();
+    if (node == null) {
+      node = second.peekFirst();
+    }
+    return (node == null) ? third.peekFirst() : node;
+  }
+}
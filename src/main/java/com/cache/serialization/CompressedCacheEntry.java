@@ -0,0 +1,75 @@
+package com.cache.serialization;
+
+import com.cache.models.CacheEntry;
+
+/**
+ * A cache entry that keeps its value deflated on the heap when the {@link CompressingSerializer} finds it
+ * worth compressing, and as the object itself otherwise. Every read of a compressed value inflates a
+ * fresh copy.
+ */
+public class CompressedCacheEntry<K, V> extends CacheEntry<K, V> {
+  private final CompressingSerializer<V> compressor;
+  private volatile byte[] compressed; // Null while the value is kept as an object.
+
+  public CompressedCacheEntry(K key, V value, long currentTimeNanos, CompressingSerializer<V> compressor) {
+    this(key, value, (value == null) ? null : compressor.compress(value), currentTimeNanos, compressor);
+  }
+
+  /**
+   * Creates an entry for a value the compressor has already compressed, or found not worth compressing
+   * when compressed is null.
+   */
+  public CompressedCacheEntry(K key, V value, byte[] compressed, long currentTimeNanos,
+      CompressingSerializer<V> compressor) {
+    super(key, null, currentTimeNanos);
+    this.compressor = compressor;
+    store(value, compressed, currentTimeNanos);
+  }
+
+  /**
+   * Returns the value, retrying if a concurrent setValue compressed it between the two reads.
+   */
+  @Override
+  public V getValue() {
+    while (true) {
+      byte[] current = compressed;
+      if (current != null) {
+        return compressor.deserialize(current);
+      }
+      V value = super.getValue();
+      if (value != null || compressed == null) {
+        return value;
+      }
+    }
+  }
+
+  @Override
+  public synchronized void setValue(V newValue, long currentTimeNanos) {
+    store(newValue, (newValue == null) ? null : compressor.compress(newValue), currentTimeNanos);
+  }
+
+  /**
+   * Replaces the value with one the compressor has already compressed, or found not worth compressing
+   * when compressed is null.
+   */
+  public synchronized void setValue(V newValue, byte[] compressed, long currentTimeNanos) {
+    store(newValue, compressed, currentTimeNanos);
+  }
+
+  /**
+   * Returns true if the value is held compressed.
+   */
+  public boolean isCompressed() {
+    return compressed != null;
+  }
+
+  private void store(V value, byte[] bytes, long currentTimeNanos) {
+    if (bytes == null) {
+      super.setValue(value, currentTimeNanos); // Publish the object before readers stop inflating the old bytes.
+      compressed = null;
+    } else {
+      compressed = bytes;
+      super.setValue(null, currentTimeNanos);
+    }
+  }
+}
@@ -0,0 +1,193 @@
+package com.cache.serialization;
+
+import com.cache.stats.CompressionStats;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Wraps a serializer and deflates the values it serializes to at least a threshold number of bytes. Values
+ * below the threshold, and values that deflate to no less than they started, are written as they are
+ * behind a one-byte header, so small values pay one byte and no compression work. Deflaters and inflaters
+ * hold native memory and are costly to create, so a few are pooled and reused.
+ *
+ * Pass it to {@link com.cache.services.CacheOptions#offHeap} to compress off-heap values, or use
+ * {@link com.cache.services.CacheOptions#compressValues} to keep large heap values compressed.
+ */
+public class CompressingSerializer<T> implements Serializer<T> {
+  private static final byte STORED = 0;
+  private static final byte DEFLATED = 1;
+  private static final int HEADER = 5; // Format byte and, when deflated, the inflated length.
+  private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+  private final Serializer<T> serializer;
+  private final int threshold; // Serialized size from which values are deflated.
+  private final int level; // Deflater level.
+  private final BlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+  private final BlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+  private final LongAdder compressedCount = new LongAdder();
+  private final LongAdder skippedCount = new LongAdder();
+  private final LongAdder uncompressedBytes = new LongAdder();
+  private final LongAdder compressedBytes = new LongAdder();
+  private final LongAdder compressionTime = new LongAdder();
+  private final LongAdder decompressionCount = new LongAdder();
+  private final LongAdder decompressionTime = new LongAdder();
+
+  /**
+   * Constructor for CompressingSerializer, favouring speed over ratio.
+   */
+  public CompressingSerializer(Serializer<T> serializer, int threshold) {
+    this(serializer, threshold, Deflater.BEST_SPEED);
+  }
+
+  public CompressingSerializer(Serializer<T> serializer, int threshold, int level) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException("Threshold must be >= 0.");
+    }
+    if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException("Invalid deflate level " + level + ".");
+    }
+    this.serializer = serializer;
+    this.threshold = threshold;
+    this.level = level;
+  }
+
+  @Override
+  public byte[] serialize(T value) {
+    long start = System.nanoTime();
+    byte[] plain = serializer.serialize(value);
+    byte[] framed = deflate(plain);
+    if (framed == null) {
+      framed = new byte[plain.length + 1];
+      framed[0] = STORED;
+      System.arraycopy(plain, 0, framed, 1, plain.length);
+    }
+    compressionTime.add(System.nanoTime() - start);
+    return framed;
+  }
+
+  /**
+   * Returns the value deflated behind its header, or null if it is below the threshold or does not
+   * shrink, in which case it is best kept as it is.
+   */
+  public byte[] compress(T value) {
+    long start = System.nanoTime();
+    byte[] plain = serializer.serialize(value);
+    byte[] framed = deflate(plain);
+    compressionTime.add(System.nanoTime() - start);
+    return framed;
+  }
+
+  /**
+   * Returns the serialized size of the value the bytes hold before it was compressed.
+   */
+  public int uncompressedLength(byte[] bytes) {
+    if (bytes.length == 0) {
+      throw new IllegalArgumentException("Missing compression header.");
+    }
+    if (bytes[0] == STORED) {
+      return bytes.length - 1;
+    }
+    if (bytes[0] != DEFLATED || bytes.length < HEADER) {
+      throw new IllegalArgumentException("Unknown compression header " + bytes[0] + ".");
+    }
+    return ((bytes[1] & 0xff) << 24) | ((bytes[2] & 0xff) << 16) | ((bytes[3] & 0xff) << 8) | (bytes[4] & 0xff);
+  }
+
+  @Override
+  public T deserialize(byte[] bytes) {
+    int length = uncompressedLength(bytes);
+    if (bytes[0] == STORED) {
+      return serializer.deserialize(Arrays.copyOfRange(bytes, 1, bytes.length));
+    }
+    long start = System.nanoTime();
+    byte[] plain = new byte[length];
+    Inflater inflater = inflaters.poll();
+    if (inflater == null) {
+      inflater = new Inflater();
+    }
+    try {
+      inflater.setInput(bytes, HEADER, bytes.length - HEADER);
+      int inflated = 0;
+      while (inflated < length && !inflater.finished()) {
+        int n = inflater.inflate(plain, inflated, length - inflated);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        inflated += n;
+      }
+      if (inflated != length) {
+        throw new IllegalArgumentException("Truncated compressed value: " + inflated + " of " + length + " bytes.");
+      }
+    } catch (DataFormatException e) {
+      throw new IllegalArgumentException("Corrupt compressed value.", e);
+    } finally {
+      inflater.reset();
+      if (!inflaters.offer(inflater)) {
+        inflater.end();
+      }
+    }
+    decompressionCount.increment();
+    decompressionTime.add(System.nanoTime() - start);
+    return serializer.deserialize(plain);
+  }
+
+  /**
+   * Returns a snapshot of how much this serializer has compressed and what it cost.
+   */
+  public CompressionStats stats() {
+    return new CompressionStats(compressedCount.sum(), skippedCount.sum(), uncompressedBytes.sum(),
+        compressedBytes.sum(), compressionTime.sum(), decompressionCount.sum(), decompressionTime.sum());
+  }
+
+  /**
+   * Deflates the bytes behind a header, or returns null and counts the value as skipped if they are
+   * below the threshold or deflating does not make them smaller.
+   */
+  private byte[] deflate(byte[] plain) {
+    if (plain.length < threshold) {
+      skippedCount.increment();
+      return null;
+    }
+    Deflater deflater = deflaters.poll();
+    if (deflater == null) {
+      deflater = new Deflater(level);
+    }
+    byte[] framed = new byte[HEADER + plain.length];
+    int length;
+    try {
+      deflater.setInput(plain);
+      deflater.finish();
+      length = HEADER;
+      while (!deflater.finished() && length < framed.length) {
+        length += deflater.deflate(framed, length, framed.length - length);
+      }
+      if (!deflater.finished()) {
+        skippedCount.increment(); // Incompressible; the deflated form would be larger.
+        return null;
+      }
+    } finally {
+      deflater.reset();
+      if (!deflaters.offer(deflater)) {
+        deflater.end();
+      }
+    }
+    if (length >= plain.length + 1) {
+      skippedCount.increment();
+      return null;
+    }
+    framed[0] = DEFLATED;
+    framed[1] = (byte) (plain.length >>> 24);
+    framed[2] = (byte) (plain.length >>> 16);
+    framed[3] = (byte) (plain.length >>> 8);
+    framed[4] = (byte) plain.length;
+    compressedCount.increment();
+    uncompressedBytes.add(plain.length);
+    compressedBytes.add(length);
+    return Arrays.copyOf(framed, length);
+  }
+}
@@ -0,0 +1,38 @@
+package com.cache.serialization;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Serializes any {@link java.io.Serializable} value with Java object serialization.
+ * Convenient but slow and verbose; prefer a dedicated serializer for hot value types.
+ */
+public class JavaSerializer<T> implements Serializer<T> {
+
+  @Override
+  public byte[] serialize(T value) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(value);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to serialize value: " + e.getMessage(), e);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T deserialize(byte[] bytes) {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return (T) in.readObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to deserialize value: " + e.getMessage(), e);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException("Failed to deserialize value: " + e.getMessage(), e);
+    }
+  }
+}
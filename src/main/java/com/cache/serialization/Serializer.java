@@ -0,0 +1,22 @@
+package com.cache.serialization;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts values to and from bytes, for caches that keep values outside the Java heap.
+ * Implementations must be thread-safe and must round-trip: deserialize(serialize(v)) equals v.
+ */
+public interface Serializer<T> {
+  byte[] serialize(T value);
+  T deserialize(byte[] bytes);
+
+  /**
+   * Reads a value from the buffer's remaining bytes. Serializers that can decode in place should override
+   * this to avoid the copy, which lets stores hand out values straight from mapped memory.
+   */
+  default T deserialize(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return deserialize(bytes);
+  }
+}
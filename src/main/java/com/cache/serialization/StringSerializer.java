@@ -0,0 +1,25 @@
+package com.cache.serialization;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializes strings as UTF-8.
+ */
+public class StringSerializer implements Serializer<String> {
+
+  @Override
+  public byte[] serialize(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public String deserialize(byte[] bytes) {
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public String deserialize(ByteBuffer buffer) {
+    return StandardCharsets.UTF_8.decode(buffer).toString(); // Decodes in place, without an intermediate copy.
+  }
+}
@@ -0,0 +1,353 @@
+package com.cache.server;
+
+import com.cache.exceptions.CacheException;
+import com.cache.services.Cache;
+import com.cache.stats.CacheStats;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * A cache living in another process, reached through its {@link RespServer}. Each call borrows a connection
+ * from a pool, sends one command and waits for its reply, so concurrent callers use separate connections;
+ * getAll and putAll send a single MGET or MSET.
+ *
+ * Failures reading are reported as CacheException and failures writing, where the interface allows no
+ * checked exception, as UncheckedIOException. getOrLoad runs the loader here and writes its value back,
+ * so unlike {@link com.cache.services.CacheService} it may overwrite a value another client put meanwhile.
+ */
+public class RemoteCache implements Cache<String, byte[]> {
+  private static final Logger logger = Logger.getLogger(RemoteCache.class.getName());
+  private static final int CONNECT_TIMEOUT_MILLIS = 5_000;
+
+  private final InetSocketAddress address;
+  private final Queue<Connection> idle = new ConcurrentLinkedQueue<>(); // Connections not in use.
+  private volatile boolean closed;
+
+  public RemoteCache(InetSocketAddress address) {
+    this.address = address;
+  }
+
+  public InetSocketAddress getAddress() {
+    return address;
+  }
+
+  @Override
+  public void put(String key, byte[] value) {
+    write("SET", bytes(key), value);
+  }
+
+  @Override
+  public void put(String key, byte[] value, Duration timeToLive) {
+    long millis = Math.max(1, timeToLive.toMillis());
+    write("SET", bytes(key), value, bytes("PX"), bytes(Long.toString(millis)));
+  }
+
+  @Override
+  public byte[] get(String key) throws CacheException {
+    byte[] value = (byte[]) read("GET", bytes(key));
+    if (value == null) {
+      throw new CacheException("Key '" + key + "' not found.");
+    }
+    return value;
+  }
+
+  @Override
+  public byte[] getOrNull(String key) throws CacheException {
+    return (byte[]) read("GET", bytes(key));
+  }
+
+  @Override
+  public byte[] getOrLoad(String key, Function<? super String, ? extends byte[]> loader) throws CacheException {
+    byte[] value = (byte[]) read("GET", bytes(key));
+    if (value == null) {
+      value = loader.apply(key);
+      if (value == null) {
+        throw new CacheException("Key '" + key + "' not found.");
+      }
+      put(key, value);
+    }
+    return value;
+  }
+
+  @Override
+  public boolean remove(String key) {
+    return Long.valueOf(1).equals(write("DEL", bytes(key)));
+  }
+
+  @Override
+  public Map<String, byte[]> getAll(Collection<? extends String> keys) throws CacheException {
+    Map<String, byte[]> found = new HashMap<>();
+    if (keys.isEmpty()) {
+      return found;
+    }
+    List<String> ordered = new ArrayList<>(keys);
+    byte[][] args = new byte[ordered.size() + 1][];
+    args[0] = bytes("MGET");
+    for (int i = 0; i < ordered.size(); i++) {
+      args[i + 1] = bytes(ordered.get(i));
+    }
+    List<?> values = (List<?>) read(args);
+    for (int i = 0; i < ordered.size(); i++) {
+      if (values.get(i) != null) {
+        found.put(ordered.get(i), (byte[]) values.get(i));
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public void putAll(Map<? extends String, ? extends byte[]> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    byte[][] args = new byte[entries.size() * 2 + 1][];
+    args[0] = bytes("MSET");
+    int i = 1;
+    for (Map.Entry<? extends String, ? extends byte[]> entry : entries.entrySet()) {
+      args[i++] = bytes(entry.getKey());
+      args[i++] = entry.getValue();
+    }
+    write(args);
+  }
+
+  @Override
+  public int size() {
+    try {
+      return (int) (long) (Long) call(bytes("DBSIZE"));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Lists the server's keys with one KEYS command.
+   */
+  @Override
+  public Set<String> keys() {
+    Set<String> keys = new HashSet<>();
+    for (Object key : (List<?>) write("KEYS", bytes("*"))) {
+      keys.add(new String((byte[]) key, StandardCharsets.UTF_8));
+    }
+    return keys;
+  }
+
+  @Override
+  public long weightedSize() {
+    return size();
+  }
+
+  /**
+   * Returns no statistics; the server's cache keeps its own.
+   */
+  @Override
+  public CacheStats stats() {
+    return CacheStats.empty();
+  }
+
+  /**
+   * Does nothing: the server's cache cleans up after itself.
+   */
+  @Override
+  public void cleanUp() {
+  }
+
+  /**
+   * Closes the pooled connections. The server and its cache keep running.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    Connection connection;
+    while ((connection = idle.poll()) != null) {
+      connection.close();
+    }
+  }
+
+  private Object read(String command, byte[]... args) throws CacheException {
+    byte[][] all = new byte[args.length + 1][];
+    all[0] = bytes(command);
+    System.arraycopy(args, 0, all, 1, args.length);
+    return read(all);
+  }
+
+  private Object read(byte[][] args) throws CacheException {
+    try {
+      return call(args);
+    } catch (IOException e) {
+      throw new CacheException("Failed to read from " + address + ": " + e.getMessage(), e);
+    }
+  }
+
+  private Object write(String command, byte[]... args) {
+    byte[][] all = new byte[args.length + 1][];
+    all[0] = bytes(command);
+    System.arraycopy(args, 0, all, 1, args.length);
+    return write(all);
+  }
+
+  private Object write(byte[][] args) {
+    try {
+      return call(args);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to write to " + address + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Sends a command on an idle connection, or a new one, and returns the reply. A connection that failed
+   * is closed rather than returned to the pool, since a reply may still be in flight on it.
+   */
+  private Object call(byte[]... args) throws IOException {
+    if (closed) {
+      throw new IOException("Client is closed.");
+    }
+    Connection connection = idle.poll();
+    if (connection == null) {
+      connection = new Connection(address);
+    }
+    Object reply;
+    try {
+      reply = connection.call(args);
+    } catch (IOException | RuntimeException e) {
+      connection.close();
+      throw e;
+    }
+    idle.add(connection);
+    if (closed && idle.remove(connection)) {
+      connection.close(); // Closed while the call was running.
+    }
+    return reply;
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * One blocking socket to the server.
+   */
+  private static final class Connection {
+    private final Socket socket;
+    private final OutputStream out;
+    private final InputStream in;
+
+    Connection(InetSocketAddress address) throws IOException {
+      this.socket = new Socket();
+      try {
+        socket.setTcpNoDelay(true);
+        socket.connect(address, CONNECT_TIMEOUT_MILLIS);
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+        this.in = new BufferedInputStream(socket.getInputStream());
+      } catch (IOException e) {
+        socket.close();
+        throw e;
+      }
+    }
+
+    /**
+     * Writes the command as an array of bulk strings and reads the reply: a String for a status, a Long
+     * for an integer, a byte[] or null for a bulk string and a List for an array. Errors are thrown.
+     */
+    Object call(byte[][] args) throws IOException {
+      writeNumber('*', args.length);
+      for (byte[] arg : args) {
+        writeNumber('$', arg.length);
+        out.write(arg);
+        out.write('\r');
+        out.write('\n');
+      }
+      out.flush();
+      return readReply();
+    }
+
+    void close() {
+      try {
+        socket.close();
+      } catch (IOException e) {
+        logger.fine("Failed to close connection: " + e.getMessage());
+      }
+    }
+
+    private void writeNumber(char type, long value) throws IOException {
+      out.write(type);
+      out.write(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+      out.write('\r');
+      out.write('\n');
+    }
+
+    private Object readReply() throws IOException {
+      int type = in.read();
+      String line = readLine();
+      switch (type) {
+        case '+':
+          return line;
+        case '-':
+          throw new IOException("Server replied: " + line);
+        case ':':
+          return Long.parseLong(line);
+        case '$':
+          return readBulk(Integer.parseInt(line));
+        case '*':
+          int length = Integer.parseInt(line);
+          if (length < 0) {
+            return null;
+          }
+          List<Object> elements = new ArrayList<>(length);
+          for (int i = 0; i < length; i++) {
+            elements.add(readReply());
+          }
+          return elements;
+        case -1:
+          throw new EOFException("Connection closed by server.");
+        default:
+          throw new IOException("Unexpected reply type '" + (char) type + "'.");
+      }
+    }
+
+    private byte[] readBulk(int length) throws IOException {
+      if (length < 0) {
+        return null;
+      }
+      byte[] value = in.readNBytes(length);
+      if (value.length < length || in.read() != '\r' || in.read() != '\n') {
+        throw new EOFException("Connection closed in the middle of a reply.");
+      }
+      return value;
+    }
+
+    private String readLine() throws IOException {
+      StringBuilder line = new StringBuilder();
+      int c;
+      while ((c = in.read()) != '\r') {
+        if (c < 0) {
+          throw new EOFException("Connection closed in the middle of a reply.");
+        }
+        line.append((char) c);
+      }
+      if (in.read() != '\n') {
+        throw new IOException("Malformed reply line.");
+      }
+      return line.toString();
+    }
+  }
+}
@@ -0,0 +1,217 @@
+package com.cache.server;
+
+import com.cache.exceptions.CacheException;
+import com.cache.services.Cache;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Runs the supported subset of Redis commands against a cache of UTF-8 string keys and binary values.
+ * Replies follow Redis, so its clients and benchmark tools work unchanged.
+ */
+final class RespCommands {
+  private static final Logger logger = Logger.getLogger(RespCommands.class.getName());
+
+  private final Cache<String, byte[]> cache;
+
+  RespCommands(Cache<String, byte[]> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Runs the command and writes its reply. Returns false if the client asked to close the connection.
+   */
+  boolean execute(List<byte[]> args, RespOutput out) {
+    String name = new String(args.get(0), StandardCharsets.US_ASCII).toUpperCase();
+    try {
+      switch (name) {
+        case "GET":
+          if (checkArity(name, args, 2, 2, out)) {
+            get(args, out);
+          }
+          break;
+        case "SET":
+          if (checkArity(name, args, 3, 5, out)) {
+            set(args, out);
+          }
+          break;
+        case "DEL":
+          if (checkArity(name, args, 2, Integer.MAX_VALUE, out)) {
+            del(args, out);
+          }
+          break;
+        case "MGET":
+          if (checkArity(name, args, 2, Integer.MAX_VALUE, out)) {
+            mget(args, out);
+          }
+          break;
+        case "MSET":
+          if (checkArity(name, args, 3, Integer.MAX_VALUE, out)) {
+            mset(args, out);
+          }
+          break;
+        case "KEYS":
+          if (checkArity(name, args, 2, 2, out)) {
+            keys(args, out);
+          }
+          break;
+        case "DBSIZE":
+          if (checkArity(name, args, 1, 1, out)) {
+            out.integer(cache.size());
+          }
+          break;
+        case "PING":
+          if (checkArity(name, args, 1, 2, out)) {
+            if (args.size() == 1) {
+              out.simpleString("PONG");
+            } else {
+              out.bulkString(args.get(1));
+            }
+          }
+          break;
+        case "CONFIG":
+          out.arrayHeader(0); // Benchmark clients read settings on start; there are none to report.
+          break;
+        case "QUIT":
+          out.simpleString("OK");
+          return false;
+        default:
+          out.error("ERR unknown command '" + name + "'");
+      }
+    } catch (RuntimeException e) {
+      logger.warning("Failed to run " + name + ": " + e.getMessage());
+      out.error("ERR " + e.getMessage());
+    }
+    return true;
+  }
+
+  private void get(List<byte[]> args, RespOutput out) {
+    byte[] value;
+    try {
+      value = cache.getOrNull(key(args.get(1)));
+    } catch (CacheException e) {
+      value = null; // Expired.
+    }
+    if (value == null) {
+      out.nullBulkString();
+    } else {
+      out.bulkString(value);
+    }
+  }
+
+  /**
+   * SET key value [EX seconds | PX milliseconds].
+   */
+  private void set(List<byte[]> args, RespOutput out) {
+    Duration timeToLive = null;
+    if (args.size() > 3) {
+      String option = new String(args.get(3), StandardCharsets.US_ASCII).toUpperCase();
+      long amount = (args.size() == 5) ? parseLong(args.get(4)) : -1;
+      if (args.size() != 5 || !(option.equals("EX") || option.equals("PX"))) {
+        out.error("ERR syntax error");
+        return;
+      }
+      if (amount <= 0) {
+        out.error("ERR invalid expire time in 'set' command");
+        return;
+      }
+      timeToLive = option.equals("EX") ? Duration.ofSeconds(amount) : Duration.ofMillis(amount);
+    }
+    if (timeToLive == null) {
+      cache.put(key(args.get(1)), args.get(2));
+    } else {
+      cache.put(key(args.get(1)), args.get(2), timeToLive);
+    }
+    out.simpleString("OK");
+  }
+
+  /**
+   * Removes the keys and replies with how many of them were cached.
+   */
+  private void del(List<byte[]> args, RespOutput out) {
+    long removed = 0;
+    for (int i = 1; i < args.size(); i++) {
+      if (cache.remove(key(args.get(i)))) {
+        removed++;
+      }
+    }
+    out.integer(removed);
+  }
+
+  private void mget(List<byte[]> args, RespOutput out) {
+    List<String> keys = new ArrayList<>(args.size() - 1);
+    for (int i = 1; i < args.size(); i++) {
+      keys.add(key(args.get(i)));
+    }
+    Map<String, byte[]> values;
+    try {
+      values = cache.getAll(keys); // Misses are loaded in one batch.
+    } catch (CacheException e) {
+      out.error("ERR " + e.getMessage());
+      return;
+    }
+    out.arrayHeader(keys.size());
+    for (String key : keys) {
+      byte[] value = values.get(key);
+      if (value == null) {
+        out.nullBulkString();
+      } else {
+        out.bulkString(value);
+      }
+    }
+  }
+
+  /**
+   * KEYS *. Patterns other than the one matching every key are not supported.
+   */
+  private void keys(List<byte[]> args, RespOutput out) {
+    if (!key(args.get(1)).equals("*")) {
+      out.error("ERR only the '*' pattern is supported");
+      return;
+    }
+    Set<String> keys = cache.keys();
+    out.arrayHeader(keys.size());
+    for (String key : keys) {
+      out.bulkString(key.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  private void mset(List<byte[]> args, RespOutput out) {
+    if (args.size() % 2 == 0) {
+      out.error("ERR wrong number of arguments for 'mset' command");
+      return;
+    }
+    Map<String, byte[]> entries = new LinkedHashMap<>(args.size());
+    for (int i = 1; i < args.size(); i += 2) {
+      entries.put(key(args.get(i)), args.get(i + 1));
+    }
+    cache.putAll(entries);
+    out.simpleString("OK");
+  }
+
+  private static boolean checkArity(String name, List<byte[]> args, int min, int max, RespOutput out) {
+    if (args.size() < min || args.size() > max) {
+      out.error("ERR wrong number of arguments for '" + name.toLowerCase() + "' command");
+      return false;
+    }
+    return true;
+  }
+
+  private static String key(byte[] key) {
+    return new String(key, StandardCharsets.UTF_8);
+  }
+
+  private static long parseLong(byte[] digits) {
+    try {
+      return Long.parseLong(new String(digits, StandardCharsets.US_ASCII));
+    } catch (NumberFormatException e) {
+      return -1; // Reported as an invalid expire time.
+    }
+  }
+}
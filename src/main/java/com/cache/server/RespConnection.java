@@ -0,0 +1,106 @@
+package com.cache.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One client connection, driven by the event loop that owns its selector. Every read is parsed into as many
+ * complete commands as it holds, and their replies go out together in one gathering write. While replies are
+ * still waiting for the socket, the connection stops reading, so a client that does not read its replies
+ * cannot make the server buffer without bound.
+ */
+final class RespConnection {
+  private static final Logger logger = Logger.getLogger(RespConnection.class.getName());
+  private static final int INITIAL_READ_BUFFER = 16 * 1024;
+
+  private final SocketChannel channel;
+  private final SelectionKey key;
+  private final RespParser parser;
+  private final RespCommands commands;
+  private final int maxRequestLength; // Largest single request the read buffer may grow to hold.
+  private final RespOutput out = new RespOutput();
+  private final List<byte[]> args = new ArrayList<>(); // Reused for every command.
+  private ByteBuffer in = ByteBuffer.allocateDirect(INITIAL_READ_BUFFER); // Kept in write mode between reads.
+  private boolean closing; // Close once the pending replies are written.
+
+  RespConnection(SocketChannel channel, SelectionKey key, RespParser parser, RespCommands commands,
+      int maxRequestLength) {
+    this.channel = channel;
+    this.key = key;
+    this.parser = parser;
+    this.commands = commands;
+    this.maxRequestLength = maxRequestLength;
+  }
+
+  void onReadable() throws IOException {
+    if (channel.read(in) < 0) {
+      close();
+      return;
+    }
+    in.flip();
+    try {
+      while (!closing && parser.parse(in, args)) {
+        if (!args.isEmpty()) {
+          closing = !commands.execute(args, out);
+        }
+      }
+    } catch (RespProtocolException e) {
+      out.error("ERR Protocol error: " + e.getMessage());
+      closing = true;
+    }
+    in.compact();
+    if (!in.hasRemaining()) {
+      growReadBuffer();
+    }
+    flush();
+  }
+
+  void onWritable() throws IOException {
+    flush();
+  }
+
+  void close() {
+    key.cancel();
+    try {
+      channel.close();
+    } catch (IOException e) {
+      logger.fine("Failed to close connection: " + e.getMessage());
+    }
+  }
+
+  private void flush() throws IOException {
+    if (out.writeTo(channel)) {
+      if (closing) {
+        close();
+      } else {
+        key.interestOps(SelectionKey.OP_READ);
+      }
+    } else {
+      key.interestOps(SelectionKey.OP_WRITE); // Stop reading until the client catches up.
+    }
+  }
+
+  /**
+   * Doubles the read buffer for a request larger than it, up to the largest request allowed.
+   */
+  private void growReadBuffer() {
+    if (in.capacity() >= maxRequestLength) {
+      out.error("ERR Protocol error: request too large");
+      closing = true;
+      return;
+    }
+    ByteBuffer larger = ByteBuffer.allocateDirect((int) Math.min(maxRequestLength, in.capacity() * 2L));
+    in.flip();
+    larger.put(in);
+    in = larger;
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine("Grew read buffer of " + channel + " to " + in.capacity() + " bytes.");
+    }
+  }
+}
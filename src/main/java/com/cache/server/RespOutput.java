@@ -0,0 +1,168 @@
+package com.cache.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The replies to one batch of pipelined commands, sent with a single gathering write. Headers and small
+ * values are copied into a scratch buffer that the connection reuses from batch to batch; large values are
+ * sent straight from their own arrays rather than copied.
+ */
+final class RespOutput {
+  private static final int LARGE_VALUE = 4 * 1024; // Values at least this long are not copied.
+  private static final int INITIAL_SCRATCH = 16 * 1024;
+  private static final byte[] CRLF = {'\r', '\n'};
+  private static final byte[] NULL_BULK = "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+
+  private ByteBuffer scratch = ByteBuffer.allocate(INITIAL_SCRATCH);
+  private int sliceStart; // Start of the scratch bytes not yet closed into a segment.
+  private ByteBuffer[] segments = new ByteBuffer[16];
+  private int segmentCount;
+  private int firstUnwritten; // First segment with bytes left after a partial write.
+
+  void simpleString(String value) {
+    put((byte) '+');
+    putAscii(value);
+    put(CRLF);
+  }
+
+  void error(String message) {
+    put((byte) '-');
+    putAscii(message.replace('\r', ' ').replace('\n', ' '));
+    put(CRLF);
+  }
+
+  void integer(long value) {
+    put((byte) ':');
+    putNumber(value);
+    put(CRLF);
+  }
+
+  void arrayHeader(int length) {
+    put((byte) '*');
+    putNumber(length);
+    put(CRLF);
+  }
+
+  void nullBulkString() {
+    put(NULL_BULK);
+  }
+
+  void bulkString(byte[] value) {
+    put((byte) '$');
+    putNumber(value.length);
+    put(CRLF);
+    if (value.length >= LARGE_VALUE) {
+      closeSlice();
+      addSegment(ByteBuffer.wrap(value));
+    } else {
+      put(value);
+    }
+    put(CRLF);
+  }
+
+  boolean isEmpty() {
+    return segmentCount == 0 && scratch.position() == sliceStart;
+  }
+
+  /**
+   * Writes as much as the channel takes. Returns true once everything has been written, after which the
+   * output is empty again and its scratch buffer ready for the next batch.
+   */
+  boolean writeTo(GatheringByteChannel channel) throws IOException {
+    closeSlice();
+    while (firstUnwritten < segmentCount) {
+      if (channel.write(segments, firstUnwritten, segmentCount - firstUnwritten) == 0) {
+        return false; // Socket buffer full; wait until the channel is writable.
+      }
+      while (firstUnwritten < segmentCount && !segments[firstUnwritten].hasRemaining()) {
+        firstUnwritten++;
+      }
+    }
+    reset();
+    return true;
+  }
+
+  private void reset() {
+    Arrays.fill(segments, 0, segmentCount, null); // Let large values go.
+    segmentCount = 0;
+    firstUnwritten = 0;
+    scratch.clear();
+    sliceStart = 0;
+  }
+
+  /**
+   * Ends the current run of scratch bytes as a segment of its own.
+   */
+  private void closeSlice() {
+    if (scratch.position() > sliceStart) {
+      addSegment(scratch.slice(sliceStart, scratch.position() - sliceStart));
+      sliceStart = scratch.position();
+    }
+  }
+
+  private void addSegment(ByteBuffer segment) {
+    if (segmentCount == segments.length) {
+      segments = Arrays.copyOf(segments, segmentCount * 2);
+    }
+    segments[segmentCount++] = segment;
+  }
+
+  /**
+   * Makes room for length more bytes. Bytes already in the scratch buffer stay where they are, so a larger
+   * buffer is started after closing them into a segment; it is the one kept for later batches.
+   */
+  private void ensureCapacity(int length) {
+    if (scratch.remaining() < length) {
+      closeSlice();
+      scratch = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, length));
+      sliceStart = 0;
+    }
+  }
+
+  private void put(byte value) {
+    ensureCapacity(1);
+    scratch.put(value);
+  }
+
+  private void put(byte[] bytes) {
+    ensureCapacity(bytes.length);
+    scratch.put(bytes);
+  }
+
+  private void putAscii(String value) {
+    ensureCapacity(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      scratch.put((c < 0x80) ? (byte) c : (byte) '?');
+    }
+  }
+
+  /**
+   * Writes the decimal digits of the value without going through a String.
+   */
+  private void putNumber(long value) {
+    ensureCapacity(20);
+    if (value < 0) {
+      scratch.put((byte) '-');
+      if (value == Long.MIN_VALUE) {
+        putAscii("9223372036854775808");
+        return;
+      }
+      value = -value;
+    }
+    int start = scratch.position();
+    do {
+      scratch.put((byte) ('0' + value % 10));
+      value /= 10;
+    } while (value > 0);
+    for (int i = start, j = scratch.position() - 1; i < j; i++, j--) { // Digits were written backwards.
+      byte digit = scratch.get(i);
+      scratch.put(i, scratch.get(j));
+      scratch.put(j, digit);
+    }
+  }
+}
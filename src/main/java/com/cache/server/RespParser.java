@@ -0,0 +1,145 @@
+package com.cache.server;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Parses RESP requests: arrays of bulk strings as clients send them, and the space-separated inline commands
+ * typed into a terminal. Parsing is restartable: given a buffer holding part of a command, it consumes nothing
+ * and is called again once more bytes have arrived.
+ */
+final class RespParser {
+  static final int MAX_LINE_LENGTH = 64 * 1024; // Longest header or inline command accepted.
+  private static final int MAX_ARGUMENTS = 1024 * 1024;
+
+  private final int maxBulkLength;
+
+  RespParser(int maxBulkLength) {
+    this.maxBulkLength = maxBulkLength;
+  }
+
+  /**
+   * Parses one command from the buffer's remaining bytes into args and moves the position past it. Returns
+   * false, leaving the position where it was, if the command is not complete yet. An empty command leaves
+   * args empty.
+   *
+   * @throws RespProtocolException if the bytes are not a valid request
+   */
+  boolean parse(ByteBuffer in, List<byte[]> args) {
+    args.clear();
+    int start = in.position();
+    if (start == in.limit()) {
+      return false;
+    }
+    if (in.get(start) != '*') {
+      return parseInline(in, args);
+    }
+
+    int end = lineEnd(in, start + 1);
+    if (end < 0) {
+      return false;
+    }
+    long count = parseNumber(in, start + 1, end, "multibulk length");
+    if (count > MAX_ARGUMENTS) {
+      throw new RespProtocolException("invalid multibulk length");
+    }
+    int position = end + 2;
+    for (long i = 0; i < count; i++) {
+      if (position >= in.limit()) {
+        return false;
+      }
+      if (in.get(position) != '$') {
+        throw new RespProtocolException("expected '$', got '" + (char) in.get(position) + "'");
+      }
+      int lengthEnd = lineEnd(in, position + 1);
+      if (lengthEnd < 0) {
+        return false;
+      }
+      long length = parseNumber(in, position + 1, lengthEnd, "bulk length");
+      if (length < 0 || length > maxBulkLength) {
+        throw new RespProtocolException("invalid bulk length");
+      }
+      int dataStart = lengthEnd + 2;
+      if (dataStart + length + 2 > in.limit()) {
+        return false;
+      }
+      int dataEnd = dataStart + (int) length;
+      if (in.get(dataEnd) != '\r' || in.get(dataEnd + 1) != '\n') {
+        throw new RespProtocolException("bulk string not terminated by CRLF");
+      }
+      byte[] arg = new byte[(int) length];
+      in.get(dataStart, arg);
+      args.add(arg);
+      position = dataEnd + 2;
+    }
+    in.position(position);
+    return true;
+  }
+
+  /**
+   * Parses a command typed as one line of space-separated words.
+   */
+  private static boolean parseInline(ByteBuffer in, List<byte[]> args) {
+    int start = in.position();
+    int newline = -1;
+    for (int i = start; i < in.limit(); i++) {
+      if (in.get(i) == '\n') {
+        newline = i;
+        break;
+      }
+    }
+    if (newline < 0) {
+      if (in.limit() - start > MAX_LINE_LENGTH) {
+        throw new RespProtocolException("too big inline request");
+      }
+      return false;
+    }
+    int end = (newline > start && in.get(newline - 1) == '\r') ? newline - 1 : newline;
+    int wordStart = -1;
+    for (int i = start; i <= end; i++) {
+      boolean separator = (i == end) || in.get(i) == ' ' || in.get(i) == '\t';
+      if (!separator && wordStart < 0) {
+        wordStart = i;
+      } else if (separator && wordStart >= 0) {
+        byte[] word = new byte[i - wordStart];
+        in.get(wordStart, word);
+        args.add(word);
+        wordStart = -1;
+      }
+    }
+    in.position(newline + 1);
+    return true;
+  }
+
+  /**
+   * Returns the index of the CR ending the line that starts at from, or -1 if the line is incomplete.
+   */
+  private static int lineEnd(ByteBuffer in, int from) {
+    for (int i = from; i < in.limit() - 1; i++) {
+      if (in.get(i) == '\r' && in.get(i + 1) == '\n') {
+        return i;
+      }
+    }
+    if (in.limit() - from > MAX_LINE_LENGTH) {
+      throw new RespProtocolException("too big request header");
+    }
+    return -1;
+  }
+
+  private static long parseNumber(ByteBuffer in, int from, int to, String what) {
+    boolean negative = from < to && in.get(from) == '-';
+    int i = negative ? from + 1 : from;
+    if (i == to || to - i > 18) {
+      throw new RespProtocolException("invalid " + what);
+    }
+    long value = 0;
+    for (; i < to; i++) {
+      byte digit = in.get(i);
+      if (digit < '0' || digit > '9') {
+        throw new RespProtocolException("invalid " + what);
+      }
+      value = value * 10 + (digit - '0');
+    }
+    return negative ? -value : value;
+  }
+}
@@ -0,0 +1,11 @@
+package com.cache.server;
+
+/**
+ * Thrown when a client sends bytes that are not a valid RESP request. The server reports it to the client
+ * and closes the connection, since it can no longer tell where the next command starts.
+ */
+final class RespProtocolException extends RuntimeException {
+  RespProtocolException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,247 @@
+package com.cache.server;
+
+import com.cache.policies.WTinyLFUCacheEvictionPolicy;
+import com.cache.services.Cache;
+import com.cache.services.CacheService;
+import com.cache.store.BackingStore;
+import com.cache.writepolicy.WriteThroughPolicy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A network front end for a cache that speaks a subset of the Redis protocol (RESP): GET, SET with EX or PX,
+ * DEL, MGET, MSET, KEYS *, DBSIZE and PING. Redis clients and redis-benchmark can drive it unchanged.
+ *
+ * An acceptor thread hands connections round-robin to a fixed set of event loops, each a thread with its own
+ * NIO selector. Clients may pipeline: all complete commands in a read are run in order and answered with one
+ * gathering write. Commands run on the event loop thread, so a GET that misses reads through to the backing
+ * store while the loop's other connections wait; a store-less cache, as {@link #main} builds, never blocks.
+ * Keys are decoded as UTF-8 and values are kept as the bytes the client sent.
+ */
+public class RespServer implements AutoCloseable {
+  private static final Logger logger = Logger.getLogger(RespServer.class.getName());
+  private static final int DEFAULT_PORT = 6379;
+  private static final int DEFAULT_CAPACITY = 1_000_000;
+  private static final int MAX_BULK_LENGTH = 64 * 1024 * 1024; // Largest key or value accepted.
+  private static final int MAX_REQUEST_LENGTH = 2 * MAX_BULK_LENGTH; // Largest single command accepted.
+
+  private final RespCommands commands;
+  private final ServerSocketChannel serverChannel;
+  private final EventLoop[] eventLoops;
+  private final Thread acceptor;
+  private volatile boolean running;
+  private int nextEventLoop; // Only used by the acceptor thread.
+
+  /**
+   * Binds the server to the address and starts one event loop per available core.
+   */
+  public RespServer(Cache<String, byte[]> cache, InetSocketAddress address) throws IOException {
+    this(cache, address, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Binds the server to the address, port 0 picking a free port, and starts the given number of event loops.
+   */
+  public RespServer(Cache<String, byte[]> cache, InetSocketAddress address, int eventLoopCount) throws IOException {
+    if (eventLoopCount <= 0) {
+      throw new IllegalArgumentException("Event loop count must be > 0.");
+    }
+    this.commands = new RespCommands(cache);
+    this.serverChannel = ServerSocketChannel.open();
+    this.eventLoops = new EventLoop[eventLoopCount];
+    try {
+      serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+      serverChannel.bind(address, 1_024);
+      for (int i = 0; i < eventLoopCount; i++) {
+        eventLoops[i] = new EventLoop("resp-event-loop-" + i);
+      }
+    } catch (IOException e) {
+      serverChannel.close();
+      for (EventLoop eventLoop : eventLoops) {
+        if (eventLoop != null) {
+          eventLoop.selector.close();
+        }
+      }
+      throw e;
+    }
+    this.running = true;
+    for (EventLoop eventLoop : eventLoops) {
+      eventLoop.thread.start();
+    }
+    this.acceptor = new Thread(this::acceptConnections, "resp-acceptor");
+    acceptor.start();
+    logger.info("RESP server listening on " + getLocalAddress());
+  }
+
+  public InetSocketAddress getLocalAddress() {
+    try {
+      return (InetSocketAddress) serverChannel.getLocalAddress();
+    } catch (IOException e) {
+      throw new IllegalStateException("Server socket is closed.", e);
+    }
+  }
+
+  /**
+   * Stops accepting, closes every connection and stops the event loops. The cache is left open.
+   */
+  @Override
+  public void close() {
+    running = false;
+    try {
+      serverChannel.close(); // Wakes the acceptor.
+    } catch (IOException e) {
+      logger.warning("Failed to close server socket: " + e.getMessage());
+    }
+    for (EventLoop eventLoop : eventLoops) {
+      if (eventLoop != null) {
+        eventLoop.selector.wakeup();
+      }
+    }
+  }
+
+  private void acceptConnections() {
+    while (running) {
+      try {
+        SocketChannel channel = serverChannel.accept();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        eventLoops[nextEventLoop].register(channel);
+        nextEventLoop = (nextEventLoop + 1) % eventLoops.length;
+      } catch (ClosedChannelException e) {
+        break; // Closed by close().
+      } catch (IOException e) {
+        logger.warning("Failed to accept connection: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * A thread serving its share of the connections from one selector.
+   */
+  private final class EventLoop implements Runnable {
+    private final Selector selector;
+    private final Queue<SocketChannel> registrations; // Accepted channels waiting to join the selector.
+    private final RespParser parser;
+    private final Thread thread;
+
+    EventLoop(String name) throws IOException {
+      this.selector = Selector.open();
+      this.registrations = new ConcurrentLinkedQueue<>();
+      this.parser = new RespParser(MAX_BULK_LENGTH);
+      this.thread = new Thread(this, name);
+    }
+
+    void register(SocketChannel channel) {
+      registrations.add(channel);
+      selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (running) {
+          selector.select();
+          registerAccepted();
+          Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+          while (selected.hasNext()) {
+            SelectionKey key = selected.next();
+            selected.remove();
+            serve(key);
+          }
+        }
+      } catch (IOException e) {
+        logger.severe("Event loop " + thread.getName() + " failed: " + e.getMessage());
+      } finally {
+        closeAll();
+      }
+    }
+
+    private void serve(SelectionKey key) {
+      RespConnection connection = (RespConnection) key.attachment();
+      try {
+        if (key.isReadable()) {
+          connection.onReadable();
+        } else if (key.isWritable()) {
+          connection.onWritable();
+        }
+      } catch (IOException e) {
+        if (logger.isLoggable(Level.FINE)) {
+          logger.fine("Closing connection after I/O error: " + e.getMessage());
+        }
+        connection.close();
+      }
+    }
+
+    private void registerAccepted() {
+      SocketChannel channel;
+      while ((channel = registrations.poll()) != null) {
+        try {
+          SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+          key.attach(new RespConnection(channel, key, parser, commands, MAX_REQUEST_LENGTH));
+        } catch (IOException e) {
+          logger.warning("Failed to register connection: " + e.getMessage());
+        }
+      }
+    }
+
+    private void closeAll() {
+      for (SelectionKey key : selector.keys()) {
+        if (key.attachment() != null) {
+          ((RespConnection) key.attachment()).close();
+        }
+      }
+      SocketChannel channel;
+      while ((channel = registrations.poll()) != null) {
+        try {
+          channel.close();
+        } catch (IOException e) {
+          logger.fine("Failed to close connection: " + e.getMessage());
+        }
+      }
+      try {
+        selector.close();
+      } catch (IOException e) {
+        logger.warning("Failed to close selector: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Runs a standalone server: {@code RespServer [port [capacity]]}, by default on port 6379 with room for a
+   * million entries under W-TinyLFU. The cache has no backing store, so like Redis it only holds what clients
+   * wrote, and entries without EX or PX never expire.
+   */
+  public static void main(String[] args) throws IOException {
+    int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+    int capacity = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_CAPACITY;
+    BackingStore<String, byte[]> noStore = new BackingStore<>() {
+      @Override
+      public void store(String key, byte[] value) {
+      }
+
+      @Override
+      public byte[] retrieve(String key) {
+        return null;
+      }
+    };
+    CacheService<String, byte[]> cache = new CacheService<>(capacity, 0,
+        new WTinyLFUCacheEvictionPolicy<>(capacity), noStore, new WriteThroughPolicy<>(noStore),
+        (entry, now) -> Long.MAX_VALUE);
+    RespServer server = new RespServer(cache, new InetSocketAddress(port));
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      server.close();
+      cache.close();
+    }));
+  }
+}
@@ -0,0 +1,84 @@
+package com.cache.services;
+
+import com.cache.exceptions.CacheException;
+import com.cache.stats.CacheStats;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Operations shared by the cache implementations, so callers, metrics and benchmarks do not depend on
+ * whether a cache is a single {@link CacheService} or split into segments.
+ */
+public interface Cache<K, V> extends AutoCloseable {
+  void put(K key, V value);
+
+  /**
+   * Caches a value that expires after the given time-to-live, regardless of the expiration strategy.
+   */
+  void put(K key, V value, Duration timeToLive);
+
+  V get(K key) throws CacheException;
+
+  /**
+   * Returns the value like get, or null if the key is in neither the cache nor the backing store.
+   * Implementations that can tell a missing key from a failure without an exception override this;
+   * the default returns null whenever get throws.
+   */
+  default V getOrNull(K key) throws CacheException {
+    try {
+      return get(key);
+    } catch (CacheException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the cached value, or loads it with the given loader on a miss.
+   */
+  V getOrLoad(K key, Function<? super K, ? extends V> loader) throws CacheException;
+
+  /**
+   * Removes the key and returns true if a value was cached for it. Unlike a read, it records no
+   * statistics and does not touch the eviction policy.
+   */
+  boolean remove(K key);
+
+  /**
+   * Returns the values of all given keys that are cached or present in the backing store.
+   */
+  Map<K, V> getAll(Collection<? extends K> keys) throws CacheException;
+
+  void putAll(Map<? extends K, ? extends V> entries);
+
+  /**
+   * Returns the number of cached entries, including expired ones not yet cleaned up.
+   */
+  int size();
+
+  /**
+   * Returns the keys cached when it was called, including expired ones not yet cleaned up. It copies
+   * every key, so it is meant for maintenance such as rebalancing rather than for serving reads.
+   */
+  Set<K> keys();
+
+  /**
+   * Returns the total weight of cached entries; the number of entries unless a weigher is configured.
+   */
+  long weightedSize();
+
+  CacheStats stats();
+
+  /**
+   * Removes every entry whose deadline has passed.
+   */
+  void cleanUp();
+
+  /**
+   * Stops background work and lets the write policy persist anything still pending.
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,292 @@
+package com.cache.services;
+
+import com.cache.offheap.SlabAllocator;
+import com.cache.serialization.CompressingSerializer;
+import com.cache.serialization.Serializer;
+import com.cache.stats.ConcurrentStatsCounter;
+import com.cache.stats.StatsCounter;
+import com.cache.store.AsyncBackingStore;
+import com.cache.time.Ticker;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Optional settings for {@link CacheService}. Every setting has a default matching the behaviour of
+ * the cache's plain constructor, so callers only set what they need.
+ */
+public class CacheOptions<K, V> {
+  private Ticker ticker = Ticker.systemTicker(); // Time source for timestamps and deadlines.
+  private Duration refreshAfterWrite; // Age at which a read reloads the value in the background; null if off.
+  private Executor refreshExecutor; // Runs background reloads; null to use the cache's own bounded pool.
+  private Serializer<V> serializer; // Serializes values kept off-heap; null keeps values on the heap.
+  private SlabAllocator allocator; // Off-heap memory for values.
+  private StatsCounter statsCounter = StatsCounter.disabled(); // Records hits, misses, loads and evictions.
+  private long maximumWeight = -1; // Bound on the total weight of entries; -1 to bound the entry count by capacity.
+  private Weigher<K, V> weigher = Weigher.singletonWeigher(); // Weighs entries against the maximum weight.
+  private ScheduledExecutorService maintenanceScheduler; // Runs periodic cleanup; null to use the cache's own.
+  private boolean automaticMaintenance = true; // False if the caller runs cleanUp itself.
+  private Path snapshotFile; // Restored on start-up and written on close; null if off.
+  private Serializer<K> snapshotKeySerializer;
+  private Serializer<V> snapshotValueSerializer;
+  private Duration snapshotInterval; // How often a snapshot is also written while running; null if only on close.
+  private AsyncBackingStore<K, V> asyncBackingStore; // Serves async loads; null to adapt the backing store.
+  private Duration absenceTtl; // How long a key the store lacks is remembered as absent; null if not remembered.
+  private CompressingSerializer<V> compressor; // Deflates large values kept on the heap; null if off.
+  private MemoryPressureMonitor memoryPressureMonitor; // Scales capacity to heap pressure; null for a fixed capacity.
+
+  public Ticker getTicker() {
+    return ticker;
+  }
+
+  public CacheOptions<K, V> ticker(Ticker ticker) {
+    this.ticker = Objects.requireNonNull(ticker);
+    return this;
+  }
+
+  public Duration getRefreshAfterWrite() {
+    return refreshAfterWrite;
+  }
+
+  /**
+   * Reloads an entry from the backing store when it is read at least this long after it was written.
+   * The reload runs in the background and readers keep getting the old value until it completes.
+   */
+  public CacheOptions<K, V> refreshAfterWrite(Duration refreshAfterWrite) {
+    if (refreshAfterWrite.isNegative() || refreshAfterWrite.isZero()) {
+      throw new IllegalArgumentException("Refresh-after-write must be > 0.");
+    }
+    this.refreshAfterWrite = refreshAfterWrite;
+    return this;
+  }
+
+  public Executor getRefreshExecutor() {
+    return refreshExecutor;
+  }
+
+  /**
+   * Runs reloads on the given executor instead of the cache's own. The cache does not shut it down.
+   */
+  public CacheOptions<K, V> refreshExecutor(Executor refreshExecutor) {
+    this.refreshExecutor = Objects.requireNonNull(refreshExecutor);
+    return this;
+  }
+
+  public Serializer<V> getSerializer() {
+    return serializer;
+  }
+
+  public SlabAllocator getAllocator() {
+    return allocator;
+  }
+
+  /**
+   * Keeps values serialized in off-heap memory with no size limit beyond the cache's capacity.
+   */
+  public CacheOptions<K, V> offHeap(Serializer<V> serializer) {
+    return offHeap(serializer, new SlabAllocator());
+  }
+
+  /**
+   * Keeps values serialized in the given allocator, which may be shared between caches.
+   * Values that do not fit are kept on the heap. Every read deserializes a fresh copy of the value.
+   */
+  public CacheOptions<K, V> offHeap(Serializer<V> serializer, SlabAllocator allocator) {
+    this.serializer = Objects.requireNonNull(serializer);
+    this.allocator = Objects.requireNonNull(allocator);
+    return this;
+  }
+
+  public StatsCounter getStatsCounter() {
+    return statsCounter;
+  }
+
+  /**
+   * Records hit, miss, load and eviction statistics, readable through {@link CacheService#stats()}.
+   * Off by default; when off, recording costs nothing.
+   */
+  public CacheOptions<K, V> recordStats() {
+    return statsCounter(new ConcurrentStatsCounter());
+  }
+
+  public CacheOptions<K, V> statsCounter(StatsCounter statsCounter) {
+    this.statsCounter = Objects.requireNonNull(statsCounter);
+    return this;
+  }
+
+  public long getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  public Weigher<K, V> getWeigher() {
+    return weigher;
+  }
+
+  /**
+   * Bounds the cache by the total weight of its entries instead of their number; the capacity passed to
+   * the cache is then ignored. A single entry heavier than the maximum is never cached.
+   */
+  public CacheOptions<K, V> maximumWeight(long maximumWeight, Weigher<K, V> weigher) {
+    if (maximumWeight < 0) {
+      throw new IllegalArgumentException("Maximum weight must be >= 0.");
+    }
+    this.maximumWeight = maximumWeight;
+    this.weigher = Objects.requireNonNull(weigher);
+    return this;
+  }
+
+  public ScheduledExecutorService getMaintenanceScheduler() {
+    return maintenanceScheduler;
+  }
+
+  /**
+   * Runs the periodic cleanup of expired entries on the given scheduler instead of a thread of the cache's
+   * own. The cache cancels its task on shutdown but does not shut the scheduler down.
+   */
+  public CacheOptions<K, V> maintenanceScheduler(ScheduledExecutorService maintenanceScheduler) {
+    this.maintenanceScheduler = Objects.requireNonNull(maintenanceScheduler);
+    return this;
+  }
+
+  public boolean isAutomaticMaintenance() {
+    return automaticMaintenance;
+  }
+
+  /**
+   * Turns off the periodic cleanup, leaving the caller to call cleanUp whenever it wants expired entries
+   * swept. Meant for tests and simulations that drive time themselves, where a cleanup on a thread of its
+   * own would race them. Periodic snapshots are still written if configured.
+   */
+  public CacheOptions<K, V> manualMaintenance() {
+    this.automaticMaintenance = false;
+    return this;
+  }
+
+  public Path getSnapshotFile() {
+    return snapshotFile;
+  }
+
+  public Serializer<K> getSnapshotKeySerializer() {
+    return snapshotKeySerializer;
+  }
+
+  public Serializer<V> getSnapshotValueSerializer() {
+    return snapshotValueSerializer;
+  }
+
+  /**
+   * Starts the cache warm from the snapshot in the given file, if there is one, and writes a new snapshot
+   * there when the cache is closed. See {@link CacheService#saveSnapshot} for what a snapshot holds.
+   */
+  public CacheOptions<K, V> snapshot(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+    this.snapshotFile = Objects.requireNonNull(file);
+    this.snapshotKeySerializer = Objects.requireNonNull(keySerializer);
+    this.snapshotValueSerializer = Objects.requireNonNull(valueSerializer);
+    return this;
+  }
+
+  public Duration getSnapshotInterval() {
+    return snapshotInterval;
+  }
+
+  /**
+   * Also writes the snapshot periodically, so a crash loses at most one interval of warm-up.
+   */
+  public CacheOptions<K, V> snapshotInterval(Duration snapshotInterval) {
+    if (snapshotInterval.isNegative() || snapshotInterval.isZero()) {
+      throw new IllegalArgumentException("Snapshot interval must be > 0.");
+    }
+    this.snapshotInterval = snapshotInterval;
+    return this;
+  }
+
+  public AsyncBackingStore<K, V> getAsyncBackingStore() {
+    return asyncBackingStore;
+  }
+
+  /**
+   * Serves the misses of {@link CacheService#getAsync} from a store with a non-blocking client. Without
+   * it, async misses run the backing store's blocking calls on virtual threads.
+   */
+  public CacheOptions<K, V> asyncBackingStore(AsyncBackingStore<K, V> asyncBackingStore) {
+    this.asyncBackingStore = Objects.requireNonNull(asyncBackingStore);
+    return this;
+  }
+
+  public Duration getAbsenceTtl() {
+    return absenceTtl;
+  }
+
+  /**
+   * Remembers keys the backing store does not have for the given time, so repeated lookups of them are
+   * answered without going to the store. Each absent key is cached as a marker weighing 1 that competes
+   * for capacity like any entry; a put of the key replaces it. Keep the time short: a key stored by
+   * someone other than this cache stays reported as missing until its marker expires.
+   */
+  public CacheOptions<K, V> absenceTtl(Duration absenceTtl) {
+    if (absenceTtl.isNegative() || absenceTtl.isZero()) {
+      throw new IllegalArgumentException("Absence time-to-live must be > 0.");
+    }
+    this.absenceTtl = absenceTtl;
+    return this;
+  }
+
+  public CompressingSerializer<V> getCompressor() {
+    return compressor;
+  }
+
+  /**
+   * Keeps heap values whose serialized form is at least threshold bytes deflated, so the same heap holds
+   * more of them; each read then inflates a fresh copy. Values under the threshold, or that do not shrink,
+   * are kept as they are. Not combined with {@link #offHeap}; to compress off-heap values, give it a
+   * {@link CompressingSerializer} instead. The cost and ratio are reported by
+   * {@link CacheService#compressionStats()}.
+   */
+  public CacheOptions<K, V> compressValues(Serializer<V> serializer, int threshold) {
+    this.compressor = new CompressingSerializer<>(serializer, threshold);
+    return this;
+  }
+
+  public MemoryPressureMonitor getMemoryPressureMonitor() {
+    return memoryPressureMonitor;
+  }
+
+  /**
+   * Lets the monitor shrink the cache below its capacity or maximum weight while the heap is under
+   * pressure, and grow it back once the pressure subsides. The cache never grows past what it was
+   * configured with. One monitor is best shared by all caches in the JVM.
+   */
+  public CacheOptions<K, V> memoryPressureMonitor(MemoryPressureMonitor memoryPressureMonitor) {
+    this.memoryPressureMonitor = Objects.requireNonNull(memoryPressureMonitor);
+    return this;
+  }
+
+  /**
+   * Returns a copy of these settings, sharing the same ticker, executors, allocator, compressor, monitor
+   * and stats counter.
+   */
+  CacheOptions<K, V> copy() {
+    CacheOptions<K, V> copy = new CacheOptions<>();
+    copy.ticker = ticker;
+    copy.refreshAfterWrite = refreshAfterWrite;
+    copy.refreshExecutor = refreshExecutor;
+    copy.serializer = serializer;
+    copy.allocator = allocator;
+    copy.statsCounter = statsCounter;
+    copy.maximumWeight = maximumWeight;
+    copy.weigher = weigher;
+    copy.maintenanceScheduler = maintenanceScheduler;
+    copy.automaticMaintenance = automaticMaintenance;
+    copy.snapshotFile = snapshotFile;
+    copy.snapshotKeySerializer = snapshotKeySerializer;
+    copy.snapshotValueSerializer = snapshotValueSerializer;
+    copy.snapshotInterval = snapshotInterval;
+    copy.asyncBackingStore = asyncBackingStore;
+    copy.absenceTtl = absenceTtl;
+    copy.compressor = compressor;
+    copy.memoryPressureMonitor = memoryPressureMonitor;
+    return copy;
+  }
+}
@@ -2,30 +2,104 @@ package com.cache.services;
 
 import com.cache.exceptions.CacheException;
 import com.cache.models.CacheEntry;
+import com.cache.offheap.OffHeapCacheEntry;
+import com.cache.offheap.SlabAllocator;
 import com.cache.policies.CacheEvictionPolicy;
+import com.cache.serialization.CompressedCacheEntry;
+import com.cache.serialization.CompressingSerializer;
+import com.cache.serialization.Serializer;
+import com.cache.stats.CacheStats;
+import com.cache.stats.CompressionStats;
+import com.cache.stats.RemovalCause;
+import com.cache.stats.StatsCounter;
+import com.cache.store.AsyncBackingStore;
 import com.cache.store.BackingStore;
+import com.cache.store.ExecutorBackingStore;
 import com.cache.writepolicy.WritePolicy;
 import com.cache.expiration.ExpirationStrategy;
+import com.cache.expiration.TimerWheel;
+import com.cache.time.Ticker;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class CacheService<K, V> {
+public class CacheService<K, V> implements Cache<K, V> {
   private static final Logger logger = Logger.getLogger(CacheService.class.getName());
+  private static final long STRATEGY_TTL = -1L; // Marks writes whose deadline comes from the expiration strategy.
+  private static final long CLEANUP_INTERVAL_MILLIS = 1_000; // How often expired entries are swept.
+  private static final int REFRESH_THREADS = 4; // Threads of the default reload pool.
+  private static final int REFRESH_QUEUE_CAPACITY = 1_024; // Reloads queued before further ones are skipped.
+  private static final int SNAPSHOT_BATCH = 512; // Snapshot records decoded per task when restoring.
+  private static final int EVICTION_BATCH = 1_024; // Entries evicted per write-policy call when shrinking.
+  private static final Object ABSENT = new Object(); // Returned by lookup for a key remembered as absent.
 
   private final ConcurrentHashMap<K, CacheEntry<K, V>> cache; // Thread-safe map for cache storage.
-  private final int capacity; // Maximum number of items in cache.
+  private volatile long maximumWeight; // Bound on the total weight of cached entries; lowered under memory pressure.
+  private final Weigher<K, V> weigher; // Weighs entries; every entry weighs 1 unless a weigher is configured.
+  private final AtomicLong weightedSize; // Total weight of cached entries.
   private final CacheEvictionPolicy<K> evictionPolicy; // Configurable eviction policy.
   private final WritePolicy<K, V> writePolicy; // Configurable write policy.
   private final BackingStore<K, V> backingStore; // Configurable backing store.
   private final ExpirationStrategy<K, V> expirationStrategy; // Configurable expiration strategy
-  private final ScheduledExecutorService refreshScheduler; // Scheduler for refresh logic
-  private final int refreshInterval; // Refresh interval in seconds
-  private ScheduledFuture<?> scheduledRefreshTask; // Future object for scheduled refresh task
+  private final Ticker ticker; // Time source for timestamps and deadlines.
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight; // Loads in progress, one per key.
+  private final Function<K, V> storeLoader; // Loads misses from the backing store.
+  private final TimerWheel<K, V> timerWheel; // Entries with a deadline, swept by cleanUp().
+  private final ReentrantLock expirationLock; // Guards the timer wheel.
+  private final Consumer<CacheEntry<K, V>> expirer; // Removes entries the timer wheel finds due.
+  private final Serializer<V> serializer; // Serializes off-heap values; null if values stay on the heap.
+  private final SlabAllocator allocator; // Off-heap memory for values; null if values stay on the heap.
+  private final StatsCounter statsCounter; // Records hits, misses, loads and evictions; a no-op unless enabled.
+  private final ScheduledExecutorService ownedMaintenanceScheduler; // Scheduler for cleanup logic; null if supplied or unused.
+  private final ScheduledFuture<?> cleanUpTask; // Periodic cleanUp() on the maintenance scheduler; null if manual.
+  private final ScheduledFuture<?> snapshotTask; // Periodic snapshot; null if snapshots are only written on close.
+  private final Path snapshotFile; // Restored on start-up and written on close; null if off.
+  private final Serializer<K> snapshotKeySerializer;
+  private final Serializer<V> snapshotValueSerializer;
+  private final ReentrantLock snapshotLock; // Keeps snapshots to the same file from overlapping.
+  private volatile ExecutorService asyncExecutor; // Runs putAsync and default async store calls; made on first use.
+  private volatile AsyncBackingStore<K, V> asyncStore; // Serves getAsync misses; null until first used if not supplied.
+  private boolean closed; // Guarded by this; set once close has shut the async executor down.
+  private final long refreshAfterWriteNanos; // Age at which a read triggers a reload; 0 if refresh is off.
+  private final Executor refreshExecutor; // Runs reloads off the reading thread.
+  private final ExecutorService ownedRefreshExecutor; // The default reload pool, shut down on close; null if supplied.
+  private final long absenceTtlNanos; // How long keys missing from the store are remembered; 0 if they are not.
+  private final ConcurrentHashMap<String, Set<CacheEntry<K, V>>> tagIndex; // Cached entries by tag.
+  private final CompressingSerializer<V> compressor; // Deflates large heap values; null if values are kept as they are.
+  private final MemoryPressureMonitor memoryPressureMonitor; // Resizes the cache under heap pressure; null if off.
 
   /**
    * Constructor for CacheService
@@ -36,112 +110,1517 @@ public class CacheService<K, V> {
       BackingStore<K, V> backingStore,
       WritePolicy<K, V> writePolicy,
       ExpirationStrategy<K, V> expirationStrategy) {
+    this(capacity, refreshInterval, evictionPolicy, backingStore, writePolicy, expirationStrategy, new CacheOptions<>());
+  }
+
+  /**
+   * Constructor for CacheService with optional settings.
+   * A refresh interval > 0 enables refresh-after-write with that many seconds, unless the options set it.
+   */
+  public CacheService(int capacity,
+      int refreshInterval,
+      CacheEvictionPolicy<K> evictionPolicy,
+      BackingStore<K, V> backingStore,
+      WritePolicy<K, V> writePolicy,
+      ExpirationStrategy<K, V> expirationStrategy,
+      CacheOptions<K, V> options) {
     // Validate refresh interval
     if (refreshInterval < 0) {
       throw new IllegalArgumentException("Refresh interval must be >= 0.");
     }
 
-    this.refreshScheduler = Executors.newScheduledThreadPool(1); // Single-threaded scheduler
-    this.refreshInterval = refreshInterval;
+    boolean periodicSnapshots = options.getSnapshotFile() != null && options.getSnapshotInterval() != null;
+    this.ownedMaintenanceScheduler = (options.getMaintenanceScheduler() == null
+        && (options.isAutomaticMaintenance() || periodicSnapshots))
+        ? Executors.newScheduledThreadPool(1) // Single-threaded scheduler
+        : null;
     this.cache = new ConcurrentHashMap<>();
-    this.capacity = capacity;
+    this.maximumWeight = (options.getMaximumWeight() >= 0) ? options.getMaximumWeight() : capacity;
+    this.weigher = options.getWeigher();
+    this.weightedSize = new AtomicLong();
     this.evictionPolicy = evictionPolicy;
     this.backingStore = backingStore;
     this.writePolicy = writePolicy;
     this.expirationStrategy = expirationStrategy;
+    this.ticker = options.getTicker();
+    this.inFlight = new ConcurrentHashMap<>();
+    this.storeLoader = backingStore::retrieve;
+    this.timerWheel = new TimerWheel<>(ticker.read());
+    this.expirationLock = new ReentrantLock();
+    this.expirer = this::expire;
+    this.serializer = options.getSerializer();
+    this.allocator = options.getAllocator();
+    this.statsCounter = options.getStatsCounter();
+    this.asyncStore = options.getAsyncBackingStore();
+    this.absenceTtlNanos = (options.getAbsenceTtl() == null) ? 0 : saturatedNanos(options.getAbsenceTtl());
+    this.tagIndex = new ConcurrentHashMap<>();
+    this.compressor = options.getCompressor();
+    if (compressor != null && allocator != null) {
+      throw new IllegalArgumentException("Compress off-heap values with a CompressingSerializer instead.");
+    }
 
-    // Schedule refresh only if refresh interval is > 0
-    if (refreshInterval > 0) {
-      scheduleRefresh();
+    if (options.getRefreshAfterWrite() != null) {
+      this.refreshAfterWriteNanos = saturatedNanos(options.getRefreshAfterWrite());
     } else {
+      this.refreshAfterWriteNanos = TimeUnit.SECONDS.toNanos(refreshInterval);
+    }
+    if (refreshAfterWriteNanos == 0) {
+      this.refreshExecutor = null;
+      this.ownedRefreshExecutor = null;
       logger.warning("Refresh interval is set to 0. Refresh mechanism is disabled.");
+    } else if (options.getRefreshExecutor() != null) {
+      this.refreshExecutor = options.getRefreshExecutor();
+      this.ownedRefreshExecutor = null;
+    } else {
+      this.ownedRefreshExecutor = newRefreshExecutor();
+      this.refreshExecutor = ownedRefreshExecutor;
+    }
+
+    ScheduledExecutorService maintenanceScheduler = (ownedMaintenanceScheduler != null)
+        ? ownedMaintenanceScheduler : options.getMaintenanceScheduler();
+    this.cleanUpTask = options.isAutomaticMaintenance()
+        ? maintenanceScheduler.scheduleWithFixedDelay(this::cleanUp,
+            CLEANUP_INTERVAL_MILLIS, CLEANUP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)
+        : null;
+
+    this.snapshotFile = options.getSnapshotFile();
+    this.snapshotKeySerializer = options.getSnapshotKeySerializer();
+    this.snapshotValueSerializer = options.getSnapshotValueSerializer();
+    this.snapshotLock = new ReentrantLock();
+    if (snapshotFile != null && Files.exists(snapshotFile)) {
+      try {
+        int restored = loadSnapshot(snapshotFile, snapshotKeySerializer, snapshotValueSerializer);
+        logger.info("Restored " + restored + " entries from snapshot " + snapshotFile);
+      } catch (IOException | RuntimeException e) {
+        logger.warning("Failed to restore snapshot " + snapshotFile + ", starting cold: " + e.getMessage());
+      }
+    }
+    if (periodicSnapshots) {
+      long intervalMillis = options.getSnapshotInterval().toMillis();
+      this.snapshotTask = maintenanceScheduler.scheduleWithFixedDelay(this::writeSnapshot,
+          intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    } else {
+      this.snapshotTask = null;
+    }
+
+    this.memoryPressureMonitor = options.getMemoryPressureMonitor();
+    if (memoryPressureMonitor != null) {
+      memoryPressureMonitor.register(this, maximumWeight);
     }
   }
 
+  @Override
   public void put(K key, V value) {
-    if (cache.size() >= capacity) {
-      K evictionCandidate = evictionPolicy.getEvictionCandidate();
-      CacheEntry<K, V> evictedEntry = cache.remove(evictionCandidate);
-      if (evictedEntry != null) {
-        writePolicy.handleEviction(evictedEntry.getKey(), evictedEntry.getValue()); // Handle eviction via write policy.
-        evictionPolicy.removeKey(evictionCandidate);
-        logger.info("Evicted key: " + evictionCandidate);
-      }
+    putInternal(key, value, STRATEGY_TTL, null, null);
+  }
+
+  /**
+   * Caches a value that expires after the given time-to-live, regardless of the expiration strategy.
+   */
+  @Override
+  public void put(K key, V value, Duration timeToLive) {
+    if (timeToLive.isNegative()) {
+      throw new IllegalArgumentException("Time-to-live must be >= 0.");
     }
+    putInternal(key, value, saturatedNanos(timeToLive), null, null);
+  }
 
-    CacheEntry<K, V> entry = new CacheEntry<>(key, value); // Create cache entry
-    cache.put(key, entry);
-    evictionPolicy.recordAccess(key); // Track access for eviction policy
-    writePolicy.handleWrite(key, value); // Handle write based on write policy
-    logger.info("Cached key: " + key + " (value: " + value + ")");
+  /**
+   * Caches a value under the given tags, so that {@link #invalidateTag} can remove it along with every
+   * other entry sharing a tag. The tags belong to this value only: a later put of the key replaces them.
+   */
+  public void put(K key, V value, Set<String> tags) {
+    putInternal(key, value, STRATEGY_TTL, null, tags.isEmpty() ? null : Set.copyOf(tags));
   }
 
+  /**
+   * Removes every entry cached under the tag and returns how many were removed, in time proportional to
+   * that number. Entries put with the tag while this runs may survive it. Removed values are handed to
+   * the write policy as on expiry, so a write-back policy still persists them.
+   */
+  public int invalidateTag(String tag) {
+    Set<CacheEntry<K, V>> tagged = tagIndex.remove(tag); // Later puts under the tag start a new set.
+    if (tagged == null) {
+      return 0;
+    }
+    int removed = 0;
+    for (CacheEntry<K, V> entry : tagged) {
+      if (removeEntry(entry, RemovalCause.EXPLICIT)) {
+        removed++;
+      }
+    }
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine("Invalidated " + removed + " entries tagged '" + tag + "'.");
+    }
+    return removed;
+  }
+
+  @Override
   public V get(K key) throws CacheException {
-    CacheEntry<K, V> entry = cache.get(key);
+    return getOrLoad(key, storeLoader);
+  }
 
-    if (entry == null) {
-      // Item not found in cache; try backing store
-      logger.info("Cache miss! Key '" + key + "' not found in cache, retrieving from backing store...");
-      V value = backingStore.retrieve(key);
-      if (value == null) {
-        throw new CacheException("Key '" + key + "' not found in cache or backing store.");
+  /**
+   * Returns the cached value, or loads it with the given loader on a miss.
+   * Concurrent misses on the same key share a single load: the first caller runs the loader and the
+   * others wait for its value or exception. A load never overwrites a value written by put, nor
+   * resurrects a key removed while the load was in flight.
+   * With refresh-after-write, a hit on an entry past its refresh deadline, or already expired, returns
+   * the current value and reloads it from the backing store in the background.
+   */
+  @Override
+  public V getOrLoad(K key, Function<? super K, ? extends V> loader) throws CacheException {
+    V value = lookupOrLoad(key, loader);
+    if (value == null) {
+      throw new CacheException("Key '" + key + "' not found in cache or backing store.");
+    }
+    return value;
+  }
+
+  /**
+   * Returns the value like get, or null if the key is in neither the cache nor the backing store, so a
+   * lookup of a missing key costs no exception. Throws only if the entry has expired or the load failed.
+   */
+  @Override
+  public V getOrNull(K key) throws CacheException {
+    return lookupOrLoad(key, storeLoader);
+  }
+
+  /**
+   * Returns the cached value, else loads it with the loader (or joins a load already in flight), else null.
+   * A key remembered as absent is only taken as missing when the loader is the backing store's.
+   */
+  private V lookupOrLoad(K key, Function<? super K, ? extends V> loader) throws CacheException {
+    V value = lookup(key);
+    if (value == ABSENT) {
+      if (loader == storeLoader) {
+        return null;
       }
-      put(key, value); // Add retrieved value to cache
-      return value;
+      value = null; // The marker speaks for the store only; this loader may know the key.
+    }
+    if (value == null) {
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("Cache miss! Key '" + key + "' not found in cache, loading...");
+      }
+      return load(key, loader);
+    }
+    return value;
+  }
+
+  /**
+   * Returns the value without blocking. A hit completes at once on the calling thread; a miss is loaded
+   * from the async backing store, sharing loads in flight with get and getAsync. The future fails with a
+   * CacheException if the key is not found or has expired, as get would throw.
+   */
+  public CompletableFuture<V> getAsync(K key) {
+    return getAsync(key, null);
+  }
+
+  /**
+   * Like {@link #getAsync(Object)}, but fails with a TimeoutException if the value has not arrived within
+   * the timeout. A load started by this call is cancelled when the returned future times out or is
+   * cancelled, interrupting a blocking store call; callers sharing that load then fail with a
+   * CancellationException and the key is not cached.
+   */
+  public CompletableFuture<V> getAsync(K key, Duration timeout) {
+    V value;
+    try {
+      value = lookup(key);
+    } catch (CacheException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    if (value == ABSENT) {
+      return CompletableFuture.failedFuture(
+          new CacheException("Key '" + key + "' not found in cache or backing store."));
+    }
+    return (value != null) ? CompletableFuture.completedFuture(value) : loadAsync(key, timeout);
+  }
+
+  /**
+   * Caches the value on another thread, so the caller does not wait for a write-through store. The future
+   * completes once the value is cached and the write policy has handled it.
+   */
+  public CompletableFuture<Void> putAsync(K key, V value) {
+    return CompletableFuture.runAsync(() -> put(key, value), asyncExecutor());
+  }
+
+  /**
+   * Returns the executor of putAsync and the default async store, starting it on first use so a cache that
+   * never goes async holds none.
+   */
+  private ExecutorService asyncExecutor() {
+    ExecutorService executor = asyncExecutor;
+    return (executor != null) ? executor : startAsyncExecutor();
+  }
+
+  private synchronized ExecutorService startAsyncExecutor() {
+    if (asyncExecutor == null) {
+      ExecutorService executor = ExecutorBackingStore.newVirtualThreadExecutor();
+      if (closed) {
+        executor.shutdown(); // Rejects work after close, as it would have had it started earlier.
+      }
+      asyncExecutor = executor;
+    }
+    return asyncExecutor;
+  }
+
+  private AsyncBackingStore<K, V> asyncStore() {
+    AsyncBackingStore<K, V> store = asyncStore;
+    if (store == null) {
+      store = AsyncBackingStore.fromBlocking(backingStore, asyncExecutor());
+      asyncStore = store; // Callers racing here wrap the store over the same executor alike.
+    }
+    return store;
+  }
+
+  private synchronized void shutdownAsyncExecutor() {
+    closed = true;
+    if (asyncExecutor != null) {
+      asyncExecutor.shutdown();
+    }
+  }
+
+  /**
+   * Returns the values of all given keys without blocking. Hits are collected on the calling thread and
+   * misses are loaded with one retrieveAllAsync call; the future completes at once if every key is a hit.
+   */
+  public CompletableFuture<Map<K, V>> getAllAsync(Collection<? extends K> keys) {
+    Map<K, V> result = new HashMap<>(keys.size() * 2);
+    Map<K, CompletableFuture<V>> leading = new LinkedHashMap<>(); // Misses this call loads.
+    Map<K, CompletableFuture<V>> joined = new HashMap<>(); // Misses already loading elsewhere.
+    collectHits(keys, result, leading, joined);
+    if (leading.isEmpty() && joined.isEmpty()) {
+      return CompletableFuture.completedFuture(result);
+    }
+    if (!leading.isEmpty()) {
+      loadAllAsync(leading);
+    }
+    Map<K, CompletableFuture<V>> misses = new HashMap<>(leading);
+    misses.putAll(joined);
+    return CompletableFuture.allOf(misses.values().toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+      for (Map.Entry<K, CompletableFuture<V>> miss : misses.entrySet()) {
+        V value = miss.getValue().join();
+        if (value != null) {
+          result.put(miss.getKey(), value);
+        }
+      }
+      return result;
+    });
+  }
+
+  /**
+   * Returns the cached value and records the hit, or null on a miss, or ABSENT for a key remembered as
+   * missing from the store. With refresh-after-write, a hit on an entry past its refresh deadline, or already expired, returns
+   * the current value and reloads it in the background. Throws if the entry has expired otherwise.
+   */
+  private V lookup(K key) throws CacheException {
+    CacheEntry<K, V> entry = cache.get(key);
+    if (entry == null) {
+      return null;
     }
 
     // Expiration logic: Use the expiration strategy dynamically
-    if (expirationStrategy.isExpired(entry)) {
-      cache.remove(key);
-      evictionPolicy.removeKey(key);
-      logger.warning("Expired key '" + key + "' was removed!");
-      throw new CacheException("Key '" + key + "' has expired and was removed!");
+    long now = ticker.read();
+    if (entry instanceof AbsentEntry) {
+      if (entry.getExpirationTime() - now <= 0) {
+        expire(entry);
+        return null; // Ask the store again.
+      }
+      statsCounter.recordMisses(1);
+      evictionPolicy.recordAccess(key);
+      return absent();
+    }
+    if (expirationStrategy.isExpired(entry, now)) {
+      if (!isRefreshable(entry)) {
+        expire(entry);
+        statsCounter.recordMisses(1);
+        throw new CacheException("Key '" + key + "' has expired and was removed!");
+      }
+      V stale = entry.getValue();
+      if (stale == null) {
+        return null; // Off-heap value released by a concurrent removal.
+      }
+      statsCounter.recordHits(1);
+      evictionPolicy.recordAccess(key);
+      refresh(entry); // Serve the stale value while it is reloaded.
+      return stale;
     }
 
+    V value = entry.getValue();
+    if (value == null) {
+      return null; // Off-heap value released by a concurrent removal.
+    }
+    statsCounter.recordHits(1);
     evictionPolicy.recordAccess(key); // Update LRU policy tracking
-    entry.refreshLastAccessed(); // Update access time
-    return entry.getValue();
+    recordRead(entry, now);
+    if (entry.getRefreshTime() - now <= 0 && isRefreshable(entry)) {
+      refresh(entry);
+    }
+    return value;
   }
 
-  public void remove(K key) {
+  @Override
+  public boolean remove(K key) {
+    inFlight.remove(key); // Stop any in-flight load from installing a value for the removed key.
     CacheEntry<K, V> removedEntry = cache.remove(key);
+    untrack(key);
+    if (removedEntry == null) {
+      return false;
+    }
+    // Absence markers and expired entries a read would not have served do not count.
+    boolean cached = !(removedEntry instanceof AbsentEntry)
+        && (isRefreshable(removedEntry) || !expirationStrategy.isExpired(removedEntry, ticker.read()));
+    discard(removedEntry);
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine("Removed key: " + key);
+    }
+    return cached;
+  }
+
+  /**
+   * Returns what compressing values has saved and cost; all zero unless enabled with
+   * {@link CacheOptions#compressValues}.
+   */
+  public CompressionStats compressionStats() {
+    return (compressor == null) ? CompressionStats.empty() : compressor.stats();
+  }
+
+  /**
+   * Returns the current bound on the total weight of entries, which a memory pressure monitor may have
+   * lowered below the configured one.
+   */
+  public long getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  /**
+   * Changes the bound on the total weight of entries. Lowering it evicts down to the new bound at once,
+   * handing the evicted values to the write policy a batch at a time.
+   */
+  public void setMaximumWeight(long maximumWeight) {
+    if (maximumWeight < 0) {
+      throw new IllegalArgumentException("Maximum weight must be >= 0.");
+    }
+    this.maximumWeight = maximumWeight;
+    int evictions = 0;
+    while (weightedSize.get() > maximumWeight) {
+      Map<K, V> evicted = new LinkedHashMap<>();
+      int batch = 0;
+      for (; batch < EVICTION_BATCH && weightedSize.get() > maximumWeight; batch++) {
+        K evictionCandidate = evictionPolicy.getEvictionCandidate();
+        if (evictionCandidate == null) {
+          break;
+        }
+        evict(evictionCandidate, evicted);
+      }
+      if (!evicted.isEmpty()) {
+        writePolicy.handleEvictionAll(evicted);
+      }
+      evictions += batch;
+      if (batch < EVICTION_BATCH && weightedSize.get() > maximumWeight) {
+        break; // Nothing left to evict; the entries holding the weight are being removed concurrently.
+      }
+    }
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine("Maximum weight set to " + maximumWeight + ", evicting " + evictions + " entries.");
+    }
+  }
+
+  /**
+   * Returns a snapshot of the cache's statistics; all zero unless enabled with {@link CacheOptions#recordStats()}.
+   */
+  @Override
+  public CacheStats stats() {
+    return statsCounter.snapshot();
+  }
+
+  /**
+   * Returns the number of cached entries, including expired ones not yet cleaned up.
+   */
+  @Override
+  public int size() {
+    return cache.size();
+  }
+
+  @Override
+  public Set<K> keys() {
+    Set<K> keys = new HashSet<>();
+    for (CacheEntry<K, V> entry : cache.values()) {
+      if (!(entry instanceof AbsentEntry)) {
+        keys.add(entry.getKey());
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Returns the total weight of cached entries; the number of entries unless a weigher is configured.
+   */
+  @Override
+  public long weightedSize() {
+    return weightedSize.get();
+  }
+
+  /**
+   * Returns the values of all given keys that are cached or present in the backing store.
+   * Missing keys are absent from the result. Misses are loaded with one batched retrieveAll call,
+   * sharing loads already in flight for individual keys.
+   */
+  @Override
+  public Map<K, V> getAll(Collection<? extends K> keys) throws CacheException {
+    Map<K, V> result = new HashMap<>(keys.size() * 2);
+    Map<K, CompletableFuture<V>> leading = new LinkedHashMap<>(); // Misses this call loads.
+    Map<K, CompletableFuture<V>> joined = new HashMap<>(); // Misses already loading elsewhere.
+    collectHits(keys, result, leading, joined);
+    if (!leading.isEmpty()) {
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("Cache miss! Loading " + leading.size() + " keys from backing store in one batch...");
+      }
+      result.putAll(loadAll(leading));
+    }
+    for (Map.Entry<K, CompletableFuture<V>> miss : joined.entrySet()) {
+      V value = awaitLoad(miss.getKey(), miss.getValue());
+      if (value != null) {
+        result.put(miss.getKey(), value);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Puts the cached values of the keys into result and records the hits. Each miss is registered as a
+   * load in flight: in leading if this call is to load it, in joined if another caller already is.
+   */
+  private void collectHits(Collection<? extends K> keys, Map<K, V> result,
+      Map<K, CompletableFuture<V>> leading, Map<K, CompletableFuture<V>> joined) {
+    int hits = 0;
+    int absent = 0;
+    long now = ticker.read();
+    for (K key : keys) {
+      CacheEntry<K, V> entry = cache.get(key);
+      if (entry instanceof AbsentEntry) {
+        if (entry.getExpirationTime() - now > 0) {
+          absent++;
+          evictionPolicy.recordAccess(key);
+          continue; // Known to be missing from the store.
+        }
+        expire(entry);
+        entry = null;
+      }
+      V value = (entry == null) ? null : entry.getValue(); // Null for an off-heap value released meanwhile.
+      if (value != null && expirationStrategy.isExpired(entry, now)) {
+        if (isRefreshable(entry)) {
+          hits++;
+          evictionPolicy.recordAccess(key);
+          refresh(entry); // Serve the stale value while it is reloaded.
+          result.put(key, value);
+          continue;
+        }
+        expire(entry);
+        value = null;
+      }
+      if (value != null) {
+        hits++;
+        evictionPolicy.recordAccess(key);
+        recordRead(entry, now);
+        if (entry.getRefreshTime() - now <= 0 && isRefreshable(entry)) {
+          refresh(entry);
+        }
+        result.put(key, value);
+      } else if (!leading.containsKey(key) && !joined.containsKey(key)) {
+        CompletableFuture<V> loading = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, loading);
+        if (existing == null) {
+          leading.put(key, loading);
+        } else {
+          joined.put(key, existing);
+        }
+      }
+    }
+
+    statsCounter.recordHits(hits);
+    statsCounter.recordMisses(leading.size() + joined.size() + absent);
+  }
+
+  /**
+   * Caches all given entries. Evictions and write-policy work are applied once for the whole batch.
+   */
+  @Override
+  public void putAll(Map<? extends K, ? extends V> entries) {
+    Map<K, V> written = new LinkedHashMap<>(entries.size() * 2);
+    Map<K, V> evicted = new LinkedHashMap<>();
+    for (Map.Entry<? extends K, ? extends V> mapping : entries.entrySet()) {
+      K key = mapping.getKey();
+      V value = mapping.getValue();
+      written.put(key, value);
+      byte[] compressed = compress(value);
+      int weight = weigh(key, value, compressed);
+      if (!makeRoom(key, weight, evicted)) {
+        evicted.put(key, value); // Rejected by admission: written and evicted at once.
+        statsCounter.recordEviction(RemovalCause.SIZE);
+        continue;
+      }
+      CacheEntry<K, V> entry = newEntry(key, value, compressed, weight, STRATEGY_TTL);
+      // An old value evicted to make room is superseded by this write; handling its eviction after the
+      // write would mark the new value clean.
+      evicted.remove(key);
+      inFlight.remove(key); // A write supersedes any load in flight for the same key.
+      install(entry);
+      discard(cache.put(key, entry)); // Drop the entry this one replaces.
+      evictionPolicy.recordAccess(key);
+      scheduleExpiration(entry);
+    }
+    enforceMaximumWeight(evicted);
+    // Writes go first so a write-back policy sees keys evicted later in the same batch as dirty.
+    writePolicy.handleWriteAll(written);
+    if (!evicted.isEmpty()) {
+      writePolicy.handleEvictionAll(evicted);
+    }
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine("Cached " + written.size() + " keys in one batch.");
+    }
+  }
+
+  /**
+   * Loads a missing key, coalescing concurrent loads of the same key into one loader call. Returns null if
+   * the loader found nothing.
+   */
+  private V load(K key, Function<? super K, ? extends V> loader) throws CacheException {
+    statsCounter.recordMisses(1);
+    CompletableFuture<V> loading = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, loading);
+    if (existing != null) {
+      return awaitLoad(key, existing); // Another caller is already loading this key.
+    }
+
+    try {
+      CacheEntry<K, V> current = cache.get(key);
+      if (current instanceof AbsentEntry) {
+        if (loader == storeLoader) { // Raced with a load that found nothing.
+          loading.complete(null);
+          return null;
+        }
+        removeEntry(current, RemovalCause.EXPLICIT); // Make way for what this loader finds.
+      }
+      V cached = (current == null) ? null : current.getValue();
+      if (cached != null) { // Raced with a load that finished after our miss.
+        loading.complete(cached);
+        return cached;
+      }
+      long loadStart = ticker.read();
+      V value;
+      try {
+        value = writePolicy.pendingWrite(key); // Read our own queued write before the store.
+        if (value == null) {
+          value = loader.apply(key);
+        }
+      } catch (RuntimeException | Error e) {
+        statsCounter.recordLoadFailure(ticker.read() - loadStart);
+        throw e;
+      }
+      if (value == null) {
+        statsCounter.recordLoadFailure(ticker.read() - loadStart);
+        if (loader == storeLoader) {
+          cacheAbsence(key, loading, null);
+        }
+        loading.complete(null); // Waiters treat a null result as not found.
+        return null;
+      }
+      statsCounter.recordLoadSuccess(ticker.read() - loadStart);
+      putInternal(key, value, STRATEGY_TTL, loading, null); // Add loaded value to cache
+      loading.complete(value);
+      return value;
+    } catch (RuntimeException e) {
+      loading.completeExceptionally(e);
+      throw new CacheException("Failed to load key '" + key + "': " + e.getMessage(), e);
+    } catch (Error e) {
+      loading.completeExceptionally(e); // Waiters must not block on a load that will never finish.
+      throw e;
+    } finally {
+      inFlight.remove(key, loading);
+    }
+  }
+
+  /**
+   * Loads the given misses with a single batched store call and installs them in one pass.
+   */
+  private Map<K, V> loadAll(Map<K, CompletableFuture<V>> leading) throws CacheException {
+    long loadStart = ticker.read();
+    boolean retrieved = false;
+    try {
+      Map<K, V> loaded = new HashMap<>(leading.size() * 2);
+      List<K> toRetrieve = new ArrayList<>(leading.size());
+      for (K key : leading.keySet()) {
+        V pending = writePolicy.pendingWrite(key); // Read our own queued writes before the store.
+        if (pending != null) {
+          loaded.put(key, pending);
+        } else {
+          toRetrieve.add(key);
+        }
+      }
+      if (!toRetrieve.isEmpty()) {
+        for (Map.Entry<? extends K, ? extends V> mapping : backingStore.retrieveAll(toRetrieve).entrySet()) {
+          if (mapping.getValue() != null && leading.containsKey(mapping.getKey())) {
+            loaded.put(mapping.getKey(), mapping.getValue());
+          }
+        }
+      }
+      statsCounter.recordLoadSuccess(ticker.read() - loadStart); // One load for the whole batch.
+      retrieved = true;
+      installAll(leading, loaded);
+      return loaded;
+    } catch (RuntimeException e) {
+      if (!retrieved) {
+        statsCounter.recordLoadFailure(ticker.read() - loadStart);
+      }
+      for (CompletableFuture<V> loading : leading.values()) {
+        loading.completeExceptionally(e);
+      }
+      throw new CacheException("Failed to load " + leading.size() + " keys: " + e.getMessage(), e);
+    } catch (Error e) {
+      for (CompletableFuture<V> loading : leading.values()) {
+        loading.completeExceptionally(e);
+      }
+      throw e;
+    } finally {
+      for (Map.Entry<K, CompletableFuture<V>> miss : leading.entrySet()) {
+        inFlight.remove(miss.getKey(), miss.getValue());
+      }
+    }
+  }
+
+  /**
+   * Installs a batch of loaded values in one pass and completes their loads; keys missing from loaded
+   * complete as not found, and are remembered as absent if that is on.
+   */
+  private void installAll(Map<K, CompletableFuture<V>> leading, Map<K, V> loaded) {
+    Map<K, V> evicted = new LinkedHashMap<>();
+    for (Map.Entry<K, V> mapping : loaded.entrySet()) {
+      K key = mapping.getKey();
+      byte[] compressed = compress(mapping.getValue());
+      int weight = weigh(key, mapping.getValue(), compressed);
+      if (!makeRoom(key, weight, evicted)) {
+        continue; // Loaded values are already stored; a rejected one is simply not cached.
+      }
+      CacheEntry<K, V> entry = newEntry(key, mapping.getValue(), compressed, weight, STRATEGY_TTL);
+      CompletableFuture<V> loading = leading.get(key);
+      if (cache.compute(key, (k, current) ->
+          (current == null && inFlight.get(k) == loading) ? install(entry) : current) == entry) {
+        evictionPolicy.recordAccess(key);
+        scheduleExpiration(entry);
+      } else {
+        entry.release(); // Superseded by a put or remove.
+      }
+    }
+    if (absenceTtlNanos != 0 && loaded.size() < leading.size()) {
+      for (Map.Entry<K, CompletableFuture<V>> miss : leading.entrySet()) {
+        if (!loaded.containsKey(miss.getKey())) {
+          cacheAbsence(miss.getKey(), miss.getValue(), evicted);
+        }
+      }
+    }
+    enforceMaximumWeight(evicted);
+    if (!evicted.isEmpty()) {
+      writePolicy.handleEvictionAll(evicted);
+    }
+    for (Map.Entry<K, CompletableFuture<V>> miss : leading.entrySet()) {
+      miss.getValue().complete(loaded.get(miss.getKey())); // Null means not found.
+    }
+  }
+
+  /**
+   * Waits for a load started by another caller. Returns null if the key was not found.
+   */
+  private V awaitLoad(K key, CompletableFuture<V> loading) throws CacheException {
+    try {
+      return loading.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CacheException("Interrupted while waiting for key '" + key + "' to load.", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw new CacheException(cause.getMessage(), cause);
+    } catch (CancellationException e) {
+      throw new CacheException("Load of key '" + key + "' was cancelled.", e);
+    }
+  }
+
+  /**
+   * Loads a miss from the async backing store, or joins the load already in flight for the key.
+   */
+  private CompletableFuture<V> loadAsync(K key, Duration timeout) {
+    statsCounter.recordMisses(1);
+    CompletableFuture<V> loading = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, loading);
+    if (existing != null) {
+      return withTimeout(found(key, existing), timeout); // Cancelling it leaves the shared load running.
+    }
+
+    CacheEntry<K, V> current = cache.get(key);
+    V cached = (current == null) ? null : current.getValue();
+    if (cached != null) { // Raced with a load that finished after our miss.
+      loading.complete(cached);
+      inFlight.remove(key, loading);
+      return CompletableFuture.completedFuture(cached);
+    }
+    long loadStart = ticker.read();
+    V pending = writePolicy.pendingWrite(key); // Read our own queued write before the store.
+    CompletableFuture<V> retrieval;
+    try {
+      retrieval = (pending != null) ? CompletableFuture.completedFuture(pending) : asyncStore().retrieveAsync(key);
+    } catch (RuntimeException e) {
+      retrieval = CompletableFuture.failedFuture(e);
+    }
+    retrieval.whenComplete((value, failure) -> finishLoad(key, loading, value, failure, loadStart));
+
+    CompletableFuture<V> result = withTimeout(found(key, loading), timeout);
+    CompletableFuture<V> store = retrieval;
+    result.whenComplete((value, failure) -> {
+      if (failure instanceof CancellationException || failure instanceof TimeoutException) {
+        store.cancel(true); // Nobody else can cancel it, so abandon the call rather than let it run on.
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Installs the result of an async load and completes it for everyone waiting on it.
+   */
+  private void finishLoad(K key, CompletableFuture<V> loading, V value, Throwable failure, long loadStart) {
+    try {
+      if (failure != null) {
+        statsCounter.recordLoadFailure(ticker.read() - loadStart);
+        loading.completeExceptionally((failure instanceof CompletionException && failure.getCause() != null)
+            ? failure.getCause() : failure);
+        return;
+      }
+      if (value == null) {
+        statsCounter.recordLoadFailure(ticker.read() - loadStart);
+        cacheAbsence(key, loading, null);
+        loading.complete(null); // Waiters treat a null result as not found.
+        return;
+      }
+      statsCounter.recordLoadSuccess(ticker.read() - loadStart);
+      putInternal(key, value, STRATEGY_TTL, loading, null); // Add loaded value to cache
+      loading.complete(value);
+    } catch (RuntimeException | Error e) {
+      loading.completeExceptionally(e); // Errors would otherwise vanish into the store's future.
+    } finally {
+      inFlight.remove(key, loading);
+    }
+  }
+
+  /**
+   * Loads a batch of misses with one retrieveAllAsync call and installs them when it completes.
+   */
+  private void loadAllAsync(Map<K, CompletableFuture<V>> leading) {
+    long loadStart = ticker.read();
+    Map<K, V> loaded = new HashMap<>(leading.size() * 2);
+    List<K> toRetrieve = new ArrayList<>(leading.size());
+    for (K key : leading.keySet()) {
+      V pending = writePolicy.pendingWrite(key); // Read our own queued writes before the store.
+      if (pending != null) {
+        loaded.put(key, pending);
+      } else {
+        toRetrieve.add(key);
+      }
+    }
+    CompletableFuture<Map<K, V>> retrieval;
+    try {
+      retrieval = toRetrieve.isEmpty()
+          ? CompletableFuture.completedFuture(Map.of()) : asyncStore().retrieveAllAsync(toRetrieve);
+    } catch (RuntimeException e) {
+      retrieval = CompletableFuture.failedFuture(e);
+    }
+    retrieval.whenComplete((retrieved, failure) -> {
+      try {
+        if (failure != null) {
+          statsCounter.recordLoadFailure(ticker.read() - loadStart);
+          for (CompletableFuture<V> loading : leading.values()) {
+            loading.completeExceptionally(failure);
+          }
+          return;
+        }
+        statsCounter.recordLoadSuccess(ticker.read() - loadStart); // One load for the whole batch.
+        for (Map.Entry<K, V> mapping : retrieved.entrySet()) {
+          if (mapping.getValue() != null && leading.containsKey(mapping.getKey())) {
+            loaded.put(mapping.getKey(), mapping.getValue());
+          }
+        }
+        installAll(leading, loaded);
+      } catch (RuntimeException | Error e) {
+        for (CompletableFuture<V> loading : leading.values()) {
+          loading.completeExceptionally(e);
+        }
+      } finally {
+        for (Map.Entry<K, CompletableFuture<V>> miss : leading.entrySet()) {
+          inFlight.remove(miss.getKey(), miss.getValue());
+        }
+      }
+    });
+  }
+
+  /**
+   * Returns a future of the loaded value that fails with a CacheException if the load found nothing.
+   */
+  private CompletableFuture<V> found(K key, CompletableFuture<V> loading) {
+    return loading.thenApply(value -> {
+      if (value == null) {
+        throw new CompletionException(new CacheException("Key '" + key + "' not found in cache or backing store."));
+      }
+      return value;
+    });
+  }
+
+  private static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, Duration timeout) {
+    return (timeout == null) ? future : future.orTimeout(saturatedNanos(timeout), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Inserts a value, evicting if the cache is full.
+   * When loading is non-null the value came from that load and is only installed if the key is still
+   * absent and the load has not been superseded by a put or remove.
+   */
+  private void putInternal(K key, V value, long ttlNanos, CompletableFuture<V> loading, Set<String> tags) {
+    byte[] compressed = compress(value);
+    int weight = weigh(key, value, compressed);
+    if (!makeRoom(key, weight, null)) {
+      if (loading == null) {
+        // Policy kept the victim; the new value goes straight to the write policy as if evicted at once.
+        writePolicy.handleWrite(key, value);
+        writePolicy.handleEviction(key, value);
+      }
+      statsCounter.recordEviction(RemovalCause.SIZE);
+      return;
+    }
+
+    CacheEntry<K, V> entry = newEntry(key, value, compressed, weight, ttlNanos); // Create cache entry
+    if (loading == null) {
+      entry.setTags(tags);
+      inFlight.remove(key); // A write supersedes any load in flight for the same key.
+      install(entry);
+      discard(cache.put(key, entry)); // Drop the entry this one replaces.
+      if (tags != null) {
+        index(entry);
+      }
+    } else if (cache.compute(key, (k, current) ->
+        (current == null && inFlight.get(k) == loading) ? install(entry) : current) != entry) {
+      entry.release();
+      return; // A concurrent put or remove won; keep its outcome.
+    }
+    evictionPolicy.recordAccess(key); // Track access for eviction policy
+    scheduleExpiration(entry);
+    if (loading == null) {
+      writePolicy.handleWrite(key, value); // Handle write based on write policy; loaded values are already stored
+    }
+    enforceMaximumWeight(null);
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine("Cached key: " + key + " (value: " + value + ")");
+    }
+  }
+
+  /**
+   * Adds a just-installed entry to the tag index. Whoever drops the entry unindexes it in discard; if that
+   * happened before it was indexed here, the entry is unindexed again so the index never keeps it.
+   */
+  private void index(CacheEntry<K, V> entry) {
+    for (String tag : entry.getTags()) {
+      tagIndex.compute(tag, (t, tagged) -> {
+        Set<CacheEntry<K, V>> entries = (tagged == null) ? new HashSet<>() : tagged;
+        entries.add(entry); // Sets are only changed under the index's lock for their tag.
+        return entries;
+      });
+    }
+    if (cache.get(entry.getKey()) != entry) {
+      unindex(entry);
+    }
+  }
+
+  /**
+   * Returns how many entries the index holds under the tag.
+   */
+  int taggedCount(String tag) {
+    int[] count = new int[1];
+    tagIndex.computeIfPresent(tag, (t, tagged) -> {
+      count[0] = tagged.size();
+      return tagged;
+    });
+    return count[0];
+  }
+
+  private void unindex(CacheEntry<K, V> entry) {
+    for (String tag : entry.getTags()) {
+      tagIndex.computeIfPresent(tag, (t, tagged) -> (tagged.remove(entry) && tagged.isEmpty()) ? null : tagged);
+    }
+  }
+
+  /**
+   * Remembers that the store lacks the key, unless that is off or the load was superseded by a put or
+   * remove. Evictions made for the marker go to evicted, or to the write policy at once when it is null.
+   */
+  private void cacheAbsence(K key, CompletableFuture<V> loading, Map<K, V> evicted) {
+    if (absenceTtlNanos == 0 || !makeRoom(key, 1, evicted)) {
+      return;
+    }
+    long now = ticker.read();
+    CacheEntry<K, V> marker = new AbsentEntry<>(key, now);
+    marker.setFixedExpiration(ExpirationStrategy.deadline(now, absenceTtlNanos));
+    if (cache.compute(key, (k, current) ->
+        (current == null && inFlight.get(k) == loading) ? install(marker) : current) == marker) {
+      evictionPolicy.recordAccess(key);
+      scheduleExpiration(marker);
+      if (evicted == null) {
+        enforceMaximumWeight(null);
+      }
+    }
+  }
+
+  /**
+   * Evicts entries until one of the given weight fits under the maximum weight alongside the rest.
+   * Evicted values are collected into evicted for batch handling, or passed to the write policy at once
+   * when evicted is null. Returns false if the entry can never fit or the eviction policy rejects the key.
+   */
+  private boolean makeRoom(K key, int weight, Map<K, V> evicted) {
+    if (weight > maximumWeight) {
+      return false;
+    }
+    CacheEntry<K, V> existing = cache.get(key);
+    long replaced = (existing == null) ? 0 : existing.getWeight(); // Freed when the new entry replaces it.
+    while (weightedSize.get() - replaced + weight > maximumWeight) {
+      K evictionCandidate = evictionPolicy.getEvictionCandidate();
+      if (evictionCandidate == null) {
+        break; // Nothing left to evict; the entries holding the weight are being removed concurrently.
+      }
+      if (existing == null && !evictionPolicy.admit(key, evictionCandidate)) {
+        if (logger.isLoggable(Level.FINE)) {
+          logger.fine("Rejected admission of key: " + key);
+        }
+        return false;
+      }
+      if (evictionCandidate.equals(key)) {
+        replaced = 0; // Evicting the old entry frees its weight now rather than on replacement.
+      }
+      evict(evictionCandidate, evicted);
+    }
+    return true;
+  }
+
+  /**
+   * Evicts until the total weight is back under the maximum. Writers that made room concurrently can
+   * overshoot it together; each trims the excess after installing its own entry.
+   */
+  private void enforceMaximumWeight(Map<K, V> evicted) {
+    while (weightedSize.get() > maximumWeight) {
+      K evictionCandidate = evictionPolicy.getEvictionCandidate();
+      if (evictionCandidate == null) {
+        return;
+      }
+      evict(evictionCandidate, evicted);
+    }
+  }
+
+  /**
+   * Evicts the policy's candidate. The policy forgets the key even if the cache no longer holds it, so a
+   * caller looping over candidates always makes progress.
+   */
+  private void evict(K evictionCandidate, Map<K, V> evicted) {
+    CacheEntry<K, V> evictedEntry = cache.remove(evictionCandidate);
+    evictionPolicy.removeKey(evictionCandidate);
+    if (evictedEntry == null) {
+      return;
+    }
+    if (evictedEntry instanceof AbsentEntry) {
+      // Nothing to hand to the write policy.
+    } else if (evicted == null) {
+      writePolicy.handleEviction(evictedEntry.getKey(), evictedEntry.getValue()); // Handle eviction via write policy.
+    } else {
+      evicted.put(evictedEntry.getKey(), evictedEntry.getValue());
+    }
+    discard(evictedEntry);
+    statsCounter.recordEviction(RemovalCause.SIZE);
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine("Evicted key: " + evictionCandidate);
+    }
+  }
+
+  /**
+   * Removes every entry whose deadline has passed. Entries that refresh are removed too: only reads
+   * reload them, so the sweep never turns into store traffic. Runs periodically on the scheduler unless
+   * maintenance is manual; the timer wheel only visits buckets whose time span has elapsed, so a sweep costs O(1) amortized per entry.
+   */
+  @Override
+  public void cleanUp() {
+    expirationLock.lock();
+    try {
+      timerWheel.advance(ticker.read(), expirer);
+    } catch (RuntimeException e) {
+      logger.severe("Failed to clean up expired entries: " + e.getMessage());
+    } finally {
+      expirationLock.unlock();
+    }
+  }
+
+  private CacheEntry<K, V> newEntry(K key, V value, byte[] compressed, int weight, long ttlNanos) {
+    long now = ticker.read();
+    CacheEntry<K, V> entry = createEntry(key, value, compressed, weight, now);
+    if (ttlNanos == STRATEGY_TTL) {
+      entry.setExpirationTime(expirationStrategy.expireAfterCreate(entry, now));
+      if (refreshAfterWriteNanos != 0) {
+        entry.setRefreshTime(ExpirationStrategy.deadline(now, refreshAfterWriteNanos));
+      }
+    } else {
+      entry.setFixedExpiration(ExpirationStrategy.deadline(now, ttlNanos));
+    }
+    return entry;
+  }
+
+  /**
+   * Creates the entry holding the value; compressed is what {@link #compress} returned for it.
+   */
+  private CacheEntry<K, V> createEntry(K key, V value, byte[] compressed, int weight, long createdTime) {
+    CacheEntry<K, V> entry;
+    if (allocator != null) {
+      entry = new OffHeapCacheEntry<>(key, value, createdTime, serializer, allocator);
+    } else if (compressor != null) {
+      entry = new CompressedCacheEntry<>(key, value, compressed, createdTime, compressor);
+    } else {
+      entry = new CacheEntry<>(key, value, createdTime);
+    }
+    entry.setWeight(weight);
+    return entry;
+  }
+
+  /**
+   * Returns the value deflated as the cache will hold it, or null if there is no compressor or the value is
+   * not worth compressing and is held as it is.
+   */
+  private byte[] compress(V value) {
+    return (compressor == null || value == null) ? null : compressor.compress(value);
+  }
+
+  /**
+   * Weighs the value as it is held. A compressed value's weight is scaled by its compression ratio, so a
+   * weigher of bytes charges the bytes kept on the heap rather than the value's inflated size.
+   */
+  private int weigh(K key, V value, byte[] compressed) {
+    int weight = weigher.weigh(key, value);
+    if (weight < 0) {
+      throw new IllegalArgumentException("Weight of key '" + key + "' must be >= 0, was " + weight + ".");
+    }
+    if (compressed != null && weight > 0) {
+      long uncompressed = Math.max(1, compressor.uncompressedLength(compressed));
+      weight = (int) Math.max(1, ((long) weight * compressed.length + uncompressed - 1) / uncompressed);
+    }
+    return weight;
+  }
+
+  /**
+   * Adds the entry's weight to the total as it goes into the map; discard takes it off again.
+   */
+  private CacheEntry<K, V> install(CacheEntry<K, V> entry) {
+    weightedSize.addAndGet(entry.getWeight());
+    return entry;
+  }
+
+  /**
+   * Updates access bookkeeping on a hit without allocating. The deadline is moved without touching
+   * the timer wheel, which reschedules the entry when it sweeps the old bucket.
+   */
+  private void recordRead(CacheEntry<K, V> entry, long now) {
+    entry.refreshLastAccessed(now); // Update access time
+    if (!entry.hasFixedExpiration()) {
+      long deadline = expirationStrategy.expireAfterRead(entry, now);
+      if (deadline != entry.getExpirationTime()) {
+        entry.setExpirationTime(deadline);
+      }
+    }
+  }
+
+  /**
+   * Removes an expired entry unless it has already been replaced or removed.
+   */
+  private void expire(CacheEntry<K, V> entry) {
+    removeEntry(entry, RemovalCause.EXPIRED);
+  }
+
+  /**
+   * Removes the entry unless it has already been replaced or removed, handing its value to the write policy.
+   * Returns true if this call removed it.
+   */
+  private boolean removeEntry(CacheEntry<K, V> entry, RemovalCause cause) {
+    K key = entry.getKey();
+    if (cache.remove(key, entry)) {
+      untrack(key);
+      if (!(entry instanceof AbsentEntry)) {
+        writePolicy.handleEviction(key, entry.getValue()); // Modified entries must not be lost.
+      }
+      discard(entry); // Unscheduling is a no-op when called from the timer wheel, which has already unlinked it.
+      if (cause.wasEvicted()) {
+        statsCounter.recordEviction(cause);
+      }
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("Removed key '" + key + "' (" + cause + ").");
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Stops the eviction policy tracking a key just taken out of the map. A concurrent put may have
+   * installed and recorded the key in between, in which case it is recorded again so it stays evictable.
+   */
+  private void untrack(K key) {
     evictionPolicy.removeKey(key);
-    if (removedEntry != null) {
-      logger.info("Removed key: " + key);
+    if (cache.containsKey(key)) {
+      evictionPolicy.recordAccess(key);
+    }
+  }
+
+  /**
+   * Cleans up after an entry the cache no longer references.
+   */
+  private void discard(CacheEntry<K, V> entry) {
+    if (entry != null) {
+      weightedSize.addAndGet(-entry.getWeight());
+      if (entry.getTags() != null) {
+        unindex(entry);
+      }
+      descheduleExpiration(entry);
+      entry.release();
+    }
+  }
+
+  private void scheduleExpiration(CacheEntry<K, V> entry) {
+    if (entry.getExpirationTime() == Long.MAX_VALUE) {
+      return; // Never expires.
+    }
+    expirationLock.lock();
+    try {
+      timerWheel.schedule(entry);
+    } finally {
+      expirationLock.unlock();
+    }
+  }
+
+  private void descheduleExpiration(CacheEntry<K, V> entry) {
+    if (entry == null || entry.getExpirationTime() == Long.MAX_VALUE) {
+      return; // Nothing replaced, or never scheduled.
+    }
+    expirationLock.lock();
+    try {
+      timerWheel.deschedule(entry);
+    } finally {
+      expirationLock.unlock();
     }
   }
 
+  private static long saturatedNanos(Duration duration) {
+    try {
+      return duration.toNanos();
+    } catch (ArithmeticException e) {
+      return Long.MAX_VALUE;
+    }
+  }
+
+  /**
+   * Entries written with a per-entry time-to-live keep their deadline and are never reloaded.
+   */
+  private boolean isRefreshable(CacheEntry<K, V> entry) {
+    return refreshAfterWriteNanos != 0 && entry.getRefreshTime() != Long.MAX_VALUE;
+  }
+
+  /**
+   * Reloads the entry in the background unless a reload is already in flight. If the executor is
+   * saturated the reload is skipped, and the next read past the deadline tries again.
+   */
+  private void refresh(CacheEntry<K, V> entry) {
+    if (!entry.tryStartRefresh()) {
+      return;
+    }
+    try {
+      refreshExecutor.execute(() -> reload(entry));
+    } catch (RejectedExecutionException e) {
+      entry.finishRefresh();
+    }
+  }
+
+  /**
+   * Replaces the entry's value in place with the store's, unless the entry has been replaced or removed
+   * meanwhile. A key no longer in the store is dropped, and an unpersisted value is kept as it is.
+   */
+  private void reload(CacheEntry<K, V> entry) {
+    K key = entry.getKey();
+    try {
+      long loadStart = ticker.read();
+      V value;
+      try {
+        value = writePolicy.isDirty(key) ? entry.getValue() : backingStore.retrieve(key);
+      } catch (RuntimeException | Error e) {
+        statsCounter.recordLoadFailure(ticker.read() - loadStart);
+        throw e;
+      }
+      if (value == null) {
+        statsCounter.recordLoadFailure(ticker.read() - loadStart);
+        removeEntry(entry, RemovalCause.EXPLICIT); // Gone from the store.
+        return;
+      }
+      long now = ticker.read();
+      statsCounter.recordLoadSuccess(now - loadStart);
+      byte[] compressed = compress(value);
+      int weight = weigh(key, value, compressed);
+      // Swapped under the map's lock for the key so a concurrent removal subtracts the weight it adds.
+      if (cache.computeIfPresent(key,
+          (k, current) -> (current == entry) ? update(entry, value, compressed, weight, now) : current) == entry) {
+        if (logger.isLoggable(Level.FINE)) {
+          logger.fine("Refreshed key '" + key + "' with updated value.");
+        }
+        enforceMaximumWeight(null); // The new value may be heavier.
+      }
+    } catch (RuntimeException e) {
+      logger.warning("Failed to refresh key '" + key + "': " + e.getMessage());
+    } finally {
+      entry.finishRefresh();
+    }
+  }
+
+  private CacheEntry<K, V> update(CacheEntry<K, V> entry, V value, byte[] compressed, int weight, long now) {
+    if (entry instanceof CompressedCacheEntry) {
+      ((CompressedCacheEntry<K, V>) entry).setValue(value, compressed, now); // Compressed once, when weighed.
+    } else {
+      entry.setValue(value, now);
+    }
+    weightedSize.addAndGet(weight - entry.getWeight());
+    entry.setWeight(weight);
+    entry.setExpirationTime(expirationStrategy.expireAfterUpdate(entry, now)); // Timer wheel reschedules lazily.
+    entry.setRefreshTime(ExpirationStrategy.deadline(now, refreshAfterWriteNanos));
+    return entry;
+  }
+
+  static ExecutorService newRefreshExecutor() {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS,
+        30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(REFRESH_QUEUE_CAPACITY), task -> {
+          Thread thread = new Thread(task, "cache-refresh");
+          thread.setDaemon(true);
+          return thread;
+        });
+    executor.allowCoreThreadTimeOut(true); // No idle threads while nothing needs reloading.
+    return executor;
+  }
+
   /**
-   * Schedule periodic refresh of cache entries from the backing store.
+   * Writes the cache's entries to the file, replacing it atomically, and returns how many were written.
+   * Entries are written least recently used first, with their timestamps, time left to live, tags and the
+   * eviction policy's frequency estimate. Readers and writers carry on meanwhile, so the snapshot holds
+   * each entry as it was when visited.
    */
-  private void scheduleRefresh() {
-    logger.info("Initializing refresh task with interval: " + refreshInterval + " seconds...");
-    refreshScheduler.scheduleAtFixedRate(() -> {
-      logger.info("Refreshing cache entries from backing store...");
-      for (K key : cache.keySet()) {
-        try {
-          // Refresh the value for each key from the backing store
-          V refreshedValue = backingStore.retrieve(key);
-          if (refreshedValue != null) {
-            CacheEntry<K, V> entry = cache.get(key);
-            if (entry != null) {
-              entry.setValue(refreshedValue); // Update value in the cache
-              logger.info("Refreshed key '" + key + "' with updated value.");
-            }
+  public int saveSnapshot(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer)
+      throws IOException {
+    snapshotLock.lock();
+    try {
+      long now = ticker.read();
+      List<CacheEntry<K, V>> entries = new ArrayList<>(cache.values());
+      entries.sort((a, b) -> Long.compare(a.getLastAccessed() - now, b.getLastAccessed() - now));
+      int written = 0;
+      try (CacheSnapshot.Writer writer = new CacheSnapshot.Writer(file, System.currentTimeMillis())) {
+        for (CacheEntry<K, V> entry : entries) {
+          V value = entry.getValue();
+          long expiration = entry.getExpirationTime();
+          if (value == null || (expiration != Long.MAX_VALUE && expiration - now <= 0)) {
+            continue; // Released off-heap value, or expired.
           }
-        } catch (Exception e) {
-          logger.severe("Failed to refresh key '" + key + "': " + e.getMessage());
+          K key = entry.getKey();
+          writer.write(new CacheSnapshot.Record(keySerializer.serialize(key), valueSerializer.serialize(value),
+              now - entry.getCreatedTime(), now - entry.getLastAccessed(),
+              (expiration == Long.MAX_VALUE) ? CacheSnapshot.NEVER : expiration - now,
+              entry.hasFixedExpiration(), Math.min(evictionPolicy.frequency(key), 0xFF), entry.getTags()));
+          written++;
         }
+        writer.commit();
       }
-    }, refreshInterval, refreshInterval, TimeUnit.SECONDS);
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("Wrote " + written + " entries to snapshot " + file);
+      }
+      return written;
+    } finally {
+      snapshotLock.unlock();
+    }
   }
 
   /**
-   * Shutdown the refresh scheduler gracefully.
+   * Restores entries from a snapshot written by {@link #saveSnapshot} and returns how many were cached.
+   * The file is streamed: values are decoded in parallel batches while it is read, and installed in the
+   * snapshot's order so the recency order comes back as it was. Entries that expired since the snapshot
+   * was taken are skipped, and keys cached meanwhile keep their newer values. A snapshot larger than the
+   * cache keeps its most recently used entries. Restored entries are indexed under their tags again.
+   */
+  public int loadSnapshot(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer)
+      throws IOException {
+    int restored = 0;
+    try (CacheSnapshot.Reader reader = new CacheSnapshot.Reader(file)) {
+      long downtime = TimeUnit.MILLISECONDS.toNanos(Math.max(0, System.currentTimeMillis() - reader.wallClockMillis()));
+      int maxPending = ForkJoinPool.getCommonPoolParallelism() + 1; // Bounds the decoded batches held in memory.
+      ArrayDeque<CompletableFuture<List<Restored<K, V>>>> decoding = new ArrayDeque<>();
+      List<CacheSnapshot.Record> batch = new ArrayList<>(SNAPSHOT_BATCH);
+      CacheSnapshot.Record record;
+      while ((record = reader.next()) != null) {
+        if (record.timeToLive != CacheSnapshot.NEVER && record.timeToLive - downtime <= 0) {
+          continue; // Expired while the cache was down.
+        }
+        batch.add(record);
+        if (batch.size() == SNAPSHOT_BATCH) {
+          decoding.add(decode(batch, keySerializer, valueSerializer));
+          batch = new ArrayList<>(SNAPSHOT_BATCH);
+          if (decoding.size() > maxPending) {
+            restored += restore(decoding.poll().join(), downtime);
+          }
+        }
+      }
+      if (!batch.isEmpty()) {
+        decoding.add(decode(batch, keySerializer, valueSerializer));
+      }
+      while (!decoding.isEmpty()) {
+        restored += restore(decoding.poll().join(), downtime);
+      }
+    }
+    return restored;
+  }
+
+  /**
+   * Writes the configured snapshot, if any, logging rather than throwing on failure.
+   */
+  void writeSnapshot() {
+    if (snapshotFile == null) {
+      return;
+    }
+    try {
+      saveSnapshot(snapshotFile, snapshotKeySerializer, snapshotValueSerializer);
+    } catch (IOException | RuntimeException e) {
+      logger.warning("Failed to write snapshot " + snapshotFile + ": " + e.getMessage());
+    }
+  }
+
+  private static <K, V> CompletableFuture<List<Restored<K, V>>> decode(List<CacheSnapshot.Record> records,
+      Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+    return CompletableFuture.supplyAsync(() -> {
+      List<Restored<K, V>> decoded = new ArrayList<>(records.size());
+      for (CacheSnapshot.Record record : records) {
+        decoded.add(new Restored<>(keySerializer.deserialize(record.key),
+            valueSerializer.deserialize(record.value), record));
+      }
+      return decoded;
+    });
+  }
+
+  /**
+   * Installs restored entries unless their key has been cached since start-up, and returns how many were.
+   * Restored values came from the store, so they bypass the write policy like loaded ones.
+   */
+  private int restore(List<Restored<K, V>> batch, long downtime) {
+    int restored = 0;
+    for (Restored<K, V> restoredEntry : batch) {
+      K key = restoredEntry.key;
+      CacheSnapshot.Record record = restoredEntry.record;
+      byte[] compressed = compress(restoredEntry.value);
+      int weight = weigh(key, restoredEntry.value, compressed);
+      if (cache.containsKey(key) || !makeRoom(key, weight, null)) {
+        continue;
+      }
+      long now = ticker.read();
+      CacheEntry<K, V> entry = createEntry(key, restoredEntry.value, compressed, weight,
+          now - record.age - downtime);
+      entry.refreshLastAccessed(now - record.idle - downtime);
+      long expiration = (record.timeToLive == CacheSnapshot.NEVER)
+          ? Long.MAX_VALUE : ExpirationStrategy.deadline(now, record.timeToLive - downtime);
+      if (record.fixedExpiration) {
+        entry.setFixedExpiration(expiration);
+      } else {
+        entry.setExpirationTime(expiration);
+        if (refreshAfterWriteNanos != 0) {
+          entry.setRefreshTime(ExpirationStrategy.deadline(entry.getCreatedTime(), refreshAfterWriteNanos));
+        }
+      }
+      entry.setTags(record.tags);
+      if (cache.computeIfAbsent(key, k -> install(entry)) != entry) {
+        entry.release(); // Cached concurrently.
+        continue;
+      }
+      if (record.tags != null) {
+        index(entry);
+      }
+      for (int i = 0; i < Math.max(1, record.frequency); i++) {
+        evictionPolicy.recordAccess(key); // Replays the access count the policy had estimated.
+      }
+      scheduleExpiration(entry);
+      restored++;
+    }
+    enforceMaximumWeight(null);
+    return restored;
+  }
+
+  /**
+   * Shutdown the maintenance scheduler gracefully.
    */
   public void shutdownScheduler() {
-    refreshScheduler.shutdown();
-    logger.info("Refresh scheduler shut down.");
+    if (memoryPressureMonitor != null) {
+      memoryPressureMonitor.unregister(this); // Stops resizing along with the rest of the background work.
+    }
+    if (cleanUpTask != null) {
+      cleanUpTask.cancel(false);
+    }
+    if (snapshotTask != null) {
+      snapshotTask.cancel(false);
+    }
+    if (ownedMaintenanceScheduler != null) {
+      ownedMaintenanceScheduler.shutdown();
+    }
+    logger.info("Maintenance scheduler shut down.");
+  }
+
+  /**
+   * Stops background work and lets the write policy persist anything still pending.
+   */
+  @Override
+  public void close() {
+    shutdownScheduler();
+    writeSnapshot();
+    if (ownedRefreshExecutor != null) {
+      ownedRefreshExecutor.shutdown();
+    }
+    shutdownAsyncExecutor();
+    writePolicy.close();
+  }
+
+  /**
+   * Returns the marker a load yields for a key the backing store does not have, typed as a value.
+   */
+  @SuppressWarnings("unchecked")
+  private static <V> V absent() {
+    return (V) ABSENT;
+  }
+
+  /**
+   * Marks a key the backing store does not have. It holds no value and weighs 1.
+   */
+  private static final class AbsentEntry<K, V> extends CacheEntry<K, V> {
+    AbsentEntry(K key, long createdTime) {
+      super(key, null, createdTime);
+    }
+  }
+
+  /**
+   * A snapshot record with its key and value decoded.
+   */
+  private static final class Restored<K, V> {
+    private final K key;
+    private final V value;
+    private final CacheSnapshot.Record record;
+
+    Restored(K key, V value, CacheSnapshot.Record record) {
+      this.key = key;
+      this.value = value;
+      this.record = record;
+    }
   }
 
   /**
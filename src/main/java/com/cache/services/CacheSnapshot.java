@@ -0,0 +1,192 @@
+package com.cache.services;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Binary file format of cache snapshots. A header (magic, version and the wall-clock time the snapshot was
+ * taken) is followed by one record per entry: key length, key, value length, value, then the entry's age,
+ * idle time and time left to live in nanoseconds, a flags byte, the eviction policy's frequency estimate,
+ * and the entry's tags as a count followed by that many UTF strings. A key length of -1 ends the file.
+ * Version 1 snapshots, written before tags were kept, are still read; their entries come back untagged. Times are relative to the snapshot, since the ticker of the process
+ * that reads it starts elsewhere.
+ */
+final class CacheSnapshot {
+  static final long NEVER = Long.MAX_VALUE; // Time to live of entries that never expire.
+  private static final int MAGIC = 0x43534E50; // "CSNP"
+  private static final int VERSION = 2;
+  private static final int UNTAGGED_VERSION = 1; // Records end at the frequency estimate.
+  private static final int END = -1;
+  private static final int FIXED_EXPIRATION = 1; // Flag: the deadline came from a per-entry time-to-live.
+
+  private CacheSnapshot() {
+  }
+
+  /**
+   * One entry as stored, with its key and value still serialized.
+   */
+  static final class Record {
+    final byte[] key;
+    final byte[] value;
+    final long age; // Time since the entry was created.
+    final long idle; // Time since the entry was last read.
+    final long timeToLive; // Time left until the entry expires; NEVER if it does not.
+    final boolean fixedExpiration;
+    final int frequency;
+    final Set<String> tags; // Null if the entry is untagged.
+
+    Record(byte[] key, byte[] value, long age, long idle, long timeToLive, boolean fixedExpiration, int frequency,
+        Set<String> tags) {
+      this.key = key;
+      this.value = value;
+      this.age = age;
+      this.idle = idle;
+      this.timeToLive = timeToLive;
+      this.fixedExpiration = fixedExpiration;
+      this.frequency = frequency;
+      this.tags = tags;
+    }
+  }
+
+  /**
+   * Writes a snapshot to a temporary file and moves it over the target on commit, so readers never see a
+   * partial snapshot and a failed write leaves the previous one in place.
+   */
+  static final class Writer implements Closeable {
+    private final Path file;
+    private final Path temporary;
+    private final DataOutputStream out;
+    private boolean committed;
+
+    Writer(Path file, long wallClockMillis) throws IOException {
+      this.file = file;
+      this.temporary = file.resolveSibling(file.getFileName() + ".tmp");
+      this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)));
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(wallClockMillis);
+    }
+
+    void write(Record record) throws IOException {
+      out.writeInt(record.key.length);
+      out.write(record.key);
+      out.writeInt(record.value.length);
+      out.write(record.value);
+      out.writeLong(record.age);
+      out.writeLong(record.idle);
+      out.writeLong(record.timeToLive);
+      out.writeByte(record.fixedExpiration ? FIXED_EXPIRATION : 0);
+      out.writeByte(record.frequency);
+      if (record.tags == null) {
+        out.writeInt(0);
+      } else {
+        out.writeInt(record.tags.size());
+        for (String tag : record.tags) {
+          out.writeUTF(tag);
+        }
+      }
+    }
+
+    void commit() throws IOException {
+      out.writeInt(END);
+      out.close();
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      committed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!committed) {
+        out.close();
+        Files.deleteIfExists(temporary);
+      }
+    }
+  }
+
+  /**
+   * Reads a snapshot one record at a time, so restoring it never holds the whole file in memory.
+   */
+  static final class Reader implements Closeable {
+    private final DataInputStream in;
+    private final long wallClockMillis;
+    private final boolean tagged; // False for snapshots written before tags were kept.
+
+    Reader(Path file) throws IOException {
+      this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+      try {
+        int version = (in.readInt() == MAGIC) ? in.readInt() : -1;
+        if (version != VERSION && version != UNTAGGED_VERSION) {
+          throw new IOException("Not a cache snapshot of version " + VERSION + ": " + file);
+        }
+        this.tagged = (version == VERSION);
+        this.wallClockMillis = in.readLong();
+      } catch (IOException e) {
+        in.close();
+        throw e;
+      }
+    }
+
+    /**
+     * Returns the wall-clock time at which the snapshot was taken.
+     */
+    long wallClockMillis() {
+      return wallClockMillis;
+    }
+
+    /**
+     * Returns the next record, or null at the end of the snapshot.
+     */
+    Record next() throws IOException {
+      int keyLength = in.readInt();
+      if (keyLength == END) {
+        return null;
+      }
+      byte[] key = readBytes(keyLength);
+      byte[] value = readBytes(in.readInt());
+      long age = in.readLong();
+      long idle = in.readLong();
+      long timeToLive = in.readLong();
+      boolean fixedExpiration = (in.readByte() & FIXED_EXPIRATION) != 0;
+      int frequency = in.readUnsignedByte();
+      return new Record(key, value, age, idle, timeToLive, fixedExpiration, frequency, tagged ? readTags() : null);
+    }
+
+    private Set<String> readTags() throws IOException {
+      int count = in.readInt();
+      if (count < 0) {
+        throw new IOException("Corrupt cache snapshot: negative tag count " + count);
+      }
+      if (count == 0) {
+        return null;
+      }
+      Set<String> tags = new HashSet<>();
+      for (int i = 0; i < count; i++) {
+        tags.add(in.readUTF());
+      }
+      return Set.copyOf(tags);
+    }
+
+    private byte[] readBytes(int length) throws IOException {
+      if (length < 0) {
+        throw new IOException("Corrupt cache snapshot: negative length " + length);
+      }
+      byte[] bytes = new byte[length];
+      in.readFully(bytes); // A truncated snapshot ends in an EOFException.
+      return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+}
@@ -0,0 +1,591 @@
+package com.cache.services;
+
+import com.cache.exceptions.CacheException;
+import com.cache.expiration.LongExpiration;
+import com.cache.policies.LongCacheEvictionPolicy;
+import com.cache.stats.CacheStats;
+import com.cache.stats.RemovalCause;
+import com.cache.stats.StatsCounter;
+import com.cache.store.BackingStore;
+import com.cache.time.Ticker;
+import com.cache.writepolicy.WritePolicy;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A cache keyed by primitive longs, for numeric IDs. Where {@link CacheService} boxes every key and wraps
+ * every value in a {@link com.cache.models.CacheEntry}, this cache keeps keys, values and deadlines in
+ * parallel arrays of open-addressing tables, one table per segment. A hit reads the table under an optimistic
+ * lock stamp and touches the {@link LongCacheEvictionPolicy}, neither of which blocks or allocates; writes
+ * lock one segment.
+ *
+ * Backing stores and write policies are the usual ones, typed on Long: keys are boxed only on misses, writes
+ * and evictions, where the store or write policy sees them. Expiration follows a {@link LongExpiration}
+ * rule, checked on reads and swept periodically. Of the {@link CacheOptions}, only the ticker, the stats
+ * counter and the maintenance scheduler apply.
+ */
+public class LongKeyCache<V> implements AutoCloseable {
+  private static final Logger logger = Logger.getLogger(LongKeyCache.class.getName());
+  private static final VarHandle DEADLINES = MethodHandles.arrayElementVarHandle(long[].class);
+  private static final Object REMOVED = new Object(); // Marks a slot whose entry was removed; probes continue past it.
+  private static final Object EXPIRED = new Object(); // Returned by reads that found an entry past its deadline.
+  private static final long CLEANUP_INTERVAL_MILLIS = 1_000; // How often expired entries are swept.
+  private static final int MIN_TABLE_SIZE = 8;
+
+  private final Segment[] segments;
+  private final int segmentShift; // Selects the high bits of the spread hash.
+  private final int capacity;
+  private final AtomicInteger count; // Entries across all segments.
+  private final LongCacheEvictionPolicy evictionPolicy;
+  private final BackingStore<Long, V> backingStore;
+  private final WritePolicy<Long, V> writePolicy;
+  private final LongExpiration expiration;
+  private final Ticker ticker;
+  private final StatsCounter statsCounter;
+  private final ConcurrentHashMap<Long, CompletableFuture<V>> inFlight; // Loads in progress, one per key.
+  private final LongFunction<V> storeLoader; // Loads misses from the backing store.
+  private final ScheduledExecutorService ownedMaintenanceScheduler; // Null if the options supplied one.
+  private final ScheduledFuture<?> cleanUpTask; // Periodic cleanUp(); null if entries never expire or maintenance is manual.
+
+  /**
+   * Constructor for LongKeyCache
+   */
+  public LongKeyCache(int capacity,
+      LongCacheEvictionPolicy evictionPolicy,
+      BackingStore<Long, V> backingStore,
+      WritePolicy<Long, V> writePolicy,
+      LongExpiration expiration) {
+    this(capacity, evictionPolicy, backingStore, writePolicy, expiration, new CacheOptions<>());
+  }
+
+  /**
+   * Constructor for LongKeyCache with optional settings.
+   */
+  @SuppressWarnings("unchecked")
+  public LongKeyCache(int capacity,
+      LongCacheEvictionPolicy evictionPolicy,
+      BackingStore<Long, V> backingStore,
+      WritePolicy<Long, V> writePolicy,
+      LongExpiration expiration,
+      CacheOptions<Long, V> options) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity must be >= 0.");
+    }
+    int segmentCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+    this.segments = (Segment[]) Array.newInstance(Segment.class, segmentCount);
+    this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+    int segmentTableSize = tableSizeFor(capacity / segmentCount + 1);
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment(segmentTableSize);
+    }
+    this.capacity = capacity;
+    this.count = new AtomicInteger();
+    this.evictionPolicy = evictionPolicy;
+    this.backingStore = backingStore;
+    this.writePolicy = writePolicy;
+    this.expiration = expiration;
+    this.ticker = options.getTicker();
+    this.statsCounter = options.getStatsCounter();
+    this.inFlight = new ConcurrentHashMap<>();
+    this.storeLoader = backingStore::retrieve;
+
+    if (expiration.getTtlNanos() == 0 || !options.isAutomaticMaintenance()) {
+      this.ownedMaintenanceScheduler = null;
+      this.cleanUpTask = null;
+    } else {
+      this.ownedMaintenanceScheduler = (options.getMaintenanceScheduler() == null)
+          ? Executors.newScheduledThreadPool(1) : null;
+      ScheduledExecutorService maintenanceScheduler = (ownedMaintenanceScheduler != null)
+          ? ownedMaintenanceScheduler : options.getMaintenanceScheduler();
+      this.cleanUpTask = maintenanceScheduler.scheduleWithFixedDelay(this::cleanUp,
+          CLEANUP_INTERVAL_MILLIS, CLEANUP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  public void put(long key, V value) {
+    Objects.requireNonNull(value); // A null value marks a free slot.
+    int hash = spread(key);
+    if (!inFlight.isEmpty()) {
+      inFlight.remove(key); // A write supersedes any load in flight for the same key.
+    }
+    segmentFor(hash).put(key, hash, value, expiration.deadline(now()), null);
+    writePolicy.handleWrite(key, value);
+    evictIfNeeded();
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine("Cached key: " + key + " (value: " + value + ")");
+    }
+  }
+
+  public V get(long key) throws CacheException {
+    return getOrLoad(key, storeLoader);
+  }
+
+  /**
+   * Returns the cached value, or loads it with the given loader on a miss. Concurrent misses on the same
+   * key share a single load, which never overwrites a value written by put nor resurrects a removed key.
+   */
+  public V getOrLoad(long key, LongFunction<? extends V> loader) throws CacheException {
+    V value = lookup(key);
+    if (value == null) {
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("Cache miss! Key '" + key + "' not found in cache, loading...");
+      }
+      return load(key, loader);
+    }
+    return value;
+  }
+
+  public void remove(long key) {
+    int hash = spread(key);
+    if (!inFlight.isEmpty()) {
+      inFlight.remove(key); // Stop any in-flight load from installing a value for the removed key.
+    }
+    if (segmentFor(hash).remove(key, hash) != null && logger.isLoggable(Level.FINE)) {
+      logger.fine("Removed key: " + key);
+    }
+  }
+
+  /**
+   * Returns the number of cached entries, including expired ones not yet cleaned up.
+   */
+  public int size() {
+    return count.get();
+  }
+
+  /**
+   * Returns a snapshot of the cache's statistics; all zero unless enabled with {@link CacheOptions#recordStats()}.
+   */
+  public CacheStats stats() {
+    return statsCounter.snapshot();
+  }
+
+  /**
+   * Removes every entry whose deadline has passed, by sweeping each segment's table.
+   */
+  public void cleanUp() {
+    if (expiration.getTtlNanos() == 0) {
+      return;
+    }
+    try {
+      for (Segment segment : segments) {
+        List<Long> expiredKeys = new ArrayList<>();
+        List<V> expiredValues = new ArrayList<>();
+        segment.removeExpired(ticker.read(), expiredKeys, expiredValues);
+        for (int i = 0; i < expiredKeys.size(); i++) {
+          writePolicy.handleEviction(expiredKeys.get(i), expiredValues.get(i)); // Modified entries must not be lost.
+          statsCounter.recordEviction(RemovalCause.EXPIRED);
+        }
+      }
+    } catch (RuntimeException e) {
+      logger.severe("Failed to clean up expired entries: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Shutdown the maintenance scheduler gracefully.
+   */
+  public void shutdownScheduler() {
+    if (cleanUpTask != null) {
+      cleanUpTask.cancel(false);
+    }
+    if (ownedMaintenanceScheduler != null) {
+      ownedMaintenanceScheduler.shutdown();
+    }
+  }
+
+  /**
+   * Stops background work and lets the write policy persist anything still pending.
+   */
+  @Override
+  public void close() {
+    shutdownScheduler();
+    writePolicy.close();
+  }
+
+  /**
+   * Returns the cached value and records the hit, or null on a miss. Throws if the entry has expired.
+   */
+  @SuppressWarnings("unchecked")
+  private V lookup(long key) throws CacheException {
+    int hash = spread(key);
+    long now = now();
+    Object value = segmentFor(hash).read(key, hash, now);
+    if (value == null) {
+      return null;
+    }
+    if (value == EXPIRED) {
+      V expired = segmentFor(hash).removeIfExpired(key, hash, now);
+      if (expired != null) {
+        writePolicy.handleEviction(key, expired);
+        statsCounter.recordEviction(RemovalCause.EXPIRED);
+      }
+      statsCounter.recordMisses(1);
+      throw new CacheException("Key '" + key + "' has expired and was removed!");
+    }
+    statsCounter.recordHits(1);
+    evictionPolicy.recordAccess(key);
+    return (V) value;
+  }
+
+  private V load(long key, LongFunction<? extends V> loader) throws CacheException {
+    statsCounter.recordMisses(1);
+    CompletableFuture<V> loading = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, loading);
+    if (existing != null) {
+      // Another caller is already loading this key.
+      V value = awaitLoad(key, existing);
+      if (value == null) {
+        throw new CacheException("Key '" + key + "' not found in cache or backing store.");
+      }
+      return value;
+    }
+
+    try {
+      long loadStart = ticker.read();
+      V value;
+      try {
+        value = writePolicy.pendingWrite(key); // Read our own queued write before the store.
+        if (value == null) {
+          value = loader.apply(key);
+        }
+      } catch (RuntimeException e) {
+        statsCounter.recordLoadFailure(ticker.read() - loadStart);
+        throw e;
+      }
+      if (value == null) {
+        statsCounter.recordLoadFailure(ticker.read() - loadStart);
+        loading.complete(null); // Waiters treat a null result as not found.
+        throw new CacheException("Key '" + key + "' not found in cache or backing store.");
+      }
+      statsCounter.recordLoadSuccess(ticker.read() - loadStart);
+      int hash = spread(key);
+      segmentFor(hash).put(key, hash, value, expiration.deadline(now()), loading); // Loaded values are already stored.
+      evictIfNeeded();
+      loading.complete(value);
+      return value;
+    } catch (RuntimeException e) {
+      loading.completeExceptionally(e);
+      throw new CacheException("Failed to load key '" + key + "': " + e.getMessage(), e);
+    } finally {
+      inFlight.remove(key, loading);
+    }
+  }
+
+  /**
+   * Waits for a load started by another caller. Returns null if the key was not found.
+   */
+  private V awaitLoad(long key, CompletableFuture<V> loading) throws CacheException {
+    try {
+      return loading.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CacheException("Interrupted while waiting for key '" + key + "' to load.", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw new CacheException(cause.getMessage(), cause);
+    }
+  }
+
+  /**
+   * Evicts the policy's candidates until the cache is back within its capacity. A candidate that is no
+   * longer cached is dropped from the policy and the next one is tried.
+   */
+  private void evictIfNeeded() {
+    while (count.get() > capacity) {
+      long candidate;
+      try {
+        candidate = evictionPolicy.getEvictionCandidate();
+      } catch (NoSuchElementException e) {
+        return; // Nothing left to evict; the entries over capacity are being removed concurrently.
+      }
+      int hash = spread(candidate);
+      V evicted = segmentFor(hash).evict(candidate, hash);
+      if (evicted != null) {
+        writePolicy.handleEviction(candidate, evicted);
+        statsCounter.recordEviction(RemovalCause.SIZE);
+        if (logger.isLoggable(Level.FINE)) {
+          logger.fine("Evicted key: " + candidate);
+        }
+      }
+    }
+  }
+
+  private long now() {
+    return (expiration.getTtlNanos() == 0) ? 0L : ticker.read(); // Skip the clock when nothing expires.
+  }
+
+  private Segment segmentFor(int hash) {
+    return segments[hash >>> segmentShift];
+  }
+
+  private static int spread(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  private static int tableSizeFor(int expectedSize) {
+    long target = Math.max(MIN_TABLE_SIZE, expectedSize * 2L); // At most half full when holding expectedSize keys.
+    return (int) Math.min(1 << 30, Long.highestOneBit(target - 1) << 1);
+  }
+
+  private static boolean isExpired(long deadline, long now) {
+    return deadline != Long.MAX_VALUE && deadline - now <= 0;
+  }
+
+  /**
+   * One segment's open-addressing table. The arrays are replaced together on a rehash, so a reader that
+   * picked up a table indexes arrays of the same length even if the table is replaced underneath it.
+   */
+  private static final class Table {
+    final long[] keys;
+    final Object[] values; // Null if the slot was never used, REMOVED if its entry was removed.
+    final long[] deadlines; // Long.MAX_VALUE if the entry never expires.
+
+    Table(int size) {
+      this.keys = new long[size];
+      this.values = new Object[size];
+      this.deadlines = new long[size];
+    }
+
+    /**
+     * Returns the slot of the key, or -1. Probes at most the whole table, so an optimistic read of a table
+     * changing underneath it still ends.
+     */
+    int find(long key, int hash) {
+      int mask = keys.length - 1;
+      int index = hash & mask;
+      for (int probes = 0; probes < keys.length; probes++) {
+        Object value = values[index];
+        if (value == null) {
+          return -1;
+        }
+        if (value != REMOVED && keys[index] == key) {
+          return index;
+        }
+        index = (index + 1) & mask;
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * A slice of the key space with its own table and lock. Changes to the table and to the eviction policy's
+   * view of the segment's keys happen together under the write lock; reads validate an optimistic stamp.
+   */
+  private final class Segment {
+    private final StampedLock lock;
+    private Table table;
+    private int used; // Slots not free, including removed ones.
+
+    Segment(int tableSize) {
+      this.lock = new StampedLock();
+      this.table = new Table(tableSize);
+    }
+
+    /**
+     * Returns the key's value, EXPIRED if its deadline has passed, or null. With access-based expiration, a
+     * read moves the deadline; if the slot was rewritten meanwhile, its new deadline is left alone.
+     */
+    Object read(long key, int hash, long now) {
+      long stamp = lock.tryOptimisticRead();
+      Table current = table;
+      int index = current.find(key, hash);
+      Object value = (index < 0) ? null : current.values[index];
+      long deadline = (index < 0) ? 0L : current.deadlines[index];
+      if (!lock.validate(stamp)) { // A writer got in; read again under the lock.
+        stamp = lock.readLock();
+        try {
+          current = table;
+          index = current.find(key, hash);
+          value = (index < 0) ? null : current.values[index];
+          deadline = (index < 0) ? 0L : current.deadlines[index];
+        } finally {
+          lock.unlockRead(stamp);
+        }
+      }
+      if (value == null) {
+        return null;
+      }
+      if (isExpired(deadline, now)) {
+        return EXPIRED;
+      }
+      if (expiration.isExtendedOnRead()) {
+        long extended = expiration.deadline(now);
+        if (extended != deadline) {
+          DEADLINES.compareAndSet(current.deadlines, index, deadline, extended);
+        }
+      }
+      return value;
+    }
+
+    /**
+     * Caches the value. A load (loading is non-null) only installs it if the key is absent and its load is
+     * still the one in flight, so a put or remove that raced with the load keeps its outcome.
+     */
+    void put(long key, int hash, V value, long deadline, CompletableFuture<V> loading) {
+      long stamp = lock.writeLock();
+      try {
+        int index = table.find(key, hash);
+        if (index >= 0) {
+          if (loading != null) {
+            return;
+          }
+          table.values[index] = value;
+          table.deadlines[index] = deadline;
+        } else {
+          if (loading != null && inFlight.get(key) != loading) {
+            return;
+          }
+          insert(key, hash, value, deadline);
+          count.incrementAndGet();
+        }
+        evictionPolicy.recordAccess(key);
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    /**
+     * Removes the key and returns its value, or null if it is not cached.
+     */
+    V remove(long key, int hash) {
+      return remove(key, hash, false, 0L);
+    }
+
+    /**
+     * Removes the key if its deadline has passed by now, so an entry rewritten since it was read expired
+     * is kept. Returns the removed value, or null.
+     */
+    V removeIfExpired(long key, int hash, long now) {
+      return remove(key, hash, true, now);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V remove(long key, int hash, boolean onlyIfExpired, long now) {
+      long stamp = lock.writeLock();
+      try {
+        int index = table.find(key, hash);
+        if (index < 0 || (onlyIfExpired && !isExpired(table.deadlines[index], now))) {
+          return null;
+        }
+        V value = (V) table.values[index];
+        clear(index);
+        evictionPolicy.removeKey(key);
+        return value;
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    /**
+     * Removes an eviction candidate and returns its value. The key is dropped from the policy even if it
+     * is not cached, under the lock so that a concurrent put of the key is not left untracked.
+     */
+    @SuppressWarnings("unchecked")
+    V evict(long key, int hash) {
+      long stamp = lock.writeLock();
+      try {
+        int index = table.find(key, hash);
+        V value = null;
+        if (index >= 0) {
+          value = (V) table.values[index];
+          clear(index);
+        }
+        evictionPolicy.removeKey(key);
+        return value;
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    void removeExpired(long now, List<Long> expiredKeys, List<V> expiredValues) {
+      long stamp = lock.writeLock();
+      try {
+        Object[] values = table.values;
+        for (int i = 0; i < values.length; i++) {
+          if (values[i] != null && values[i] != REMOVED && isExpired(table.deadlines[i], now)) {
+            expiredKeys.add(table.keys[i]);
+            expiredValues.add((V) values[i]);
+            evictionPolicy.removeKey(table.keys[i]);
+            clear(i);
+          }
+        }
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    private void clear(int index) {
+      table.values[index] = REMOVED;
+      count.decrementAndGet();
+    }
+
+    /**
+     * Inserts a key known to be absent, first rehashing if free slots run low.
+     */
+    private void insert(long key, int hash, Object value, long deadline) {
+      if ((used + 1) * 4L > table.keys.length * 3L) {
+        rehash();
+      }
+      Table current = table;
+      int mask = current.keys.length - 1;
+      int index = hash & mask;
+      while (current.values[index] != null && current.values[index] != REMOVED) {
+        index = (index + 1) & mask;
+      }
+      if (current.values[index] == null) {
+        used++;
+      }
+      current.keys[index] = key;
+      current.deadlines[index] = deadline;
+      current.values[index] = value; // Last, so an optimistic reader never pairs the value with a stale key.
+    }
+
+    /**
+     * Copies the live entries into a new table, twice as large if they fill half of the current one.
+     */
+    private void rehash() {
+      Table old = table;
+      int live = 0;
+      for (Object value : old.values) {
+        if (value != null && value != REMOVED) {
+          live++;
+        }
+      }
+      Table resized = new Table((live + 1) * 2L > old.keys.length ? old.keys.length * 2 : old.keys.length);
+      int mask = resized.keys.length - 1;
+      for (int i = 0; i < old.keys.length; i++) {
+        Object value = old.values[i];
+        if (value != null && value != REMOVED) {
+          int index = spread(old.keys[i]) & mask;
+          while (resized.values[index] != null) {
+            index = (index + 1) & mask;
+          }
+          resized.keys[index] = old.keys[i];
+          resized.deadlines[index] = old.deadlines[i];
+          resized.values[index] = value;
+        }
+      }
+      table = resized;
+      used = live;
+    }
+  }
+}
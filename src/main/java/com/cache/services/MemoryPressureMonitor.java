@@ -0,0 +1,239 @@
+package com.cache.services;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
+
+/**
+ * Scales the capacity of the caches registered with it to the pressure on the heap. After every garbage
+ * collection, and whenever a heap pool crosses its collection usage threshold, it reads how full the heap
+ * was left by the latest collection of each pool, so garbage a young collection did not reach does not
+ * count as pressure. Above the high watermark every cache shrinks to a fraction of its configured maximum weight and evicts
+ * down to it in batches; below the low watermark they grow back a step at a time. Heap use between the two
+ * leaves capacity where it is, so the caches do not oscillate.
+ *
+ * One monitor serves any number of caches, which register through {@link CacheOptions#memoryPressureMonitor}.
+ * Resizing runs on a thread of the monitor's own, not on the JVM's notification thread.
+ */
+public class MemoryPressureMonitor implements AutoCloseable {
+  private static final Logger logger = Logger.getLogger(MemoryPressureMonitor.class.getName());
+  private static final String GC_NOTIFICATION = "com.sun.management.gc.notification"; // Sent after each collection.
+  private static final double DEFAULT_HIGH_WATERMARK = 0.85;
+  private static final double DEFAULT_LOW_WATERMARK = 0.60;
+  private static final double SHRINK_FACTOR = 0.75; // Capacity kept on each step under pressure.
+  private static final double GROW_STEP = 0.10; // Capacity regained on each step without pressure.
+  private static final double MINIMUM_FRACTION = 0.10; // Capacity is never shrunk below this share.
+
+  private final double highWatermark; // Heap occupancy from which caches shrink.
+  private final double lowWatermark; // Heap occupancy under which they grow back.
+  private final DoubleSupplier occupancy; // Share of the heap in use, between 0 and 1.
+  private final NotificationListener listener;
+  private final List<NotificationEmitter> emitters; // Beans the listener is registered with.
+  private final List<MemoryPoolMXBean> thresholdPools; // Pools whose collection usage threshold this monitor set.
+  private final Map<CacheService<?, ?>, Long> caches; // Registered caches and their configured maximum weights.
+  private final ExecutorService resizer; // Evaluates pressure and resizes off the notification thread.
+  private final AtomicLong shrinkCount = new AtomicLong();
+  private final AtomicLong growCount = new AtomicLong();
+  private volatile double capacityFraction = 1.0; // Share of their configured maximum the caches may use.
+
+  /**
+   * Constructor for MemoryPressureMonitor, shrinking above 85% heap occupancy and growing below 60%.
+   */
+  public MemoryPressureMonitor() {
+    this(DEFAULT_HIGH_WATERMARK, DEFAULT_LOW_WATERMARK);
+  }
+
+  public MemoryPressureMonitor(double highWatermark, double lowWatermark) {
+    this(highWatermark, lowWatermark, MemoryPressureMonitor::occupancyAfterCollection, true);
+  }
+
+  /**
+   * Creates a monitor reading heap occupancy from the given source. It only listens to the JVM's collectors
+   * and sets collection usage thresholds if watchHeap is true; otherwise it resizes only when told to.
+   */
+  MemoryPressureMonitor(double highWatermark, double lowWatermark, DoubleSupplier occupancy, boolean watchHeap) {
+    if (!(lowWatermark > 0 && lowWatermark < highWatermark && highWatermark < 1)) {
+      throw new IllegalArgumentException("Watermarks must satisfy 0 < low < high < 1.");
+    }
+    this.highWatermark = highWatermark;
+    this.lowWatermark = lowWatermark;
+    this.occupancy = occupancy;
+    this.caches = new ConcurrentHashMap<>();
+    this.resizer = Executors.newSingleThreadExecutor(task -> {
+      Thread thread = new Thread(task, "cache-memory-pressure");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.listener = (notification, handback) -> onNotification(notification);
+    this.emitters = new ArrayList<>();
+    this.thresholdPools = new ArrayList<>();
+    if (watchHeap) {
+      watchHeap();
+    }
+  }
+
+  private void watchHeap() {
+    NotificationFilter gcFilter = notification -> GC_NOTIFICATION.equals(notification.getType());
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (collector instanceof NotificationEmitter) {
+        ((NotificationEmitter) collector).addNotificationListener(listener, gcFilter, null);
+        emitters.add((NotificationEmitter) collector);
+      }
+    }
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      long max = pool.getUsage().getMax();
+      if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported() && max > 0
+          && pool.getCollectionUsageThreshold() == 0) { // Leave thresholds set by others alone.
+        pool.setCollectionUsageThreshold((long) (max * highWatermark));
+        thresholdPools.add(pool);
+      }
+    }
+    MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    if (memoryBean instanceof NotificationEmitter) {
+      ((NotificationEmitter) memoryBean).addNotificationListener(listener, notification ->
+          MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType()), null);
+      emitters.add((NotificationEmitter) memoryBean);
+    }
+  }
+
+  /**
+   * Returns the share of their configured maximum weight the registered caches currently get.
+   */
+  public double capacityFraction() {
+    return capacityFraction;
+  }
+
+  /**
+   * Returns how many times the caches have been shrunk under pressure.
+   */
+  public long shrinkCount() {
+    return shrinkCount.get();
+  }
+
+  /**
+   * Returns how many times the caches have been grown back.
+   */
+  public long growCount() {
+    return growCount.get();
+  }
+
+  /**
+   * Stops watching the heap and releases the registered caches at their current size. Collection usage
+   * thresholds this monitor set are cleared.
+   */
+  @Override
+  public void close() {
+    for (NotificationEmitter emitter : emitters) {
+      try {
+        emitter.removeNotificationListener(listener);
+      } catch (ListenerNotFoundException e) {
+        // Already removed.
+      }
+    }
+    for (MemoryPoolMXBean pool : thresholdPools) {
+      pool.setCollectionUsageThreshold(0);
+    }
+    resizer.shutdownNow();
+    caches.clear();
+  }
+
+  /**
+   * Starts scaling the cache, whose maximum weight as configured is the one given.
+   */
+  void register(CacheService<?, ?> cache, long maximumWeight) {
+    caches.put(cache, maximumWeight);
+    double fraction = capacityFraction;
+    if (fraction < 1.0) {
+      cache.setMaximumWeight(scaled(maximumWeight, fraction));
+    }
+  }
+
+  void unregister(CacheService<?, ?> cache) {
+    caches.remove(cache);
+  }
+
+  /**
+   * Adjusts capacity to the given heap occupancy, between 0 and 1, and resizes the caches if it changed.
+   */
+  synchronized void update(double occupancy) {
+    double fraction = capacityFraction;
+    if (occupancy >= highWatermark && fraction > MINIMUM_FRACTION) {
+      fraction = Math.max(MINIMUM_FRACTION, fraction * SHRINK_FACTOR);
+      shrinkCount.incrementAndGet();
+    } else if (occupancy <= lowWatermark && fraction < 1.0) {
+      fraction = Math.min(1.0, fraction + GROW_STEP);
+      growCount.incrementAndGet();
+    } else {
+      return;
+    }
+    capacityFraction = fraction;
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine(String.format("Heap %.0f%% full; scaling caches to %.0f%% of their capacity.",
+          occupancy * 100, fraction * 100));
+    }
+    for (Map.Entry<CacheService<?, ?>, Long> cache : caches.entrySet()) {
+      cache.getKey().setMaximumWeight(scaled(cache.getValue(), fraction));
+    }
+  }
+
+  /**
+   * Reads heap occupancy from the monitor's source and resizes the caches if it calls for it.
+   */
+  void check() {
+    try {
+      update(occupancy.getAsDouble());
+    } catch (RuntimeException e) {
+      logger.warning("Failed to resize caches under memory pressure: " + e.getMessage());
+    }
+  }
+
+  private void onNotification(Notification notification) {
+    try {
+      resizer.execute(this::check);
+    } catch (RejectedExecutionException e) {
+      // Closed.
+    }
+  }
+
+  /**
+   * Returns the share of the heap each pool held after its latest collection. A young collection leaves
+   * the old generation's figure as the last old collection found it, so garbage that is merely waiting
+   * for an old collection is not mistaken for live data.
+   */
+  private static double occupancyAfterCollection() {
+    long used = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        MemoryUsage usage = pool.getCollectionUsage(); // Null for pools no collector manages.
+        used += ((usage != null) ? usage : pool.getUsage()).getUsed();
+      }
+    }
+    MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    long max = (heap.getMax() > 0) ? heap.getMax() : heap.getCommitted();
+    return (double) used / max;
+  }
+
+  private static long scaled(long maximumWeight, double fraction) {
+    return (maximumWeight == 0) ? 0 : Math.max(1, (long) (maximumWeight * fraction));
+  }
+}
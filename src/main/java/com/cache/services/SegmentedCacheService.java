@@ -0,0 +1,331 @@
+package com.cache.services;
+
+import com.cache.exceptions.CacheException;
+import com.cache.expiration.ExpirationStrategy;
+import com.cache.policies.CacheEvictionPolicy;
+import com.cache.stats.CacheStats;
+import com.cache.stats.CompressionStats;
+import com.cache.stats.StatsCounter;
+import com.cache.store.BackingStore;
+import com.cache.writepolicy.WritePolicy;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.logging.Logger;
+
+/**
+ * A cache split into independent {@link CacheService} segments. Keys are hashed to a segment, and each
+ * segment has its own map, eviction policy, share of the capacity and timer wheel, so threads working on
+ * different segments never contend on eviction or expiration bookkeeping.
+ *
+ * The capacity (or maximum weight) is split evenly, so a segment evicts once its own share is full even
+ * if others have room; with keys spread by hash the difference is small. An entry heavier than one
+ * segment's share is never cached. Segments share the backing store, write policy and statistics counter,
+ * one maintenance thread, and one reload pool. Operations over the whole cache add up the segments
+ * without locking them.
+ */
+public class SegmentedCacheService<K, V> implements Cache<K, V> {
+  private static final Logger logger = Logger.getLogger(SegmentedCacheService.class.getName());
+  private static final int HASH_MULTIPLIER = 0x9E3779B9; // Spreads hash codes into the high bits.
+
+  private final CacheService<K, V>[] segments;
+  private final int segmentShift; // Selects the high bits of the spread hash.
+  private final int segmentMask;
+  private final WritePolicy<K, V> writePolicy; // Shared by all segments; closed once.
+  private final StatsCounter statsCounter; // Shared by all segments.
+  private final ScheduledExecutorService ownedMaintenanceScheduler; // Shared cleanup thread; null if supplied.
+  private final ExecutorService ownedRefreshExecutor; // Shared reload pool; null if supplied or refresh is off.
+
+  /**
+   * Constructor for SegmentedCacheService
+   */
+  public SegmentedCacheService(int segmentCount,
+      int capacity,
+      int refreshInterval,
+      IntFunction<? extends CacheEvictionPolicy<K>> evictionPolicyFactory,
+      BackingStore<K, V> backingStore,
+      WritePolicy<K, V> writePolicy,
+      ExpirationStrategy<K, V> expirationStrategy) {
+    this(segmentCount, capacity, refreshInterval, evictionPolicyFactory, backingStore, writePolicy,
+        expirationStrategy, new CacheOptions<>());
+  }
+
+  /**
+   * Creates a cache of segmentCount segments, rounded up to a power of two; the number of cores is a good
+   * default. The eviction policy factory is called once per segment with that segment's share of the
+   * capacity. The refresh interval and options apply to every segment as in {@link CacheService}.
+   */
+  @SuppressWarnings("unchecked")
+  public SegmentedCacheService(int segmentCount,
+      int capacity,
+      int refreshInterval,
+      IntFunction<? extends CacheEvictionPolicy<K>> evictionPolicyFactory,
+      BackingStore<K, V> backingStore,
+      WritePolicy<K, V> writePolicy,
+      ExpirationStrategy<K, V> expirationStrategy,
+      CacheOptions<K, V> options) {
+    if (segmentCount <= 0) {
+      throw new IllegalArgumentException("Segment count must be > 0.");
+    }
+    if (refreshInterval < 0) {
+      throw new IllegalArgumentException("Refresh interval must be >= 0.");
+    }
+    int segmentBits = 32 - Integer.numberOfLeadingZeros(segmentCount - 1); // Ceiling log2.
+    this.segments = new CacheService[1 << segmentBits];
+    this.segmentShift = 32 - segmentBits;
+    this.segmentMask = segments.length - 1;
+    this.writePolicy = writePolicy;
+    this.statsCounter = options.getStatsCounter();
+
+    CacheOptions<K, V> shared = options.copy();
+    if (options.getMaintenanceScheduler() == null && options.isAutomaticMaintenance()) {
+      this.ownedMaintenanceScheduler = Executors.newScheduledThreadPool(1);
+      shared.maintenanceScheduler(ownedMaintenanceScheduler);
+    } else {
+      this.ownedMaintenanceScheduler = null;
+    }
+    boolean refreshes = options.getRefreshAfterWrite() != null || refreshInterval > 0;
+    if (refreshes && options.getRefreshExecutor() == null) {
+      this.ownedRefreshExecutor = CacheService.newRefreshExecutor();
+      shared.refreshExecutor(ownedRefreshExecutor);
+    } else {
+      this.ownedRefreshExecutor = null;
+    }
+
+    long maximumWeight = options.getMaximumWeight();
+    for (int i = 0; i < segments.length; i++) {
+      int segmentCapacity = share(capacity, i);
+      CacheOptions<K, V> segmentOptions = shared.copy();
+      if (maximumWeight >= 0) {
+        segmentOptions.maximumWeight(share(maximumWeight, i), options.getWeigher());
+      }
+      Path snapshotFile = options.getSnapshotFile();
+      if (snapshotFile != null) { // One snapshot file per segment, named after the configured one.
+        segmentOptions.snapshot(snapshotFile.resolveSibling(snapshotFile.getFileName() + "." + i),
+            options.getSnapshotKeySerializer(), options.getSnapshotValueSerializer());
+      }
+      segments[i] = new CacheService<>(segmentCapacity, refreshInterval,
+          evictionPolicyFactory.apply(segmentCapacity), backingStore, writePolicy, expirationStrategy,
+          segmentOptions);
+    }
+  }
+
+  @Override
+  public void put(K key, V value) {
+    segmentFor(key).put(key, value);
+  }
+
+  @Override
+  public void put(K key, V value, Duration timeToLive) {
+    segmentFor(key).put(key, value, timeToLive);
+  }
+
+  /**
+   * Caches a value under the given tags in its key's segment.
+   */
+  public void put(K key, V value, Set<String> tags) {
+    segmentFor(key).put(key, value, tags);
+  }
+
+  /**
+   * Removes every entry cached under the tag from every segment and returns how many were removed.
+   */
+  public int invalidateTag(String tag) {
+    int removed = 0;
+    for (CacheService<K, V> segment : segments) {
+      removed += segment.invalidateTag(tag);
+    }
+    return removed;
+  }
+
+  @Override
+  public V get(K key) throws CacheException {
+    return segmentFor(key).get(key);
+  }
+
+  @Override
+  public V getOrNull(K key) throws CacheException {
+    return segmentFor(key).getOrNull(key);
+  }
+
+  @Override
+  public V getOrLoad(K key, Function<? super K, ? extends V> loader) throws CacheException {
+    return segmentFor(key).getOrLoad(key, loader);
+  }
+
+  @Override
+  public boolean remove(K key) {
+    return segmentFor(key).remove(key);
+  }
+
+  /**
+   * Splits the keys by segment and runs one batch per segment, so each segment loads its misses with one
+   * retrieveAll call.
+   */
+  @Override
+  public Map<K, V> getAll(Collection<? extends K> keys) throws CacheException {
+    List<K>[] keysBySegment = splitKeys(keys);
+    Map<K, V> result = new HashMap<>(keys.size() * 2);
+    for (int i = 0; i < segments.length; i++) {
+      if (keysBySegment[i] != null) {
+        result.putAll(segments[i].getAll(keysBySegment[i]));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Splits the entries by segment and writes one batch per segment.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public void putAll(Map<? extends K, ? extends V> entries) {
+    Map<K, V>[] entriesBySegment = new Map[segments.length];
+    for (Map.Entry<? extends K, ? extends V> mapping : entries.entrySet()) {
+      int index = segmentIndex(mapping.getKey());
+      if (entriesBySegment[index] == null) {
+        entriesBySegment[index] = new LinkedHashMap<>();
+      }
+      entriesBySegment[index].put(mapping.getKey(), mapping.getValue());
+    }
+    for (int i = 0; i < segments.length; i++) {
+      if (entriesBySegment[i] != null) {
+        segments[i].putAll(entriesBySegment[i]);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of cached entries, summed over the segments without stopping writers, so it may
+   * be off by the writes that ran concurrently.
+   */
+  @Override
+  public int size() {
+    int size = 0;
+    for (CacheService<K, V> segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  @Override
+  public Set<K> keys() {
+    Set<K> keys = new HashSet<>();
+    for (CacheService<K, V> segment : segments) {
+      keys.addAll(segment.keys());
+    }
+    return keys;
+  }
+
+  @Override
+  public long weightedSize() {
+    long weightedSize = 0;
+    for (CacheService<K, V> segment : segments) {
+      weightedSize += segment.weightedSize();
+    }
+    return weightedSize;
+  }
+
+  /**
+   * Returns a snapshot of the statistics of all segments, which record into one lock-free counter.
+   */
+  @Override
+  public CacheStats stats() {
+    return statsCounter.snapshot();
+  }
+
+  @Override
+  public void cleanUp() {
+    for (CacheService<K, V> segment : segments) {
+      segment.cleanUp();
+    }
+  }
+
+  /**
+   * Returns what compressing values has saved and cost, over all segments, which share one compressor.
+   */
+  public CompressionStats compressionStats() {
+    return segments[0].compressionStats();
+  }
+
+  /**
+   * Returns the number of segments, which is a power of two.
+   */
+  public int segmentCount() {
+    return segments.length;
+  }
+
+  /**
+   * Shutdown the shared maintenance scheduler gracefully.
+   */
+  public void shutdownScheduler() {
+    for (CacheService<K, V> segment : segments) {
+      segment.shutdownScheduler();
+    }
+    if (ownedMaintenanceScheduler != null) {
+      ownedMaintenanceScheduler.shutdown();
+    }
+  }
+
+  @Override
+  public void close() {
+    shutdownScheduler();
+    for (CacheService<K, V> segment : segments) {
+      segment.writeSnapshot();
+    }
+    if (ownedRefreshExecutor != null) {
+      ownedRefreshExecutor.shutdown();
+    }
+    writePolicy.close();
+    logger.info("Closed cache of " + segments.length + " segments.");
+  }
+
+  private CacheService<K, V> segmentFor(K key) {
+    return segments[segmentIndex(key)];
+  }
+
+  /**
+   * Picks the segment from the high bits of the spread hash. Each segment's map indexes its table with
+   * the low bits, which would otherwise be the same for every key in the segment.
+   */
+  private int segmentIndex(K key) {
+    return ((key.hashCode() * HASH_MULTIPLIER) >>> segmentShift) & segmentMask;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<K>[] splitKeys(Collection<? extends K> keys) {
+    List<K>[] keysBySegment = new List[segments.length];
+    for (K key : keys) {
+      int index = segmentIndex(key);
+      if (keysBySegment[index] == null) {
+        keysBySegment[index] = new ArrayList<>();
+      }
+      keysBySegment[index].add(key);
+    }
+    return keysBySegment;
+  }
+
+  /**
+   * Returns segment i's share of the total, giving the remainder to the first segments.
+   */
+  private int share(int total, int i) {
+    return (int) share((long) total, i);
+  }
+
+  private long share(long total, int i) {
+    long base = total / segments.length;
+    return (i < total % segments.length) ? base + 1 : base;
+  }
+}
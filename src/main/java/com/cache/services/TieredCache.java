@@ -0,0 +1,273 @@
+package com.cache.services;
+
+import com.cache.exceptions.CacheException;
+import com.cache.expiration.ExpirationStrategy;
+import com.cache.policies.CacheEvictionPolicy;
+import com.cache.stats.CacheStats;
+import com.cache.store.BackingStore;
+import com.cache.writepolicy.WritePolicy;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A small, hot L1 {@link CacheService} in front of a larger L2 cache, which may be off-heap, backed by a
+ * file store or segmented. L2 sits between L1 and the real backing store: an L1 miss reads through to L2,
+ * and the value found there is promoted into L1. Entries L1 evicts or expires are demoted into L2 instead
+ * of being dropped, unless L2 still holds them.
+ *
+ * Writes go to L2, and through its write policy to the store, and then invalidate L1, so L1 never keeps
+ * a value older than L2's; the next read promotes the new value. Loads racing with a write or remove
+ * are discarded by L1 rather than installed.
+ *
+ * L1 hands a victim to demotion only after dropping it, so a remove can run in between and find the key in
+ * neither tier. Each key read into L1 is therefore marked, and a write or remove clears the mark: a value
+ * is demoted only while the mark stands, and taken out of L2 again if the mark was cleared while it was
+ * going in.
+ */
+public class TieredCache<K, V> implements Cache<K, V> {
+  private static final Logger logger = Logger.getLogger(TieredCache.class.getName());
+
+  private final CacheService<K, V> l1; // Hot set, read through from L2.
+  private final Cache<K, V> l2; // Long tail, read through from the backing store.
+  private final ConcurrentHashMap<K, Boolean> promoted; // Keys read into L1; false once written or removed since.
+  private final int promotedLimit; // Marks kept before they are all dropped; a key without one is not demoted.
+
+  /**
+   * Constructor for TieredCache
+   */
+  public TieredCache(int l1Capacity,
+      CacheEvictionPolicy<K> l1EvictionPolicy,
+      ExpirationStrategy<K, V> l1ExpirationStrategy,
+      Cache<K, V> l2) {
+    this(l1Capacity, l1EvictionPolicy, l1ExpirationStrategy, l2, new CacheOptions<>());
+  }
+
+  /**
+   * Creates a tiered cache whose L1 holds l1Capacity entries (or the options' maximum weight) on the heap.
+   * The options apply to L1 only; L2 is configured when it is created. Closing this cache closes both tiers.
+   */
+  public TieredCache(int l1Capacity,
+      CacheEvictionPolicy<K> l1EvictionPolicy,
+      ExpirationStrategy<K, V> l1ExpirationStrategy,
+      Cache<K, V> l2,
+      CacheOptions<K, V> l1Options) {
+    this.l2 = l2;
+    this.promoted = new ConcurrentHashMap<>();
+    this.promotedLimit = Math.max(1024, 2 * l1Capacity); // Room for L1's keys and marks left by failed loads.
+    this.l1 = new CacheService<>(l1Capacity, 0, l1EvictionPolicy, new L2Store(), new DemotionPolicy(),
+        l1ExpirationStrategy, l1Options);
+  }
+
+  @Override
+  public void put(K key, V value) {
+    invalidate(key);
+    l2.put(key, value);
+    l1.remove(key);
+  }
+
+  @Override
+  public void put(K key, V value, Duration timeToLive) {
+    invalidate(key);
+    l2.put(key, value, timeToLive);
+    l1.remove(key);
+  }
+
+  @Override
+  public V get(K key) throws CacheException {
+    return l1.get(key);
+  }
+
+  @Override
+  public V getOrNull(K key) throws CacheException {
+    return l1.getOrNull(key);
+  }
+
+  /**
+   * Returns the value from L1, else from L2, else from the loader. Values found below L1 are promoted.
+   */
+  @Override
+  public V getOrLoad(K key, Function<? super K, ? extends V> loader) throws CacheException {
+    return l1.getOrLoad(key, k -> {
+      try {
+        return promote(k, l2.getOrLoad(k, loader));
+      } catch (CacheException e) {
+        return null; // Not found; L1 reports the miss.
+      }
+    });
+  }
+
+  @Override
+  public boolean remove(K key) {
+    invalidate(key); // Before L2, so a demotion of the value L1 is dropping sees it.
+    boolean cached = l1.remove(key);
+    return l2.remove(key) || cached;
+  }
+
+  @Override
+  public Map<K, V> getAll(Collection<? extends K> keys) throws CacheException {
+    return l1.getAll(keys); // L1 misses are read from L2 in one batch.
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends V> entries) {
+    for (K key : entries.keySet()) {
+      invalidate(key);
+    }
+    l2.putAll(entries);
+    for (K key : entries.keySet()) {
+      l1.remove(key);
+    }
+  }
+
+  /**
+   * Returns the number of entries in both tiers, counting a key held by both twice.
+   */
+  @Override
+  public int size() {
+    return l1.size() + l2.size();
+  }
+
+  @Override
+  public Set<K> keys() {
+    Set<K> keys = l2.keys();
+    keys.addAll(l1.keys());
+    return keys;
+  }
+
+  @Override
+  public long weightedSize() {
+    return l1.weightedSize() + l2.weightedSize();
+  }
+
+  /**
+   * Returns L1's statistics, where a miss is a read that went to L2. L2 keeps its own, in which a
+   * demotion counts as a read: a hit if L2 still held the key, else a miss and a load.
+   */
+  @Override
+  public CacheStats stats() {
+    return l1.stats();
+  }
+
+  @Override
+  public void cleanUp() {
+    l1.cleanUp();
+    l2.cleanUp();
+  }
+
+  public CacheService<K, V> l1() {
+    return l1;
+  }
+
+  public Cache<K, V> l2() {
+    return l2;
+  }
+
+  @Override
+  public void close() {
+    l1.close(); // Demotes nothing: closing L1 does not evict.
+    l2.close();
+  }
+
+  /**
+   * Demotes an entry leaving L1 into L2. It is loaded into L2 rather than put, so L2's write policy does not
+   * store it again and a newer value already in L2 is kept. A value written or removed since L1 read it is
+   * dropped instead.
+   */
+  private void demote(K key, V value) {
+    Boolean mark = promoted.get(key);
+    if (!Boolean.TRUE.equals(mark)) {
+      if (mark != null) {
+        promoted.remove(key, mark); // Spent, so the next value L1 reads can be demoted.
+      }
+      return;
+    }
+    try {
+      l2.getOrLoad(key, k -> value);
+    } catch (CacheException e) {
+      logger.fine("Could not demote key '" + key + "': " + e.getMessage()); // Expired in L2 meanwhile.
+      return;
+    }
+    if (!promoted.remove(key, Boolean.TRUE)) {
+      l2.remove(key); // Written or removed while going in.
+      return;
+    }
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine("Demoted key '" + key + "' to L2.");
+    }
+  }
+
+  /**
+   * Marks a value L1 is reading from L2 as one it may demote. Returns the value.
+   */
+  private V promote(K key, V value) {
+    if (value != null) {
+      if (promoted.size() >= promotedLimit) {
+        promoted.clear(); // Costs the pending demotions, never a removed value coming back.
+      }
+      promoted.putIfAbsent(key, Boolean.TRUE); // A cleared mark stands until the next demotion.
+    }
+    return value;
+  }
+
+  /**
+   * Stops any demotion of the key's current L1 value from reaching L2.
+   */
+  private void invalidate(K key) {
+    promoted.computeIfPresent(key, (k, mark) -> Boolean.FALSE);
+  }
+
+  /**
+   * L1's backing store: reads go to L2. L1 never writes, since writes bypass it.
+   */
+  private final class L2Store implements BackingStore<K, V> {
+    @Override
+    public void store(K key, V value) {
+      l2.put(key, value);
+    }
+
+    @Override
+    public V retrieve(K key) {
+      try {
+        return promote(key, l2.getOrNull(key)); // Null if neither in L2 nor in the store.
+      } catch (CacheException e) {
+        return null; // Expired in L2.
+      }
+    }
+
+    @Override
+    public Map<K, V> retrieveAll(Collection<? extends K> keys) {
+      try {
+        Map<K, V> found = l2.getAll(keys);
+        for (Map.Entry<K, V> entry : found.entrySet()) {
+          promote(entry.getKey(), entry.getValue());
+        }
+        return found;
+      } catch (CacheException e) {
+        throw new IllegalStateException("Failed to read keys from L2: " + e.getMessage(), e);
+      }
+    }
+  }
+
+  /**
+   * L1's write policy: values L1 drops go down to L2.
+   */
+  private final class DemotionPolicy implements WritePolicy<K, V> {
+    @Override
+    public void handleWrite(K key, V value) {
+      l2.put(key, value); // Not reached through TieredCache, which writes to L2 directly.
+    }
+
+    @Override
+    public void handleEviction(K key, V value) {
+      if (value != null) { // Null if an off-heap L1 value was released meanwhile.
+        demote(key, value);
+      }
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package com.cache.services;
+
+/**
+ * Computes how much of a cache's maximum weight an entry uses, e.g. the approximate size of its value
+ * in bytes. Weights are computed when a value is written or reloaded and must not be negative.
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+  int weigh(K key, V value);
+
+  /**
+   * Returns a weigher giving every entry a weight of 1, so the maximum weight is an entry count.
+   */
+  static <K, V> Weigher<K, V> singletonWeigher() {
+    return (key, value) -> 1;
+  }
+}
@@ -0,0 +1,78 @@
+package com.cache.simulator;
+
+import com.cache.expiration.ExpirationStrategy;
+import com.cache.policies.CacheEvictionPolicy;
+import java.util.function.LongFunction;
+
+/**
+ * One cache configuration to replay a trace against: an eviction policy, a capacity and an expiration
+ * strategy. The capacity counts entries, or with {@link #byBytes} the summed sizes of the cached values.
+ * The policy is made anew for each replay from the capacity. Expiration strategies see trace time, in
+ * nanoseconds since the first access, so TTLs are measured against the trace and not the replay.
+ */
+public final class SimulationConfig {
+  private final String name;
+  private final long capacity;
+  private final LongFunction<CacheEvictionPolicy<Long>> policyFactory;
+  private final ExpirationStrategy<Long, Integer> expirationStrategy;
+  private final boolean byBytes; // Capacity bounds total value size rather than entry count.
+
+  /**
+   * Constructor for SimulationConfig, with a capacity in entries and no expiration.
+   */
+  public SimulationConfig(String name, long capacity, LongFunction<CacheEvictionPolicy<Long>> policyFactory) {
+    this(name, capacity, policyFactory, (entry, now) -> Long.MAX_VALUE, false);
+  }
+
+  public SimulationConfig(String name,
+      long capacity,
+      LongFunction<CacheEvictionPolicy<Long>> policyFactory,
+      ExpirationStrategy<Long, Integer> expirationStrategy,
+      boolean byBytes) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be >= 1.");
+    }
+    if (!byBytes && capacity > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Capacity in entries must fit in an int.");
+    }
+    this.name = name;
+    this.capacity = capacity;
+    this.policyFactory = policyFactory;
+    this.expirationStrategy = expirationStrategy;
+    this.byBytes = byBytes;
+  }
+
+  /**
+   * Returns this configuration with the given expiration strategy.
+   */
+  public SimulationConfig withExpiration(ExpirationStrategy<Long, Integer> expirationStrategy) {
+    return new SimulationConfig(name, capacity, policyFactory, expirationStrategy, byBytes);
+  }
+
+  /**
+   * Returns this configuration with its capacity counting the bytes of cached values.
+   */
+  public SimulationConfig byBytes() {
+    return new SimulationConfig(name, capacity, policyFactory, expirationStrategy, true);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  public boolean isByBytes() {
+    return byBytes;
+  }
+
+  public ExpirationStrategy<Long, Integer> getExpirationStrategy() {
+    return expirationStrategy;
+  }
+
+  CacheEvictionPolicy<Long> newPolicy() {
+    return policyFactory.apply(capacity);
+  }
+}
@@ -0,0 +1,103 @@
+package com.cache.simulator;
+
+import java.util.List;
+
+/**
+ * What one configuration did with a trace: how many reads and bytes it served from the cache, and how
+ * much load the misses put on the backing store, on average and in the busiest second of trace time.
+ */
+public final class SimulationResult {
+  private final SimulationConfig config;
+  private final long accesses;
+  private final long hits;
+  private final long bytes; // Summed size of all reads.
+  private final long byteHits; // Summed size of the reads that hit.
+  private final long loads; // Backing store reads.
+  private final long peakLoadsPerSecond; // Most loads within one second of trace time.
+  private final long durationMillis; // Trace time from the first access to the last.
+
+  SimulationResult(SimulationConfig config, long accesses, long hits, long bytes, long byteHits, long loads,
+      long peakLoadsPerSecond, long durationMillis) {
+    this.config = config;
+    this.accesses = accesses;
+    this.hits = hits;
+    this.bytes = bytes;
+    this.byteHits = byteHits;
+    this.loads = loads;
+    this.peakLoadsPerSecond = peakLoadsPerSecond;
+    this.durationMillis = durationMillis;
+  }
+
+  public SimulationConfig config() {
+    return config;
+  }
+
+  public long accesses() {
+    return accesses;
+  }
+
+  public long hits() {
+    return hits;
+  }
+
+  public long bytes() {
+    return bytes;
+  }
+
+  public long byteHits() {
+    return byteHits;
+  }
+
+  public long loads() {
+    return loads;
+  }
+
+  public long peakLoadsPerSecond() {
+    return peakLoadsPerSecond;
+  }
+
+  public long durationMillis() {
+    return durationMillis;
+  }
+
+  public double hitRatio() {
+    return (accesses == 0) ? 1.0 : (double) hits / accesses;
+  }
+
+  public double byteHitRatio() {
+    return (bytes == 0) ? 1.0 : (double) byteHits / bytes;
+  }
+
+  /**
+   * Returns the mean backing store reads per second of trace time, or the load count if the trace spans
+   * less than a second.
+   */
+  public double loadsPerSecond() {
+    return (durationMillis < 1_000) ? loads : loads * 1_000.0 / durationMillis;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: hit ratio %.4f, byte hit ratio %.4f, %d loads (%.1f/s mean, %d/s peak)",
+        config.getName(), hitRatio(), byteHitRatio(), loads, loadsPerSecond(), peakLoadsPerSecond);
+  }
+
+  /**
+   * Formats results as an aligned table, one row per configuration.
+   */
+  public static String table(List<SimulationResult> results) {
+    int width = "configuration".length();
+    for (SimulationResult result : results) {
+      width = Math.max(width, result.config.getName().length());
+    }
+    StringBuilder table = new StringBuilder(String.format("%-" + width + "s %12s %9s %9s %12s %10s %10s%n",
+        "configuration", "capacity", "hit", "byte hit", "loads", "loads/s", "peak/s"));
+    for (SimulationResult result : results) {
+      SimulationConfig config = result.config;
+      table.append(String.format("%-" + width + "s %12s %9.4f %9.4f %12d %10.1f %10d%n",
+          config.getName(), config.getCapacity() + (config.isByBytes() ? "B" : ""), result.hitRatio(),
+          result.byteHitRatio(), result.loads, result.loadsPerSecond(), result.peakLoadsPerSecond));
+    }
+    return table.toString();
+  }
+}
@@ -0,0 +1,228 @@
+package com.cache.simulator;
+
+import com.cache.exceptions.CacheException;
+import com.cache.policies.LRUCacheEvictionPolicy;
+import com.cache.policies.WTinyLFUCacheEvictionPolicy;
+import com.cache.services.CacheOptions;
+import com.cache.services.CacheService;
+import com.cache.store.BackingStore;
+import com.cache.time.FakeTicker;
+import com.cache.writepolicy.WriteThroughPolicy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Replays a trace against cache configurations and reports how each did. Every configuration gets its own
+ * {@link CacheService} over a backing store that answers every read with a value of the access's size and
+ * counts the reads; an access that does not reach the store is a hit. Time is the trace's: the cache's
+ * ticker follows the access timestamps and cleanUp runs once per second of trace time, so expiration
+ * behaves as it would have when the trace was recorded, however fast it replays.
+ *
+ * Configurations replay in parallel, each reading the trace on its own, so results do not depend on the
+ * number of threads.
+ */
+public final class Simulator {
+  private static final Logger logger = Logger.getLogger(Simulator.class.getName());
+  private static final long CLEANUP_INTERVAL_MILLIS = 1_000; // Trace time between cleanUp calls.
+  private static final long NANOS_PER_MILLI = 1_000_000;
+
+  private Simulator() {
+  }
+
+  /**
+   * Replays the trace against every configuration, up to threads at a time, and returns the results in
+   * configuration order.
+   */
+  public static List<SimulationResult> run(Trace trace, List<SimulationConfig> configs, int threads)
+      throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, configs.size())));
+    try {
+      List<Future<SimulationResult>> futures = new ArrayList<>(configs.size());
+      for (SimulationConfig config : configs) {
+        futures.add(executor.submit(() -> simulate(trace, config)));
+      }
+      List<SimulationResult> results = new ArrayList<>(configs.size());
+      for (Future<SimulationResult> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while simulating.", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException("Simulation failed.", cause);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Replays the trace against one configuration on the calling thread.
+   */
+  public static SimulationResult simulate(Trace trace, SimulationConfig config) throws IOException {
+    FakeTicker ticker = new FakeTicker();
+    SimulatedStore store = new SimulatedStore();
+    CacheOptions<Long, Integer> options = new CacheOptions<Long, Integer>()
+        .ticker(ticker)
+        .manualMaintenance(); // The replay calls cleanUp in trace time.
+    if (config.isByBytes()) {
+      options.maximumWeight(config.getCapacity(), (key, size) -> size);
+    }
+    int capacity = (int) Math.min(config.getCapacity(), Integer.MAX_VALUE);
+    Replay replay = new Replay(ticker, store);
+    try (CacheService<Long, Integer> cache = new CacheService<>(capacity, 0, config.newPolicy(), store,
+        new WriteThroughPolicy<>(store), config.getExpirationStrategy(), options)) {
+      replay.cache = cache;
+      trace.replay(replay);
+    }
+    replay.finishSecond();
+    return new SimulationResult(config, replay.accesses, replay.hits, replay.bytes, replay.byteHits, store.loads,
+        replay.peakLoads, replay.lastMillis - replay.firstMillis);
+  }
+
+  /**
+   * Drives one cache through a trace, moving its clock with the accesses.
+   */
+  private static final class Replay implements Trace.AccessVisitor {
+    private final FakeTicker ticker;
+    private final SimulatedStore store;
+    private CacheService<Long, Integer> cache;
+    private long accesses;
+    private long hits;
+    private long bytes;
+    private long byteHits;
+    private long firstMillis = -1; // Timestamp of the first access; trace time starts here.
+    private long lastMillis; // Latest timestamp seen; the clock never moves back for out-of-order records.
+    private long nextCleanUpMillis;
+    private long second; // Second of trace time whose loads are being counted.
+    private long loadsBeforeSecond; // Store loads when that second began.
+    private long peakLoads;
+
+    Replay(FakeTicker ticker, SimulatedStore store) {
+      this.ticker = ticker;
+      this.store = store;
+    }
+
+    @Override
+    public void access(long key, long timeMillis, int size) {
+      if (firstMillis < 0) {
+        firstMillis = timeMillis;
+        lastMillis = timeMillis;
+        nextCleanUpMillis = timeMillis + CLEANUP_INTERVAL_MILLIS;
+      }
+      if (timeMillis > lastMillis) {
+        lastMillis = timeMillis;
+        ticker.setNanos((lastMillis - firstMillis) * NANOS_PER_MILLI);
+        if (lastMillis >= nextCleanUpMillis) {
+          cache.cleanUp();
+          nextCleanUpMillis = lastMillis + CLEANUP_INTERVAL_MILLIS;
+        }
+        long current = (lastMillis - firstMillis) / 1_000;
+        if (current != second) {
+          finishSecond();
+          second = current;
+        }
+      }
+      long loadsBefore = store.loads;
+      store.nextSize = size;
+      try {
+        try {
+          cache.getOrNull(key);
+        } catch (CacheException e) {
+          cache.getOrNull(key); // Expired and removed by the read; this one loads it again.
+        }
+      } catch (CacheException e) {
+        throw new IllegalStateException("Simulated read of key " + key + " failed.", e);
+      }
+      accesses++;
+      bytes += size;
+      if (store.loads == loadsBefore) {
+        hits++;
+        byteHits += size;
+      }
+    }
+
+    void finishSecond() {
+      peakLoads = Math.max(peakLoads, store.loads - loadsBeforeSecond);
+      loadsBeforeSecond = store.loads;
+    }
+  }
+
+  /**
+   * A backing store that holds nothing and answers each read with the size of the access being replayed.
+   * Only ever used by one replaying thread.
+   */
+  private static final class SimulatedStore implements BackingStore<Long, Integer> {
+    private int nextSize;
+    private long loads;
+
+    @Override
+    public void store(Long key, Integer value) {
+    }
+
+    @Override
+    public Integer retrieve(Long key) {
+      loads++;
+      return nextSize;
+    }
+  }
+
+  /**
+   * Replays a trace against LRU and W-TinyLFU at each capacity and prints the results. The trace is a file,
+   * binary if its name ends in ".bin" and text otherwise, or a generated one: {@code zipf:COUNT[:KEYS]},
+   * {@code scan:COUNT} or {@code loop:COUNT:LENGTH}.
+   * Usage: {@code Simulator <trace> [capacity...]}
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.err.println("Usage: Simulator <file|zipf:COUNT[:KEYS]|scan:COUNT|loop:COUNT:LENGTH> [capacity...]");
+      System.exit(2);
+    }
+    Trace trace = parseTrace(args[0]);
+    List<SimulationConfig> configs = new ArrayList<>();
+    for (int i = 1; i < Math.max(args.length, 2); i++) {
+      long capacity = (args.length > 1) ? Long.parseLong(args[i]) : 1_000;
+      int size = (int) Math.min(capacity, Integer.MAX_VALUE);
+      configs.add(new SimulationConfig("LRU-" + capacity, capacity, c -> new LRUCacheEvictionPolicy<>()));
+      configs.add(new SimulationConfig("W-TinyLFU-" + capacity, capacity,
+          c -> new WTinyLFUCacheEvictionPolicy<>(size)));
+    }
+    long start = System.nanoTime();
+    List<SimulationResult> results = run(trace, configs, Runtime.getRuntime().availableProcessors());
+    System.out.print(SimulationResult.table(results));
+    logger.info("Simulated " + configs.size() + " configurations in "
+        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+  }
+
+  private static Trace parseTrace(String spec) {
+    String[] parts = spec.split(":");
+    switch (parts[0]) {
+      case "zipf":
+        long count = Long.parseLong(parts[1]);
+        int keys = (parts.length > 2) ? Integer.parseInt(parts[2]) : (int) Math.max(2, Math.min(count / 10, 1 << 24));
+        return SyntheticTrace.zipfian(count, keys, 42);
+      case "scan":
+        return SyntheticTrace.scan(Long.parseLong(parts[1]));
+      case "loop":
+        return SyntheticTrace.loop(Long.parseLong(parts[1]), Integer.parseInt(parts[2]));
+      default:
+        Path file = Path.of(spec);
+        return spec.endsWith(".bin") ? new BinaryTrace(file) : new TextTrace(file);
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package com.cache.simulator;
+
+import java.util.SplittableRandom;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Generated traces with known access patterns, for policies whose behavior on a pattern is worth checking
+ * without a recorded log: a skewed Zipfian workload, a one-pass scan, and a loop over a fixed set of keys.
+ * Accesses are spaced evenly in time, one millisecond apart unless {@link #withInterval} says otherwise,
+ * and every value has size 1 unless {@link #withSizes} assigns sizes per key. Replays of the same trace
+ * yield the same accesses.
+ */
+public final class SyntheticTrace implements Trace {
+  private static final double ZIPF_THETA = 0.99; // Skew used by YCSB.
+
+  private final long count; // Accesses per replay.
+  private final Supplier<LongSupplier> keys; // Makes a fresh key sequence for each replay.
+  private final long intervalMillis;
+  private final int minSize;
+  private final int maxSize;
+
+  private SyntheticTrace(long count, Supplier<LongSupplier> keys, long intervalMillis, int minSize, int maxSize) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Access count must be >= 0.");
+    }
+    this.count = count;
+    this.keys = keys;
+    this.intervalMillis = intervalMillis;
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Returns count reads of keys in [0, keySpace) with Zipfian popularity, generated as in YCSB after Gray
+   * et al., "Quickly Generating Billion-Record Synthetic Databases". Ranks are scrambled over the key
+   * space so the hottest keys are not simply the smallest.
+   */
+  public static SyntheticTrace zipfian(long count, int keySpace, long seed) {
+    if (keySpace < 2) {
+      throw new IllegalArgumentException("Key space must be >= 2.");
+    }
+    double zetaN = zeta(keySpace, ZIPF_THETA);
+    double alpha = 1.0 / (1.0 - ZIPF_THETA);
+    double eta = (1 - Math.pow(2.0 / keySpace, 1 - ZIPF_THETA)) / (1 - zeta(2, ZIPF_THETA) / zetaN);
+    double secondRankBound = 1.0 + Math.pow(0.5, ZIPF_THETA);
+    return new SyntheticTrace(count, () -> {
+      SplittableRandom random = new SplittableRandom(seed);
+      return () -> {
+        double u = random.nextDouble();
+        double uz = u * zetaN;
+        long rank;
+        if (uz < 1.0) {
+          rank = 0;
+        } else if (uz < secondRankBound) {
+          rank = 1;
+        } else {
+          rank = Math.min((long) (keySpace * Math.pow(eta * u - eta + 1, alpha)), keySpace - 1);
+        }
+        return scramble(rank, keySpace);
+      };
+    }, 1, 1, 1);
+  }
+
+  /**
+   * Returns count reads of distinct keys 0, 1, 2 and so on, which no cache can hit and which flush a
+   * recency-only policy.
+   */
+  public static SyntheticTrace scan(long count) {
+    return new SyntheticTrace(count, () -> {
+      long[] next = {0};
+      return () -> next[0]++;
+    }, 1, 1, 1);
+  }
+
+  /**
+   * Returns count reads cycling over keys 0 to loopLength - 1. A cache smaller than the loop hits nothing
+   * under LRU, and up to capacity / loopLength of the reads under a policy that keeps a fixed subset.
+   */
+  public static SyntheticTrace loop(long count, int loopLength) {
+    if (loopLength < 1) {
+      throw new IllegalArgumentException("Loop length must be >= 1.");
+    }
+    return new SyntheticTrace(count, () -> {
+      long[] next = {0};
+      return () -> next[0]++ % loopLength;
+    }, 1, 1, 1);
+  }
+
+  /**
+   * Returns this trace with accesses the given number of milliseconds apart.
+   */
+  public SyntheticTrace withInterval(long intervalMillis) {
+    if (intervalMillis < 0) {
+      throw new IllegalArgumentException("Interval must be >= 0.");
+    }
+    return new SyntheticTrace(count, keys, intervalMillis, minSize, maxSize);
+  }
+
+  /**
+   * Returns this trace with each key's value given a fixed size in [minSize, maxSize], uniformly spread
+   * over keys.
+   */
+  public SyntheticTrace withSizes(int minSize, int maxSize) {
+    if (minSize < 1 || maxSize < minSize) {
+      throw new IllegalArgumentException("Sizes must satisfy 1 <= minSize <= maxSize.");
+    }
+    return new SyntheticTrace(count, keys, intervalMillis, minSize, maxSize);
+  }
+
+  @Override
+  public void replay(AccessVisitor visitor) {
+    LongSupplier sequence = keys.get();
+    long span = (long) maxSize - minSize + 1;
+    for (long i = 0; i < count; i++) {
+      long key = sequence.getAsLong();
+      int size = (span == 1) ? minSize : (int) (minSize + Math.floorMod(mix(key), span));
+      visitor.access(key, i * intervalMillis, size);
+    }
+  }
+
+  private static double zeta(long n, double theta) {
+    double sum = 0;
+    for (long i = 1; i <= n; i++) {
+      sum += 1 / Math.pow(i, theta);
+    }
+    return sum;
+  }
+
+  private static long scramble(long rank, int keySpace) {
+    return Math.floorMod(mix(rank), (long) keySpace);
+  }
+
+  private static long mix(long value) {
+    long hash = value * 0x9E3779B97F4A7C15L;
+    return hash ^ (hash >>> 32);
+  }
+}
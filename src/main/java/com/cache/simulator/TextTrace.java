@@ -0,0 +1,141 @@
+package com.cache.simulator;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An access log with one read per line: {@code key timestamp [size]}, separated by spaces, tabs or commas.
+ * The timestamp is in milliseconds. A key of up to 18 digits is read as that number; any other key is
+ * hashed to 64 bits, so keys are best kept numeric when collisions matter. The size defaults to 1. Empty
+ * lines and lines starting with '#' are skipped.
+ *
+ * The file is read through memory-mapped windows and parsed byte by byte, so replaying it allocates
+ * nothing per line and files larger than memory stream through the page cache.
+ */
+public final class TextTrace implements Trace {
+  private static final long WINDOW = 256L * 1024 * 1024; // Bytes mapped at a time.
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final Path file;
+
+  public TextTrace(Path file) {
+    this.file = file;
+  }
+
+  @Override
+  public void replay(AccessVisitor visitor) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      long position = 0;
+      while (position < size) {
+        long length = Math.min(WINDOW, size - position);
+        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        boolean last = position + length == size;
+        int consumed = parseLines(window, last, visitor);
+        if (consumed == 0 && !last) {
+          throw new IOException("Line longer than " + WINDOW + " bytes at offset " + position + " of " + file);
+        }
+        position += consumed; // The next window starts at the first incomplete line.
+      }
+    }
+  }
+
+  /**
+   * Parses the complete lines of the window, and its last line too if the window ends the file. Returns
+   * the number of bytes consumed.
+   */
+  private static int parseLines(MappedByteBuffer window, boolean last, AccessVisitor visitor) throws IOException {
+    int limit = window.limit();
+    int lineStart = 0;
+    int[] fieldStart = new int[3];
+    int[] fieldEnd = new int[3];
+    for (int i = 0; i <= limit; i++) {
+      boolean lineEnd = (i == limit) ? last : window.get(i) == '\n';
+      if (i == limit && !last) {
+        break;
+      }
+      if (!lineEnd) {
+        continue;
+      }
+      int fields = split(window, lineStart, i, fieldStart, fieldEnd);
+      if (fields >= 2 && window.get(fieldStart[0]) != '#') {
+        long key = parseKey(window, fieldStart[0], fieldEnd[0]);
+        long time = parseNumber(window, fieldStart[1], fieldEnd[1], lineStart);
+        int size = (fields == 3) ? (int) parseNumber(window, fieldStart[2], fieldEnd[2], lineStart) : 1;
+        visitor.access(key, time, size);
+      } else if (fields == 1 && window.get(fieldStart[0]) != '#') {
+        throw new IOException("Missing timestamp in line at window offset " + lineStart + ".");
+      }
+      lineStart = i + 1;
+    }
+    return Math.min(lineStart, limit);
+  }
+
+  /**
+   * Finds up to three fields in the line and returns how many there are.
+   */
+  private static int split(MappedByteBuffer window, int from, int to, int[] starts, int[] ends) {
+    int fields = 0;
+    int i = from;
+    while (i < to && fields < 3) {
+      while (i < to && isSeparator(window.get(i))) {
+        i++;
+      }
+      if (i == to) {
+        break;
+      }
+      starts[fields] = i;
+      while (i < to && !isSeparator(window.get(i))) {
+        i++;
+      }
+      ends[fields++] = i;
+    }
+    return fields;
+  }
+
+  private static boolean isSeparator(byte b) {
+    return b == ' ' || b == '\t' || b == ',' || b == '\r';
+  }
+
+  private static long parseKey(MappedByteBuffer window, int from, int to) {
+    boolean numeric = to - from <= 18;
+    for (int i = from; i < to && numeric; i++) {
+      byte b = window.get(i);
+      numeric = b >= '0' && b <= '9';
+    }
+    if (numeric) {
+      long key = 0;
+      for (int i = from; i < to; i++) {
+        key = key * 10 + (window.get(i) - '0');
+      }
+      return key;
+    }
+    long hash = FNV_OFFSET;
+    for (int i = from; i < to; i++) {
+      hash = (hash ^ (window.get(i) & 0xff)) * FNV_PRIME;
+    }
+    return hash;
+  }
+
+  /**
+   * Parses a non-negative integer, ignoring any fraction after a '.'.
+   */
+  private static long parseNumber(MappedByteBuffer window, int from, int to, int lineStart) throws IOException {
+    long value = 0;
+    for (int i = from; i < to; i++) {
+      byte b = window.get(i);
+      if (b == '.') {
+        break;
+      }
+      if (b < '0' || b > '9') {
+        throw new IOException("Not a number in line at window offset " + lineStart + ".");
+      }
+      value = value * 10 + (b - '0');
+    }
+    return value;
+  }
+}
@@ -0,0 +1,25 @@
+package com.cache.simulator;
+
+import java.io.IOException;
+
+/**
+ * A sequence of cache reads, each a key, a timestamp and the size of the value read. A trace can be
+ * replayed any number of times, also concurrently, and yields the same accesses every time.
+ */
+public interface Trace {
+  /**
+   * Calls the visitor once per access, in trace order.
+   */
+  void replay(AccessVisitor visitor) throws IOException;
+
+  /**
+   * Receives the accesses of a replay without boxing them.
+   */
+  @FunctionalInterface
+  interface AccessVisitor {
+    /**
+     * Called for one read of the key at the given time, in milliseconds, of a value of the given size.
+     */
+    void access(long key, long timeMillis, int size);
+  }
+}
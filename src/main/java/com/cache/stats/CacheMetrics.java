@@ -0,0 +1,87 @@
+package com.cache.stats;
+
+import com.cache.services.Cache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes a cache's statistics to Micrometer, and from there to the Actuator metrics endpoint.
+ * Meters read {@link Cache#stats()} when scraped, so the cache pays nothing extra per operation.
+ * Meter names follow Micrometer's cache conventions (cache.gets, cache.evictions, ...), tagged with the
+ * cache name.
+ */
+public class CacheMetrics implements MeterBinder {
+  private static final double[] PERCENTILES = {0.5, 0.95, 0.99, 0.999};
+
+  private final Cache<?, ?> cache;
+  private final Iterable<Tag> tags;
+
+  public CacheMetrics(Cache<?, ?> cache, String cacheName, Iterable<Tag> tags) {
+    this.cache = cache;
+    this.tags = Tags.concat(tags, "cache", cacheName);
+  }
+
+  /**
+   * Binds the cache's metrics to the registry and returns the cache.
+   */
+  public static <C extends Cache<?, ?>> C monitor(MeterRegistry registry, C cache, String cacheName,
+      String... tags) {
+    new CacheMetrics(cache, cacheName, Tags.of(tags)).bindTo(registry);
+    return cache;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("cache.size", cache, Cache::size)
+        .tags(tags)
+        .description("The number of entries in this cache, including expired ones not yet cleaned up")
+        .register(registry);
+
+    FunctionCounter.builder("cache.gets", cache, c -> c.stats().hitCount())
+        .tags(tags).tags("result", "hit")
+        .description("The number of times cache lookup methods have returned a cached value")
+        .register(registry);
+    FunctionCounter.builder("cache.gets", cache, c -> c.stats().missCount())
+        .tags(tags).tags("result", "miss")
+        .description("The number of times cache lookup methods have not found a cached value")
+        .register(registry);
+
+    FunctionCounter.builder("cache.load", cache, c -> c.stats().loadSuccessCount())
+        .tags(tags).tags("result", "success")
+        .description("The number of times a value was loaded from the backing store")
+        .register(registry);
+    FunctionCounter.builder("cache.load", cache, c -> c.stats().loadFailureCount())
+        .tags(tags).tags("result", "failure")
+        .description("The number of loads that failed or found no value")
+        .register(registry);
+    FunctionTimer.builder("cache.load.duration", cache,
+            c -> c.stats().loadSuccessCount() + c.stats().loadFailureCount(),
+            c -> c.stats().totalLoadTime(), TimeUnit.NANOSECONDS)
+        .tags(tags)
+        .description("The time spent loading values")
+        .register(registry);
+    for (double percentile : PERCENTILES) {
+      TimeGauge.builder("cache.load.duration.percentile", cache, TimeUnit.NANOSECONDS,
+              c -> c.stats().loadLatency().percentile(percentile))
+          .tags(tags).tags("phi", String.valueOf(percentile))
+          .description("Load time percentile, accurate to within 12.5%")
+          .register(registry);
+    }
+
+    for (RemovalCause cause : RemovalCause.values()) {
+      if (cause.wasEvicted()) {
+        FunctionCounter.builder("cache.evictions", cache, c -> c.stats().evictionCount(cause))
+            .tags(tags).tags("cause", cause.name().toLowerCase())
+            .description("The number of entries the cache removed on its own")
+            .register(registry);
+      }
+    }
+  }
+}
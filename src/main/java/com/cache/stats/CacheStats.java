@@ -0,0 +1,118 @@
+package com.cache.stats;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of a cache's statistics. Counts only grow over the life of the cache, so rates over
+ * an interval are the difference of two snapshots.
+ */
+public final class CacheStats {
+  private static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0,
+      new EnumMap<>(RemovalCause.class), new LatencyHistogram().snapshot());
+
+  private final long hitCount;
+  private final long missCount;
+  private final long loadSuccessCount;
+  private final long loadFailureCount; // Loads that threw or found nothing.
+  private final long totalLoadTime; // Nanoseconds spent in loads, successful or not.
+  private final Map<RemovalCause, Long> evictionCounts;
+  private final LatencyHistogram.Snapshot loadLatency;
+
+  public CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+      long totalLoadTime, Map<RemovalCause, Long> evictionCounts, LatencyHistogram.Snapshot loadLatency) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.loadSuccessCount = loadSuccessCount;
+    this.loadFailureCount = loadFailureCount;
+    this.totalLoadTime = totalLoadTime;
+    this.evictionCounts = new EnumMap<>(RemovalCause.class);
+    this.evictionCounts.putAll(evictionCounts);
+    this.loadLatency = loadLatency;
+  }
+
+  /**
+   * Returns the statistics of a cache that does not record any.
+   */
+  public static CacheStats empty() {
+    return EMPTY;
+  }
+
+  public long hitCount() {
+    return hitCount;
+  }
+
+  public long missCount() {
+    return missCount;
+  }
+
+  public long requestCount() {
+    return hitCount + missCount;
+  }
+
+  /**
+   * Returns the fraction of requests that were hits, or 1 if there were none.
+   */
+  public double hitRate() {
+    long requests = requestCount();
+    return (requests == 0) ? 1.0 : (double) hitCount / requests;
+  }
+
+  public double missRate() {
+    long requests = requestCount();
+    return (requests == 0) ? 0.0 : (double) missCount / requests;
+  }
+
+  public long loadSuccessCount() {
+    return loadSuccessCount;
+  }
+
+  public long loadFailureCount() {
+    return loadFailureCount;
+  }
+
+  public long totalLoadTime() {
+    return totalLoadTime;
+  }
+
+  /**
+   * Returns the mean nanoseconds spent per load, or 0 if there were none.
+   */
+  public double averageLoadPenalty() {
+    long loads = loadSuccessCount + loadFailureCount;
+    return (loads == 0) ? 0.0 : (double) totalLoadTime / loads;
+  }
+
+  /**
+   * Returns the number of entries the cache removed for the given cause. Only causes where
+   * {@link RemovalCause#wasEvicted()} holds are counted.
+   */
+  public long evictionCount(RemovalCause cause) {
+    return evictionCounts.getOrDefault(cause, 0L);
+  }
+
+  /**
+   * Returns the number of entries evicted to stay within capacity.
+   */
+  public long evictionCount() {
+    return evictionCount(RemovalCause.SIZE);
+  }
+
+  public long expirationCount() {
+    return evictionCount(RemovalCause.EXPIRED);
+  }
+
+  /**
+   * Returns the distribution of load durations in nanoseconds.
+   */
+  public LatencyHistogram.Snapshot loadLatency() {
+    return loadLatency;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats{hits=" + hitCount + ", misses=" + missCount + ", loadSuccesses=" + loadSuccessCount
+        + ", loadFailures=" + loadFailureCount + ", totalLoadTime=" + totalLoadTime
+        + ", evictions=" + evictionCount() + ", expirations=" + expirationCount() + "}";
+  }
+}
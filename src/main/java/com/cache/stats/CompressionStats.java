@@ -0,0 +1,92 @@
+package com.cache.stats;
+
+/**
+ * Immutable snapshot of what value compression has saved and cost. Counts only grow, so rates over an
+ * interval are the difference of two snapshots.
+ */
+public final class CompressionStats {
+  private static final CompressionStats EMPTY = new CompressionStats(0, 0, 0, 0, 0, 0, 0);
+
+  private final long compressedCount; // Values stored compressed.
+  private final long skippedCount; // Values stored as they were: under the threshold or not worth compressing.
+  private final long uncompressedBytes; // Serialized size of the compressed values before compression.
+  private final long compressedBytes; // Their size after compression.
+  private final long compressionTime; // Nanoseconds spent serializing and compressing.
+  private final long decompressionCount;
+  private final long decompressionTime; // Nanoseconds spent decompressing.
+
+  public CompressionStats(long compressedCount, long skippedCount, long uncompressedBytes, long compressedBytes,
+      long compressionTime, long decompressionCount, long decompressionTime) {
+    this.compressedCount = compressedCount;
+    this.skippedCount = skippedCount;
+    this.uncompressedBytes = uncompressedBytes;
+    this.compressedBytes = compressedBytes;
+    this.compressionTime = compressionTime;
+    this.decompressionCount = decompressionCount;
+    this.decompressionTime = decompressionTime;
+  }
+
+  /**
+   * Returns the statistics of a cache that does not compress.
+   */
+  public static CompressionStats empty() {
+    return EMPTY;
+  }
+
+  public long compressedCount() {
+    return compressedCount;
+  }
+
+  public long skippedCount() {
+    return skippedCount;
+  }
+
+  public long uncompressedBytes() {
+    return uncompressedBytes;
+  }
+
+  public long compressedBytes() {
+    return compressedBytes;
+  }
+
+  /**
+   * Returns the uncompressed size of the compressed values over their compressed size, or 1 if none were
+   * compressed.
+   */
+  public double compressionRatio() {
+    return (compressedBytes == 0) ? 1.0 : (double) uncompressedBytes / compressedBytes;
+  }
+
+  public long totalCompressionTime() {
+    return compressionTime;
+  }
+
+  public long decompressionCount() {
+    return decompressionCount;
+  }
+
+  public long totalDecompressionTime() {
+    return decompressionTime;
+  }
+
+  /**
+   * Returns the mean nanoseconds spent per value written, compressed or not, since every value is
+   * serialized to find out whether it is worth compressing.
+   */
+  public double averageCompressionTime() {
+    long values = compressedCount + skippedCount;
+    return (values == 0) ? 0.0 : (double) compressionTime / values;
+  }
+
+  public double averageDecompressionTime() {
+    return (decompressionCount == 0) ? 0.0 : (double) decompressionTime / decompressionCount;
+  }
+
+  @Override
+  public String toString() {
+    return "CompressionStats{compressed=" + compressedCount + ", skipped=" + skippedCount
+        + ", ratio=" + String.format("%.2f", compressionRatio())
+        + ", compressionTime=" + compressionTime + "ns, decompressions=" + decompressionCount
+        + ", decompressionTime=" + decompressionTime + "ns}";
+  }
+}
@@ -0,0 +1,65 @@
+package com.cache.stats;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe counter backed by {@link LongAdder}s, which stripe increments across cells so that threads
+ * hitting the cache at once do not contend on a single counter.
+ */
+public final class ConcurrentStatsCounter implements StatsCounter {
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder loadSuccessCount = new LongAdder();
+  private final LongAdder loadFailureCount = new LongAdder();
+  private final LongAdder totalLoadTime = new LongAdder();
+  private final LongAdder[] evictionCounts; // Indexed by RemovalCause ordinal.
+  private final LatencyHistogram loadLatency = new LatencyHistogram();
+
+  public ConcurrentStatsCounter() {
+    this.evictionCounts = new LongAdder[RemovalCause.values().length];
+    for (int i = 0; i < evictionCounts.length; i++) {
+      evictionCounts[i] = new LongAdder();
+    }
+  }
+
+  @Override
+  public void recordHits(int count) {
+    hitCount.add(count);
+  }
+
+  @Override
+  public void recordMisses(int count) {
+    missCount.add(count);
+  }
+
+  @Override
+  public void recordLoadSuccess(long loadTimeNanos) {
+    loadSuccessCount.increment();
+    totalLoadTime.add(loadTimeNanos);
+    loadLatency.record(loadTimeNanos);
+  }
+
+  @Override
+  public void recordLoadFailure(long loadTimeNanos) {
+    loadFailureCount.increment();
+    totalLoadTime.add(loadTimeNanos);
+    loadLatency.record(loadTimeNanos);
+  }
+
+  @Override
+  public void recordEviction(RemovalCause cause) {
+    evictionCounts[cause.ordinal()].increment();
+  }
+
+  @Override
+  public CacheStats snapshot() {
+    Map<RemovalCause, Long> evictions = new EnumMap<>(RemovalCause.class);
+    for (RemovalCause cause : RemovalCause.values()) {
+      evictions.put(cause, evictionCounts[cause.ordinal()].sum());
+    }
+    return new CacheStats(hitCount.sum(), missCount.sum(), loadSuccessCount.sum(), loadFailureCount.sum(),
+        totalLoadTime.sum(), evictions, loadLatency.snapshot());
+  }
+}
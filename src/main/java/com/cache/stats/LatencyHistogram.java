@@ -0,0 +1,91 @@
+package com.cache.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds with log-linear buckets: each power of two is split
+ * into eight sub-buckets, so any recorded value is reported within 12.5% of its true value. Recording
+ * is a single atomic increment; percentiles are read from a snapshot.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  public void record(long nanos) {
+    counts.getAndIncrement(bucket(Math.max(nanos, 0L)));
+  }
+
+  public Snapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = counts.get(i);
+    }
+    return new Snapshot(copy);
+  }
+
+  /**
+   * Values below SUB_BUCKETS get a bucket each; above that, the bucket is picked by the highest set bit
+   * and the SUB_BUCKET_BITS bits below it.
+   */
+  private static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - SUB_BUCKET_BITS - Long.numberOfLeadingZeros(value);
+    return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  /**
+   * Returns the largest value that falls in the bucket.
+   */
+  private static long upperBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+    long lowest = ((long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1)))) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  /**
+   * Point-in-time counts of a histogram.
+   */
+  public static final class Snapshot {
+    private final long[] counts;
+    private final long total;
+
+    private Snapshot(long[] counts) {
+      this.counts = counts;
+      long sum = 0;
+      for (long count : counts) {
+        sum += count;
+      }
+      this.total = sum;
+    }
+
+    public long count() {
+      return total;
+    }
+
+    /**
+     * Returns the value below which the given fraction (0 to 1) of recorded durations fall, or 0 if empty.
+     */
+    public long percentile(double fraction) {
+      if (total == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(fraction * total));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return upperBound(i);
+        }
+      }
+      return upperBound(counts.length - 1);
+    }
+  }
+}
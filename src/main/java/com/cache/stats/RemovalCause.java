@@ -0,0 +1,28 @@
+package com.cache.stats;
+
+/**
+ * Why an entry left the cache.
+ */
+public enum RemovalCause {
+  /** Removed by a call to remove. */
+  EXPLICIT(false),
+  /** Its value was replaced by a put. */
+  REPLACED(false),
+  /** Its deadline passed. */
+  EXPIRED(true),
+  /** Evicted, or refused admission, to keep the cache within its capacity. */
+  SIZE(true);
+
+  private final boolean evicted;
+
+  RemovalCause(boolean evicted) {
+    this.evicted = evicted;
+  }
+
+  /**
+   * Returns true if the cache removed the entry on its own rather than because of a caller.
+   */
+  public boolean wasEvicted() {
+    return evicted;
+  }
+}
@@ -0,0 +1,26 @@
+package com.cache.stats;
+
+/**
+ * Records a cache's statistics as they happen. Called on the cache's hot paths, so implementations must
+ * be thread-safe and cheap.
+ */
+public interface StatsCounter {
+  void recordHits(int count);
+  void recordMisses(int count);
+  void recordLoadSuccess(long loadTimeNanos);
+  void recordLoadFailure(long loadTimeNanos);
+
+  /**
+   * Records an entry the cache removed on its own. Removals by callers are not counted.
+   */
+  void recordEviction(RemovalCause cause);
+
+  CacheStats snapshot();
+
+  /**
+   * Returns a counter that records nothing, for caches with statistics switched off.
+   */
+  static StatsCounter disabled() {
+    return DisabledStatsCounter.INSTANCE;
+  }
+}
@@ -0,0 +1,48 @@
+package com.cache.store;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Non-blocking counterpart of {@link BackingStore}, for stores with an asynchronous client.
+ * Cancelling a returned future should abandon the call where the store can.
+ */
+public interface AsyncBackingStore<K, V> {
+  /**
+   * Retrieves the value of the key; the future completes with null if there is none.
+   */
+  CompletableFuture<V> retrieveAsync(K key);
+
+  /**
+   * Retrieves several keys at once; keys with no value are absent from the result.
+   * Stores with a batched read path should override the per-key fallback.
+   */
+  default CompletableFuture<Map<K, V>> retrieveAllAsync(Collection<? extends K> keys) {
+    Map<K, CompletableFuture<V>> retrievals = new LinkedHashMap<>(keys.size() * 2);
+    for (K key : keys) {
+      retrievals.put(key, retrieveAsync(key));
+    }
+    return CompletableFuture.allOf(retrievals.values().toArray(new CompletableFuture<?>[0]))
+        .thenApply(ignored -> {
+          Map<K, V> values = new HashMap<>(retrievals.size() * 2);
+          for (Map.Entry<K, CompletableFuture<V>> retrieval : retrievals.entrySet()) {
+            V value = retrieval.getValue().join();
+            if (value != null) {
+              values.put(retrieval.getKey(), value);
+            }
+          }
+          return values;
+        });
+  }
+
+  /**
+   * Adapts a blocking store by running each call on the executor.
+   */
+  static <K, V> AsyncBackingStore<K, V> fromBlocking(BackingStore<K, V> store, ExecutorService executor) {
+    return new ExecutorBackingStore<>(store, executor);
+  }
+}
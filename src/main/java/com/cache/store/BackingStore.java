@@ -1,5 +1,9 @@
 package com.cache.store;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Interface to abstract backing store functionality.
  * Allows different types of backing stores to be used (e.g., in-memory, database, etc.).
@@ -7,4 +11,28 @@ package com.cache.store;
 public interface BackingStore<K, V> {
   void store(K key, V value);
   V retrieve(K key);
+
+  /**
+   * Retrieves several keys at once; keys with no value are absent from the result.
+   * Stores with a batched read path should override the per-key fallback.
+   */
+  default Map<K, V> retrieveAll(Collection<? extends K> keys) {
+    Map<K, V> values = new HashMap<>(keys.size() * 2);
+    for (K key : keys) {
+      V value = retrieve(key);
+      if (value != null) {
+        values.put(key, value);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Stores several entries at once. Stores with a batched write path should override the per-key fallback.
+   */
+  default void storeAll(Map<? extends K, ? extends V> entries) {
+    for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+      store(entry.getKey(), entry.getValue());
+    }
+  }
 }
@@ -0,0 +1,89 @@
+package com.cache.store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A backing store behind a {@link ScalableBloomFilter} of its keys, so reads of keys it has never stored
+ * are answered with null without reaching it. Every key written through this store is added to the filter
+ * first. Keys the store held before, or receives some other way, must be added with {@link #addKey}; until
+ * then they read as missing. A key once stored is never dropped from the filter, so deleting it from the
+ * store only costs a store read per miss.
+ */
+public class BloomFilterBackingStore<K, V> implements BackingStore<K, V> {
+  private final BackingStore<K, V> store;
+  private final ScalableBloomFilter<K> filter;
+  private final LongAdder skipped = new LongAdder(); // Reads answered by the filter alone.
+
+  /**
+   * Constructor for BloomFilterBackingStore
+   */
+  public BloomFilterBackingStore(BackingStore<K, V> store, int expectedKeys, double falsePositiveRate) {
+    this(store, new ScalableBloomFilter<>(expectedKeys, falsePositiveRate));
+  }
+
+  public BloomFilterBackingStore(BackingStore<K, V> store, ScalableBloomFilter<K> filter) {
+    this.store = store;
+    this.filter = filter;
+  }
+
+  @Override
+  public void store(K key, V value) {
+    filter.add(key); // Before the write, so no reader finds the value but a filter without the key.
+    store.store(key, value);
+  }
+
+  @Override
+  public void storeAll(Map<? extends K, ? extends V> entries) {
+    for (K key : entries.keySet()) {
+      filter.add(key);
+    }
+    store.storeAll(entries);
+  }
+
+  @Override
+  public V retrieve(K key) {
+    if (!filter.mightContain(key)) {
+      skipped.increment();
+      return null;
+    }
+    return store.retrieve(key);
+  }
+
+  /**
+   * Retrieves only the keys the filter cannot rule out, in one batch.
+   */
+  @Override
+  public Map<K, V> retrieveAll(Collection<? extends K> keys) {
+    List<K> candidates = new ArrayList<>(keys.size());
+    for (K key : keys) {
+      if (filter.mightContain(key)) {
+        candidates.add(key);
+      }
+    }
+    skipped.add(keys.size() - candidates.size());
+    return candidates.isEmpty() ? new HashMap<>() : store.retrieveAll(candidates);
+  }
+
+  /**
+   * Records a key the store already holds, such as one present before this filter was built.
+   */
+  public void addKey(K key) {
+    filter.add(key);
+  }
+
+  public ScalableBloomFilter<K> filter() {
+    return filter;
+  }
+
+  /**
+   * Returns how many reads the filter answered without going to the store.
+   */
+  public long skippedCount() {
+    return skipped.sum();
+  }
+}
@@ -0,0 +1,90 @@
+package com.cache.store;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Runs the calls of a blocking {@link BackingStore} on an executor, so callers get a future instead of
+ * blocking. Cancelling a returned future interrupts the call, which ends it if the store honours interrupts.
+ */
+public final class ExecutorBackingStore<K, V> implements AsyncBackingStore<K, V> {
+  private static final Logger logger = Logger.getLogger(ExecutorBackingStore.class.getName());
+  private static final long IDLE_THREAD_SECONDS = 30; // Idle platform threads are dropped after this.
+  // Platform threads of the fallback pool; further calls queue for them rather than start more.
+  private static final int PLATFORM_THREADS = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+
+  private final BackingStore<K, V> store;
+  private final ExecutorService executor;
+
+  public ExecutorBackingStore(BackingStore<K, V> store, ExecutorService executor) {
+    this.store = store;
+    this.executor = executor;
+  }
+
+  @Override
+  public CompletableFuture<V> retrieveAsync(K key) {
+    return submit(() -> store.retrieve(key));
+  }
+
+  @Override
+  public CompletableFuture<Map<K, V>> retrieveAllAsync(Collection<? extends K> keys) {
+    return submit(() -> store.retrieveAll(keys)); // One batched call on one thread.
+  }
+
+  /**
+   * Returns an executor that runs each task on a new virtual thread, where the runtime has them (Java 21
+   * and later). Blocking store calls then cost no platform thread while they wait. Older runtimes get a
+   * fixed pool of daemon threads, where calls beyond the pool's size wait in a queue; its threads are
+   * started on demand and dropped when idle.
+   */
+  public static ExecutorService newVirtualThreadExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+      logger.fine("Virtual threads are not available; loading on platform threads.");
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(PLATFORM_THREADS, PLATFORM_THREADS,
+          IDLE_THREAD_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "cache-loader");
+            thread.setDaemon(true);
+            return thread;
+          });
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    }
+  }
+
+  private <T> CompletableFuture<T> submit(Supplier<T> call) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Future<?> task;
+    try {
+      task = executor.submit(() -> {
+        try {
+          result.complete(call.get());
+        } catch (RuntimeException | Error e) {
+          result.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      result.completeExceptionally(e);
+      return result;
+    }
+    result.whenComplete((value, failure) -> {
+      if (result.isCancelled()) {
+        task.cancel(true);
+      }
+    });
+    return result;
+  }
+}
@@ -1,5 +1,6 @@
 package com.cache.store;
 
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -21,4 +22,9 @@ public class InMemoryBackingStore<K, V> implements BackingStore<K, V> {
   public V retrieve(K key) {
     return storage.get(key); // Retrieve from map.
   }
+
+  @Override
+  public void storeAll(Map<? extends K, ? extends V> entries) {
+    storage.putAll(entries); // Save all to in-memory map.
+  }
 }
@@ -0,0 +1,553 @@
+package com.cache.store;
+
+import com.cache.serialization.Serializer;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * File-backed store that appends every write to a log of memory-mapped segment files.
+ * An in-memory index maps each key to its latest record, so a read is one hash lookup and the value is
+ * decoded straight out of the mapped segment. Writes return once they are on disk; concurrent writers
+ * share a single fsync (group commit).
+ *
+ * When the active segment fills up it is sealed and a hints file listing its keys and offsets is written
+ * beside it, so reopening the store rebuilds the index without reading any values. A background task
+ * rewrites sealed segments that are mostly dead records (superseded by later writes) and deletes them.
+ *
+ * Record layout: CRC32 of the rest of the record, key length, value length, key bytes, value bytes.
+ */
+public class LogStructuredBackingStore<K, V> implements BackingStore<K, V>, AutoCloseable {
+  private static final Logger logger = Logger.getLogger(LogStructuredBackingStore.class.getName());
+  public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+  private static final int HEADER_SIZE = 12; // CRC, key length, value length.
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final String HINTS_SUFFIX = ".hints";
+  private static final double COMPACTION_THRESHOLD = 0.5; // Dead fraction at which a sealed segment is rewritten.
+  private static final long COMPACTION_INTERVAL_MILLIS = 10_000;
+
+  private final Path directory;
+  private final Serializer<K> keySerializer;
+  private final Serializer<V> valueSerializer;
+  private final int segmentSize;
+  private final ConcurrentHashMap<K, Long> index; // Key to its latest record: segment id << 32 | offset.
+  private final ConcurrentSkipListMap<Integer, Segment> segments; // Every segment by id, oldest first.
+  private final ReentrantLock appendLock; // Serializes appends, index updates and segment rollover.
+  private final ReentrantLock syncLock; // Guards the group commit state below.
+  private final Condition synced;
+  private final ScheduledExecutorService compactor;
+  private final ReentrantLock maintenanceLock; // Keeps compaction and hints writing from overlapping.
+  private Segment active; // Segment receiving appends; guarded by appendLock.
+  private long appendedSequence; // Appends so far; guarded by appendLock.
+  private long durableSequence; // Appends known to be on disk; guarded by syncLock.
+  private boolean syncing; // A writer is running fsync on behalf of the others; guarded by syncLock.
+  private volatile boolean closed;
+
+  public LogStructuredBackingStore(Path directory, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+    this(directory, keySerializer, valueSerializer, DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Opens the store in the given directory, creating it if needed and recovering any existing segments.
+   */
+  public LogStructuredBackingStore(Path directory,
+      Serializer<K> keySerializer,
+      Serializer<V> valueSerializer,
+      int segmentSize) {
+    if (segmentSize <= HEADER_SIZE) {
+      throw new IllegalArgumentException("Segment size must be > " + HEADER_SIZE + " bytes.");
+    }
+    this.directory = directory;
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.segmentSize = segmentSize;
+    this.index = new ConcurrentHashMap<>();
+    this.segments = new ConcurrentSkipListMap<>();
+    this.appendLock = new ReentrantLock();
+    this.syncLock = new ReentrantLock();
+    this.synced = syncLock.newCondition();
+    this.maintenanceLock = new ReentrantLock();
+    try {
+      Files.createDirectories(directory);
+      recover();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open log store in " + directory + ": " + e.getMessage(), e);
+    }
+    this.compactor = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "cache-log-compactor");
+      thread.setDaemon(true);
+      return thread;
+    });
+    compactor.scheduleWithFixedDelay(this::compactQuietly,
+        COMPACTION_INTERVAL_MILLIS, COMPACTION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void store(K key, V value) {
+    byte[] record = encode(keySerializer.serialize(key), valueSerializer.serialize(value));
+    long sequence;
+    appendLock.lock();
+    try {
+      sequence = append(key, record, null);
+    } finally {
+      appendLock.unlock();
+    }
+    awaitDurable(sequence);
+  }
+
+  /**
+   * Appends the whole batch under one lock acquisition and waits for a single fsync.
+   */
+  @Override
+  public void storeAll(Map<? extends K, ? extends V> entries) {
+    List<byte[]> records = new ArrayList<>(entries.size());
+    for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+      records.add(encode(keySerializer.serialize(entry.getKey()), valueSerializer.serialize(entry.getValue())));
+    }
+    long sequence = 0;
+    appendLock.lock();
+    try {
+      int i = 0;
+      for (K key : entries.keySet()) {
+        sequence = append(key, records.get(i++), null);
+      }
+    } finally {
+      appendLock.unlock();
+    }
+    awaitDurable(sequence);
+  }
+
+  @Override
+  public V retrieve(K key) {
+    ByteBuffer value = retrieveBuffer(key);
+    return (value == null) ? null : valueSerializer.deserialize(value);
+  }
+
+  /**
+   * Returns a read-only view of the key's serialized value inside the mapped segment, or null if absent.
+   * Nothing is copied; the view stays valid even if the segment is later compacted away.
+   */
+  public ByteBuffer retrieveBuffer(K key) {
+    while (true) {
+      Long location = index.get(key);
+      if (location == null) {
+        return null;
+      }
+      Segment segment = segments.get(segmentId(location));
+      if (segment != null) {
+        int offset = offset(location);
+        int keyLength = segment.buffer.getInt(offset + 4);
+        int valueLength = segment.buffer.getInt(offset + 8);
+        return segment.buffer.slice(offset + HEADER_SIZE + keyLength, valueLength).asReadOnlyBuffer();
+      }
+      // The segment was compacted after we read the index; the index already points at the copy.
+    }
+  }
+
+  /**
+   * Returns the number of keys in the store.
+   */
+  public int size() {
+    return index.size();
+  }
+
+  /**
+   * Rewrites every sealed segment whose dead fraction has reached the threshold, then deletes it.
+   * Runs periodically in the background; callable directly, e.g. before taking a backup.
+   */
+  public void compact() {
+    maintenanceLock.lock();
+    try {
+      for (Segment segment : segments.values()) {
+        if (segment.sealed && segment.deadBytes.get() >= segment.position * COMPACTION_THRESHOLD) {
+          compact(segment);
+        }
+      }
+    } finally {
+      maintenanceLock.unlock();
+    }
+  }
+
+  /**
+   * Stops compaction and flushes the active segment. Further writes fail.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    compactor.shutdown();
+    try {
+      compactor.awaitTermination(COMPACTION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    appendLock.lock();
+    try {
+      for (Segment segment : segments.values()) {
+        if (!segment.sealed) {
+          segment.buffer.force();
+        }
+        segment.channel.close();
+      }
+    } catch (IOException e) {
+      logger.severe("Failed to close log store: " + e.getMessage());
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  /**
+   * Appends an encoded record and points the index at it. With expected non-null the record is a
+   * compaction copy and is only appended if the key still lives at the expected location.
+   * Returns the append sequence to wait on, or 0 if nothing was appended. Caller holds appendLock.
+   */
+  private long append(K key, byte[] record, Long expected) {
+    if (closed) {
+      throw new IllegalStateException("Log store is closed.");
+    }
+    if (expected != null && !expected.equals(index.get(key))) {
+      return 0; // Overwritten since compaction read it.
+    }
+    if (record.length > segmentSize) {
+      throw new IllegalArgumentException("Record of " + record.length + " bytes exceeds the segment size.");
+    }
+    if (active.position + record.length > active.capacity) {
+      roll();
+    }
+    int offset = active.position;
+    active.buffer.put(offset, record);
+    active.position += record.length;
+    Long previous = index.put(key, location(active.id, offset));
+    if (previous != null) {
+      markDead(previous);
+    }
+    return ++appendedSequence;
+  }
+
+  /**
+   * Seals the full active segment and starts a new one. Caller holds appendLock.
+   */
+  private void roll() {
+    Segment sealed = active;
+    sealed.buffer.force(); // Appends counted as durable by the next sync may live in this segment.
+    sealed.sealed = true;
+    active = openSegment(sealed.id + 1, true);
+    segments.put(active.id, active);
+    compactor.execute(() -> writeHints(sealed));
+  }
+
+  /**
+   * Blocks until the given append is on disk. The first waiter runs fsync for everything appended so far;
+   * waiters arriving meanwhile are covered by the next one.
+   */
+  private void awaitDurable(long sequence) {
+    syncLock.lock();
+    try {
+      while (durableSequence < sequence) {
+        if (syncing) {
+          synced.awaitUninterruptibly();
+          continue;
+        }
+        syncing = true;
+        syncLock.unlock();
+        long target = -1;
+        try {
+          target = forceActive();
+        } finally {
+          syncLock.lock();
+          syncing = false;
+          durableSequence = Math.max(durableSequence, target);
+          synced.signalAll();
+        }
+      }
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  private long forceActive() {
+    Segment segment;
+    long target;
+    appendLock.lock();
+    try {
+      segment = active;
+      target = appendedSequence;
+    } finally {
+      appendLock.unlock();
+    }
+    segment.buffer.force(); // Earlier segments were forced when they were sealed.
+    return target;
+  }
+
+  private void markDead(long location) {
+    Segment segment = segments.get(segmentId(location));
+    if (segment != null) {
+      segment.deadBytes.addAndGet(recordLength(segment.buffer, offset(location)));
+    }
+  }
+
+  private void compactQuietly() {
+    try {
+      compact();
+    } catch (RuntimeException e) {
+      logger.severe("Log compaction failed: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Copies the segment's live records to the active segment, waits for them to be durable and deletes it.
+   */
+  private void compact(Segment segment) {
+    long sequence = 0;
+    int offset = 0;
+    while (offset < segment.position) {
+      int length = recordLength(segment.buffer, offset);
+      long location = location(segment.id, offset);
+      K key = readKey(segment.buffer, offset);
+      if (Long.valueOf(location).equals(index.get(key))) {
+        byte[] record = new byte[length];
+        segment.buffer.get(offset, record);
+        appendLock.lock();
+        try {
+          sequence = Math.max(sequence, append(key, record, location));
+        } finally {
+          appendLock.unlock();
+        }
+      }
+      offset += length;
+    }
+    awaitDurable(sequence);
+    segments.remove(segment.id);
+    try {
+      segment.channel.close();
+      Files.deleteIfExists(hintsFile(segment.id));
+      Files.deleteIfExists(segmentFile(segment.id));
+    } catch (IOException e) {
+      logger.warning("Failed to delete compacted segment " + segment.id + ": " + e.getMessage());
+    }
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine("Compacted segment " + segment.id + ".");
+    }
+  }
+
+  /**
+   * Rebuilds the index from the segments on disk, oldest first, so later records win.
+   */
+  private void recover() throws IOException {
+    TreeMap<Integer, Path> files = new TreeMap<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+      for (Path file : stream) {
+        String name = file.getFileName().toString();
+        files.put(Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), file);
+      }
+    }
+    for (int id : files.keySet()) {
+      Segment segment = openSegment(id, false);
+      segments.put(id, segment);
+      if (!loadHints(segment)) {
+        scan(segment);
+      }
+    }
+    Segment last = segments.isEmpty() ? null : segments.lastEntry().getValue();
+    for (Segment segment : segments.values()) {
+      segment.sealed = segment.sealed || segment != last; // Only the newest segment can still take appends.
+    }
+    if (last != null && !last.sealed && last.capacity - last.position >= HEADER_SIZE) {
+      active = last;
+    } else {
+      if (last != null) {
+        last.sealed = true;
+      }
+      active = openSegment(last == null ? 1 : last.id + 1, true);
+      segments.put(active.id, active);
+    }
+    for (Segment segment : segments.values()) {
+      if (segment.sealed && !Files.exists(hintsFile(segment.id))) {
+        writeHints(segment); // Sealed by a previous run that stopped before writing them.
+      }
+    }
+  }
+
+  /**
+   * Indexes the segment's records by reading them, stopping at the first torn or empty one.
+   */
+  private void scan(Segment segment) {
+    int offset = 0;
+    while (offset + HEADER_SIZE <= segment.capacity) {
+      int keyLength = segment.buffer.getInt(offset + 4);
+      int valueLength = segment.buffer.getInt(offset + 8);
+      long length = (long) HEADER_SIZE + keyLength + valueLength;
+      if (keyLength < 0 || valueLength < 0 || offset + length > segment.capacity
+          || segment.buffer.getInt(offset) != checksum(segment.buffer, offset, (int) length)) {
+        break;
+      }
+      index(readKey(segment.buffer, offset), location(segment.id, offset));
+      offset += (int) length;
+    }
+    segment.position = offset;
+  }
+
+  /**
+   * Indexes the segment from its hints file. Returns false if there is none.
+   */
+  private boolean loadHints(Segment segment) throws IOException {
+    Path hints = hintsFile(segment.id);
+    if (!Files.exists(hints)) {
+      return false;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(hints)))) {
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        int offset = in.readInt();
+        byte[] key = new byte[in.readInt()];
+        in.readFully(key);
+        index(keySerializer.deserialize(key), location(segment.id, offset));
+      }
+      segment.position = in.readInt();
+    }
+    segment.sealed = true;
+    return true;
+  }
+
+  /**
+   * Writes the offsets and keys of every record in the sealed segment, through a temporary file so a
+   * crash never leaves a partial hints file behind.
+   */
+  private void writeHints(Segment segment) {
+    Path hints = hintsFile(segment.id);
+    Path temporary = directory.resolve(segment.id + HINTS_SUFFIX + ".tmp");
+    maintenanceLock.lock();
+    try {
+      if (!segments.containsKey(segment.id)) {
+        return; // Already compacted away.
+      }
+      List<Integer> offsets = new ArrayList<>();
+      for (int offset = 0; offset < segment.position; offset += recordLength(segment.buffer, offset)) {
+        offsets.add(offset);
+      }
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+        out.writeInt(offsets.size());
+        for (int offset : offsets) {
+          int keyLength = segment.buffer.getInt(offset + 4);
+          byte[] key = new byte[keyLength];
+          segment.buffer.get(offset + HEADER_SIZE, key);
+          out.writeInt(offset);
+          out.writeInt(keyLength);
+          out.write(key);
+        }
+        out.writeInt(segment.position);
+      }
+      Files.move(temporary, hints, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.warning("Failed to write hints for segment " + segment.id + ": " + e.getMessage());
+    } finally {
+      maintenanceLock.unlock();
+    }
+  }
+
+  private void index(K key, long location) {
+    Long previous = index.put(key, location);
+    if (previous != null) {
+      markDead(previous);
+    }
+  }
+
+  private Segment openSegment(int id, boolean create) {
+    Path file = segmentFile(id);
+    try {
+      FileChannel channel = create
+          ? FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+          : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      int capacity = create ? segmentSize : (int) Math.min(channel.size(), Integer.MAX_VALUE);
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+      return new Segment(id, channel, buffer, capacity);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open segment " + file + ": " + e.getMessage(), e);
+    }
+  }
+
+  private K readKey(ByteBuffer buffer, int offset) {
+    int keyLength = buffer.getInt(offset + 4);
+    return keySerializer.deserialize(buffer.slice(offset + HEADER_SIZE, keyLength));
+  }
+
+  private Path segmentFile(int id) {
+    return directory.resolve(String.format("%010d%s", id, SEGMENT_SUFFIX));
+  }
+
+  private Path hintsFile(int id) {
+    return directory.resolve(String.format("%010d%s", id, HINTS_SUFFIX));
+  }
+
+  private static byte[] encode(byte[] key, byte[] value) {
+    ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + key.length + value.length);
+    record.putInt(0).putInt(key.length).putInt(value.length).put(key).put(value);
+    record.putInt(0, checksum(record, 0, record.capacity()));
+    return record.array();
+  }
+
+  private static int checksum(ByteBuffer buffer, int offset, int length) {
+    CRC32 crc = new CRC32();
+    crc.update(buffer.slice(offset + 4, length - 4));
+    return (int) crc.getValue();
+  }
+
+  private static int recordLength(ByteBuffer buffer, int offset) {
+    return HEADER_SIZE + buffer.getInt(offset + 4) + buffer.getInt(offset + 8);
+  }
+
+  private static long location(int segmentId, int offset) {
+    return ((long) segmentId << 32) | (offset & 0xFFFFFFFFL);
+  }
+
+  private static int segmentId(long location) {
+    return (int) (location >>> 32);
+  }
+
+  private static int offset(long location) {
+    return (int) location;
+  }
+
+  private static final class Segment {
+    private final int id;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final AtomicLong deadBytes; // Bytes of records superseded by later writes.
+    private volatile int position; // End of the last record; advanced under appendLock.
+    private volatile boolean sealed; // Full; no longer appended to.
+
+    Segment(int id, FileChannel channel, MappedByteBuffer buffer, int capacity) {
+      this.id = id;
+      this.channel = channel;
+      this.buffer = buffer;
+      this.capacity = capacity;
+      this.deadBytes = new AtomicLong();
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package com.cache.store;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter that grows with the number of keys added (Almeida et al., "Scalable Bloom Filters").
+ * Keys go into the newest of a series of filters; when it holds as many keys as it was sized for, a new
+ * one twice as large with half the false positive rate is started. The rates form a geometric series, so
+ * the chance that a key never added is reported present stays below the rate asked for however many keys
+ * arrive. Keys cannot be removed.
+ *
+ * Thread-safe: bits are set with atomic ORs and readers never lock.
+ */
+public final class ScalableBloomFilter<K> {
+  private static final int GROWTH = 2; // Each filter is sized for this many times the keys of the last one.
+  private static final double TIGHTENING = 0.5; // Each filter's false positive rate relative to the last one.
+  private static final int MAXIMUM_BITS_LOG2 = 36; // 8 GB of bits; larger filters are not started.
+
+  private final double falsePositiveRate;
+  private volatile Stage[] stages; // Oldest first; only the last one takes new keys.
+
+  /**
+   * Creates a filter whose first stage is sized for initialCapacity keys, with an overall false positive
+   * rate below falsePositiveRate.
+   */
+  public ScalableBloomFilter(int initialCapacity, double falsePositiveRate) {
+    if (initialCapacity <= 0) {
+      throw new IllegalArgumentException("Initial capacity must be > 0.");
+    }
+    if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+      throw new IllegalArgumentException("False positive rate must be between 0 and 1.");
+    }
+    this.falsePositiveRate = falsePositiveRate;
+    this.stages = new Stage[] {new Stage(initialCapacity, falsePositiveRate * (1 - TIGHTENING))};
+  }
+
+  /**
+   * Returns false if the key was certainly never added, and true if it probably was.
+   */
+  public boolean mightContain(K key) {
+    long hash = hash(key);
+    for (Stage stage : stages) {
+      if (stage.mightContain(hash)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public void add(K key) {
+    long hash = hash(key);
+    Stage[] current = stages;
+    for (Stage stage : current) {
+      if (stage.mightContain(hash)) {
+        return; // Already counted; adding it again would only fill the newest stage faster.
+      }
+    }
+    Stage newest = current[current.length - 1];
+    newest.add(hash);
+    if (newest.count.incrementAndGet() == newest.capacity) {
+      grow(newest);
+    }
+  }
+
+  /**
+   * Returns the number of distinct keys added, less the few taken for keys already present by mistake.
+   */
+  public long approximateSize() {
+    long size = 0;
+    for (Stage stage : stages) {
+      size += stage.count.get();
+    }
+    return size;
+  }
+
+  public int stageCount() {
+    return stages.length;
+  }
+
+  public double getFalsePositiveRate() {
+    return falsePositiveRate;
+  }
+
+  private synchronized void grow(Stage full) {
+    Stage[] current = stages;
+    if (current[current.length - 1] != full) {
+      return;
+    }
+    long capacity = Math.min((long) full.capacity * GROWTH, Integer.MAX_VALUE);
+    Stage[] grown = new Stage[current.length + 1];
+    System.arraycopy(current, 0, grown, 0, current.length);
+    grown[current.length] = new Stage((int) capacity, full.falsePositiveRate * TIGHTENING);
+    stages = grown;
+  }
+
+  /**
+   * Hashes the key to 64 bits. Strings are hashed over their characters (FNV-1a) and longs are taken
+   * whole, so keys of either kind that share a hash code still set different bits. Other keys are hashed
+   * from their 32-bit hash code alone: keys with equal hash codes always collide, which puts a floor of
+   * about n / 2^32 under the false positive rate for n such keys added.
+   */
+  private static long hash(Object key) {
+    long hash;
+    if (key instanceof String) {
+      String string = (String) key;
+      hash = 0xcbf29ce484222325L;
+      for (int i = 0; i < string.length(); i++) {
+        hash ^= string.charAt(i);
+        hash *= 0x100000001b3L;
+      }
+    } else if (key instanceof Long) {
+      hash = (Long) key;
+    } else {
+      hash = key.hashCode();
+    }
+    hash ^= hash >>> 33; // MurmurHash3 finalizer, spreading the bits for the probes.
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    return hash ^ (hash >>> 33);
+  }
+
+  /**
+   * A plain Bloom filter of 2^n bits sized for a fixed number of keys.
+   */
+  private static final class Stage {
+    private final AtomicLongArray words;
+    private final long bitMask;
+    private final int hashCount;
+    private final int capacity; // Keys this stage takes before the next one starts.
+    private final double falsePositiveRate;
+    private final AtomicInteger count = new AtomicInteger();
+
+    Stage(int capacity, double falsePositiveRate) {
+      // Optimal bits per key are -ln(p) / ln(2)^2, and hashes per key ln(2) times that.
+      double bitsPerKey = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+      long bits = Math.max(64, (long) Math.ceil(capacity * bitsPerKey));
+      int log2 = Math.min(MAXIMUM_BITS_LOG2, 64 - Long.numberOfLeadingZeros(bits - 1));
+      this.words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, (1L << log2) >>> 6));
+      this.bitMask = ((long) words.length() << 6) - 1;
+      this.hashCount = Math.max(1, (int) Math.round(bitsPerKey * Math.log(2)));
+      this.capacity = capacity;
+      this.falsePositiveRate = falsePositiveRate;
+    }
+
+    boolean mightContain(long hash) {
+      long h1 = hash;
+      long h2 = Long.rotateLeft(hash, 32) | 1; // Odd, so the probes cover the whole power-of-two table.
+      for (int i = 0; i < hashCount; i++) {
+        long bit = (h1 + i * h2) & bitMask;
+        if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    void add(long hash) {
+      long h1 = hash;
+      long h2 = Long.rotateLeft(hash, 32) | 1;
+      for (int i = 0; i < hashCount; i++) {
+        long bit = (h1 + i * h2) & bitMask;
+        int index = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long word = words.get(index);
+        while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+          word = words.get(index);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.cache.time;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ticker whose time only moves when advanced explicitly. Intended for tests and simulations.
+ */
+public class FakeTicker implements Ticker {
+  private final AtomicLong nanos = new AtomicLong();
+
+  @Override
+  public long read() {
+    return nanos.get();
+  }
+
+  public FakeTicker advance(Duration duration) {
+    nanos.addAndGet(duration.toNanos());
+    return this;
+  }
+
+  public FakeTicker setNanos(long value) {
+    nanos.set(value);
+    return this;
+  }
+}
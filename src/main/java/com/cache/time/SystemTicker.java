@@ -0,0 +1,13 @@
+package com.cache.time;
+
+/**
+ * Ticker backed by {@link System#nanoTime()}.
+ */
+enum SystemTicker implements Ticker {
+  INSTANCE;
+
+  @Override
+  public long read() {
+    return System.nanoTime();
+  }
+}
@@ -0,0 +1,21 @@
+package com.cache.time;
+
+/**
+ * Source of nanosecond-precision time for measuring elapsed time, not wall-clock time.
+ * Abstracted so that tests and simulations can control the passage of time.
+ */
+@FunctionalInterface
+public interface Ticker {
+
+  /**
+   * Returns the number of nanoseconds elapsed since a fixed but arbitrary point in time.
+   */
+  long read();
+
+  /**
+   * Returns a ticker backed by {@link System#nanoTime()}.
+   */
+  static Ticker systemTicker() {
+    return SystemTicker.INSTANCE;
+  }
+}
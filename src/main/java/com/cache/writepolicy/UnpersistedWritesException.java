@@ -0,0 +1,27 @@
+package com.cache.writepolicy;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Thrown when a flush gives up on writes the backing store kept rejecting. The writes are not lost yet:
+ * they stay pending in the policy, and the keys are reported so the caller can retry or record them.
+ */
+public class UnpersistedWritesException extends RuntimeException {
+  private static final int KEYS_IN_MESSAGE = 10;
+
+  private final List<Object> keys;
+
+  public UnpersistedWritesException(Collection<?> keys) {
+    super("Failed to persist " + keys.size() + " writes, keys "
+        + keys.stream().limit(KEYS_IN_MESSAGE).toList() + (keys.size() > KEYS_IN_MESSAGE ? "..." : ""));
+    this.keys = List.copyOf(keys);
+  }
+
+  /**
+   * Returns the keys whose latest writes are not in the store.
+   */
+  public List<Object> getKeys() {
+    return keys;
+  }
+}
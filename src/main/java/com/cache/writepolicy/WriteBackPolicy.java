@@ -1,24 +1,51 @@
 package com.cache.writepolicy;
 
 import com.cache.store.BackingStore;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Write-Back Policy: Writes to the backing store only when the cache evicts an entry.
+ * Only entries written since they were cached are stored; clean entries are dropped on eviction.
  */
 public class WriteBackPolicy<K, V> implements WritePolicy<K, V> {
   private final BackingStore<K, V> backingStore;
+  private final Set<K> dirtyKeys; // Keys written to the cache but not yet to the store.
 
   public WriteBackPolicy(BackingStore<K, V> backingStore) {
     this.backingStore = backingStore;
+    this.dirtyKeys = ConcurrentHashMap.newKeySet();
   }
 
   @Override
   public void handleWrite(K key, V value) {
-    // No immediate write to backing store (data is kept in cache).
+    dirtyKeys.add(key); // No immediate write to backing store (data is kept in cache).
   }
 
   @Override
   public void handleEviction(K key, V value) {
-    backingStore.store(key, value); // Write to backing store only on eviction.
+    if (dirtyKeys.remove(key)) {
+      backingStore.store(key, value); // Write to backing store only on eviction of a modified entry.
+    }
+  }
+
+  @Override
+  public boolean isDirty(K key) {
+    return dirtyKeys.contains(key);
+  }
+
+  @Override
+  public void handleEvictionAll(Map<? extends K, ? extends V> entries) {
+    Map<K, V> modified = new HashMap<>(entries.size() * 2);
+    for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+      if (dirtyKeys.remove(entry.getKey())) {
+        modified.put(entry.getKey(), entry.getValue());
+      }
+    }
+    if (!modified.isEmpty()) {
+      backingStore.storeAll(modified); // One batched write for all modified evictions.
+    }
   }
 }
@@ -0,0 +1,235 @@
+package com.cache.writepolicy;
+
+import com.cache.store.BackingStore;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Write-Behind Policy: Records writes as dirty and persists them asynchronously in batches.
+ * Repeated writes to a key before it is flushed are coalesced into one store of the latest value.
+ * A background flusher writes a batch once it holds batchSize keys or the oldest key has waited
+ * maxDelay, retrying failures with exponential backoff. Writers only block when the bounded queue of
+ * dirty keys is full. {@link #flush()} and {@link #close()} persist everything still pending, and throw
+ * {@link UnpersistedWritesException} naming the keys the store kept rejecting.
+ */
+public class WriteBehindPolicy<K, V> implements WritePolicy<K, V> {
+  private static final Logger logger = Logger.getLogger(WriteBehindPolicy.class.getName());
+  private static final int MAX_ATTEMPTS = 5; // Store attempts per batch before re-queueing failures.
+  private static final long INITIAL_BACKOFF_MILLIS = 50;
+  private static final long MAX_BACKOFF_MILLIS = 5_000;
+  private static final long CLOSE_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100); // Longest wait before noticing close().
+
+  private final BackingStore<K, V> backingStore;
+  private final ConcurrentHashMap<K, V> dirty; // Latest unflushed value per key.
+  private final ConcurrentHashMap<K, V> flushing; // Values taken for a batch but not yet stored.
+  private final BlockingQueue<K> flushQueue; // Dirty keys in the order they first became dirty.
+  private final int batchSize; // Maximum keys per batch.
+  private final long maxDelayNanos; // Maximum time a batch waits to fill up.
+  private final ReentrantLock flushLock; // Serializes batch writes between the flusher and flush().
+  private final Thread flusher;
+  private volatile boolean closed;
+
+  public WriteBehindPolicy(BackingStore<K, V> backingStore) {
+    this(backingStore, 100, 1_000, 10_000);
+  }
+
+  public WriteBehindPolicy(BackingStore<K, V> backingStore, int batchSize, long maxDelayMillis, int queueCapacity) {
+    if (batchSize <= 0 || maxDelayMillis <= 0 || queueCapacity <= 0) {
+      throw new IllegalArgumentException("Batch size, delay and queue capacity must be > 0.");
+    }
+    this.backingStore = backingStore;
+    this.dirty = new ConcurrentHashMap<>();
+    this.flushing = new ConcurrentHashMap<>();
+    this.flushQueue = new ArrayBlockingQueue<>(queueCapacity);
+    this.batchSize = batchSize;
+    this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+    this.flushLock = new ReentrantLock();
+    this.flusher = new Thread(this::runFlusher, "cache-write-behind");
+    this.flusher.setDaemon(true);
+    this.flusher.start();
+  }
+
+  @Override
+  public void handleWrite(K key, V value) {
+    if (closed) {
+      backingStore.store(key, value); // No flusher left; degrade to write-through.
+      return;
+    }
+    if (dirty.put(key, value) == null) {
+      enqueue(key); // Newly dirty; later writes before the flush just replace the value.
+    }
+  }
+
+  @Override
+  public void handleEviction(K key, V value) {
+    // Dirty entries are already queued; clean entries need no write.
+  }
+
+  @Override
+  public V pendingWrite(K key) {
+    V value = dirty.get(key);
+    return (value != null) ? value : flushing.get(key);
+  }
+
+  /**
+   * Synchronously persists every write recorded so far. Throws UnpersistedWritesException if the store
+   * still rejected some after retries; those stay dirty for a later flush.
+   */
+  public void flush() {
+    List<K> failed = new ArrayList<>();
+    flushLock.lock();
+    try {
+      flushQueue.clear(); // Every queued key is also in the dirty map, which is drained below.
+      List<K> keys = new ArrayList<>(dirty.keySet());
+      for (int from = 0; from < keys.size(); from += batchSize) {
+        failed.addAll(writeBatch(keys.subList(from, Math.min(from + batchSize, keys.size()))));
+      }
+    } finally {
+      flushLock.unlock();
+    }
+    if (!failed.isEmpty()) {
+      throw new UnpersistedWritesException(failed);
+    }
+  }
+
+  /**
+   * Stops the flusher and persists everything still pending. Later writes go straight to the store.
+   * Throws UnpersistedWritesException naming the keys whose writes could not be persisted.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    try {
+      flusher.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    flush();
+    logger.info("Write-behind flusher shut down.");
+  }
+
+  /**
+   * Queues a newly dirty key for the flusher. If the writer is interrupted while the queue is full, the
+   * key stays dirty without a queue entry: the flusher never sees it, and it is persisted by the next
+   * {@link #flush()} or {@link #close()} instead.
+   */
+  private void enqueue(K key) {
+    try {
+      flushQueue.put(key); // Blocks when the queue is full: backpressure on writers.
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.warning("Interrupted while queueing key '" + key + "'; it is persisted by the next flush.");
+    }
+  }
+
+  private void runFlusher() {
+    List<K> batch = new ArrayList<>(batchSize);
+    while (!closed) {
+      try {
+        K first = flushQueue.poll(CLOSE_CHECK_NANOS, TimeUnit.NANOSECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + maxDelayNanos;
+        long remaining = maxDelayNanos;
+        while (batch.size() < batchSize && remaining > 0 && !closed) {
+          K next = flushQueue.poll(Math.min(remaining, CLOSE_CHECK_NANOS), TimeUnit.NANOSECONDS);
+          if (next != null) {
+            batch.add(next);
+          }
+          remaining = deadline - System.nanoTime();
+        }
+        flushLock.lock();
+        try {
+          writeBatch(batch);
+        } finally {
+          flushLock.unlock();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        logger.severe("Write-behind flusher failed: " + e.getMessage());
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Stores the current dirty values of the given keys in one batch, retrying with backoff, and returns the
+   * keys that still failed, which are dirty again. Caller holds flushLock.
+   */
+  private List<K> writeBatch(List<K> keys) {
+    Map<K, V> batch = new LinkedHashMap<>();
+    for (K key : keys) {
+      V value = dirty.get(key); // Null if an earlier batch or flush() already took it.
+      while (value != null) {
+        flushing.put(key, value); // Visible to pendingWrite before it leaves the dirty map.
+        if (dirty.remove(key, value)) {
+          batch.put(key, value);
+          break;
+        }
+        value = dirty.get(key); // Replaced by a newer write meanwhile; take that one.
+      }
+    }
+
+    long backoff = INITIAL_BACKOFF_MILLIS;
+    for (int attempt = 1; !batch.isEmpty(); attempt++) {
+      storeAll(batch);
+      if (batch.isEmpty() || attempt == MAX_ATTEMPTS || !sleep(backoff)) {
+        break;
+      }
+      logger.warning("Retrying " + batch.size() + " failed write-behind stores (attempt " + attempt + ")");
+      backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+    }
+
+    List<K> failedKeys = new ArrayList<>(batch.size());
+    for (Map.Entry<K, V> failed : batch.entrySet()) {
+      // Give up for now, unless a newer write already superseded this value.
+      K key = failed.getKey();
+      failedKeys.add(key);
+      boolean requeue = dirty.putIfAbsent(key, failed.getValue()) == null; // Before leaving flushing, so reads see it.
+      flushing.remove(key, failed.getValue());
+      if (requeue && !flushQueue.offer(key)) {
+        logger.severe("Write-behind queue full; key '" + key + "' stays dirty until the next flush.");
+      }
+    }
+    return failedKeys;
+  }
+
+  /**
+   * Stores the batch with one storeAll call, clearing it on success.
+   */
+  private void storeAll(Map<K, V> batch) {
+    try {
+      backingStore.storeAll(batch);
+    } catch (RuntimeException e) {
+      logger.warning("Failed to write " + batch.size() + " keys to backing store: " + e.getMessage());
+      return;
+    }
+    for (Map.Entry<K, V> stored : batch.entrySet()) {
+      flushing.remove(stored.getKey(), stored.getValue());
+    }
+    batch.clear();
+  }
+
+  private static boolean sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -1,10 +1,53 @@
 package com.cache.writepolicy;
 
+import java.util.Map;
+
 /**
  * Interface for write policies.
  * Defines how changes to cached data are propagated to the backing store.
  */
-public interface WritePolicy<K, V> {
+public interface WritePolicy<K, V> extends AutoCloseable {
   void handleWrite(K key, V value);
   void handleEviction(K key, V value);
+
+  /**
+   * Handles a batch of writes. Policies that can propagate a batch at once should override the per-key fallback.
+   */
+  default void handleWriteAll(Map<? extends K, ? extends V> entries) {
+    for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+      handleWrite(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Handles a batch of evictions. Policies that can propagate a batch at once should override the per-key fallback.
+   */
+  default void handleEvictionAll(Map<? extends K, ? extends V> entries) {
+    for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+      handleEviction(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Returns a value written to the cache but not yet persisted, or null.
+   * Lets a cache miss read its own writes while they are still queued.
+   */
+  default V pendingWrite(K key) {
+    return null;
+  }
+
+  /**
+   * Returns true if the cached value of the key has not been persisted yet, so reloading it from the
+   * store would lose the write.
+   */
+  default boolean isDirty(K key) {
+    return pendingWrite(key) != null;
+  }
+
+  /**
+   * Persists any queued writes and releases resources. Policies that write synchronously have nothing to do.
+   */
+  @Override
+  default void close() {
+  }
 }
@@ -1,6 +1,7 @@
 package com.cache.writepolicy;
 
 import com.cache.store.BackingStore;
+import java.util.Map;
 
 /**
  * Write-Through Policy: Writes to the backing store immediately whenever the cache is updated.
@@ -17,6 +18,11 @@ public class WriteThroughPolicy<K, V> implements WritePolicy<K, V> {
     backingStore.store(key, value); // Immediately writes to the backing store.
   }
 
+  @Override
+  public void handleWriteAll(Map<? extends K, ? extends V> entries) {
+    backingStore.storeAll(entries); // One batched write for the whole batch.
+  }
+
   @Override
   public void handleEviction(K key, V value) {
     // No additional handling for eviction since data is already in the backing store.
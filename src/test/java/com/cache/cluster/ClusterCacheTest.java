@@ -0,0 +1,239 @@
+package com.cache.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cache.exceptions.CacheException;
+import com.cache.expiration.CreationBasedExpiration;
+import com.cache.policies.ConcurrentLRUCacheEvictionPolicy;
+import com.cache.server.RemoteCache;
+import com.cache.server.RespServer;
+import com.cache.services.Cache;
+import com.cache.services.CacheService;
+import com.cache.store.InMemoryBackingStore;
+import com.cache.writepolicy.WriteThroughPolicy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ClusterCacheTest {
+  @Test
+  void addingANodeMovesOnlyItsShareOfTheKeys() {
+    HashRing<String> ring = new HashRing<>(128);
+    for (int i = 0; i < 4; i++) {
+      ring = ring.withNode("node-" + i, "node-" + i);
+    }
+    HashRing<String> grown = ring.withNode("node-4", "node-4");
+
+    int moved = 0;
+    for (int i = 0; i < 20_000; i++) {
+      String key = "key-" + i;
+      if (!ring.ownerOf(key).equals(grown.ownerOf(key))) {
+        assertEquals("node-4", grown.ownerOf(key)); // Keys only move to the new node.
+        moved++;
+      }
+    }
+    double movedFraction = ring.movedFraction(grown);
+    assertEquals(0.2, movedFraction, 0.05);
+    assertEquals(movedFraction, moved / 20_000.0, 0.02);
+    assertEquals(movedFraction, grown.movedFraction(ring), 1e-9); // Removing it moves the same keys back.
+  }
+
+  @Test
+  void routesKeysToTheirOwnersWithOneBatchPerNode() throws CacheException {
+    Map<String, CacheService<String, String>> nodes = nodes(3);
+    try (ClusterCache<String, String> cluster = new ClusterCache<>(nodes)) {
+      Map<String, String> entries = new HashMap<>();
+      for (int i = 0; i < 300; i++) {
+        entries.put("key-" + i, "value-" + i);
+      }
+      cluster.putAll(entries);
+      cluster.put("single", "one");
+
+      for (Map.Entry<String, CacheService<String, String>> node : nodes.entrySet()) {
+        for (String key : entries.keySet()) {
+          boolean owned = cluster.ring().ownerNameOf(key).equals(node.getKey());
+          assertEquals(owned, isCached(node.getValue(), key));
+        }
+      }
+      assertEquals(301, cluster.size());
+      assertEquals(entries, cluster.getAll(entries.keySet()));
+      assertEquals("one", cluster.get("single"));
+
+      cluster.remove("single");
+      assertFalse(isCached(cluster, "single"));
+      assertThrows(CacheException.class, () -> cluster.get("missing"));
+      assertEquals(301, cluster.stats().hitCount());
+      assertEquals(1, cluster.stats().missCount());
+    }
+  }
+
+  @Test
+  void movesKeysLazilyAndInvalidatesTheirPreviousOwner() throws CacheException {
+    Map<String, CacheService<String, String>> nodes = nodes(3);
+    try (ClusterCache<String, String> cluster = new ClusterCache<>(nodes)) {
+      for (int i = 0; i < 1_000; i++) {
+        cluster.put("key-" + i, "value-" + i);
+      }
+      HashRing<Cache<String, String>> before = cluster.ring();
+      CacheService<String, String> added = node();
+      cluster.addNode("node-3", added);
+      assertTrue(cluster.isRebalancing());
+
+      List<String> movedKeys = new ArrayList<>();
+      for (int i = 0; i < 1_000; i++) {
+        if (cluster.ring().ownerOf("key-" + i) == added) {
+          movedKeys.add("key-" + i);
+        }
+      }
+      assertTrue(movedKeys.size() > 100, "moved " + movedKeys.size());
+
+      String read = movedKeys.get(0);
+      assertEquals(0, added.size());
+      assertEquals("value-" + read.substring(4), cluster.get(read)); // Falls back to the previous owner.
+      assertEquals(1, added.size());
+      assertFalse(isCached(before.ownerOf(read), read));
+
+      String written = movedKeys.get(1);
+      Cache<String, String> previousOwner = before.ownerOf(written);
+      cluster.put(written, "new");
+      assertFalse(isCached(previousOwner, written));
+      assertEquals("new", cluster.get(written));
+      assertEquals(1, cluster.invalidationCount());
+
+      Map<String, String> batch = cluster.getAll(movedKeys);
+      assertEquals(movedKeys.size(), batch.size());
+      assertEquals(movedKeys.size() - 1, cluster.migratedCount()); // All but the key written meanwhile.
+      assertEquals(movedKeys.size(), added.size());
+      assertEquals(1_000, cluster.size());
+
+      cluster.finishRebalance();
+      assertFalse(cluster.isRebalancing());
+      cluster.removeNode("node-0");
+      assertSame(nodes.get("node-1"), cluster.ring().nodes().get("node-1"));
+      for (int i = 0; i < 1_000; i++) {
+        assertEquals((i == Integer.parseInt(written.substring(4))) ? "new" : "value-" + i,
+            cluster.get("key-" + i));
+      }
+      cluster.finishRebalance();
+      assertEquals(0, nodes.get("node-0").size()); // Everything it held moved away.
+    }
+  }
+
+  @Test
+  void finishingARebalanceRemovesCopiesLeftOnFormerOwners() throws CacheException {
+    InMemoryBackingStore<String, String> store = new InMemoryBackingStore<>(); // Shared, like a database.
+    Map<String, CacheService<String, String>> nodes = new LinkedHashMap<>();
+    nodes.put("node-0", node(store));
+    nodes.put("node-1", node(store));
+    try (ClusterCache<String, String> cluster = new ClusterCache<>(nodes)) {
+      for (int i = 0; i < 200; i++) {
+        cluster.put("key-" + i, "v1");
+      }
+      CacheService<String, String> added = node(store);
+      cluster.addNode("node-2", added);
+      int moved = 0;
+      for (int i = 0; i < 200; i++) {
+        moved += (cluster.ring().ownerOf("key-" + i) == added) ? 1 : 0;
+      }
+      assertTrue(moved > 0);
+      cluster.finishRebalance(); // Nothing was read, so no key was moved.
+      assertEquals(200 - moved, cluster.size(), "Former owners kept copies of keys they gave up");
+      assertEquals(moved, cluster.invalidationCount());
+
+      for (int i = 0; i < 200; i++) {
+        cluster.put("key-" + i, "v2");
+      }
+      cluster.removeNode("node-2");
+      cluster.finishRebalance();
+      for (int i = 0; i < 200; i++) {
+        assertEquals("v2", cluster.get("key-" + i), "key-" + i);
+      }
+    }
+  }
+
+  @Test
+  void routesToNodesInOtherProcessesOverLoopback() throws Exception {
+    List<CacheService<String, byte[]>> caches = new ArrayList<>();
+    List<RespServer> servers = new ArrayList<>();
+    Map<String, Cache<String, byte[]>> nodes = new LinkedHashMap<>();
+    try {
+      for (int i = 0; i < 3; i++) {
+        InMemoryBackingStore<String, byte[]> store = new InMemoryBackingStore<>();
+        CacheService<String, byte[]> cache = new CacheService<>(1_000, 0, new ConcurrentLRUCacheEvictionPolicy<>(),
+            store, new WriteThroughPolicy<>(store), new CreationBasedExpiration<>(60));
+        caches.add(cache);
+        RespServer server = new RespServer(cache, new InetSocketAddress("127.0.0.1", 0), 1);
+        servers.add(server);
+        nodes.put("node-" + i, new RemoteCache(server.getLocalAddress()));
+      }
+      try (ClusterCache<String, byte[]> cluster = new ClusterCache<>(nodes)) {
+        Map<String, byte[]> entries = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+          entries.put("key-" + i, ("value-" + i).getBytes(StandardCharsets.UTF_8));
+        }
+        cluster.putAll(entries);
+        assertEquals(100, cluster.size());
+
+        Map<String, byte[]> found = cluster.getAll(entries.keySet());
+        assertEquals(100, found.size());
+        assertArrayEquals(entries.get("key-7"), found.get("key-7"));
+        assertArrayEquals(entries.get("key-8"), cluster.get("key-8"));
+        int onFirstNode = caches.get(0).size();
+        assertTrue(onFirstNode > 0 && onFirstNode < 100, "first node holds " + onFirstNode);
+
+        cluster.remove("key-8");
+        for (CacheService<String, byte[]> cache : caches) {
+          assertFalse(isCached(cache, "key-8"));
+        }
+        assertEquals(caches.get(0).keys(), nodes.get("node-0").keys()); // Listed over KEYS.
+        assertEquals(99, cluster.keys().size());
+      }
+    } finally {
+      for (RespServer server : servers) {
+        server.close();
+      }
+      for (CacheService<String, byte[]> cache : caches) {
+        cache.close();
+      }
+    }
+  }
+
+  /**
+   * Checks the node's cache itself, without reading through to its backing store.
+   */
+  private static <V> boolean isCached(Cache<String, V> node, String key) {
+    try {
+      node.getOrLoad(key, k -> null);
+      return true;
+    } catch (CacheException e) {
+      return false;
+    }
+  }
+
+  private static Map<String, CacheService<String, String>> nodes(int count) {
+    Map<String, CacheService<String, String>> nodes = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      nodes.put("node-" + i, node());
+    }
+    return nodes;
+  }
+
+  private static CacheService<String, String> node() {
+    return node(new InMemoryBackingStore<>());
+  }
+
+  private static CacheService<String, String> node(InMemoryBackingStore<String, String> store) {
+    return new CacheService<>(10_000, 0, new ConcurrentLRUCacheEvictionPolicy<>(), store,
+        new WriteThroughPolicy<>(store), new CreationBasedExpiration<>(60));
+  }
+}
@@ -0,0 +1,73 @@
+package com.cache.expiration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cache.models.CacheEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class TimerWheelTest {
+  private static final long START = TimeUnit.DAYS.toNanos(3);
+
+  @Test
+  void expiresEntriesOnlyOnceDue() {
+    TimerWheel<String, String> wheel = new TimerWheel<>(START);
+    CacheEntry<String, String> soon = entry("soon", START + TimeUnit.SECONDS.toNanos(2));
+    CacheEntry<String, String> later = entry("later", START + TimeUnit.MINUTES.toNanos(5));
+    CacheEntry<String, String> muchLater = entry("muchLater", START + TimeUnit.DAYS.toNanos(2));
+    wheel.schedule(soon);
+    wheel.schedule(later);
+    wheel.schedule(muchLater);
+
+    List<String> expired = new ArrayList<>();
+    wheel.advance(START + TimeUnit.SECONDS.toNanos(1), e -> expired.add(e.getKey()));
+    assertTrue(expired.isEmpty());
+
+    wheel.advance(START + TimeUnit.SECONDS.toNanos(3), e -> expired.add(e.getKey()));
+    assertEquals(List.of("soon"), expired);
+
+    for (long minute = 1; minute <= 6; minute++) { // Cascades "later" down from the minutes wheel.
+      wheel.advance(START + TimeUnit.MINUTES.toNanos(minute), e -> expired.add(e.getKey()));
+    }
+    assertEquals(List.of("soon", "later"), expired);
+
+    wheel.advance(START + TimeUnit.DAYS.toNanos(3), e -> expired.add(e.getKey()));
+    assertEquals(List.of("soon", "later", "muchLater"), expired);
+  }
+
+  @Test
+  void reschedulesEntriesWhoseDeadlineMovedLater() {
+    TimerWheel<String, String> wheel = new TimerWheel<>(START);
+    CacheEntry<String, String> touched = entry("touched", START + TimeUnit.SECONDS.toNanos(2));
+    wheel.schedule(touched);
+    touched.setExpirationTime(START + TimeUnit.SECONDS.toNanos(10)); // A read extended it.
+
+    List<String> expired = new ArrayList<>();
+    wheel.advance(START + TimeUnit.SECONDS.toNanos(5), e -> expired.add(e.getKey()));
+    assertTrue(expired.isEmpty());
+
+    wheel.advance(START + TimeUnit.SECONDS.toNanos(12), e -> expired.add(e.getKey()));
+    assertEquals(List.of("touched"), expired);
+  }
+
+  @Test
+  void descheduledEntriesNeverExpire() {
+    TimerWheel<String, String> wheel = new TimerWheel<>(START);
+    CacheEntry<String, String> removed = entry("removed", START + TimeUnit.SECONDS.toNanos(1));
+    wheel.schedule(removed);
+    wheel.deschedule(removed);
+
+    List<String> expired = new ArrayList<>();
+    wheel.advance(START + TimeUnit.MINUTES.toNanos(1), e -> expired.add(e.getKey()));
+    assertTrue(expired.isEmpty());
+  }
+
+  private static CacheEntry<String, String> entry(String key, long deadline) {
+    CacheEntry<String, String> entry = new CacheEntry<>(key, "value", START);
+    entry.setExpirationTime(deadline);
+    return entry;
+  }
+}
@@ -0,0 +1,65 @@
+package com.cache.offheap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SlabAllocatorTest {
+
+  @Test
+  void roundTripsBytesUntilFreed() {
+    SlabAllocator allocator = new SlabAllocator(4096, Long.MAX_VALUE);
+    byte[] bytes = {1, 2, 3, 4, 5};
+    SlabAllocator.Allocation allocation = allocator.allocate(bytes);
+
+    assertArrayEquals(bytes, allocator.read(allocation));
+    assertEquals(64, allocator.usedBytes());
+    allocator.free(allocation);
+    assertNull(allocator.read(allocation));
+    assertEquals(0, allocator.usedBytes());
+    allocator.free(allocation); // Double free is ignored.
+    assertEquals(0, allocator.usedBytes());
+  }
+
+  @Test
+  void freedAllocationNeverReadsItsSuccessor() {
+    SlabAllocator allocator = new SlabAllocator(4096, Long.MAX_VALUE);
+    SlabAllocator.Allocation first = allocator.allocate(new byte[] {1});
+    allocator.free(first);
+    SlabAllocator.Allocation second = allocator.allocate(new byte[] {2});
+
+    assertNull(allocator.read(first), "The chunk was reused; the stale record must not see the new bytes");
+    assertArrayEquals(new byte[] {2}, allocator.read(second));
+  }
+
+  @Test
+  void emptySlabsAreRecarvedForOtherSizeClasses() {
+    SlabAllocator allocator = new SlabAllocator(4096, 4 * 4096);
+    List<SlabAllocator.Allocation> small = new ArrayList<>();
+    SlabAllocator.Allocation allocation;
+    while ((allocation = allocator.allocate(new byte[20])) != null) {
+      small.add(allocation);
+    }
+    assertEquals(4 * 4096, allocator.reservedBytes());
+    assertNull(allocator.allocate(new byte[1000]), "Every slab is carved into small chunks");
+
+    for (SlabAllocator.Allocation freed : small) {
+      allocator.free(freed);
+    }
+    for (int i = 0; i < 4 * 4; i++) {
+      assertNotNull(allocator.allocate(new byte[1000]), "Emptied slabs must serve the larger size class");
+    }
+  }
+
+  @Test
+  void valuesLargerThanASlabAreRejected() {
+    SlabAllocator allocator = new SlabAllocator(4096, Long.MAX_VALUE);
+    assertNull(allocator.allocate(new byte[4096]));
+    assertEquals(0, allocator.reservedBytes());
+  }
+}
@@ -0,0 +1,115 @@
+package com.cache.policies;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentLRUCacheEvictionPolicyTest {
+
+  @Test
+  void evictsLeastRecentlyUsed() {
+    ConcurrentLRUCacheEvictionPolicy<String> policy = new ConcurrentLRUCacheEvictionPolicy<>();
+    policy.recordAccess("a");
+    policy.recordAccess("b");
+    policy.recordAccess("c");
+    policy.recordAccess("a");
+
+    assertEquals("b", policy.getEvictionCandidate());
+    policy.removeKey("b");
+    assertEquals("c", policy.getEvictionCandidate());
+  }
+
+  @Test
+  void emptyPolicyHasNoCandidate() {
+    assertNull(new ConcurrentLRUCacheEvictionPolicy<String>().getEvictionCandidate());
+  }
+
+  @Test
+  void removeThenAccessReaddsKey() {
+    ConcurrentLRUCacheEvictionPolicy<String> policy = new ConcurrentLRUCacheEvictionPolicy<>();
+    policy.recordAccess("a");
+    policy.removeKey("a");
+    policy.recordAccess("a");
+
+    assertEquals("a", policy.getEvictionCandidate());
+  }
+
+  @Test
+  void orderStaysConsistentUnderConcurrentAccess() throws Exception {
+    int threads = 8;
+    int keysPerThread = 500;
+    int sharedKeys = 64;
+    ConcurrentLRUCacheEvictionPolicy<Integer> policy = new ConcurrentLRUCacheEvictionPolicy<>();
+    for (int i = 0; i < sharedKeys; i++) {
+      policy.recordAccess(-1 - i);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Set<Integer>>> results = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int base = t * keysPerThread;
+      results.add(executor.submit(() -> {
+        // Each thread owns a key range it adds and removes, and hammers the shared keys with hits.
+        Set<Integer> live = new HashSet<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        start.await();
+        for (int i = 0; i < 20_000; i++) {
+          int op = random.nextInt(10);
+          if (op < 6) {
+            policy.recordAccess(-1 - random.nextInt(sharedKeys));
+          } else if (op < 9) {
+            int key = base + random.nextInt(keysPerThread);
+            policy.recordAccess(key);
+            live.add(key);
+          } else {
+            int key = base + random.nextInt(keysPerThread);
+            policy.removeKey(key);
+            live.remove(key);
+          }
+          if (random.nextInt(1000) == 0) {
+            policy.getEvictionCandidate();
+          }
+        }
+        return live;
+      }));
+    }
+    start.countDown();
+
+    Set<Integer> expected = new HashSet<>();
+    for (int i = 0; i < sharedKeys; i++) {
+      expected.add(-1 - i);
+    }
+    for (Future<Set<Integer>> result : results) {
+      expected.addAll(result.get());
+    }
+    executor.shutdown();
+
+    // Re-touch every key in a known order; the policy must then evict in exactly that order.
+    List<Integer> order = new ArrayList<>(expected);
+    Collections.shuffle(order);
+    for (Integer key : order) {
+      policy.recordAccess(key);
+    }
+    List<Integer> evicted = new ArrayList<>();
+    Integer candidate;
+    while ((candidate = policy.getEvictionCandidate()) != null) {
+      evicted.add(candidate);
+      policy.removeKey(candidate);
+    }
+
+    assertEquals(order, evicted);
+    assertEquals(evicted.size(), new HashSet<>(evicted).size(), "No key may be tracked twice");
+  }
+}
@@ -0,0 +1,51 @@
+package com.cache.policies;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class LRUCacheEvictionPolicyTest {
+
+  @Test
+  void emptyPolicyHasNoCandidate() {
+    LRUCacheEvictionPolicy<String> policy = new LRUCacheEvictionPolicy<>();
+    assertNull(policy.getEvictionCandidate());
+    policy.recordAccess("a");
+    policy.removeKey("a");
+    assertNull(policy.getEvictionCandidate());
+  }
+
+  @Test
+  void concurrentRemovalsDoNotCorruptTheOrder() throws Exception {
+    LRUCacheEvictionPolicy<Integer> policy = new LRUCacheEvictionPolicy<>();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        int thread = t;
+        tasks.add(executor.submit(() -> {
+          for (int i = 0; i < 20_000; i++) {
+            int key = (i * 4 + thread) % 500;
+            policy.recordAccess(key);
+            policy.removeKey(key);
+            policy.getEvictionCandidate();
+          }
+        }));
+      }
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertNull(policy.getEvictionCandidate()); // Every key was removed after its access.
+    policy.recordAccess(1);
+    assertEquals(Integer.valueOf(1), policy.getEvictionCandidate());
+  }
+}
@@ -0,0 +1,61 @@
+package com.cache.policies;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class LongClockEvictionPolicyTest {
+
+  @Test
+  void evictsKeysNotReadSinceTheHandPassed() {
+    LongClockEvictionPolicy policy = new LongClockEvictionPolicy();
+    policy.recordAccess(1L);
+    policy.recordAccess(2L);
+    policy.recordAccess(3L);
+
+    long first = policy.getEvictionCandidate(); // The first sweep clears every referenced bit.
+    policy.removeKey(first);
+    Set<Long> rest = new HashSet<>(Set.of(1L, 2L, 3L));
+    rest.remove(first);
+    long read = rest.iterator().next();
+    policy.recordAccess(read);
+
+    long second = policy.getEvictionCandidate();
+    assertTrue(second != read && rest.contains(second));
+  }
+
+  @Test
+  void emptyPolicyHasNoCandidate() {
+    LongClockEvictionPolicy policy = new LongClockEvictionPolicy();
+    policy.recordAccess(7L);
+    policy.removeKey(7L);
+
+    assertThrows(NoSuchElementException.class, policy::getEvictionCandidate);
+  }
+
+  @Test
+  void growsAndDropsRemovedSlots() {
+    LongClockEvictionPolicy policy = new LongClockEvictionPolicy(4);
+    for (long key = 0; key < 10_000; key++) {
+      policy.recordAccess(key);
+      if (key % 2 == 0) {
+        policy.removeKey(key);
+      }
+    }
+
+    assertEquals(5_000, policy.size());
+    Set<Long> evicted = new HashSet<>();
+    while (policy.size() > 0) {
+      long candidate = policy.getEvictionCandidate();
+      assertEquals(1L, candidate % 2);
+      evicted.add(candidate);
+      policy.removeKey(candidate);
+    }
+    assertEquals(5_000, evicted.size());
+  }
+}
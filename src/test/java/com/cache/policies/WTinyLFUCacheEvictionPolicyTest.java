@@ -0,0 +1,71 @@
+package com.cache.policies;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class WTinyLFUCacheEvictionPolicyTest {
+
+  @Test
+  void hotSetSurvivesScan() {
+    int capacity = 100;
+    WTinyLFUCacheEvictionPolicy<Integer> policy = new WTinyLFUCacheEvictionPolicy<>(capacity);
+    Set<Integer> cached = new HashSet<>();
+    for (int round = 0; round < 5; round++) {
+      for (int key = 0; key < capacity; key++) {
+        access(policy, cached, capacity, key);
+      }
+    }
+    for (int key = 1_000; key < 1_500; key++) { // One-off scan, 5x the cache size.
+      access(policy, cached, capacity, key);
+    }
+
+    int survivors = 0;
+    for (int key = 0; key < capacity; key++) {
+      if (cached.contains(key)) {
+        survivors++;
+      }
+    }
+    assertTrue(survivors >= 90, "Hot keys flushed by scan: only " + survivors + " survived");
+  }
+
+  @Test
+  void plainTinyLfuRejectsColdCandidate() {
+    WTinyLFUCacheEvictionPolicy<String> policy = new WTinyLFUCacheEvictionPolicy<>(2, 0);
+    for (int i = 0; i < 5; i++) {
+      policy.recordAccess("hot");
+    }
+    assertFalse(policy.admit("cold", "hot"));
+    assertTrue(policy.admit("hot", "cold"));
+  }
+
+  @Test
+  void frequencySketchAgesCounters() {
+    FrequencySketch<Integer> sketch = new FrequencySketch<>(16);
+    for (int i = 0; i < 10; i++) {
+      sketch.increment(7);
+    }
+    assertEquals(10, sketch.frequency(7));
+    for (int i = 100; i < 400; i++) { // Crosses the sample size of 160 and halves all counters.
+      sketch.increment(i);
+    }
+    assertTrue(sketch.frequency(7) <= 5);
+  }
+
+  private static void access(CacheEvictionPolicy<Integer> policy, Set<Integer> cached, int capacity, int key) {
+    if (!cached.contains(key) && cached.size() >= capacity) {
+      Integer victim = policy.getEvictionCandidate();
+      if (!policy.admit(key, victim)) {
+        return;
+      }
+      cached.remove(victim);
+      policy.removeKey(victim);
+    }
+    cached.add(key);
+    policy.recordAccess(key);
+  }
+}
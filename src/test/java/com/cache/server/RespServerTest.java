@@ -0,0 +1,116 @@
+package com.cache.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cache.expiration.CreationBasedExpiration;
+import com.cache.policies.ConcurrentLRUCacheEvictionPolicy;
+import com.cache.services.CacheService;
+import com.cache.store.InMemoryBackingStore;
+import com.cache.writepolicy.WriteThroughPolicy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class RespServerTest {
+  private final InMemoryBackingStore<String, byte[]> backingStore = new InMemoryBackingStore<>();
+  private final CacheService<String, byte[]> cache = new CacheService<>(1_000, 0,
+      new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+      new CreationBasedExpiration<>(60));
+  private final RespServer server;
+
+  RespServerTest() throws IOException {
+    server = new RespServer(cache, new InetSocketAddress("127.0.0.1", 0), 2);
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.close();
+    cache.close();
+  }
+
+  @Test
+  void answersPipelinedCommandsInOrder() throws Exception {
+    try (Socket socket = connect()) {
+      send(socket, command("SET", "a", "1") + command("SET", "b", "2", "EX", "100") + command("GET", "a")
+          + command("MGET", "a", "missing", "b") + command("DEL", "a", "missing") + command("GET", "nope")
+          + "PING\r\n");
+
+      String expected = "+OK\r\n+OK\r\n$1\r\n1\r\n*3\r\n$1\r\n1\r\n$-1\r\n$1\r\n2\r\n:1\r\n$-1\r\n+PONG\r\n";
+      assertEquals(expected, read(socket, expected.length()));
+    }
+  }
+
+  @Test
+  void handlesCommandsSplitAcrossReadsAndLargeValues() throws Exception {
+    char[] large = new char[100_000];
+    Arrays.fill(large, 'x');
+    String value = new String(large);
+    try (Socket socket = connect()) {
+      String request = command("SET", "big", value) + command("GET", "big");
+      for (int i = 0; i < request.length(); i += 7_000) { // Arrives in pieces.
+        send(socket, request.substring(i, Math.min(request.length(), i + 7_000)));
+        Thread.sleep(1);
+      }
+
+      String expected = "+OK\r\n$100000\r\n" + value + "\r\n";
+      assertEquals(expected, read(socket, expected.length()));
+      assertEquals(100_000, cache.get("big").length);
+    }
+  }
+
+  @Test
+  void reportsErrorsAndKeepsServing() throws Exception {
+    try (Socket socket = connect()) {
+      send(socket, command("GET") + command("FLUSHALL") + command("SET", "k", "v", "EX", "0")
+          + command("MSET", "x", "1", "y", "2") + command("MGET", "x", "y"));
+
+      String expected = "-ERR wrong number of arguments for 'get' command\r\n"
+          + "-ERR unknown command 'FLUSHALL'\r\n"
+          + "-ERR invalid expire time in 'set' command\r\n"
+          + "+OK\r\n*2\r\n$1\r\n1\r\n$1\r\n2\r\n";
+      assertEquals(expected, read(socket, expected.length()));
+    }
+  }
+
+  private Socket connect() throws IOException {
+    Socket socket = new Socket();
+    socket.connect(server.getLocalAddress(), 5_000);
+    socket.setSoTimeout(5_000);
+    return socket;
+  }
+
+  private static String command(String... args) {
+    StringBuilder request = new StringBuilder("*").append(args.length).append("\r\n");
+    for (String arg : args) {
+      request.append('$').append(arg.length()).append("\r\n").append(arg).append("\r\n");
+    }
+    return request.toString();
+  }
+
+  private static void send(Socket socket, String request) throws IOException {
+    OutputStream out = socket.getOutputStream();
+    out.write(request.getBytes(StandardCharsets.UTF_8));
+    out.flush();
+  }
+
+  private static String read(Socket socket, int length) throws IOException {
+    InputStream in = socket.getInputStream();
+    ByteArrayOutputStream reply = new ByteArrayOutputStream();
+    byte[] chunk = new byte[8_192];
+    while (reply.size() < length) {
+      int n = in.read(chunk);
+      if (n < 0) {
+        break;
+      }
+      reply.write(chunk, 0, n);
+    }
+    return reply.toString(StandardCharsets.UTF_8);
+  }
+}
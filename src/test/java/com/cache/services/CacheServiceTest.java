@@ -0,0 +1,754 @@
+package com.cache.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cache.exceptions.CacheException;
+import com.cache.expiration.AccessBasedExpiration;
+import com.cache.offheap.SlabAllocator;
+import com.cache.policies.ConcurrentLRUCacheEvictionPolicy;
+import com.cache.serialization.StringSerializer;
+import com.cache.stats.CacheStats;
+import com.cache.stats.CompressionStats;
+import com.cache.stats.RemovalCause;
+import com.cache.store.AsyncBackingStore;
+import com.cache.store.InMemoryBackingStore;
+import com.cache.time.FakeTicker;
+import com.cache.writepolicy.WriteBackPolicy;
+import com.cache.writepolicy.WriteThroughPolicy;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CacheServiceTest {
+  private final InMemoryBackingStore<String, String> backingStore = new InMemoryBackingStore<>();
+  private final CacheService<String, String> cache = new CacheService<>(100, 0,
+      new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+      new AccessBasedExpiration<>(60));
+  private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+  @TempDir
+  Path snapshotDirectory;
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+    cache.shutdownScheduler();
+  }
+
+  @Test
+  void concurrentMissesShareOneLoad() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    List<Future<String>> results = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      results.add(executor.submit(() -> cache.getOrLoad("hot", key -> {
+        loads.incrementAndGet();
+        await(release);
+        return "loaded";
+      })));
+    }
+    Thread.sleep(100); // Let every caller reach the miss path.
+    release.countDown();
+
+    for (Future<String> result : results) {
+      assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+    }
+    assertEquals(1, loads.get());
+    assertEquals("loaded", cache.get("hot"));
+  }
+
+  @Test
+  void waitersAreReleasedWhenTheLoaderThrowsAnError() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> leader = executor.submit(() -> cache.getOrLoad("fatal", key -> {
+      await(release);
+      throw new AssertionError("loader bug");
+    }));
+    Thread.sleep(100); // Let the leader start loading.
+    Future<String> waiter = executor.submit(() -> cache.getOrLoad("fatal", key -> "unused"));
+    Thread.sleep(100); // Let the waiter join the load in flight.
+    release.countDown();
+
+    ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+    assertTrue(leaderFailure.getCause() instanceof AssertionError);
+    ExecutionException waiterFailure = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+    assertTrue(waiterFailure.getCause() instanceof CacheException);
+    assertEquals("loaded", cache.getOrLoad("fatal", key -> "loaded")); // Nothing left in flight.
+  }
+
+  @Test
+  void waitersSeeLoaderFailure() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> leader = executor.submit(() -> cache.getOrLoad("bad", key -> {
+      await(release);
+      throw new IllegalStateException("database down");
+    }));
+    Thread.sleep(50);
+    Future<String> follower = executor.submit(() -> cache.getOrLoad("bad", key -> "unexpected"));
+    Thread.sleep(50);
+    release.countDown();
+
+    for (Future<String> result : List.of(leader, follower)) {
+      Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+      assertEquals(CacheException.class, e.getCause().getClass());
+    }
+  }
+
+  @Test
+  void putDuringLoadWins() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> load = executor.submit(() -> cache.getOrLoad("key", key -> {
+      loading.countDown();
+      await(release);
+      return "stale";
+    }));
+    loading.await();
+    cache.put("key", "fresh");
+    release.countDown();
+
+    assertEquals("stale", load.get(5, TimeUnit.SECONDS));
+    assertEquals("fresh", cache.get("key"));
+  }
+
+  @Test
+  void removeDuringLoadIsNotUndone() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> load = executor.submit(() -> cache.getOrLoad("key", key -> {
+      loading.countDown();
+      await(release);
+      return "stale";
+    }));
+    loading.await();
+    cache.remove("key");
+    release.countDown();
+    load.get(5, TimeUnit.SECONDS);
+
+    assertThrows(CacheException.class, () -> cache.get("key"));
+  }
+
+  @Test
+  void getAllLoadsMissesInOneBatch() throws Exception {
+    AtomicInteger batches = new AtomicInteger();
+    InMemoryBackingStore<String, String> countingStore = new InMemoryBackingStore<>() {
+      @Override
+      public Map<String, String> retrieveAll(Collection<? extends String> keys) {
+        batches.incrementAndGet();
+        return super.retrieveAll(keys);
+      }
+    };
+    countingStore.storeAll(Map.of("a", "1", "b", "2", "c", "3"));
+    try (CacheService<String, String> bulkCache = new CacheService<>(10, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), countingStore, new WriteThroughPolicy<>(countingStore),
+        new AccessBasedExpiration<>(60))) {
+      bulkCache.put("a", "cached");
+
+      Map<String, String> values = bulkCache.getAll(List.of("a", "b", "c", "missing"));
+
+      assertEquals(Map.of("a", "cached", "b", "2", "c", "3"), values);
+      assertEquals(1, batches.get());
+      assertEquals("2", bulkCache.get("b"));
+    }
+  }
+
+  @Test
+  void putAllEvictsDownToCapacity() throws Exception {
+    try (CacheService<String, String> smallCache = new CacheService<>(2, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+        new AccessBasedExpiration<>(60))) {
+      Map<String, String> entries = new LinkedHashMap<>();
+      entries.put("a", "1");
+      entries.put("b", "2");
+      entries.put("c", "3");
+      smallCache.putAll(entries);
+
+      assertEquals("3", backingStore.retrieve("c"));
+      assertEquals(Map.of("b", "2", "c", "3"), smallCache.getAll(List.of("b", "c")));
+    }
+  }
+
+  @Test
+  void perEntryTtlIsSweptWithoutReads() throws Exception {
+    cache.put("short", "value", Duration.ofMillis(50));
+    cache.put("long", "value", Duration.ofHours(1));
+    Thread.sleep(2_200); // Past the end of the finest wheel's 1.07s bucket holding the deadline.
+
+    cache.cleanUp();
+
+    assertEquals(1, cache.size());
+    assertEquals("value", cache.get("long"));
+  }
+
+  @Test
+  void fakeTickerDrivesExpiration() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    try (CacheService<String, String> tickedCache = new CacheService<>(100, 0, new ConcurrentLRUCacheEvictionPolicy<>(),
+        backingStore, new WriteThroughPolicy<>(backingStore), new AccessBasedExpiration<>(10),
+        new CacheOptions<String, String>().ticker(ticker))) {
+      tickedCache.put("key", "value");
+      ticker.advance(Duration.ofSeconds(9));
+      assertEquals("value", tickedCache.get("key")); // Read extends the deadline by another 10s.
+      ticker.advance(Duration.ofSeconds(9));
+      assertEquals("value", tickedCache.get("key"));
+      ticker.advance(Duration.ofSeconds(11));
+      tickedCache.cleanUp();
+      assertEquals(0, tickedCache.size());
+    }
+  }
+
+  @Test
+  void readPastRefreshDeadlineServesStaleUntilReloaded() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    List<Runnable> reloads = new ArrayList<>();
+    try (CacheService<String, String> refreshingCache = new CacheService<>(100, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+        new AccessBasedExpiration<>(60), new CacheOptions<String, String>().ticker(ticker)
+            .refreshAfterWrite(Duration.ofSeconds(5)).refreshExecutor(reloads::add))) {
+      refreshingCache.put("key", "old");
+      backingStore.store("key", "new");
+      ticker.advance(Duration.ofSeconds(4));
+      assertEquals("old", refreshingCache.get("key"));
+      assertEquals(0, reloads.size());
+
+      ticker.advance(Duration.ofSeconds(2));
+      assertEquals("old", refreshingCache.get("key")); // Stale while the reload is queued.
+      assertEquals("old", refreshingCache.get("key"));
+      assertEquals(1, reloads.size(), "Concurrent stale reads share one reload");
+      reloads.remove(0).run();
+      assertEquals("new", refreshingCache.get("key"));
+      assertEquals(0, reloads.size());
+    }
+  }
+
+  @Test
+  void expiredRefreshableEntryServesStaleInsteadOfThrowing() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    List<Runnable> reloads = new ArrayList<>();
+    try (CacheService<String, String> refreshingCache = new CacheService<>(100, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+        new AccessBasedExpiration<>(10), new CacheOptions<String, String>().ticker(ticker)
+            .refreshAfterWrite(Duration.ofSeconds(5)).refreshExecutor(reloads::add).manualMaintenance())) {
+      refreshingCache.put("key", "old");
+      refreshingCache.put("pinned", "value", Duration.ofSeconds(10));
+      backingStore.store("key", "new");
+      ticker.advance(Duration.ofSeconds(11));
+
+      assertEquals("old", refreshingCache.get("key"));
+      assertThrows(CacheException.class, () -> refreshingCache.get("pinned"), "Per-entry TTLs are not refreshed");
+      assertEquals(1, reloads.size());
+      reloads.remove(0).run();
+      refreshingCache.cleanUp(); // The reload moved the deadline, so the sweep keeps the entry.
+      assertEquals(1, refreshingCache.size());
+      assertEquals("new", refreshingCache.get("key"));
+      assertEquals(0, reloads.size());
+
+      backingStore.store("key", "newer");
+      ticker.advance(Duration.ofSeconds(11));
+      refreshingCache.cleanUp(); // Drops the unread entry rather than reloading it.
+      assertEquals(0, reloads.size());
+      assertEquals(0, refreshingCache.size());
+      assertEquals("newer", refreshingCache.get("key")); // A miss, loaded from the store.
+    }
+  }
+
+  @Test
+  void offHeapValuesAreFreedOnEvictionAndRemoval() throws Exception {
+    SlabAllocator allocator = new SlabAllocator();
+    try (CacheService<String, String> offHeapCache = new CacheService<>(2, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+        new AccessBasedExpiration<>(60), new CacheOptions<String, String>()
+            .offHeap(new StringSerializer(), allocator))) {
+      offHeapCache.put("a", "alpha");
+      offHeapCache.put("b", "beta");
+      offHeapCache.put("b", "bravo");
+      assertEquals("alpha", offHeapCache.get("a"));
+      assertEquals("bravo", offHeapCache.get("b"));
+      assertEquals(2 * 64, allocator.usedBytes(), "Replaced values are freed");
+
+      offHeapCache.put("c", "charlie"); // Evicts "a".
+      assertEquals(2 * 64, allocator.usedBytes());
+      offHeapCache.remove("b");
+      offHeapCache.remove("c");
+      assertEquals(0, allocator.usedBytes());
+      assertEquals("alpha", offHeapCache.get("a")); // Reloaded from the store.
+    }
+  }
+
+  @Test
+  void statsCountHitsMissesLoadsAndEvictions() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    backingStore.store("stored", "value");
+    try (CacheService<String, String> statsCache = new CacheService<>(2, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+        new AccessBasedExpiration<>(10), new CacheOptions<String, String>().ticker(ticker).recordStats())) {
+      statsCache.put("a", "alpha");
+      statsCache.get("a");
+      statsCache.get("stored"); // Miss, loaded.
+      assertThrows(CacheException.class, () -> statsCache.get("absent")); // Miss, load finds nothing.
+      statsCache.put("b", "beta"); // Evicts "a".
+      ticker.advance(Duration.ofSeconds(11));
+      statsCache.cleanUp(); // Expires the rest.
+
+      CacheStats stats = statsCache.stats();
+      assertEquals(1, stats.hitCount());
+      assertEquals(2, stats.missCount());
+      assertEquals(1, stats.loadSuccessCount());
+      assertEquals(1, stats.loadFailureCount());
+      assertEquals(1, stats.evictionCount(RemovalCause.SIZE));
+      assertEquals(2, stats.expirationCount());
+      assertEquals(2, stats.loadLatency().count());
+    }
+  }
+
+  @Test
+  void removeReportsWhetherAValueWasCachedWithoutCountingARead() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    try (CacheService<String, String> statsCache = new CacheService<>(10, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+        new AccessBasedExpiration<>(10), new CacheOptions<String, String>().ticker(ticker).recordStats())) {
+      statsCache.put("a", "alpha");
+      statsCache.put("b", "beta");
+      ticker.advance(Duration.ofSeconds(11));
+      statsCache.put("c", "gamma");
+
+      assertTrue(statsCache.remove("c"));
+      assertFalse(statsCache.remove("c"));
+      assertFalse(statsCache.remove("a"), "Expired entries are not cached values");
+      assertFalse(statsCache.remove("stored-only"));
+      assertEquals(0, statsCache.stats().requestCount());
+      assertEquals(1, statsCache.size()); // "b", expired and not yet cleaned up.
+    }
+  }
+
+  @Test
+  void keyPutAgainWhileItIsRemovedStaysEvictable() throws Exception {
+    AtomicReference<Runnable> beforeRemoveKey = new AtomicReference<>();
+    ConcurrentLRUCacheEvictionPolicy<String> policy = new ConcurrentLRUCacheEvictionPolicy<>() {
+      @Override
+      public void removeKey(String key) {
+        Runnable hook = beforeRemoveKey.getAndSet(null);
+        if (hook != null) {
+          hook.run(); // A put landing between the map removal and this call.
+        }
+        super.removeKey(key);
+      }
+    };
+    try (CacheService<String, String> smallCache = new CacheService<>(2, 0, policy, backingStore,
+        new WriteThroughPolicy<>(backingStore), new AccessBasedExpiration<>(60))) {
+      smallCache.put("a", "alpha");
+      beforeRemoveKey.set(() -> smallCache.put("a", "again"));
+      smallCache.remove("a");
+      assertEquals(1, smallCache.size()); // Not read, since a read would record the key again.
+
+      smallCache.put("b", "beta");
+      smallCache.put("c", "gamma");
+      smallCache.put("d", "delta");
+      assertEquals(Set.of("c", "d"), smallCache.keys(), "The put-again key must still be evictable");
+    }
+  }
+
+  @Test
+  void statsAreOffByDefault() throws Exception {
+    cache.put("key", "value");
+    cache.get("key");
+    assertEquals(0, cache.stats().requestCount());
+  }
+
+  @Test
+  void maximumWeightEvictsUntilTheNewEntryFits() throws Exception {
+    try (CacheService<String, String> weighedCache = new CacheService<>(100, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+        new AccessBasedExpiration<>(60), new CacheOptions<String, String>()
+            .maximumWeight(10, (key, value) -> value.length()))) {
+      weighedCache.put("a", "aaa");
+      weighedCache.put("b", "bbb");
+      weighedCache.put("c", "ccc");
+      assertEquals(9, weighedCache.weightedSize());
+
+      weighedCache.put("d", "dddddddd"); // Weighs 8: evicts "a", "b" and "c".
+      assertEquals(1, weighedCache.size());
+      assertEquals(8, weighedCache.weightedSize());
+
+      weighedCache.put("d", "dd"); // Replacing frees the old weight.
+      assertEquals(2, weighedCache.weightedSize());
+      weighedCache.put("e", "eeeeeeeeeee"); // Heavier than the maximum: never cached.
+      assertEquals(2, weighedCache.weightedSize());
+      assertEquals("eeeeeeeeeee", backingStore.retrieve("e"));
+    }
+  }
+
+  @Test
+  void putAllKeepsANewValueDirtyWhenRoomForItEvictsTheOldOne() throws Exception {
+    try (CacheService<String, String> weighedCache = new CacheService<>(100, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteBackPolicy<>(backingStore),
+        new AccessBasedExpiration<>(60), new CacheOptions<String, String>()
+            .maximumWeight(10, (key, value) -> value.length()))) {
+      weighedCache.put("a", "aaa");
+      weighedCache.put("b", "bbb");
+      weighedCache.putAll(Map.of("a", "aaaaaaaa")); // Evicts the old "a" and "b" to fit.
+      assertEquals("bbb", backingStore.retrieve("b"));
+
+      weighedCache.put("c", "ccc"); // Evicts the new "a", which must still be written back.
+      assertEquals("aaaaaaaa", backingStore.retrieve("a"));
+    }
+  }
+
+  @Test
+  void concurrentWritersStayWithinMaximumWeight() throws Exception {
+    try (CacheService<String, String> weighedCache = new CacheService<>(100, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+        new AccessBasedExpiration<>(60), new CacheOptions<String, String>()
+            .maximumWeight(1_000, (key, value) -> value.length()))) {
+      List<Future<?>> writers = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        int thread = t;
+        writers.add(executor.submit(() -> {
+          for (int i = 0; i < 2_000; i++) {
+            weighedCache.put(thread + ":" + i, "x".repeat(1 + i % 50));
+          }
+        }));
+      }
+      for (Future<?> writer : writers) {
+        writer.get(30, TimeUnit.SECONDS);
+      }
+      assertTrue(weighedCache.weightedSize() <= 1_000, "Weighted size " + weighedCache.weightedSize());
+      assertTrue(weighedCache.weightedSize() >= 0);
+    }
+  }
+
+  @Test
+  void reloadAccountsForTheNewValuesWeight() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    List<Runnable> reloads = new ArrayList<>();
+    try (CacheService<String, String> weighedCache = new CacheService<>(100, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+        new AccessBasedExpiration<>(60), new CacheOptions<String, String>().ticker(ticker)
+            .refreshAfterWrite(Duration.ofSeconds(5)).refreshExecutor(reloads::add)
+            .maximumWeight(10, (key, value) -> value.length()))) {
+      weighedCache.put("a", "aaa");
+      weighedCache.put("b", "bbb");
+      backingStore.store("b", "bbbbbbbb");
+      ticker.advance(Duration.ofSeconds(6));
+      weighedCache.get("b");
+      reloads.remove(0).run(); // "b" now weighs 8, so "a" no longer fits.
+
+      assertEquals(8, weighedCache.weightedSize());
+      assertEquals(1, weighedCache.size());
+      assertEquals("bbbbbbbb", weighedCache.get("b"));
+    }
+  }
+
+  @Test
+  void snapshotRestoresMostRecentlyUsedEntriesInOrder() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    Path file = snapshotDirectory.resolve("cache.snapshot");
+    try (CacheService<String, String> source = new CacheService<>(10, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+        new AccessBasedExpiration<>(60), new CacheOptions<String, String>().ticker(ticker))) {
+      for (String key : List.of("a", "b", "c", "d")) {
+        source.put(key, key + "-value");
+        ticker.advance(Duration.ofMillis(1));
+      }
+      source.put("short-lived", "value", Duration.ofSeconds(5));
+      source.get("a"); // Recency order is now b, c, d, a.
+      ticker.advance(Duration.ofSeconds(6));
+      assertEquals(4, source.saveSnapshot(file, new StringSerializer(), new StringSerializer()));
+    }
+
+    InMemoryBackingStore<String, String> emptyStore = new InMemoryBackingStore<>();
+    try (CacheService<String, String> restored = new CacheService<>(2, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), emptyStore, new WriteThroughPolicy<>(emptyStore),
+        new AccessBasedExpiration<>(60))) {
+      restored.loadSnapshot(file, new StringSerializer(), new StringSerializer());
+      assertEquals(2, restored.size(), "Only the two most recently used fit");
+      assertEquals("d-value", restored.get("d"));
+      assertEquals("a-value", restored.get("a"));
+      restored.put("e", "e-value"); // Evicts "d", used less recently than "a".
+      assertEquals("a-value", restored.get("a"));
+      assertThrows(CacheException.class, () -> restored.get("d"));
+    }
+  }
+
+  @Test
+  void snapshotOptionRestoresOnStartAndWritesOnClose() throws Exception {
+    CacheOptions<String, String> options = new CacheOptions<String, String>()
+        .snapshot(snapshotDirectory.resolve("cache.snapshot"), new StringSerializer(), new StringSerializer());
+    InMemoryBackingStore<String, String> emptyStore = new InMemoryBackingStore<>();
+    try (CacheService<String, String> first = new CacheService<>(10, 0, new ConcurrentLRUCacheEvictionPolicy<>(),
+        backingStore, new WriteThroughPolicy<>(backingStore), new AccessBasedExpiration<>(60), options)) {
+      for (int i = 0; i < 1_500; i++) { // Several decode batches.
+        first.put("key" + i, "value" + i);
+      }
+    }
+    try (CacheService<String, String> second = new CacheService<>(10, 0, new ConcurrentLRUCacheEvictionPolicy<>(),
+        emptyStore, new WriteThroughPolicy<>(emptyStore), new AccessBasedExpiration<>(60), options)) {
+      assertEquals(10, second.size());
+      assertEquals("value1499", second.get("key1499"));
+    }
+  }
+
+  @Test
+  void snapshotKeepsTagsSoRestoredEntriesCanBeInvalidatedByTag() throws Exception {
+    Path file = snapshotDirectory.resolve("tagged.snapshot");
+    try (CacheService<String, String> source = new CacheService<>(10, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+        new AccessBasedExpiration<>(60))) {
+      source.put("a", "1", Set.of("tenant-1", "product-9"));
+      source.put("b", "2", Set.of("tenant-2"));
+      source.put("c", "3");
+      assertEquals(3, source.saveSnapshot(file, new StringSerializer(), new StringSerializer()));
+    }
+
+    InMemoryBackingStore<String, String> emptyStore = new InMemoryBackingStore<>();
+    try (CacheService<String, String> restored = new CacheService<>(10, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), emptyStore, new WriteThroughPolicy<>(emptyStore),
+        new AccessBasedExpiration<>(60))) {
+      assertEquals(3, restored.loadSnapshot(file, new StringSerializer(), new StringSerializer()));
+      assertEquals(1, restored.taggedCount("product-9"));
+      assertEquals(1, restored.invalidateTag("tenant-1"));
+      assertThrows(CacheException.class, () -> restored.get("a"));
+      assertEquals("2", restored.get("b"));
+      assertEquals("3", restored.get("c"));
+    }
+  }
+
+  @Test
+  void getAsyncCompletesHitsOnTheCallingThread() throws Exception {
+    cache.put("key", "value");
+
+    CompletableFuture<String> hit = cache.getAsync("key");
+
+    assertTrue(hit.isDone());
+    assertEquals("value", hit.join());
+  }
+
+  @Test
+  void getAsyncLoadsMissesWithoutBlockingTheCaller() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    InMemoryBackingStore<String, String> slowStore = new InMemoryBackingStore<>() {
+      @Override
+      public String retrieve(String key) {
+        await(release);
+        return super.retrieve(key);
+      }
+    };
+    slowStore.store("key", "loaded");
+    try (CacheService<String, String> asyncCache = new CacheService<>(10, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), slowStore, new WriteThroughPolicy<>(slowStore),
+        new AccessBasedExpiration<>(60))) {
+      CompletableFuture<String> miss = asyncCache.getAsync("key");
+      CompletableFuture<String> joined = asyncCache.getAsync("key");
+      assertTrue(!miss.isDone());
+      release.countDown();
+
+      assertEquals("loaded", miss.get(5, TimeUnit.SECONDS));
+      assertEquals("loaded", joined.get(5, TimeUnit.SECONDS));
+      assertEquals("loaded", asyncCache.get("key"));
+      ExecutionException e = assertThrows(ExecutionException.class,
+          () -> asyncCache.getAsync("missing").get(5, TimeUnit.SECONDS));
+      assertEquals(CacheException.class, e.getCause().getClass());
+    }
+  }
+
+  @Test
+  void timedOutAsyncLoadIsCancelledAndRetried() throws Exception {
+    List<CompletableFuture<String>> retrievals = new ArrayList<>();
+    AsyncBackingStore<String, String> hangingStore = key -> {
+      CompletableFuture<String> retrieval = new CompletableFuture<>();
+      retrievals.add(retrieval);
+      return retrieval;
+    };
+    CacheOptions<String, String> options = new CacheOptions<String, String>().asyncBackingStore(hangingStore);
+    try (CacheService<String, String> asyncCache = new CacheService<>(10, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+        new AccessBasedExpiration<>(60), options)) {
+      CompletableFuture<String> load = asyncCache.getAsync("key", Duration.ofMillis(50));
+
+      ExecutionException e = assertThrows(ExecutionException.class, () -> load.get(5, TimeUnit.SECONDS));
+      assertEquals(TimeoutException.class, e.getCause().getClass());
+      assertTrue(retrievals.get(0).isCancelled());
+
+      CompletableFuture<String> retry = asyncCache.getAsync("key");
+      assertEquals(2, retrievals.size());
+      retrievals.get(1).complete("loaded");
+      assertEquals("loaded", retry.get(5, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  void getAllAsyncLoadsMissesInOneBatch() throws Exception {
+    backingStore.storeAll(Map.of("b", "2", "c", "3"));
+    cache.put("a", "1");
+
+    Map<String, String> values = cache.getAllAsync(List.of("a", "b", "c", "missing")).get(5, TimeUnit.SECONDS);
+
+    assertEquals(Map.of("a", "1", "b", "2", "c", "3"), values);
+    assertTrue(cache.getAllAsync(List.of("a", "b")).isDone());
+  }
+
+  @Test
+  void absentKeysAreRememberedUntilTheirTimeToLive() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    AtomicInteger retrievals = new AtomicInteger();
+    InMemoryBackingStore<String, String> countingStore = new InMemoryBackingStore<>() {
+      @Override
+      public String retrieve(String key) {
+        retrievals.incrementAndGet();
+        return super.retrieve(key);
+      }
+    };
+    CacheOptions<String, String> options = new CacheOptions<String, String>()
+        .ticker(ticker).absenceTtl(Duration.ofSeconds(5)).recordStats();
+    try (CacheService<String, String> negativeCache = new CacheService<>(10, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), countingStore, new WriteThroughPolicy<>(countingStore),
+        new AccessBasedExpiration<>(60), options)) {
+      assertEquals(null, negativeCache.getOrNull("missing"));
+      assertEquals(null, negativeCache.getOrNull("missing"));
+      assertThrows(CacheException.class, () -> negativeCache.get("missing"));
+      assertEquals(Map.of(), negativeCache.getAll(List.of("missing")));
+      assertEquals(1, retrievals.get());
+      assertEquals(1, negativeCache.size()); // The marker counts toward capacity.
+      assertEquals(4, negativeCache.stats().missCount());
+      assertEquals("loaded", negativeCache.getOrLoad("missing", key -> "loaded")); // Other loaders still run.
+
+      negativeCache.remove("missing");
+      assertEquals(null, negativeCache.getOrNull("missing"));
+      ticker.advance(Duration.ofSeconds(6));
+      assertEquals(null, negativeCache.getOrNull("missing"));
+      assertEquals(3, retrievals.get());
+
+      negativeCache.put("missing", "found");
+      assertEquals("found", negativeCache.get("missing"));
+      for (int i = 0; i < 20; i++) {
+        negativeCache.getOrNull("absent-" + i); // Markers are evicted like entries.
+      }
+      assertEquals(10, negativeCache.size());
+    }
+  }
+
+  @Test
+  void invalidateTagRemovesOnlyTheEntriesStillTaggedWithIt() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    try (CacheService<String, String> taggedCache = new CacheService<>(3, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+        new AccessBasedExpiration<>(60), new CacheOptions<String, String>().ticker(ticker))) {
+      taggedCache.put("a", "1", Set.of("tenant-1", "product-9"));
+      taggedCache.put("b", "2", Set.of("tenant-1"));
+      taggedCache.put("c", "3", Set.of("tenant-2"));
+      taggedCache.put("b", "untagged now"); // Replacing the value drops its tags.
+      assertEquals(1, taggedCache.taggedCount("tenant-1"));
+
+      taggedCache.put("d", "4", Set.of("tenant-1")); // Evicts a, the least recently used.
+      assertEquals(1, taggedCache.taggedCount("tenant-1"));
+      assertEquals(0, taggedCache.taggedCount("product-9"));
+      taggedCache.put("e", "5", Duration.ofSeconds(1));
+      taggedCache.put("f", "6", Set.of("tenant-2"));
+      ticker.advance(Duration.ofSeconds(2));
+      taggedCache.cleanUp();
+
+      assertEquals(1, taggedCache.invalidateTag("tenant-1"));
+      assertEquals(0, taggedCache.invalidateTag("tenant-1"));
+      assertEquals(1, taggedCache.invalidateTag("tenant-2"));
+      assertEquals(0, taggedCache.size());
+      assertEquals(0, taggedCache.taggedCount("tenant-2"));
+    }
+  }
+
+  @Test
+  void concurrentTaggedWritesLeaveNoStaleIndexEntries() throws Exception {
+    try (CacheService<String, String> taggedCache = new CacheService<>(50, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+        new AccessBasedExpiration<>(60))) {
+      List<Future<?>> writers = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        int thread = t;
+        writers.add(executor.submit(() -> {
+          for (int i = 0; i < 5_000; i++) {
+            String key = "key-" + ((i * 7 + thread) % 200);
+            if (i % 3 == 0) {
+              taggedCache.remove(key);
+            } else {
+              taggedCache.put(key, "v", Set.of("shared"));
+            }
+          }
+        }));
+      }
+      for (Future<?> writer : writers) {
+        writer.get(30, TimeUnit.SECONDS);
+      }
+      assertEquals(taggedCache.size(), taggedCache.taggedCount("shared"));
+      assertEquals(taggedCache.size(), taggedCache.invalidateTag("shared"));
+      assertEquals(0, taggedCache.size());
+    }
+  }
+
+  @Test
+  void largeValuesAreKeptCompressed() throws Exception {
+    CacheOptions<String, String> options = new CacheOptions<String, String>()
+        .compressValues(new StringSerializer(), 256);
+    try (CacheService<String, String> compressing = new CacheService<>(10, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+        new AccessBasedExpiration<>(60), options)) {
+      String large = "tenant=42;region=eu-west;".repeat(200);
+      compressing.put("large", large);
+      compressing.put("small", "tiny");
+      assertEquals(large, compressing.get("large"));
+      assertEquals("tiny", compressing.get("small"));
+
+      CompressionStats stats = compressing.compressionStats();
+      assertEquals(1, stats.compressedCount());
+      assertEquals(1, stats.skippedCount());
+      assertEquals(large.length(), stats.uncompressedBytes());
+      assertTrue(stats.compressionRatio() > 10, stats.toString());
+      assertEquals(1, stats.decompressionCount());
+    }
+  }
+
+  @Test
+  void compressedValuesWeighWhatTheyHoldOnTheHeap() throws Exception {
+    CacheOptions<String, String> options = new CacheOptions<String, String>()
+        .maximumWeight(10_000, (key, value) -> value.length())
+        .compressValues(new StringSerializer(), 256);
+    try (CacheService<String, String> compressing = new CacheService<>(100, 0,
+        new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+        new AccessBasedExpiration<>(60), options)) {
+      String large = "tenant=42;region=eu-west;".repeat(2_000); // 50,000 characters; over the maximum inflated.
+      compressing.put("large", large);
+      compressing.put("small", "tiny");
+      assertEquals(large, compressing.get("large"));
+
+      CompressionStats stats = compressing.compressionStats();
+      assertEquals(stats.compressedBytes() + "tiny".length(), compressing.weightedSize());
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.cache.services;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cache.expiration.AccessBasedExpiration;
+import com.cache.expiration.LongExpiration;
+import com.cache.policies.CacheEvictionPolicy;
+import com.cache.policies.ConcurrentLRUCacheEvictionPolicy;
+import com.cache.policies.LongClockEvictionPolicy;
+import com.cache.policies.WTinyLFUCacheEvictionPolicy;
+import com.cache.store.InMemoryBackingStore;
+import com.cache.writepolicy.WriteThroughPolicy;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures bytes allocated by the calling thread across many cache hits; the hit path must allocate nothing.
+ */
+class HitPathAllocationTest {
+  private static final int KEYS = 64;
+  private static final int OPERATIONS = 200_000;
+
+  @Test
+  void lruHitAllocatesNothing() throws Exception {
+    assertHitsAllocateNothing(new ConcurrentLRUCacheEvictionPolicy<>());
+  }
+
+  @Test
+  void tinyLfuHitAllocatesNothing() throws Exception {
+    assertHitsAllocateNothing(new WTinyLFUCacheEvictionPolicy<>(KEYS));
+  }
+
+  @Test
+  void longKeyHitAllocatesNothing() throws Exception {
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    InMemoryBackingStore<Long, String> store = new InMemoryBackingStore<>();
+    try (LongKeyCache<String> cache = new LongKeyCache<>(KEYS, new LongClockEvictionPolicy(KEYS), store,
+        new WriteThroughPolicy<>(store), LongExpiration.afterAccess(60))) {
+      for (long key = 0; key < KEYS; key++) {
+        cache.put(key, "value" + key);
+      }
+      for (int i = 0; i < OPERATIONS; i++) { // Warm up so class loading and JIT do not count.
+        cache.get(i & (KEYS - 1));
+      }
+
+      long before = threads.getCurrentThreadAllocatedBytes();
+      for (int i = 0; i < OPERATIONS; i++) {
+        cache.get(i & (KEYS - 1));
+      }
+      long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+      assertTrue(allocated < 1_024, "Hit path allocated " + allocated + " bytes over " + OPERATIONS + " hits");
+    }
+  }
+
+  private static void assertHitsAllocateNothing(CacheEvictionPolicy<String> policy) throws Exception {
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    InMemoryBackingStore<String, String> store = new InMemoryBackingStore<>();
+    try (CacheService<String, String> cache = new CacheService<>(KEYS, 0, policy, store,
+        new WriteThroughPolicy<>(store), new AccessBasedExpiration<>(60))) {
+      String[] keys = new String[KEYS];
+      for (int i = 0; i < KEYS; i++) {
+        keys[i] = "key" + i;
+        cache.put(keys[i], "value" + i);
+      }
+      for (int i = 0; i < OPERATIONS; i++) { // Warm up so class loading and JIT do not count.
+        cache.get(keys[i & (KEYS - 1)]);
+      }
+
+      long before = threads.getCurrentThreadAllocatedBytes();
+      for (int i = 0; i < OPERATIONS; i++) {
+        cache.get(keys[i & (KEYS - 1)]);
+      }
+      long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+      assertTrue(allocated < 1_024, "Hit path allocated " + allocated + " bytes over " + OPERATIONS + " hits");
+    }
+  }
+}
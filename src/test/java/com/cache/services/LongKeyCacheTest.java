@@ -0,0 +1,143 @@
+package com.cache.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cache.exceptions.CacheException;
+import com.cache.expiration.LongExpiration;
+import com.cache.policies.LongClockEvictionPolicy;
+import com.cache.store.InMemoryBackingStore;
+import com.cache.time.FakeTicker;
+import com.cache.writepolicy.WriteThroughPolicy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class LongKeyCacheTest {
+  private final InMemoryBackingStore<Long, String> backingStore = new InMemoryBackingStore<>();
+
+  @Test
+  void readsThroughAndWritesThroughTheBackingStore() throws Exception {
+    backingStore.store(1L, "stored");
+    try (LongKeyCache<String> cache = new LongKeyCache<>(10, new LongClockEvictionPolicy(),
+        backingStore, new WriteThroughPolicy<>(backingStore), LongExpiration.never())) {
+      assertEquals("stored", cache.get(1L));
+      cache.put(2L, "written");
+
+      assertEquals("written", backingStore.retrieve(2L));
+      assertEquals("written", cache.get(2L));
+      assertThrows(CacheException.class, () -> cache.get(3L));
+      cache.remove(2L);
+      assertEquals(1, cache.size());
+    }
+  }
+
+  @Test
+  void evictsDownToCapacity() throws Exception {
+    CacheOptions<Long, String> options = new CacheOptions<Long, String>().recordStats();
+    try (LongKeyCache<String> cache = new LongKeyCache<>(100, new LongClockEvictionPolicy(100),
+        backingStore, new WriteThroughPolicy<>(backingStore), LongExpiration.never(), options)) {
+      for (long key = 0; key < 1_000; key++) {
+        cache.put(key, "value" + key);
+      }
+
+      assertEquals(100, cache.size());
+      assertEquals(900, cache.stats().evictionCount());
+      assertEquals("value999", cache.get(999L));
+    }
+  }
+
+  @Test
+  void expiresAfterAccessUnlessRead() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    CacheOptions<Long, String> options = new CacheOptions<Long, String>().ticker(ticker);
+    try (LongKeyCache<String> cache = new LongKeyCache<>(10, new LongClockEvictionPolicy(),
+        backingStore, new WriteThroughPolicy<>(backingStore), LongExpiration.afterAccess(10), options)) {
+      cache.put(1L, "read");
+      cache.put(2L, "idle");
+      ticker.advance(Duration.ofSeconds(6));
+      cache.get(1L);
+      ticker.advance(Duration.ofSeconds(6));
+      cache.cleanUp();
+
+      assertEquals(1, cache.size());
+      assertEquals("read", cache.get(1L));
+      ticker.advance(Duration.ofSeconds(11));
+      assertThrows(CacheException.class, () -> cache.get(1L));
+      assertEquals(0, cache.size());
+    }
+  }
+
+  @Test
+  void concurrentMissesShareOneLoad() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try (LongKeyCache<String> cache = new LongKeyCache<>(10, new LongClockEvictionPolicy(),
+        backingStore, new WriteThroughPolicy<>(backingStore), LongExpiration.never())) {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(() -> cache.getOrLoad(42L, key -> {
+          loads.incrementAndGet();
+          sleep(100);
+          return "loaded";
+        })));
+      }
+      for (Future<String> result : results) {
+        assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, loads.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void concurrentWritersStayWithinCapacity() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try (LongKeyCache<String> cache = new LongKeyCache<>(256, new LongClockEvictionPolicy(256),
+        backingStore, new WriteThroughPolicy<>(backingStore), LongExpiration.never())) {
+      List<Future<?>> writers = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        writers.add(executor.submit(() -> {
+          for (int i = 0; i < 20_000; i++) {
+            long key = ThreadLocalRandom.current().nextLong(4_096);
+            if (i % 3 == 0) {
+              cache.put(key, "value");
+            } else {
+              try {
+                cache.get(key);
+              } catch (CacheException e) {
+                // Not cached and not stored yet.
+              }
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> writer : writers) {
+        writer.get(30, TimeUnit.SECONDS);
+      }
+
+      assertTrue(cache.size() <= 256, "Size " + cache.size() + " exceeds the capacity");
+      assertTrue(cache.size() > 200);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package com.cache.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cache.expiration.AccessBasedExpiration;
+import com.cache.policies.ConcurrentLRUCacheEvictionPolicy;
+import com.cache.store.InMemoryBackingStore;
+import com.cache.writepolicy.WriteBackPolicy;
+import org.junit.jupiter.api.Test;
+
+class MemoryPressureMonitorTest {
+  @Test
+  void shrinksUnderPressureAndGrowsBackWhenItSubsides() throws Exception {
+    InMemoryBackingStore<String, String> store = new InMemoryBackingStore<>();
+    double[] occupancy = new double[1];
+    // No JVM listeners, so collections during the test cannot resize the cache between the checks.
+    try (MemoryPressureMonitor monitor = new MemoryPressureMonitor(0.8, 0.5, () -> occupancy[0], false);
+        CacheService<String, String> cache = new CacheService<>(100, 0,
+            new ConcurrentLRUCacheEvictionPolicy<>(), store, new WriteBackPolicy<>(store),
+            new AccessBasedExpiration<>(60), new CacheOptions<String, String>().memoryPressureMonitor(monitor))) {
+      for (int i = 0; i < 100; i++) {
+        cache.put("key-" + i, "value-" + i);
+      }
+      occupancy[0] = 0.9;
+      monitor.check();
+      assertEquals(75, cache.getMaximumWeight());
+      assertEquals(75, cache.size());
+      assertEquals("value-0", store.retrieve("key-0")); // Evicted dirty values were written back.
+
+      occupancy[0] = 0.95;
+      monitor.check();
+      assertEquals(56, cache.getMaximumWeight());
+      occupancy[0] = 0.6;
+      monitor.check(); // Between the watermarks: no change.
+      assertEquals(56, cache.getMaximumWeight());
+      occupancy[0] = 0.3;
+      for (int i = 0; i < 5; i++) {
+        monitor.check();
+      }
+      assertEquals(100, cache.getMaximumWeight()); // Never past the configured capacity.
+      assertEquals(2, monitor.shrinkCount());
+      assertEquals(5, monitor.growCount());
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.cache.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cache.expiration.AccessBasedExpiration;
+import com.cache.policies.ConcurrentLRUCacheEvictionPolicy;
+import com.cache.stats.CacheStats;
+import com.cache.store.InMemoryBackingStore;
+import com.cache.writepolicy.WriteThroughPolicy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SegmentedCacheServiceTest {
+  private final InMemoryBackingStore<Integer, Integer> backingStore = new InMemoryBackingStore<>();
+  private final SegmentedCacheService<Integer, Integer> cache = new SegmentedCacheService<>(6, 64, 0,
+      capacity -> new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+      new AccessBasedExpiration<>(60), new CacheOptions<Integer, Integer>().recordStats());
+  private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+    cache.close();
+  }
+
+  @Test
+  void segmentCountIsRoundedUpToAPowerOfTwo() {
+    assertEquals(8, cache.segmentCount());
+  }
+
+  @Test
+  void bulkOperationsSpanSegments() throws Exception {
+    Map<Integer, Integer> entries = new HashMap<>();
+    for (int key = 0; key < 32; key++) {
+      entries.put(key, key * 10);
+    }
+    cache.putAll(entries);
+    assertEquals(32, cache.size());
+    backingStore.store(100, 1_000);
+
+    List<Integer> keys = new ArrayList<>(entries.keySet());
+    keys.add(100); // Loaded from the store.
+    keys.add(101); // Absent everywhere.
+    Map<Integer, Integer> values = cache.getAll(keys);
+    assertEquals(33, values.size());
+    assertEquals(1_000, (int) values.get(100));
+    assertEquals(310, (int) values.get(31));
+
+    CacheStats stats = cache.stats();
+    assertEquals(32, stats.hitCount());
+    assertEquals(2, stats.missCount());
+  }
+
+  @Test
+  void concurrentWritersStayWithinTheSummedCapacity() throws Exception {
+    List<Future<?>> writers = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      int thread = t;
+      writers.add(executor.submit(() -> {
+        for (int i = 0; i < 5_000; i++) {
+          cache.put(thread * 5_000 + i, i);
+        }
+      }));
+    }
+    for (Future<?> writer : writers) {
+      writer.get(30, TimeUnit.SECONDS);
+    }
+    assertTrue(cache.size() <= 64, "Size " + cache.size());
+    assertEquals(cache.size(), cache.weightedSize());
+    assertTrue(cache.stats().evictionCount() >= 40_000 - 64);
+  }
+}
@@ -0,0 +1,130 @@
+package com.cache.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cache.exceptions.CacheException;
+import com.cache.expiration.AccessBasedExpiration;
+import com.cache.policies.ConcurrentLRUCacheEvictionPolicy;
+import com.cache.store.InMemoryBackingStore;
+import com.cache.writepolicy.WriteThroughPolicy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class TieredCacheTest {
+  private final InMemoryBackingStore<String, String> backingStore = new InMemoryBackingStore<>();
+  private final CacheService<String, String> l2 = new CacheService<>(100, 0,
+      new ConcurrentLRUCacheEvictionPolicy<>(), backingStore, new WriteThroughPolicy<>(backingStore),
+      new AccessBasedExpiration<>(60), new CacheOptions<String, String>().recordStats());
+  private final TieredCache<String, String> cache = new TieredCache<>(2, new ConcurrentLRUCacheEvictionPolicy<>(),
+      new AccessBasedExpiration<>(60), l2, new CacheOptions<String, String>().recordStats());
+
+  @AfterEach
+  void tearDown() {
+    cache.close();
+  }
+
+  @Test
+  void l1MissesArePromotedFromL2() throws Exception {
+    backingStore.store("a", "alpha");
+    assertEquals("alpha", cache.get("a")); // Read through both tiers.
+    assertEquals(1, cache.l1().size());
+    assertEquals(1, l2.size());
+
+    assertEquals("alpha", cache.get("a"));
+    assertEquals(1, cache.stats().hitCount());
+    assertEquals(0, l2.stats().hitCount(), "L1 hits do not reach L2");
+  }
+
+  @Test
+  void l1VictimsAreDemotedIntoL2() throws Exception {
+    cache.put("a", "alpha");
+    cache.get("a");
+    l2.remove("a"); // As if L2 had evicted it while L1 served it.
+    cache.put("b", "beta");
+    cache.put("c", "charlie");
+    cache.get("b");
+    cache.get("c"); // Evicts "a" from L1.
+
+    assertEquals(2, cache.l1().size());
+    assertEquals(3, l2.size());
+    long l2Misses = l2.stats().missCount();
+    assertEquals("alpha", cache.get("a"));
+    assertEquals(l2Misses, l2.stats().missCount(), "Served by L2, not the store");
+  }
+
+  @Test
+  void writesInvalidateL1() throws Exception {
+    cache.put("a", "alpha");
+    assertEquals("alpha", cache.get("a"));
+    cache.put("a", "alpha2");
+    assertEquals(0, cache.l1().size());
+    assertEquals("alpha2", backingStore.retrieve("a"));
+    assertEquals("alpha2", cache.get("a"));
+
+    cache.putAll(Map.of("a", "alpha3", "b", "beta"));
+    assertEquals(Map.of("a", "alpha3", "b", "beta"), cache.getAll(List.of("a", "b")));
+  }
+
+  @Test
+  void removeInvalidatesBothTiers() throws Exception {
+    cache.put("a", "alpha");
+    cache.get("a");
+    cache.remove("a");
+    assertEquals(0, cache.size());
+    assertEquals("alpha", cache.get("a")); // Still in the store.
+
+    assertThrows(CacheException.class, () -> cache.get("absent"));
+  }
+
+  @Test
+  void removeWinsOverADemotionOfTheValueL1IsDropping() throws Exception {
+    AtomicBoolean armed = new AtomicBoolean();
+    CountDownLatch dropped = new CountDownLatch(1);
+    CountDownLatch removed = new CountDownLatch(1);
+    ConcurrentLRUCacheEvictionPolicy<String> l1Policy = new ConcurrentLRUCacheEvictionPolicy<>() {
+      @Override
+      public void removeKey(String key) {
+        super.removeKey(key);
+        if (key.equals("a") && armed.compareAndSet(true, false)) {
+          dropped.countDown(); // L1 has dropped "a" but not yet demoted it.
+          try {
+            removed.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }
+    };
+    try (TieredCache<String, String> tiered = new TieredCache<>(1, l1Policy, new AccessBasedExpiration<>(60), l2)) {
+      tiered.put("a", "alpha");
+      tiered.put("b", "beta");
+      tiered.get("a");
+      l2.remove("a"); // As if L2 had evicted it while L1 served it.
+      armed.set(true);
+      Thread evicting = new Thread(() -> {
+        try {
+          tiered.get("b"); // Evicts "a" from L1.
+        } catch (CacheException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      evicting.start();
+      assertTrue(dropped.await(5, TimeUnit.SECONDS), "L1 did not evict \"a\"");
+      backingStore.store("a", "alpha2"); // Updated at the source, then invalidated.
+      tiered.remove("a");
+      removed.countDown();
+      evicting.join();
+
+      assertFalse(l2.remove("a"), "The removed value was demoted back into L2");
+      assertEquals("alpha2", tiered.get("a"));
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.cache.simulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cache.expiration.CreationBasedExpiration;
+import com.cache.policies.LRUCacheEvictionPolicy;
+import com.cache.policies.WTinyLFUCacheEvictionPolicy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SimulatorTest {
+  @TempDir
+  Path directory;
+
+  @Test
+  void binaryTraceReplaysTheTextTraceItWasConvertedFrom() throws Exception {
+    Path text = directory.resolve("trace.txt");
+    Files.writeString(text, "# key time size\n7 1000 64\nuser:42\t1005\n\n7,1010,64\r\n123 1020 8");
+    List<String> fromText = record(new TextTrace(text));
+    assertEquals(4, fromText.size());
+    assertEquals("7 1000 64", fromText.get(0));
+    assertTrue(fromText.get(1).endsWith(" 1005 1"), fromText.get(1)); // Hashed key, default size.
+    assertEquals("123 1020 8", fromText.get(3)); // Last line without a newline.
+
+    Path binary = directory.resolve("trace.bin");
+    assertEquals(4, BinaryTrace.write(new TextTrace(text), binary));
+    assertEquals(fromText, record(new BinaryTrace(binary)));
+  }
+
+  @Test
+  void frequencyAdmissionKeepsPartOfALoopThatDefeatsLru() throws Exception {
+    Trace loop = SyntheticTrace.loop(50_000, 200);
+    List<SimulationResult> results = Simulator.run(loop, List.of(
+        new SimulationConfig("lru", 100, c -> new LRUCacheEvictionPolicy<>()),
+        new SimulationConfig("w-tinylfu", 100, c -> new WTinyLFUCacheEvictionPolicy<>(100))), 2);
+
+    assertEquals(0.0, results.get(0).hitRatio(), 0.01);
+    assertTrue(results.get(1).hitRatio() > 0.2, results.get(1).toString());
+    assertEquals(50_000, results.get(1).accesses());
+  }
+
+  @Test
+  void reportsByteHitsAndExpiresInTraceTime() throws Exception {
+    Path text = directory.resolve("expiring.txt");
+    Files.writeString(text, "1 0 10\n1 500 10\n2 600 30\n1 2500 10\n");
+    SimulationConfig config = new SimulationConfig("lru", 10, c -> new LRUCacheEvictionPolicy<>())
+        .withExpiration(new CreationBasedExpiration<>(1));
+    SimulationResult result = Simulator.simulate(new TextTrace(text), config);
+
+    assertEquals(4, result.accesses());
+    assertEquals(1, result.hits()); // Only the read at 500 ms; the entry expired before 2500 ms.
+    assertEquals(3, result.loads());
+    assertEquals(10.0 / 60, result.byteHitRatio(), 1e-9);
+    assertEquals(2, result.peakLoadsPerSecond());
+  }
+
+  private static List<String> record(Trace trace) throws Exception {
+    List<String> accesses = new ArrayList<>();
+    trace.replay((key, timeMillis, size) -> accesses.add(key + " " + timeMillis + " " + size));
+    return accesses;
+  }
+}
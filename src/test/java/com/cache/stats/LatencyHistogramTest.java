@@ -0,0 +1,37 @@
+package com.cache.stats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  @Test
+  void percentilesAreWithinBucketPrecision() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long nanos = 1; nanos <= 100_000; nanos++) {
+      histogram.record(nanos * 1_000);
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertEquals(100_000, snapshot.count());
+    assertWithin(50_000_000L, snapshot.percentile(0.5));
+    assertWithin(99_000_000L, snapshot.percentile(0.99));
+    assertWithin(100_000_000L, snapshot.percentile(1.0));
+  }
+
+  @Test
+  void emptyAndTinyValues() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.snapshot().percentile(0.99));
+    histogram.record(3);
+    histogram.record(-1); // Clock went backwards; counted as zero.
+    assertEquals(3, histogram.snapshot().percentile(1.0));
+    assertEquals(0, histogram.snapshot().percentile(0.5));
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    assertTrue(actual >= expected && actual <= expected * 1.125, "Expected ~" + expected + " but was " + actual);
+  }
+}
@@ -0,0 +1,65 @@
+package com.cache.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterBackingStoreTest {
+  @Test
+  void filterGrowsAndKeepsItsFalsePositiveRate() {
+    ScalableBloomFilter<String> filter = new ScalableBloomFilter<>(1_000, 0.01);
+    for (int i = 0; i < 50_000; i++) {
+      filter.add("key-" + i);
+    }
+    assertTrue(filter.stageCount() > 1, "stages " + filter.stageCount());
+    for (int i = 0; i < 50_000; i++) {
+      assertTrue(filter.mightContain("key-" + i)); // No false negatives.
+    }
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      if (filter.mightContain("other-" + i)) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 1_000, "false positives " + falsePositives);
+  }
+
+  @Test
+  void stringsWithEqualHashCodesAreToldApart() {
+    ScalableBloomFilter<String> filter = new ScalableBloomFilter<>(1_000, 0.001);
+    filter.add("Aa");
+    assertEquals("Aa".hashCode(), "BB".hashCode());
+    assertTrue(filter.mightContain("Aa"));
+    assertTrue(!filter.mightContain("BB"));
+  }
+
+  @Test
+  void readsOfKeysNeverStoredSkipTheStore() {
+    AtomicInteger reads = new AtomicInteger();
+    InMemoryBackingStore<String, String> counting = new InMemoryBackingStore<>() {
+      @Override
+      public String retrieve(String key) {
+        reads.incrementAndGet();
+        return super.retrieve(key);
+      }
+    };
+    counting.store("old", "before the filter");
+    BloomFilterBackingStore<String, String> store = new BloomFilterBackingStore<>(counting, 100, 0.001);
+    store.store("a", "1");
+    store.storeAll(Map.of("b", "2"));
+
+    assertEquals("1", store.retrieve("a"));
+    assertEquals(null, store.retrieve("missing"));
+    assertEquals(null, store.retrieve("old")); // Not added to the filter yet.
+    store.addKey("old");
+    assertEquals("before the filter", store.retrieve("old"));
+    assertEquals(Map.of("b", "2"), store.retrieveAll(List.of("b", "missing", "also missing")));
+
+    assertEquals(3, reads.get()); // a, old and b.
+    assertEquals(4, store.skippedCount());
+  }
+}
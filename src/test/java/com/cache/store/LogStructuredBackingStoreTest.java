@@ -0,0 +1,82 @@
+package com.cache.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cache.serialization.StringSerializer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogStructuredBackingStoreTest {
+  private static final int SEGMENT_SIZE = 4096;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void valuesSurviveReopen() {
+    try (LogStructuredBackingStore<String, String> store = open()) {
+      for (int i = 0; i < 500; i++) {
+        store.store("key" + i, "value" + i); // Spans several segments.
+      }
+      store.store("key7", "updated");
+      assertNull(store.retrieve("missing"));
+    }
+    try (LogStructuredBackingStore<String, String> store = open()) {
+      assertEquals(500, store.size());
+      assertEquals("value0", store.retrieve("key0"));
+      assertEquals("updated", store.retrieve("key7"));
+      assertEquals("value499", store.retrieve("key499"));
+    }
+  }
+
+  @Test
+  void storeAllWritesEveryEntry() {
+    Map<String, String> entries = new LinkedHashMap<>();
+    for (int i = 0; i < 100; i++) {
+      entries.put("key" + i, "value" + i);
+    }
+    try (LogStructuredBackingStore<String, String> store = open()) {
+      store.storeAll(entries);
+      assertEquals("value42", store.retrieve("key42"));
+    }
+    try (LogStructuredBackingStore<String, String> store = open()) {
+      assertEquals(100, store.size());
+    }
+  }
+
+  @Test
+  void compactionDropsDeadSegments() throws Exception {
+    try (LogStructuredBackingStore<String, String> store = open()) {
+      for (int round = 0; round < 20; round++) {
+        for (int i = 0; i < 10; i++) {
+          store.store("key" + i, "value" + round + "-" + i);
+        }
+      }
+      long before = segmentCount();
+      store.compact();
+      assertTrue(segmentCount() < before, "Segments holding only overwritten records are deleted");
+      assertEquals("value19-3", store.retrieve("key3"));
+    }
+    try (LogStructuredBackingStore<String, String> store = open()) {
+      assertEquals(10, store.size());
+      assertEquals("value19-9", store.retrieve("key9"));
+    }
+  }
+
+  private LogStructuredBackingStore<String, String> open() {
+    return new LogStructuredBackingStore<>(directory, new StringSerializer(), new StringSerializer(), SEGMENT_SIZE);
+  }
+
+  private long segmentCount() throws Exception {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> file.toString().endsWith(".log")).count();
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.cache.writepolicy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cache.store.BackingStore;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class WriteBehindPolicyTest {
+
+  @Test
+  void coalescesRepeatedWritesAndFlushesOnClose() {
+    RecordingStore store = new RecordingStore(0);
+    WriteBehindPolicy<String, String> policy = new WriteBehindPolicy<>(store, 10, 60_000, 100);
+    for (int i = 0; i < 50; i++) {
+      policy.handleWrite("key", "value" + i);
+    }
+    assertEquals("value49", policy.pendingWrite("key"));
+
+    policy.close();
+
+    assertEquals("value49", store.data.get("key"));
+    assertTrue(store.writes.get() <= 2, "Writes were not coalesced: " + store.writes.get());
+    assertNull(policy.pendingWrite("key"));
+  }
+
+  @Test
+  void writesDoNotWaitForSlowStore() {
+    RecordingStore store = new RecordingStore(200);
+    WriteBehindPolicy<String, String> policy = new WriteBehindPolicy<>(store, 5, 10, 1_000);
+    long start = System.nanoTime();
+    for (int i = 0; i < 20; i++) {
+      policy.handleWrite("key" + i, "value");
+    }
+    long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+    assertTrue(elapsedMillis < 200, "handleWrite blocked on the store for " + elapsedMillis + "ms");
+
+    policy.flush();
+    assertEquals(20, store.data.size());
+    policy.close();
+  }
+
+  @Test
+  void retriesFailedStores() {
+    RecordingStore store = new RecordingStore(0);
+    store.failuresRemaining.set(2);
+    WriteBehindPolicy<String, String> policy = new WriteBehindPolicy<>(store, 10, 10, 100);
+    policy.handleWrite("key", "value");
+    policy.close();
+
+    assertEquals("value", store.data.get("key"));
+  }
+
+  @Test
+  void closeReportsWritesItCouldNotPersist() {
+    RecordingStore store = new RecordingStore(0);
+    store.failuresRemaining.set(Integer.MAX_VALUE);
+    WriteBehindPolicy<String, String> policy = new WriteBehindPolicy<>(store, 10, 60_000, 100);
+    policy.handleWrite("key", "value");
+
+    UnpersistedWritesException failure = assertThrows(UnpersistedWritesException.class, policy::close);
+    assertEquals(List.of("key"), failure.getKeys());
+    assertEquals("value", policy.pendingWrite("key")); // Still pending, not silently dropped.
+  }
+
+  private static final class RecordingStore implements BackingStore<String, String> {
+    final Map<String, String> data = new ConcurrentHashMap<>();
+    final AtomicInteger writes = new AtomicInteger();
+    final AtomicInteger failuresRemaining = new AtomicInteger();
+    private final long latencyMillis;
+
+    RecordingStore(long latencyMillis) {
+      this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public void store(String key, String value) {
+      if (failuresRemaining.getAndDecrement() > 0) {
+        throw new IllegalStateException("store unavailable");
+      }
+      try {
+        Thread.sleep(latencyMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      writes.incrementAndGet();
+      data.put(key, value);
+    }
+
+    @Override
+    public String retrieve(String key) {
+      return data.get(key);
+    }
+  }
+}